@@ -87,6 +87,26 @@ public class QuizAttemptController {
         return ResponseEntity.ok(answer);
     }
 
+    /**
+     * Submit several answers of a quiz attempt in one request
+     *
+     * @param bulkRequest Attempt ID and answers
+     * @return Updated answers
+     */
+    @PostMapping("/submit-answers")
+    @PreAuthorize("hasRole('STUDENT') or hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+    @Operation(summary = "Submit answers in bulk", description = "Submit all answers, or the changed answers, of a quiz attempt in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Answers submitted successfully",
+                    content = @Content(schema = @Schema(implementation = StudentAnswerDTO.Response.class))),
+            @ApiResponse(responseCode = "400", description = "Bad request")
+    })
+    public ResponseEntity<List<StudentAnswerDTO.Response>> submitAnswers(
+            @Valid @RequestBody StudentAnswerDTO.BulkSubmitRequest bulkRequest) {
+        List<StudentAnswerDTO.Response> answers = quizAttemptService.submitAnswers(bulkRequest);
+        return ResponseEntity.ok(answers);
+    }
+
     /**
      * Submit a quiz attempt for grading
      *
@@ -263,6 +263,25 @@ public class QuizController {
         return ResponseEntity.ok(analytics);
     }
     
+    /**
+     * Rebuild the analytics of a quiz from its attempt history
+     *
+     * @param id Quiz ID
+     * @return Quiz analytics
+     */
+    @PostMapping("/{id}/analytics/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild quiz analytics", description = "Recompute the statistics of a quiz from all of its attempts")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Quiz analytics rebuilt",
+                    content = @Content(schema = @Schema(implementation = QuizAnalyticsDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Quiz not found")
+    })
+    public ResponseEntity<QuizAnalyticsDTO> rebuildQuizAnalytics(@PathVariable Long id) {
+        QuizAnalyticsDTO analytics = quizAnalyticsService.rebuildQuizAnalytics(id);
+        return ResponseEntity.ok(analytics);
+    }
+    
     /**
      * Get difficulty level of a quiz
      *
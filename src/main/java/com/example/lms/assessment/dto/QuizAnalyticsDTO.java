@@ -20,6 +20,8 @@ public class QuizAnalyticsDTO {
     private Long totalAttempts;
     private Long completedAttempts;
     private Double averageScore;
+    private Double scoreStandardDeviation;
+    private Double averageTimeToComplete; // In minutes
     private Double passRate;
     private Long passedCount;
     private Long failedCount;
@@ -1,5 +1,7 @@
 package com.example.lms.assessment.dto;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -26,6 +28,33 @@ public class StudentAnswerDTO {
         private String textAnswer;
     }
     
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BulkSubmitRequest {
+        @NotNull(message = "Attempt ID is required")
+        private Long attemptId;
+        
+        @Valid
+        @NotEmpty(message = "At least one answer is required")
+        @Builder.Default
+        private List<AnswerItem> answers = new ArrayList<>();
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AnswerItem {
+        @NotNull(message = "Question ID is required")
+        private Long questionId;
+        
+        @Builder.Default
+        private List<Long> selectedOptionIds = new ArrayList<>();
+        private String textAnswer;
+    }
+    
     @Data
     @Builder
     @NoArgsConstructor
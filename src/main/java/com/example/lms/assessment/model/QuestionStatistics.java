@@ -0,0 +1,76 @@
+package com.example.lms.assessment.model;
+
+import com.example.lms.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Answer counters of a question over the completed attempts of its quiz.
+ * Option selection counts are kept as two parallel arrays of option IDs and counts.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "question_statistics", indexes = @Index(name = "idx_question_statistics_quiz", columnList = "quiz_id"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuestionStatistics extends BaseEntity {
+
+    @Column(nullable = false)
+    private Long quizId;
+
+    @Column(nullable = false, unique = true)
+    private Long questionId;
+
+    @Column(nullable = false)
+    private long answerCount;
+
+    @Column(nullable = false)
+    private long correctCount;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long[] optionIds = new long[0];
+
+    @Builder.Default
+    @Column(nullable = false)
+    private long[] optionCounts = new long[0];
+
+    public void adjustAnswers(long answers, long correct) {
+        answerCount = Math.max(0, answerCount + answers);
+        correctCount = Math.max(0, correctCount + correct);
+    }
+
+    public void adjustOption(long optionId, long delta) {
+        // Arrays are replaced rather than modified so the change is always detected by dirty checking
+        int index = indexOfOption(optionId);
+        if (index < 0) {
+            index = optionIds.length;
+            optionIds = Arrays.copyOf(optionIds, index + 1);
+            optionIds[index] = optionId;
+            optionCounts = Arrays.copyOf(optionCounts, index + 1);
+        } else {
+            optionCounts = optionCounts.clone();
+        }
+        optionCounts[index] = Math.max(0, optionCounts[index] + delta);
+    }
+
+    public long getOptionCount(long optionId) {
+        int index = indexOfOption(optionId);
+        return index >= 0 ? optionCounts[index] : 0;
+    }
+
+    private int indexOfOption(long optionId) {
+        for (int i = 0; i < optionIds.length; i++) {
+            if (optionIds[i] == optionId) return i;
+        }
+        return -1;
+    }
+}
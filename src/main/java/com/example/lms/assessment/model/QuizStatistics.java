@@ -0,0 +1,86 @@
+package com.example.lms.assessment.model;
+
+import com.example.lms.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aggregated attempt statistics of a quiz, updated as attempts are submitted and graded
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "quiz_statistics")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuizStatistics extends BaseEntity {
+
+    public static final int SCORE_BUCKETS = 10;
+
+    @Column(nullable = false, unique = true)
+    private Long quizId;
+
+    @Column(nullable = false)
+    private long startedCount;
+
+    @Column(nullable = false)
+    private long passedCount;
+
+    // Completed attempt count, mean and variance of the percentage score
+    @Builder.Default
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "count", column = @Column(name = "completed_count", nullable = false)),
+            @AttributeOverride(name = "mean", column = @Column(name = "score_mean", nullable = false)),
+            @AttributeOverride(name = "m2", column = @Column(name = "score_m2", nullable = false))
+    })
+    private RunningStatistics scores = new RunningStatistics();
+
+    // Duration of completed attempts in minutes
+    @Builder.Default
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "count", column = @Column(name = "duration_count", nullable = false)),
+            @AttributeOverride(name = "mean", column = @Column(name = "duration_mean", nullable = false)),
+            @AttributeOverride(name = "m2", column = @Column(name = "duration_m2", nullable = false))
+    })
+    private RunningStatistics durations = new RunningStatistics();
+
+    // Completed attempts per 10-point percentage range (0-9, 10-19, ..., 90-100)
+    @Builder.Default
+    @Column(nullable = false)
+    private long[] scoreBuckets = new long[SCORE_BUCKETS];
+
+    public static int bucketOf(Double percentageScore) {
+        if (percentageScore == null) return 0;
+        return Math.max(0, Math.min(SCORE_BUCKETS - 1, (int) (percentageScore / 10)));
+    }
+
+    public long getCompletedCount() {
+        return scores.getCount();
+    }
+
+    public void addScore(Double percentageScore, boolean passed) {
+        scores.add(percentageScore != null ? percentageScore : 0.0);
+        adjustBucket(bucketOf(percentageScore), 1);
+        if (passed) passedCount++;
+    }
+
+    public void removeScore(Double percentageScore, boolean passed) {
+        scores.remove(percentageScore != null ? percentageScore : 0.0);
+        adjustBucket(bucketOf(percentageScore), -1);
+        if (passed) passedCount = Math.max(0, passedCount - 1);
+    }
+
+    private void adjustBucket(int bucket, long delta) {
+        // Replace the array so the change is always detected by dirty checking
+        long[] buckets = scoreBuckets.clone();
+        buckets[bucket] = Math.max(0, buckets[bucket] + delta);
+        scoreBuckets = buckets;
+    }
+}
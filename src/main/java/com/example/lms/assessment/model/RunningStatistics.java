@@ -0,0 +1,55 @@
+package com.example.lms.assessment.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running count, mean and variance of a series of values (Welford's algorithm).
+ * Values can also be removed, which allows a value to be replaced after regrading.
+ */
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunningStatistics {
+
+    @Column(nullable = false)
+    private long count;
+
+    @Column(nullable = false)
+    private double mean;
+
+    @Column(nullable = false)
+    private double m2; // Sum of squared differences from the mean
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    public void remove(double value) {
+        if (count <= 1) {
+            count = 0;
+            mean = 0.0;
+            m2 = 0.0;
+            return;
+        }
+        double oldMean = mean;
+        count--;
+        mean = (oldMean * (count + 1) - value) / count;
+        m2 = Math.max(0.0, m2 - (value - oldMean) * (value - mean));
+    }
+
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0.0;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+}
@@ -15,6 +15,9 @@ public interface AnswerOptionRepository extends JpaRepository<AnswerOption, Long
     
     List<AnswerOption> findByQuestionIdOrderByOrderIndexAsc(Long questionId);
     
+    @Query("SELECT ao FROM AnswerOption ao JOIN FETCH ao.question q WHERE q.quiz.id = :quizId ORDER BY q.orderIndex ASC, ao.orderIndex ASC")
+    List<AnswerOption> findByQuizIdOrderByOrderIndexAsc(@Param("quizId") Long quizId);
+    
     @Query("SELECT MAX(ao.orderIndex) FROM AnswerOption ao WHERE ao.question.id = :questionId")
     Integer findMaxOrderIndexByQuestionId(@Param("questionId") Long questionId);
     
@@ -0,0 +1,20 @@
+package com.example.lms.assessment.repository;
+
+import com.example.lms.assessment.model.QuestionStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface QuestionStatisticsRepository extends JpaRepository<QuestionStatistics, Long> {
+    
+    List<QuestionStatistics> findByQuizId(Long quizId);
+    
+    Optional<QuestionStatistics> findByQuestionId(Long questionId);
+    
+    void deleteByQuizId(Long quizId);
+    
+    void deleteByQuestionId(Long questionId);
+}
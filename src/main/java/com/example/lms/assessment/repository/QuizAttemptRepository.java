@@ -34,4 +34,10 @@ public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long>
     Double findHighestScoreByQuizIdAndStudentId(@Param("quizId") Long quizId, @Param("studentId") Long studentId);
 
     Long countByQuizId(Long quizId);
+    
+    /**
+     * @return Rows of (percentage score, passed, started at, submitted at) for the completed attempts of a quiz
+     */
+    @Query("SELECT qa.percentageScore, qa.passed, qa.startedAt, qa.submittedAt FROM QuizAttempt qa WHERE qa.quiz.id = :quizId AND qa.status = 'COMPLETED'")
+    List<Object[]> findCompletedAttemptScores(@Param("quizId") Long quizId);
 }
\ No newline at end of file
@@ -23,4 +23,16 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
     
     @Query("SELECT COUNT(q) > 0 FROM Quiz q WHERE q.title = :title AND q.course.id = :courseId AND (:quizId IS NULL OR q.id != :quizId)")
     boolean existsByTitleAndCourseIdAndIdNot(@Param("title") String title, @Param("courseId") Long courseId, @Param("quizId") Long quizId);
+
+    /**
+     * Content version of a quiz: its last modification together with the count and last
+     * modification of its questions and of their options. Any edit, addition or removal
+     * changes it. Null if the quiz does not exist.
+     */
+    @Query(value = "SELECT CONCAT(q.updated_at, '|', qs.n, '|', qs.t, '|', os.n, '|', os.t) FROM quizzes q " +
+                   "CROSS JOIN (SELECT COUNT(*) AS n, MAX(updated_at) AS t FROM questions WHERE quiz_id = :quizId) qs " +
+                   "CROSS JOIN (SELECT COUNT(*) AS n, MAX(ao.updated_at) AS t FROM answer_options ao " +
+                   "JOIN questions qu ON qu.id = ao.question_id WHERE qu.quiz_id = :quizId) os " +
+                   "WHERE q.id = :quizId", nativeQuery = true)
+    String findContentVersion(@Param("quizId") Long quizId);
 }
\ No newline at end of file
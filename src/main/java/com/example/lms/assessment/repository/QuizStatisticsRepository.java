@@ -0,0 +1,26 @@
+package com.example.lms.assessment.repository;
+
+import com.example.lms.assessment.model.QuizStatistics;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface QuizStatisticsRepository extends JpaRepository<QuizStatistics, Long> {
+    
+    Optional<QuizStatistics> findByQuizId(Long quizId);
+    
+    /**
+     * Lock the statistics row of a quiz; all updates to the quiz and question statistics go through this lock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM QuizStatistics s WHERE s.quizId = :quizId")
+    Optional<QuizStatistics> findByQuizIdForUpdate(@Param("quizId") Long quizId);
+    
+    void deleteByQuizId(Long quizId);
+}
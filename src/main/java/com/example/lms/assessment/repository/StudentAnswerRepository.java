@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,14 +17,43 @@ public interface StudentAnswerRepository extends JpaRepository<StudentAnswer, Lo
     
     Optional<StudentAnswer> findByAttemptIdAndQuestionId(Long attemptId, Long questionId);
     
+    /**
+     * @return Pairs of (question id, selected option id) for every selection in the attempt
+     */
+    @Query("SELECT sa.question.id, ao.id FROM StudentAnswer sa JOIN sa.selectedOptions ao WHERE sa.attempt.id = :attemptId")
+    List<Object[]> findSelectedOptionIdsByAttemptId(@Param("attemptId") Long attemptId);
+    
+    /**
+     * @return Pairs of (question id, text answer) for every answer in the attempt that has a text answer
+     */
+    @Query("SELECT sa.question.id, sa.textAnswer FROM StudentAnswer sa WHERE sa.attempt.id = :attemptId AND sa.textAnswer IS NOT NULL")
+    List<Object[]> findTextAnswersByAttemptId(@Param("attemptId") Long attemptId);
+    
     List<StudentAnswer> findByQuestionId(Long questionId);
     
+    @Query("SELECT DISTINCT sa FROM StudentAnswer sa LEFT JOIN FETCH sa.selectedOptions WHERE sa.attempt.id = :attemptId AND sa.question.id IN :questionIds")
+    List<StudentAnswer> findByAttemptIdAndQuestionIdInWithOptions(@Param("attemptId") Long attemptId, @Param("questionIds") Collection<Long> questionIds);
+    
     @Query("SELECT COUNT(sa) FROM StudentAnswer sa WHERE sa.question.id = :questionId AND sa.isCorrect = true")
     Long countCorrectAnswers(@Param("questionId") Long questionId);
     
     @Query("SELECT COUNT(sa) FROM StudentAnswer sa WHERE sa.question.id = :questionId")
     Long countTotalAnswers(@Param("questionId") Long questionId);
     
+    /**
+     * @return Rows of (question id, answer count, correct count) over the completed attempts of a quiz
+     */
+    @Query("SELECT sa.question.id, COUNT(sa), SUM(CASE WHEN sa.isCorrect = true THEN 1 ELSE 0 END) FROM StudentAnswer sa " +
+           "WHERE sa.attempt.quiz.id = :quizId AND sa.attempt.status = 'COMPLETED' GROUP BY sa.question.id")
+    List<Object[]> countCompletedAnswersByQuestion(@Param("quizId") Long quizId);
+    
+    /**
+     * @return Rows of (question id, option id, selection count) over the completed attempts of a quiz
+     */
+    @Query("SELECT sa.question.id, ao.id, COUNT(sa) FROM StudentAnswer sa JOIN sa.selectedOptions ao " +
+           "WHERE sa.attempt.quiz.id = :quizId AND sa.attempt.status = 'COMPLETED' GROUP BY sa.question.id, ao.id")
+    List<Object[]> countCompletedSelectionsByOption(@Param("quizId") Long quizId);
+    
     @Query("SELECT COUNT(sa) FROM StudentAnswer sa WHERE sa.attempt.id = :attemptId AND sa.manuallyGraded = true AND sa.score IS NOT NULL")
     Long countGradedAnswers(@Param("attemptId") Long attemptId);
     
@@ -9,13 +9,14 @@ import com.example.lms.assessment.model.Quiz;
 import com.example.lms.assessment.repository.AnswerOptionRepository;
 import com.example.lms.assessment.repository.QuestionRepository;
 import com.example.lms.assessment.repository.QuizRepository;
+import com.example.lms.assessment.snapshot.QuizSnapshot;
 import com.example.lms.common.Exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -28,6 +29,8 @@ public class QuestionServiceImpl implements QuestionService {
     private final QuestionRepository questionRepository;
     private final AnswerOptionRepository answerOptionRepository;
     private final QuizRepository quizRepository;
+    private final QuizSnapshotService quizSnapshotService;
+    private final QuizStatisticsService quizStatisticsService;
 
     @Override
     @Transactional
@@ -55,6 +58,7 @@ public class QuestionServiceImpl implements QuestionService {
         
         // Save the question first to get an ID
         Question savedQuestion = questionRepository.save(question);
+        quizSnapshotService.evict(quiz.getId());
         
         // Process answer options
         List<AnswerOption> options = new ArrayList<>();
@@ -123,83 +127,37 @@ public class QuestionServiceImpl implements QuestionService {
     @Override
     @Transactional(readOnly = true)
     public List<QuestionDTO.Response> getQuestionsByQuizId(Long quizId) {
-        // Check if quiz exists
-        if (!quizRepository.existsById(quizId)) {
-            throw new ResourceNotFoundException("Quiz not found with id: " + quizId);
-        }
-        
-        List<Question> questions = questionRepository.findByQuizIdOrderByOrderIndexAsc(quizId);
+        // Served from the cached quiz snapshot, which also checks that the quiz exists
+        QuizSnapshot snapshot = quizSnapshotService.getSnapshot(quizId);
         
-        // Fetch all options for these questions in one query for efficiency
-        List<Long> questionIds = questions.stream()
-                .map(Question::getId)
-                .collect(Collectors.toList());
-        
-        List<AnswerOption> allOptions = new ArrayList<>();
-        if (!questionIds.isEmpty()) {
-            allOptions = answerOptionRepository.findAll().stream()
-                    .filter(option -> questionIds.contains(option.getQuestion().getId()))
-                    .collect(Collectors.toList());
+        List<QuestionDTO.Response> questions = new ArrayList<>(snapshot.getQuestionCount());
+        for (int q = 0; q < snapshot.getQuestionCount(); q++) {
+            questions.add(mapToResponseDTO(snapshot, q));
         }
-        
-        // Group options by question ID
-        Map<Long, List<AnswerOption>> optionsByQuestionId = allOptions.stream()
-                .collect(Collectors.groupingBy(option -> option.getQuestion().getId()));
-        
-        // Map questions to DTOs
-        return questions.stream()
-                .map(question -> {
-                    List<AnswerOption> options = optionsByQuestionId.getOrDefault(question.getId(), new ArrayList<>());
-                    options.sort(Comparator.comparing(AnswerOption::getOrderIndex));
-                    
-                    return mapToResponseDTO(question, options);
-                })
-                .collect(Collectors.toList());
+        return questions;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<QuestionDTO.StudentView> getQuestionsForStudent(Long quizId) {
         // Check if quiz exists and is published
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new ResourceNotFoundException("Quiz not found with id: " + quizId));
+        QuizSnapshot snapshot = quizSnapshotService.getSnapshot(quizId);
         
-        if (!quiz.isPublished()) {
+        if (!snapshot.isPublished()) {
             throw new ResourceNotFoundException("Quiz not found or not available");
         }
         
-        List<Question> questions = questionRepository.findByQuizIdOrderByOrderIndexAsc(quizId);
-        
-        // If quiz should randomize questions, shuffle the list
-        if (quiz.isRandomizeQuestions()) {
-            java.util.Collections.shuffle(questions);
+        List<QuestionDTO.StudentView> questions = new ArrayList<>(snapshot.getQuestionCount());
+        for (int q = 0; q < snapshot.getQuestionCount(); q++) {
+            questions.add(mapToStudentViewDTO(snapshot, q));
         }
         
-        // Fetch all options for these questions in one query
-        List<Long> questionIds = questions.stream()
-                .map(Question::getId)
-                .collect(Collectors.toList());
-        
-        List<AnswerOption> allOptions = new ArrayList<>();
-        if (!questionIds.isEmpty()) {
-            allOptions = answerOptionRepository.findAll().stream()
-                    .filter(option -> questionIds.contains(option.getQuestion().getId()))
-                    .collect(Collectors.toList());
+        // If quiz should randomize questions, shuffle the list
+        if (snapshot.isRandomizeQuestions()) {
+            Collections.shuffle(questions);
         }
         
-        // Group options by question ID
-        Map<Long, List<AnswerOption>> optionsByQuestionId = allOptions.stream()
-                .collect(Collectors.groupingBy(option -> option.getQuestion().getId()));
-        
-        // Map questions to student view DTOs
-        return questions.stream()
-                .map(question -> {
-                    List<AnswerOption> options = optionsByQuestionId.getOrDefault(question.getId(), new ArrayList<>());
-                    options.sort(Comparator.comparing(AnswerOption::getOrderIndex));
-                    
-                    return mapToStudentViewDTO(question, options);
-                })
-                .collect(Collectors.toList());
+        return questions;
     }
 
     @Override
@@ -208,11 +166,14 @@ public class QuestionServiceImpl implements QuestionService {
         Question question = questionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Question not found with id: " + id));
         
+        quizSnapshotService.evict(question.getQuiz().getId());
+        
         // Check if quiz is changing
         if (!question.getQuiz().getId().equals(questionDTO.getQuizId())) {
             Quiz newQuiz = quizRepository.findById(questionDTO.getQuizId())
                     .orElseThrow(() -> new ResourceNotFoundException("Quiz not found with id: " + questionDTO.getQuizId()));
             question.setQuiz(newQuiz);
+            quizSnapshotService.evict(newQuiz.getId());
         }
         
         // Update question fields
@@ -341,15 +302,16 @@ public class QuestionServiceImpl implements QuestionService {
     @Override
     @Transactional
     public void deleteQuestion(Long id) {
-        if (!questionRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Question not found with id: " + id);
-        }
+        Question question = questionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Question not found with id: " + id));
+        quizSnapshotService.evict(question.getQuiz().getId());
         
         // Delete all associated options first
         answerOptionRepository.deleteByQuestionId(id);
         
         // Delete the question
         questionRepository.deleteById(id);
+        quizStatisticsService.deleteQuestionStatistics(id);
     }
 
     @Override
@@ -381,6 +343,7 @@ public class QuestionServiceImpl implements QuestionService {
         }
         
         // Return updated question list
+        quizSnapshotService.evict(quizId);
         return getQuestionsByQuizId(quizId);
     }
     
@@ -411,24 +374,51 @@ public class QuestionServiceImpl implements QuestionService {
                 .build();
     }
     
-    // Helper method to map Question entity to QuestionDTO.StudentView
-    private QuestionDTO.StudentView mapToStudentViewDTO(Question question, List<AnswerOption> options) {
+    // Helper method to map a snapshot question to QuestionDTO.Response
+    private QuestionDTO.Response mapToResponseDTO(QuizSnapshot snapshot, int q) {
+        List<AnswerOptionDTO.Response> optionDTOs = new ArrayList<>();
+        for (int o = snapshot.getOptionStart(q); o < snapshot.getOptionEnd(q); o++) {
+            optionDTOs.add(AnswerOptionDTO.Response.builder()
+                    .id(snapshot.getOptionId(o))
+                    .text(snapshot.getOptionText(o))
+                    .isCorrect(snapshot.isOptionCorrect(o))
+                    .feedback(snapshot.getOptionFeedback(o))
+                    .orderIndex(snapshot.getOptionOrder(o))
+                    .questionId(snapshot.getQuestionId(q))
+                    .build());
+        }
+        
+        return QuestionDTO.Response.builder()
+                .id(snapshot.getQuestionId(q))
+                .text(snapshot.getQuestionText(q))
+                .type(snapshot.getQuestionType(q))
+                .points(snapshot.getQuestionPoints(q))
+                .orderIndex(snapshot.getQuestionOrder(q))
+                .feedback(snapshot.getQuestionFeedback(q))
+                .quizId(snapshot.getQuizId())
+                .options(optionDTOs)
+                .build();
+    }
+    
+    // Helper method to map a snapshot question to QuestionDTO.StudentView
+    private QuestionDTO.StudentView mapToStudentViewDTO(QuizSnapshot snapshot, int q) {
         // Map answer options (without revealing which ones are correct)
-        List<AnswerOptionDTO.StudentView> optionDTOs = options.stream()
-                .map(option -> AnswerOptionDTO.StudentView.builder()
-                        .id(option.getId())
-                        .text(option.getText())
-                        .orderIndex(option.getOrderIndex())
-                        .build())
-                .collect(Collectors.toList());
+        List<AnswerOptionDTO.StudentView> optionDTOs = new ArrayList<>();
+        for (int o = snapshot.getOptionStart(q); o < snapshot.getOptionEnd(q); o++) {
+            optionDTOs.add(AnswerOptionDTO.StudentView.builder()
+                    .id(snapshot.getOptionId(o))
+                    .text(snapshot.getOptionText(o))
+                    .orderIndex(snapshot.getOptionOrder(o))
+                    .build());
+        }
         
         // Build student view of question
         return QuestionDTO.StudentView.builder()
-                .id(question.getId())
-                .text(question.getText())
-                .type(question.getType())
-                .points(question.getPoints())
-                .orderIndex(question.getOrderIndex())
+                .id(snapshot.getQuestionId(q))
+                .text(snapshot.getQuestionText(q))
+                .type(snapshot.getQuestionType(q))
+                .points(snapshot.getQuestionPoints(q))
+                .orderIndex(snapshot.getQuestionOrder(q))
                 .options(optionDTOs)
                 .build();
     }
@@ -15,6 +15,14 @@ public interface QuizAnalyticsService {
      */
     QuizAnalyticsDTO generateQuizAnalytics(Long quizId);
     
+    /**
+     * Recompute the statistics of a quiz from its attempt history
+     *
+     * @param quizId Quiz ID
+     * @return Quiz analytics after the rebuild
+     */
+    QuizAnalyticsDTO rebuildQuizAnalytics(Long quizId);
+    
     /**
      * Get difficulty level of a quiz based on student performance
      *
@@ -1,275 +1,208 @@
 package com.example.lms.assessment.service;
 
 import com.example.lms.assessment.dto.QuizAnalyticsDTO;
-import com.example.lms.assessment.model.*;
-import com.example.lms.assessment.repository.*;
+import com.example.lms.assessment.model.Question;
+import com.example.lms.assessment.model.QuestionStatistics;
+import com.example.lms.assessment.model.QuizStatistics;
+import com.example.lms.assessment.repository.QuestionRepository;
+import com.example.lms.assessment.repository.QuizRepository;
+import com.example.lms.assessment.snapshot.QuizSnapshot;
 import com.example.lms.common.Exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class QuizAnalyticsServiceImpl implements QuizAnalyticsService {
 
+    // Score ranges of the distribution, one per QuizStatistics score bucket
+    private static final String[] SCORE_RANGES = {
+        "0-9", "10-19", "20-29", "30-39", "40-49",
+        "50-59", "60-69", "70-79", "80-89", "90-100"
+    };
+
     private final QuizRepository quizRepository;
     private final QuestionRepository questionRepository;
-    private final AnswerOptionRepository answerOptionRepository;
-    private final QuizAttemptRepository quizAttemptRepository;
-    private final StudentAnswerRepository studentAnswerRepository;
+    private final QuizSnapshotService quizSnapshotService;
+    private final QuizStatisticsService quizStatisticsService;
 
     @Override
     @Transactional(readOnly = true)
     public QuizAnalyticsDTO generateQuizAnalytics(Long quizId) {
-        // Verify quiz exists
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new ResourceNotFoundException("Quiz not found with id: " + quizId));
+        // Quiz structure comes from the cached snapshot (which also verifies the quiz exists),
+        // the numbers from the incrementally maintained statistics
+        QuizSnapshot snapshot = quizSnapshotService.getSnapshot(quizId);
+        QuizStatistics statistics = quizStatisticsService.getQuizStatistics(quizId);
+        Map<Long, QuestionStatistics> questionStatistics = quizStatisticsService.getQuestionStatistics(quizId);
         
         // Get basic quiz metrics
-        Long totalAttempts = quizAttemptRepository.countByQuizId(quizId);
-        Long completedAttempts = quizAttemptRepository.countCompletedAttempts(quizId);
-        Double averageScore = quizAttemptRepository.calculateAverageScore(quizId);
-        
-        // Calculate pass rate
-        Long passedCount = quizAttemptRepository.countPassedAttempts(quizId);
-        Long failedCount = completedAttempts - passedCount;
+        long completedAttempts = statistics.getCompletedCount();
+        long passedCount = statistics.getPassedCount();
         Double passRate = completedAttempts > 0 ? (double) passedCount / completedAttempts * 100 : 0.0;
         
-        // Create score distribution
-        Map<String, Double> scoreDistribution = generateScoreDistribution(quizId);
-        
-        // Generate question analytics
-        List<QuizAnalyticsDTO.QuestionAnalyticsDTO> questionAnalytics = generateQuestionAnalytics(quizId);
-        
         // Build the complete analytics DTO
         return QuizAnalyticsDTO.builder()
                 .quizId(quizId)
-                .quizTitle(quiz.getTitle())
-                .totalAttempts(totalAttempts)
+                .quizTitle(snapshot.getTitle())
+                .totalAttempts(statistics.getStartedCount())
                 .completedAttempts(completedAttempts)
-                .averageScore(averageScore != null ? averageScore : 0.0)
+                .averageScore(statistics.getScores().getMean())
+                .scoreStandardDeviation(statistics.getScores().getStandardDeviation())
+                .averageTimeToComplete(statistics.getDurations().getMean())
                 .passRate(passRate)
                 .passedCount(passedCount)
-                .failedCount(failedCount)
-                .scoreDistribution(scoreDistribution)
-                .questionAnalytics(questionAnalytics)
+                .failedCount(completedAttempts - passedCount)
+                .scoreDistribution(generateScoreDistribution(statistics))
+                .questionAnalytics(generateQuestionAnalytics(snapshot, questionStatistics))
                 .build();
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Double calculateQuizDifficulty(Long quizId) {
+    @Transactional
+    public QuizAnalyticsDTO rebuildQuizAnalytics(Long quizId) {
         // Verify quiz exists
         if (!quizRepository.existsById(quizId)) {
             throw new ResourceNotFoundException("Quiz not found with id: " + quizId);
         }
         
-        // Calculate average score as inverse indicator of difficulty (higher score = lower difficulty)
-        Double averageScore = quizAttemptRepository.calculateAverageScore(quizId);
+        quizStatisticsService.rebuild(quizId);
+        return generateQuizAnalytics(quizId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Double calculateQuizDifficulty(Long quizId) {
+        QuizStatistics statistics = getStatistics(quizId);
         
         // If no attempts, return neutral difficulty
-        if (averageScore == null) {
+        if (statistics.getCompletedCount() == 0) {
             return 50.0;
         }
         
         // Convert to difficulty (100 - average percentage score)
         // This way, 0 is easiest, 100 is hardest
-        return 100.0 - averageScore;
+        return 100.0 - statistics.getScores().getMean();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Double calculateCompletionRate(Long quizId) {
-        // Verify quiz exists
-        if (!quizRepository.existsById(quizId)) {
-            throw new ResourceNotFoundException("Quiz not found with id: " + quizId);
-        }
-        
-        Long totalAttempts = quizAttemptRepository.countByQuizId(quizId);
-        Long completedAttempts = quizAttemptRepository.countCompletedAttempts(quizId);
+        QuizStatistics statistics = getStatistics(quizId);
         
-        if (totalAttempts == 0) {
+        if (statistics.getStartedCount() == 0) {
             return 0.0;
         }
         
-        return (double) completedAttempts / totalAttempts * 100;
+        return (double) statistics.getCompletedCount() / statistics.getStartedCount() * 100;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Double calculatePassRate(Long quizId) {
-        // Verify quiz exists
-        if (!quizRepository.existsById(quizId)) {
-            throw new ResourceNotFoundException("Quiz not found with id: " + quizId);
-        }
+        QuizStatistics statistics = getStatistics(quizId);
         
-        Long completedAttempts = quizAttemptRepository.countCompletedAttempts(quizId);
-        Long passedAttempts = quizAttemptRepository.countPassedAttempts(quizId);
-        
-        if (completedAttempts == 0) {
+        if (statistics.getCompletedCount() == 0) {
             return 0.0;
         }
         
-        return (double) passedAttempts / completedAttempts * 100;
+        return (double) statistics.getPassedCount() / statistics.getCompletedCount() * 100;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Double calculateAverageTimeToComplete(Long quizId) {
-        // Verify quiz exists
-        if (!quizRepository.existsById(quizId)) {
-            throw new ResourceNotFoundException("Quiz not found with id: " + quizId);
-        }
-        
-        // Get all completed attempts
-        List<QuizAttempt> completedAttempts = quizAttemptRepository.findByQuizId(quizId).stream()
-                .filter(attempt -> attempt.getStatus() == AttemptStatus.COMPLETED && attempt.getSubmittedAt() != null)
-                .collect(Collectors.toList());
-        
-        if (completedAttempts.isEmpty()) {
-            return 0.0;
-        }
-        
-        // Calculate average duration in minutes
-        double totalMinutes = 0.0;
-        for (QuizAttempt attempt : completedAttempts) {
-            Duration duration = Duration.between(attempt.getStartedAt(), attempt.getSubmittedAt());
-            totalMinutes += duration.toMinutes();
-        }
-        
-        return totalMinutes / completedAttempts.size();
+        // Average duration in minutes
+        return getStatistics(quizId).getDurations().getMean();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Double calculateQuestionDifficulty(Long questionId) {
-        // Verify question exists
-        if (!questionRepository.existsById(questionId)) {
-            throw new ResourceNotFoundException("Question not found with id: " + questionId);
-        }
+        Question question = questionRepository.findById(questionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Question not found with id: " + questionId));
         
-        // Calculate percentage of correct answers
-        Long totalAnswers = studentAnswerRepository.countTotalAnswers(questionId);
-        Long correctAnswers = studentAnswerRepository.countCorrectAnswers(questionId);
+        QuestionStatistics statistics = quizStatisticsService.getQuestionStatistics(question.getQuiz().getId()).get(questionId);
         
-        if (totalAnswers == 0) {
+        if (statistics == null || statistics.getAnswerCount() == 0) {
             return 50.0; // Neutral difficulty if no data
         }
         
         // Difficulty = 100 - percentage correct
-        Double percentageCorrect = (double) correctAnswers / totalAnswers * 100;
+        Double percentageCorrect = (double) statistics.getCorrectCount() / statistics.getAnswerCount() * 100;
         return 100.0 - percentageCorrect;
     }
     
+    private QuizStatistics getStatistics(Long quizId) {
+        // Verify quiz exists
+        if (!quizRepository.existsById(quizId)) {
+            throw new ResourceNotFoundException("Quiz not found with id: " + quizId);
+        }
+        return quizStatisticsService.getQuizStatistics(quizId);
+    }
+    
     // Helper method to generate score distribution (for charts)
-    private Map<String, Double> generateScoreDistribution(Long quizId) {
+    private Map<String, Double> generateScoreDistribution(QuizStatistics statistics) {
         Map<String, Double> distribution = new LinkedHashMap<>();
+        long total = statistics.getCompletedCount();
+        long[] buckets = statistics.getScoreBuckets();
         
-        // Define score ranges
-        String[] ranges = {
-            "0-9", "10-19", "20-29", "30-39", "40-49", 
-            "50-59", "60-69", "70-79", "80-89", "90-100"
-        };
-        
-        // Initialize all ranges with 0
-        for (String range : ranges) {
-            distribution.put(range, 0.0);
-        }
-        
-        // Get completed attempts
-        List<QuizAttempt> completedAttempts = quizAttemptRepository.findByQuizId(quizId).stream()
-                .filter(attempt -> attempt.getStatus() == AttemptStatus.COMPLETED)
-                .collect(Collectors.toList());
-        
-        if (completedAttempts.isEmpty()) {
-            return distribution;
-        }
-        
-        // Count attempts in each range
-        Map<String, Integer> counts = new HashMap<>();
-        for (String range : ranges) {
-            counts.put(range, 0);
-        }
-        
-        for (QuizAttempt attempt : completedAttempts) {
-            Double score = attempt.getPercentageScore();
-            String range = getScoreRange(score, ranges);
-            counts.put(range, counts.get(range) + 1);
-        }
-        
-        // Convert to percentages
-        int total = completedAttempts.size();
-        for (String range : ranges) {
-            distribution.put(range, (double) counts.get(range) / total * 100);
+        // Convert bucket counts to percentages
+        for (int i = 0; i < SCORE_RANGES.length; i++) {
+            distribution.put(SCORE_RANGES[i], total > 0 ? (double) buckets[i] / total * 100 : 0.0);
         }
         
         return distribution;
     }
     
-    // Helper method to determine score range
-    private String getScoreRange(Double score, String[] ranges) {
-        if (score == null) return ranges[0];
-        
-        int rangeIndex = Math.min(9, (int) (score / 10));
-        return ranges[rangeIndex];
-    }
-    
     // Helper method to generate question analytics
-    private List<QuizAnalyticsDTO.QuestionAnalyticsDTO> generateQuestionAnalytics(Long quizId) {
-        // Get all questions for the quiz
-        List<Question> questions = questionRepository.findByQuizIdOrderByOrderIndexAsc(quizId);
+    private List<QuizAnalyticsDTO.QuestionAnalyticsDTO> generateQuestionAnalytics(
+            QuizSnapshot snapshot, Map<Long, QuestionStatistics> questionStatistics) {
+        List<QuizAnalyticsDTO.QuestionAnalyticsDTO> questionAnalytics = new ArrayList<>(snapshot.getQuestionCount());
         
-        return questions.stream().map(question -> {
-            Long questionId = question.getId();
+        for (int q = 0; q < snapshot.getQuestionCount(); q++) {
+            Long questionId = snapshot.getQuestionId(q);
+            QuestionStatistics statistics = questionStatistics.get(questionId);
             
             // Get answer statistics
-            Long totalAnswers = studentAnswerRepository.countTotalAnswers(questionId);
-            Long correctAnswers = studentAnswerRepository.countCorrectAnswers(questionId);
-            Double correctPercentage = totalAnswers > 0 ? 
+            long totalAnswers = statistics != null ? statistics.getAnswerCount() : 0;
+            long correctAnswers = statistics != null ? statistics.getCorrectCount() : 0;
+            Double correctPercentage = totalAnswers > 0 ?
                     (double) correctAnswers / totalAnswers * 100 : 0.0;
             
             // Generate option analytics
-            List<QuizAnalyticsDTO.OptionAnalyticsDTO> optionAnalytics = 
-                    generateOptionAnalytics(questionId, totalAnswers);
+            List<QuizAnalyticsDTO.OptionAnalyticsDTO> optionAnalytics = new ArrayList<>();
+            for (int o = snapshot.getOptionStart(q); o < snapshot.getOptionEnd(q); o++) {
+                long timesSelected = statistics != null ? statistics.getOptionCount(snapshot.getOptionId(o)) : 0;
+                
+                // Calculate selection percentage
+                Double selectionPercentage = totalAnswers > 0 ?
+                        (double) timesSelected / totalAnswers * 100 : 0.0;
+                
+                optionAnalytics.add(QuizAnalyticsDTO.OptionAnalyticsDTO.builder()
+                        .optionId(snapshot.getOptionId(o))
+                        .optionText(snapshot.getOptionText(o))
+                        .isCorrect(snapshot.isOptionCorrect(o))
+                        .timesSelected(timesSelected)
+                        .selectionPercentage(selectionPercentage)
+                        .build());
+            }
             
-            return QuizAnalyticsDTO.QuestionAnalyticsDTO.builder()
+            questionAnalytics.add(QuizAnalyticsDTO.QuestionAnalyticsDTO.builder()
                     .questionId(questionId)
-                    .questionText(question.getText())
+                    .questionText(snapshot.getQuestionText(q))
                     .correctPercentage(correctPercentage)
                     .totalAnswers(totalAnswers)
                     .correctAnswers(correctAnswers)
                     .optionAnalytics(optionAnalytics)
-                    .build();
-        }).collect(Collectors.toList());
-    }
-    
-    // Helper method to generate option analytics
-    private List<QuizAnalyticsDTO.OptionAnalyticsDTO> generateOptionAnalytics(Long questionId, Long totalAnswers) {
-        // Get all options for the question
-        List<AnswerOption> options = answerOptionRepository.findByQuestionIdOrderByOrderIndexAsc(questionId);
+                    .build());
+        }
         
-        return options.stream().map(option -> {
-            Long optionId = option.getId();
-            
-            // Count how many times this option was selected
-            Long timesSelected = answerOptionRepository.countTimesSelected(optionId);
-            
-            // Calculate selection percentage
-            Double selectionPercentage = totalAnswers > 0 ? 
-                    (double) timesSelected / totalAnswers * 100 : 0.0;
-            
-            return QuizAnalyticsDTO.OptionAnalyticsDTO.builder()
-                    .optionId(optionId)
-                    .optionText(option.getText())
-                    .isCorrect(option.isCorrect())
-                    .timesSelected(timesSelected)
-                    .selectionPercentage(selectionPercentage)
-                    .build();
-        }).collect(Collectors.toList());
+        return questionAnalytics;
     }
-}
\ No newline at end of file
+}
@@ -31,6 +31,15 @@ public interface QuizAttemptService {
      */
     StudentAnswerDTO.Response submitAnswer(StudentAnswerDTO.SubmitRequest answerRequest);
     
+    /**
+     * Submit several answers of a quiz attempt at once. Answers are validated and graded
+     * together; if any answer is invalid, none are saved.
+     *
+     * @param bulkRequest Attempt ID and answers
+     * @return Updated answers, in request order
+     */
+    List<StudentAnswerDTO.Response> submitAnswers(StudentAnswerDTO.BulkSubmitRequest bulkRequest);
+    
     /**
      * Submit a quiz attempt for grading
      *
@@ -10,6 +10,7 @@ import com.example.lms.assessment.repository.QuestionRepository;
 import com.example.lms.assessment.repository.QuizAttemptRepository;
 import com.example.lms.assessment.repository.QuizRepository;
 import com.example.lms.assessment.repository.StudentAnswerRepository;
+import com.example.lms.assessment.snapshot.QuizSnapshot;
 import com.example.lms.common.Exception.ResourceNotFoundException;
 import com.example.lms.user.model.User;
 import com.example.lms.user.repository.UserRepository;
@@ -19,9 +20,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -35,6 +40,8 @@ public class QuizAttemptServiceImpl implements QuizAttemptService {
     private final QuestionRepository questionRepository;
     private final StudentAnswerRepository studentAnswerRepository;
     private final AnswerOptionRepository answerOptionRepository;
+    private final QuizSnapshotService quizSnapshotService;
+    private final QuizStatisticsService quizStatisticsService;
 
     @Override
     @Transactional
@@ -79,6 +86,7 @@ public class QuizAttemptServiceImpl implements QuizAttemptService {
                 .build();
         
         QuizAttempt savedAttempt = quizAttemptRepository.save(attempt);
+        quizStatisticsService.recordAttemptStarted(quizId);
         
         // Return the attempt with questions
         return mapToInProgressAttemptDTO(savedAttempt);
@@ -113,64 +121,92 @@ public class QuizAttemptServiceImpl implements QuizAttemptService {
             throw new IllegalStateException("Cannot submit answer for a completed quiz attempt");
         }
         
-        // Fetch the question
-        Question question = questionRepository.findById(questionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Question not found with id: " + questionId));
-        
-        // Check if this question belongs to the quiz in the attempt
-        if (!question.getQuiz().getId().equals(attempt.getQuiz().getId())) {
-            throw new IllegalArgumentException("Question does not belong to the quiz in this attempt");
-        }
+        // Validate the question and options against the current quiz snapshot
+        QuizSnapshot snapshot = quizSnapshotService.getCurrentSnapshot(attempt.getQuiz().getId());
+        int questionIndex = resolveQuestion(snapshot, questionId);
+        int[] selectedOptions = resolveOptions(snapshot, questionIndex, answerRequest.getSelectedOptionIds());
         
         // Check if there's an existing answer for this question in this attempt
         Optional<StudentAnswer> existingAnswerOpt = studentAnswerRepository
                 .findByAttemptIdAndQuestionId(attemptId, questionId);
         
-        StudentAnswer studentAnswer;
-        if (existingAnswerOpt.isPresent()) {
-            // Update existing answer
-            studentAnswer = existingAnswerOpt.get();
-            studentAnswer.getSelectedOptions().clear(); // Clear previous selections
-        } else {
-            // Create new answer
-            studentAnswer = StudentAnswer.builder()
-                    .attempt(attempt)
-                    .question(question)
-                    .selectedOptions(new ArrayList<>())
-                    .build();
+        StudentAnswer studentAnswer = existingAnswerOpt.orElseGet(() -> StudentAnswer.builder()
+                .attempt(attempt)
+                .question(questionRepository.getReferenceById(questionId))
+                .selectedOptions(new ArrayList<>())
+                .build());
+        
+        applyAnswer(studentAnswer, snapshot, questionIndex, selectedOptions, answerRequest.getTextAnswer());
+        
+        // Save the answer
+        StudentAnswer savedAnswer = studentAnswerRepository.save(studentAnswer);
+        
+        return mapToStudentAnswerResponseDTO(savedAnswer, snapshot, questionIndex, selectedOptions);
+    }
+
+    @Override
+    @Transactional
+    public List<StudentAnswerDTO.Response> submitAnswers(StudentAnswerDTO.BulkSubmitRequest bulkRequest) {
+        Long attemptId = bulkRequest.getAttemptId();
+        
+        // Fetch the attempt
+        QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz attempt not found with id: " + attemptId));
+        
+        // Verify attempt is in progress
+        if (attempt.getStatus() != AttemptStatus.IN_PROGRESS) {
+            throw new IllegalStateException("Cannot submit answer for a completed quiz attempt");
         }
         
-        // Set text answer for essay/short answer questions
-        if (question.getType() == QuestionType.ESSAY || question.getType() == QuestionType.SHORT_ANSWER) {
-            studentAnswer.setTextAnswer(answerRequest.getTextAnswer());
+        // Validate every answer before touching the database; a later answer to the same question wins
+        QuizSnapshot snapshot = quizSnapshotService.getCurrentSnapshot(attempt.getQuiz().getId());
+        Map<Integer, StudentAnswerDTO.AnswerItem> itemsByQuestion = new LinkedHashMap<>();
+        Map<Integer, int[]> selectionsByQuestion = new HashMap<>();
+        for (StudentAnswerDTO.AnswerItem item : bulkRequest.getAnswers()) {
+            int questionIndex = resolveQuestion(snapshot, item.getQuestionId());
+            selectionsByQuestion.put(questionIndex, resolveOptions(snapshot, questionIndex, item.getSelectedOptionIds()));
+            itemsByQuestion.remove(questionIndex);
+            itemsByQuestion.put(questionIndex, item);
         }
         
-        // Add selected options for multiple choice/multiple answer questions
-        if ((question.getType() == QuestionType.MULTIPLE_CHOICE || 
-             question.getType() == QuestionType.MULTIPLE_ANSWER || 
-             question.getType() == QuestionType.TRUE_FALSE) && 
-            answerRequest.getSelectedOptionIds() != null && !answerRequest.getSelectedOptionIds().isEmpty()) {
+        // Load the existing answers with their selections in one query
+        List<Long> questionIds = itemsByQuestion.keySet().stream()
+                .map(snapshot::getQuestionId)
+                .collect(Collectors.toList());
+        Map<Long, StudentAnswer> existingAnswers = studentAnswerRepository
+                .findByAttemptIdAndQuestionIdInWithOptions(attemptId, questionIds).stream()
+                .collect(Collectors.toMap(answer -> answer.getQuestion().getId(), answer -> answer));
+        
+        // Grade in memory
+        List<StudentAnswer> answers = new ArrayList<>(itemsByQuestion.size());
+        for (Map.Entry<Integer, StudentAnswerDTO.AnswerItem> entry : itemsByQuestion.entrySet()) {
+            int questionIndex = entry.getKey();
+            Long questionId = snapshot.getQuestionId(questionIndex);
             
-            for (Long optionId : answerRequest.getSelectedOptionIds()) {
-                AnswerOption option = answerOptionRepository.findById(optionId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Answer option not found with id: " + optionId));
-                
-                // Verify option belongs to the question
-                if (!option.getQuestion().getId().equals(questionId)) {
-                    throw new IllegalArgumentException("Option does not belong to the question");
-                }
-                
-                studentAnswer.getSelectedOptions().add(option);
+            StudentAnswer studentAnswer = existingAnswers.get(questionId);
+            if (studentAnswer == null) {
+                studentAnswer = StudentAnswer.builder()
+                        .attempt(attempt)
+                        .question(questionRepository.getReferenceById(questionId))
+                        .selectedOptions(new ArrayList<>())
+                        .build();
             }
+            
+            applyAnswer(studentAnswer, snapshot, questionIndex,
+                    selectionsByQuestion.get(questionIndex), entry.getValue().getTextAnswer());
+            answers.add(studentAnswer);
         }
         
-        // Auto-grade the answer
-        studentAnswer.autoGrade();
-        
-        // Save the answer
-        StudentAnswer savedAnswer = studentAnswerRepository.save(studentAnswer);
+        // Save all answers in one batch
+        List<StudentAnswer> savedAnswers = studentAnswerRepository.saveAll(answers);
         
-        return mapToStudentAnswerResponseDTO(savedAnswer);
+        List<StudentAnswerDTO.Response> responses = new ArrayList<>(savedAnswers.size());
+        int i = 0;
+        for (Integer questionIndex : itemsByQuestion.keySet()) {
+            responses.add(mapToStudentAnswerResponseDTO(savedAnswers.get(i++), snapshot, questionIndex,
+                    selectionsByQuestion.get(questionIndex)));
+        }
+        return responses;
     }
 
     @Override
@@ -192,6 +228,7 @@ public class QuizAttemptServiceImpl implements QuizAttemptService {
         
         // Save the updated attempt
         QuizAttempt savedAttempt = quizAttemptRepository.save(attempt);
+        quizStatisticsService.recordAttemptCompleted(savedAttempt);
         
         return mapToResponseDTO(savedAttempt);
     }
@@ -282,6 +319,12 @@ public class QuizAttemptServiceImpl implements QuizAttemptService {
             throw new IllegalStateException("This answer does not require manual grading");
         }
         
+        // Remember the previous state for the quiz statistics
+        QuizAttempt attempt = answer.getAttempt();
+        boolean wasCorrect = answer.isCorrect();
+        Double previousPercentageScore = attempt.getPercentageScore();
+        boolean wasPassed = attempt.isPassed();
+        
         // Update with instructor's grade
         answer.setScore(gradeRequest.getScore());
         answer.setInstructorFeedback(gradeRequest.getInstructorFeedback());
@@ -294,79 +337,122 @@ public class QuizAttemptServiceImpl implements QuizAttemptService {
         StudentAnswer savedAnswer = studentAnswerRepository.save(answer);
         
         // Recalculate overall attempt score
-        QuizAttempt attempt = answer.getAttempt();
         attempt.setScore(attempt.calculateTotalScore());
         attempt.setPercentageScore(attempt.calculatePercentageScore());
         attempt.setPassed(attempt.getPercentageScore() >= attempt.getQuiz().getPassingScore());
         quizAttemptRepository.save(attempt);
+        quizStatisticsService.recordAnswerRegraded(attempt, savedAnswer, wasCorrect, previousPercentageScore, wasPassed);
         
         return mapToStudentAnswerResponseDTO(savedAnswer);
     }
     
-    // Helper method to map QuizAttempt to InProgressAttemptDTO
-    private QuizAttemptDTO.InProgressAttempt mapToInProgressAttemptDTO(QuizAttempt attempt) {
-        Quiz quiz = attempt.getQuiz();
+    // Resolve a question ID to its index in the snapshot
+    private int resolveQuestion(QuizSnapshot snapshot, Long questionId) {
+        int questionIndex = snapshot.indexOfQuestion(questionId);
+        if (questionIndex < 0) {
+            if (!questionRepository.existsById(questionId)) {
+                throw new ResourceNotFoundException("Question not found with id: " + questionId);
+            }
+            throw new IllegalArgumentException("Question does not belong to the quiz in this attempt");
+        }
+        return questionIndex;
+    }
+    
+    // Resolve selected option IDs to snapshot option indexes, in display order
+    private int[] resolveOptions(QuizSnapshot snapshot, int questionIndex, List<Long> optionIds) {
+        if (!snapshot.isOptionBased(questionIndex) || optionIds == null || optionIds.isEmpty()) {
+            return new int[0];
+        }
         
-        // Get questions for the quiz
-        List<Question> questions = questionRepository.findByQuizIdOrderByOrderIndexAsc(quiz.getId());
+        int[] selected = new int[optionIds.size()];
+        for (int i = 0; i < selected.length; i++) {
+            Long optionId = optionIds.get(i);
+            int optionIndex = snapshot.indexOfOption(optionId);
+            if (optionIndex < 0) {
+                if (!answerOptionRepository.existsById(optionId)) {
+                    throw new ResourceNotFoundException("Answer option not found with id: " + optionId);
+                }
+                throw new IllegalArgumentException("Option does not belong to the question");
+            }
+            if (snapshot.getOptionQuestion(optionIndex) != questionIndex) {
+                throw new IllegalArgumentException("Option does not belong to the question");
+            }
+            selected[i] = optionIndex;
+        }
+        return Arrays.stream(selected).sorted().distinct().toArray();
+    }
+    
+    // Copy the student's answer onto the entity and grade it from the snapshot
+    private void applyAnswer(StudentAnswer studentAnswer, QuizSnapshot snapshot, int questionIndex,
+                             int[] selectedOptions, String textAnswer) {
+        studentAnswer.getSelectedOptions().clear();
+        for (int optionIndex : selectedOptions) {
+            studentAnswer.getSelectedOptions().add(
+                    answerOptionRepository.getReferenceById(snapshot.getOptionId(optionIndex)));
+        }
         
-        // Randomize questions if quiz requires it
-        if (quiz.isRandomizeQuestions()) {
-            Collections.shuffle(questions);
+        if (snapshot.isTextBased(questionIndex)) {
+            studentAnswer.setTextAnswer(textAnswer);
         }
         
-        // Get student's existing answers
-        List<StudentAnswer> existingAnswers = studentAnswerRepository.findByAttemptId(attempt.getId());
+        QuizSnapshot.Grade grade = snapshot.grade(questionIndex, selectedOptions, studentAnswer.getTextAnswer());
+        studentAnswer.setScore(grade.getScore());
+        studentAnswer.setCorrect(grade.isCorrect());
+        studentAnswer.setManuallyGraded(grade.isManuallyGraded());
+    }
+    
+    // Helper method to map QuizAttempt to InProgressAttemptDTO
+    private QuizAttemptDTO.InProgressAttempt mapToInProgressAttemptDTO(QuizAttempt attempt) {
+        QuizSnapshot snapshot = quizSnapshotService.getSnapshot(attempt.getQuiz().getId());
+        
+        // Get student's existing answers as (question ID, option ID) and (question ID, text) pairs
+        Map<Long, List<Long>> selectedOptionIds = new HashMap<>();
+        for (Object[] row : studentAnswerRepository.findSelectedOptionIdsByAttemptId(attempt.getId())) {
+            selectedOptionIds.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+        }
+        Map<Long, String> textAnswers = new HashMap<>();
+        for (Object[] row : studentAnswerRepository.findTextAnswersByAttemptId(attempt.getId())) {
+            textAnswers.put((Long) row[0], (String) row[1]);
+        }
         
         // Map questions to DTOs with student's selections
-        List<QuestionDTO.AttemptQuestion> questionDTOs = questions.stream()
-                .map(question -> {
-                    // Find student's answer for this question, if any
-                    Optional<StudentAnswer> studentAnswer = existingAnswers.stream()
-                            .filter(answer -> answer.getQuestion().getId().equals(question.getId()))
-                            .findFirst();
-                    
-                    // Get all options for the question
-                    List<AnswerOption> options = answerOptionRepository
-                            .findByQuestionIdOrderByOrderIndexAsc(question.getId());
-                    
-                    // Map options to DTOs, marking selected ones
-                    List<AnswerOptionDTO.AttemptOption> optionDTOs = options.stream()
-                            .map(option -> {
-                                boolean selected = studentAnswer.isPresent() && 
-                                                 studentAnswer.get().getSelectedOptions().contains(option);
-                                
-                                return AnswerOptionDTO.AttemptOption.builder()
-                                        .id(option.getId())
-                                        .text(option.getText())
-                                        .orderIndex(option.getOrderIndex())
-                                        .selected(selected)
-                                        .build();
-                            })
-                            .collect(Collectors.toList());
-                    
-                    // Get any text answer
-                    String textAnswer = studentAnswer.isPresent() ? 
-                                      studentAnswer.get().getTextAnswer() : null;
-                    
-                    return QuestionDTO.AttemptQuestion.builder()
-                            .id(question.getId())
-                            .text(question.getText())
-                            .type(question.getType())
-                            .points(question.getPoints())
-                            .orderIndex(question.getOrderIndex())
-                            .options(optionDTOs)
-                            .textAnswer(textAnswer)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        List<QuestionDTO.AttemptQuestion> questionDTOs = new ArrayList<>(snapshot.getQuestionCount());
+        for (int q = 0; q < snapshot.getQuestionCount(); q++) {
+            Long questionId = snapshot.getQuestionId(q);
+            List<Long> selected = selectedOptionIds.getOrDefault(questionId, Collections.emptyList());
+            
+            List<AnswerOptionDTO.AttemptOption> optionDTOs = new ArrayList<>();
+            for (int o = snapshot.getOptionStart(q); o < snapshot.getOptionEnd(q); o++) {
+                optionDTOs.add(AnswerOptionDTO.AttemptOption.builder()
+                        .id(snapshot.getOptionId(o))
+                        .text(snapshot.getOptionText(o))
+                        .orderIndex(snapshot.getOptionOrder(o))
+                        .selected(selected.contains(snapshot.getOptionId(o)))
+                        .build());
+            }
+            
+            questionDTOs.add(QuestionDTO.AttemptQuestion.builder()
+                    .id(questionId)
+                    .text(snapshot.getQuestionText(q))
+                    .type(snapshot.getQuestionType(q))
+                    .points(snapshot.getQuestionPoints(q))
+                    .orderIndex(snapshot.getQuestionOrder(q))
+                    .options(optionDTOs)
+                    .textAnswer(textAnswers.get(questionId))
+                    .build());
+        }
+        
+        // Randomize questions if quiz requires it
+        if (snapshot.isRandomizeQuestions()) {
+            Collections.shuffle(questionDTOs);
+        }
         
         return QuizAttemptDTO.InProgressAttempt.builder()
                 .id(attempt.getId())
-                .quizId(quiz.getId())
-                .quizTitle(quiz.getTitle())
+                .quizId(snapshot.getQuizId())
+                .quizTitle(snapshot.getTitle())
                 .startedAt(attempt.getStartedAt())
-                .timeLimit(quiz.getTimeLimit())
+                .timeLimit(snapshot.getTimeLimit())
                 .status(attempt.getStatus())
                 .questions(questionDTOs)
                 .build();
@@ -374,7 +460,7 @@ public class QuizAttemptServiceImpl implements QuizAttemptService {
     
     // Helper method to map QuizAttempt to ResponseDTO
     private QuizAttemptDTO.Response mapToResponseDTO(QuizAttempt attempt) {
-        int totalQuestions = questionRepository.findByQuizId(attempt.getQuiz().getId()).size();
+        int totalQuestions = quizSnapshotService.getSnapshot(attempt.getQuiz().getId()).getQuestionCount();
         int answeredQuestions = studentAnswerRepository.findByAttemptId(attempt.getId()).size();
         
         return QuizAttemptDTO.Response.builder()
@@ -417,6 +503,35 @@ public class QuizAttemptServiceImpl implements QuizAttemptService {
                 .build();
     }
     
+    // Helper method to map a freshly graded StudentAnswer to ResponseDTO without loading the question or options
+    private StudentAnswerDTO.Response mapToStudentAnswerResponseDTO(StudentAnswer answer, QuizSnapshot snapshot,
+                                                                    int questionIndex, int[] selectedOptions) {
+        List<AnswerOptionDTO.Response> selectedOptionDTOs = Arrays.stream(selectedOptions)
+                .mapToObj(o -> AnswerOptionDTO.Response.builder()
+                        .id(snapshot.getOptionId(o))
+                        .text(snapshot.getOptionText(o))
+                        .isCorrect(snapshot.isOptionCorrect(o))
+                        .feedback(snapshot.getOptionFeedback(o))
+                        .orderIndex(snapshot.getOptionOrder(o))
+                        .questionId(snapshot.getQuestionId(questionIndex))
+                        .build())
+                .collect(Collectors.toList());
+        
+        return StudentAnswerDTO.Response.builder()
+                .id(answer.getId())
+                .attemptId(answer.getAttempt().getId())
+                .questionId(snapshot.getQuestionId(questionIndex))
+                .questionText(snapshot.getQuestionText(questionIndex))
+                .questionType(snapshot.getQuestionType(questionIndex).name())
+                .selectedOptions(selectedOptionDTOs)
+                .textAnswer(answer.getTextAnswer())
+                .score(answer.getScore())
+                .isCorrect(answer.isCorrect())
+                .manuallyGraded(answer.isManuallyGraded())
+                .instructorFeedback(answer.getInstructorFeedback())
+                .build();
+    }
+    
     // Helper method to map StudentAnswer to ResponseDTO
     private StudentAnswerDTO.Response mapToStudentAnswerResponseDTO(StudentAnswer answer) {
         // Map selected options to DTOs
@@ -28,6 +28,8 @@ public class QuizServiceImpl implements QuizService {
     private final QuestionRepository questionRepository;
     private final QuizAttemptRepository quizAttemptRepository;
     private final QuestionService questionService;
+    private final QuizSnapshotService quizSnapshotService;
+    private final QuizStatisticsService quizStatisticsService;
 
     @Override
     @Transactional
@@ -206,6 +208,7 @@ public class QuizServiceImpl implements QuizService {
         
         // Save updated quiz
         Quiz updatedQuiz = quizRepository.save(quiz);
+        quizSnapshotService.evict(id);
         
         return mapToResponseDTO(updatedQuiz);
     }
@@ -221,6 +224,8 @@ public class QuizServiceImpl implements QuizService {
         
         // Delete the quiz
         quizRepository.delete(quiz);
+        quizSnapshotService.evict(id);
+        quizStatisticsService.deleteStatistics(id);
     }
 
     @Override
@@ -236,6 +241,7 @@ public class QuizServiceImpl implements QuizService {
         
         quiz.setPublished(true);
         Quiz updatedQuiz = quizRepository.save(quiz);
+        quizSnapshotService.evict(id);
         
         return mapToResponseDTO(updatedQuiz);
     }
@@ -248,6 +254,7 @@ public class QuizServiceImpl implements QuizService {
         
         quiz.setPublished(false);
         Quiz updatedQuiz = quizRepository.save(quiz);
+        quizSnapshotService.evict(id);
         
         return mapToResponseDTO(updatedQuiz);
     }
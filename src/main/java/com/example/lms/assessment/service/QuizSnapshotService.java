@@ -0,0 +1,131 @@
+package com.example.lms.assessment.service;
+
+import com.example.lms.assessment.model.AnswerOption;
+import com.example.lms.assessment.model.Question;
+import com.example.lms.assessment.model.Quiz;
+import com.example.lms.assessment.repository.AnswerOptionRepository;
+import com.example.lms.assessment.repository.QuestionRepository;
+import com.example.lms.assessment.repository.QuizRepository;
+import com.example.lms.assessment.snapshot.QuizSnapshot;
+import com.example.lms.common.Exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds and caches {@link QuizSnapshot}s.
+ * A snapshot is loaded with two queries (questions, then all options of the quiz)
+ * and reused until a quiz, question or option change evicts it. Evictions only reach the
+ * local node, so grading uses {@link #getCurrentSnapshot}, which first checks the cached
+ * snapshot against the quiz's content version.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuizSnapshotService {
+
+    public static final String CACHE_NAME = "quizSnapshots";
+
+    private final CacheManager cacheManager;
+    private final QuizRepository quizRepository;
+    private final QuestionRepository questionRepository;
+    private final AnswerOptionRepository answerOptionRepository;
+
+    // A snapshot with the content version it was built from
+    private record Entry(String version, QuizSnapshot snapshot) {
+    }
+
+    /**
+     * Get the snapshot of a quiz, building it on first use
+     *
+     * @param quizId Quiz ID
+     * @return Quiz snapshot
+     * @throws ResourceNotFoundException if the quiz does not exist
+     */
+    @Transactional(readOnly = true)
+    public QuizSnapshot getSnapshot(Long quizId) {
+        try {
+            // The loader runs at most once per key, concurrent callers wait for it
+            return getCache().get(quizId, () -> build(quizId)).snapshot();
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get the snapshot of a quiz, rebuilding it if the quiz, its questions or options changed
+     * since it was built, including on another node. Use this when grading.
+     *
+     * @param quizId Quiz ID
+     * @return Quiz snapshot matching the stored quiz
+     * @throws ResourceNotFoundException if the quiz does not exist
+     */
+    @Transactional(readOnly = true)
+    public QuizSnapshot getCurrentSnapshot(Long quizId) {
+        String version = quizRepository.findContentVersion(quizId);
+        if (version == null) {
+            throw new ResourceNotFoundException("Quiz not found with id: " + quizId);
+        }
+        Entry cached = getCache().get(quizId, Entry.class);
+        if (cached != null && cached.version().equals(version)) {
+            return cached.snapshot();
+        }
+        Entry rebuilt = build(quizId);
+        getCache().put(quizId, rebuilt);
+        log.debug("Rebuilt stale snapshot for quiz {}", quizId);
+        return rebuilt.snapshot();
+    }
+
+    /**
+     * Evict the snapshot of a quiz. The snapshot is evicted immediately and again when the
+     * current transaction completes, so a snapshot rebuilt from uncommitted data is not kept.
+     *
+     * @param quizId Quiz ID
+     */
+    public void evict(Long quizId) {
+        getCache().evict(quizId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    getCache().evict(quizId);
+                }
+            });
+        }
+    }
+
+    private Entry build(Long quizId) {
+        // Read first, so a change made while loading makes the snapshot look stale, not current
+        String version = quizRepository.findContentVersion(quizId);
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz not found with id: " + quizId));
+
+        List<Question> questions = questionRepository.findByQuizIdOrderByOrderIndexAsc(quizId);
+
+        Map<Long, List<AnswerOption>> optionsByQuestionId = new HashMap<>();
+        for (AnswerOption option : answerOptionRepository.findByQuizIdOrderByOrderIndexAsc(quizId)) {
+            optionsByQuestionId.computeIfAbsent(option.getQuestion().getId(), id -> new ArrayList<>()).add(option);
+        }
+
+        QuizSnapshot snapshot = QuizSnapshot.compile(quiz, questions, optionsByQuestionId);
+        log.debug("Built snapshot for quiz {} ({} questions)", quizId, snapshot.getQuestionCount());
+        return new Entry(version, snapshot);
+    }
+
+    private Cache getCache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.lms.assessment.service;
+
+import com.example.lms.assessment.model.QuestionStatistics;
+import com.example.lms.assessment.model.QuizAttempt;
+import com.example.lms.assessment.model.QuizStatistics;
+import com.example.lms.assessment.model.RunningStatistics;
+import com.example.lms.assessment.model.StudentAnswer;
+import com.example.lms.assessment.repository.QuestionStatisticsRepository;
+import com.example.lms.assessment.repository.QuizAttemptRepository;
+import com.example.lms.assessment.repository.QuizStatisticsRepository;
+import com.example.lms.assessment.repository.StudentAnswerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the {@link QuizStatistics} and {@link QuestionStatistics} of each quiz.
+ *
+ * Statistics are updated incrementally when an attempt is started, submitted or regraded,
+ * so reading them never scans attempts or answers. Missing statistics (for example of
+ * quizzes attempted before statistics existed) are rebuilt from history on first use.
+ */
+@Service
+@Slf4j
+public class QuizStatisticsService {
+
+    private final QuizStatisticsRepository quizStatisticsRepository;
+    private final QuestionStatisticsRepository questionStatisticsRepository;
+    private final QuizAttemptRepository quizAttemptRepository;
+    private final StudentAnswerRepository studentAnswerRepository;
+    private final TransactionTemplate newTransaction;
+
+    public QuizStatisticsService(QuizStatisticsRepository quizStatisticsRepository,
+                                 QuestionStatisticsRepository questionStatisticsRepository,
+                                 QuizAttemptRepository quizAttemptRepository,
+                                 StudentAnswerRepository studentAnswerRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.quizStatisticsRepository = quizStatisticsRepository;
+        this.questionStatisticsRepository = questionStatisticsRepository;
+        this.quizAttemptRepository = quizAttemptRepository;
+        this.studentAnswerRepository = studentAnswerRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Get the statistics of a quiz, rebuilding them from history if they do not exist yet
+     *
+     * @param quizId Quiz ID
+     * @return Quiz statistics
+     */
+    @Transactional(readOnly = true)
+    public QuizStatistics getQuizStatistics(Long quizId) {
+        return quizStatisticsRepository.findByQuizId(quizId).orElseGet(() -> {
+            ensureExists(quizId);
+            return quizStatisticsRepository.findByQuizId(quizId)
+                    .orElseThrow(() -> new IllegalStateException("Statistics could not be created for quiz " + quizId));
+        });
+    }
+
+    /**
+     * Get the question statistics of a quiz, keyed by question ID
+     *
+     * @param quizId Quiz ID
+     * @return Question statistics by question ID
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, QuestionStatistics> getQuestionStatistics(Long quizId) {
+        getQuizStatistics(quizId);
+        return questionStatisticsRepository.findByQuizId(quizId).stream()
+                .collect(Collectors.toMap(QuestionStatistics::getQuestionId, Function.identity()));
+    }
+
+    /**
+     * Count a newly started attempt
+     *
+     * @param quizId Quiz ID
+     */
+    @Transactional
+    public void recordAttemptStarted(Long quizId) {
+        QuizStatistics statistics = lock(quizId);
+        statistics.setStartedCount(statistics.getStartedCount() + 1);
+    }
+
+    /**
+     * Add a completed attempt and its answers to the statistics
+     *
+     * @param attempt Finalized attempt
+     */
+    @Transactional
+    public void recordAttemptCompleted(QuizAttempt attempt) {
+        Long quizId = attempt.getQuiz().getId();
+        QuizStatistics statistics = lock(quizId);
+
+        statistics.addScore(attempt.getPercentageScore(), attempt.isPassed());
+        if (attempt.getStartedAt() != null && attempt.getSubmittedAt() != null) {
+            statistics.getDurations().add(minutesBetween(attempt.getStartedAt(), attempt.getSubmittedAt()));
+        }
+
+        Map<Long, QuestionStatistics> questions = loadQuestionStatistics(quizId);
+        for (StudentAnswer answer : attempt.getAnswers()) {
+            questionStatistics(questions, quizId, answer.getQuestion().getId())
+                    .adjustAnswers(1, answer.isCorrect() ? 1 : 0);
+        }
+        for (Object[] row : studentAnswerRepository.findSelectedOptionIdsByAttemptId(attempt.getId())) {
+            questionStatistics(questions, quizId, (Long) row[0]).adjustOption((Long) row[1], 1);
+        }
+        questionStatisticsRepository.saveAll(questions.values());
+    }
+
+    /**
+     * Replace the score of a completed attempt after one of its answers was graded manually
+     *
+     * @param attempt Attempt with its updated score
+     * @param answer Graded answer
+     * @param wasCorrect Whether the answer was counted as correct before grading
+     * @param previousPercentageScore Percentage score of the attempt before grading
+     * @param wasPassed Whether the attempt passed before grading
+     */
+    @Transactional
+    public void recordAnswerRegraded(QuizAttempt attempt, StudentAnswer answer, boolean wasCorrect,
+                                     Double previousPercentageScore, boolean wasPassed) {
+        // Only completed attempts are part of the statistics
+        if (!attempt.isCompleted()) {
+            return;
+        }
+
+        Long quizId = attempt.getQuiz().getId();
+        QuizStatistics statistics = lock(quizId);
+        statistics.removeScore(previousPercentageScore, wasPassed);
+        statistics.addScore(attempt.getPercentageScore(), attempt.isPassed());
+
+        if (wasCorrect != answer.isCorrect()) {
+            Long questionId = answer.getQuestion().getId();
+            QuestionStatistics question = questionStatisticsRepository.findByQuestionId(questionId)
+                    .orElseGet(() -> newQuestionStatistics(quizId, questionId));
+            question.adjustAnswers(0, answer.isCorrect() ? 1 : -1);
+            questionStatisticsRepository.save(question);
+        }
+    }
+
+    /**
+     * Recompute the statistics of a quiz from its attempts and answers
+     *
+     * @param quizId Quiz ID
+     * @return Rebuilt statistics
+     */
+    @Transactional
+    public QuizStatistics rebuild(Long quizId) {
+        QuizStatistics statistics = quizStatisticsRepository.findByQuizIdForUpdate(quizId)
+                .orElseGet(() -> QuizStatistics.builder().quizId(quizId).build());
+
+        statistics.setStartedCount(quizAttemptRepository.countByQuizId(quizId));
+        statistics.setPassedCount(0);
+        statistics.setScores(new RunningStatistics());
+        statistics.setDurations(new RunningStatistics());
+        statistics.setScoreBuckets(new long[QuizStatistics.SCORE_BUCKETS]);
+
+        for (Object[] row : quizAttemptRepository.findCompletedAttemptScores(quizId)) {
+            statistics.addScore((Double) row[0], (Boolean) row[1]);
+            if (row[2] != null && row[3] != null) {
+                statistics.getDurations().add(minutesBetween((LocalDateTime) row[2], (LocalDateTime) row[3]));
+            }
+        }
+
+        // Reset existing question rows in place, so the unique question IDs never clash
+        Map<Long, QuestionStatistics> questions = loadQuestionStatistics(quizId);
+        for (QuestionStatistics question : questions.values()) {
+            question.setAnswerCount(0);
+            question.setCorrectCount(0);
+            question.setOptionIds(new long[0]);
+            question.setOptionCounts(new long[0]);
+        }
+        for (Object[] row : studentAnswerRepository.countCompletedAnswersByQuestion(quizId)) {
+            questionStatistics(questions, quizId, (Long) row[0])
+                    .adjustAnswers(((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+        }
+        for (Object[] row : studentAnswerRepository.countCompletedSelectionsByOption(quizId)) {
+            questionStatistics(questions, quizId, (Long) row[0])
+                    .adjustOption((Long) row[1], ((Number) row[2]).longValue());
+        }
+
+        questionStatisticsRepository.saveAll(questions.values());
+        QuizStatistics saved = quizStatisticsRepository.save(statistics);
+        log.info("Rebuilt statistics for quiz {} ({} completed attempts)", quizId, saved.getCompletedCount());
+        return saved;
+    }
+
+    /**
+     * Delete the statistics of a quiz
+     *
+     * @param quizId Quiz ID
+     */
+    @Transactional
+    public void deleteStatistics(Long quizId) {
+        questionStatisticsRepository.deleteByQuizId(quizId);
+        quizStatisticsRepository.deleteByQuizId(quizId);
+    }
+
+    /**
+     * Delete the statistics of a question
+     *
+     * @param questionId Question ID
+     */
+    @Transactional
+    public void deleteQuestionStatistics(Long questionId) {
+        questionStatisticsRepository.deleteByQuestionId(questionId);
+    }
+
+    // Lock the statistics row of a quiz, creating it first if needed
+    private QuizStatistics lock(Long quizId) {
+        return quizStatisticsRepository.findByQuizIdForUpdate(quizId).orElseGet(() -> {
+            ensureExists(quizId);
+            return quizStatisticsRepository.findByQuizIdForUpdate(quizId)
+                    .orElseThrow(() -> new IllegalStateException("Statistics could not be created for quiz " + quizId));
+        });
+    }
+
+    // Build missing statistics in a separate transaction, so they only contain committed history
+    // and a concurrent creation by another request does not fail the caller's transaction
+    private void ensureExists(Long quizId) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                if (quizStatisticsRepository.findByQuizId(quizId).isEmpty()) {
+                    rebuild(quizId);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Statistics for quiz {} were created concurrently", quizId);
+        }
+    }
+
+    private Map<Long, QuestionStatistics> loadQuestionStatistics(Long quizId) {
+        return questionStatisticsRepository.findByQuizId(quizId).stream()
+                .collect(Collectors.toMap(QuestionStatistics::getQuestionId, Function.identity(), (a, b) -> a, HashMap::new));
+    }
+
+    private QuestionStatistics questionStatistics(Map<Long, QuestionStatistics> questions, Long quizId, Long questionId) {
+        return questions.computeIfAbsent(questionId, id -> newQuestionStatistics(quizId, id));
+    }
+
+    private QuestionStatistics newQuestionStatistics(Long quizId, Long questionId) {
+        return QuestionStatistics.builder()
+                .quizId(quizId)
+                .questionId(questionId)
+                .build();
+    }
+
+    private double minutesBetween(LocalDateTime start, LocalDateTime end) {
+        return Duration.between(start, end).toSeconds() / 60.0;
+    }
+}
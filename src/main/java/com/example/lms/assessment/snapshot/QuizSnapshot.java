@@ -0,0 +1,337 @@
+package com.example.lms.assessment.snapshot;
+
+import com.example.lms.assessment.model.AnswerOption;
+import com.example.lms.assessment.model.Question;
+import com.example.lms.assessment.model.QuestionType;
+import com.example.lms.assessment.model.Quiz;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, compiled view of a quiz: its questions in order, their answer options,
+ * correct-answer keys and point values, stored in flat arrays.
+ *
+ * Questions are addressed by index {@code q} (0..questionCount-1). The options of
+ * question {@code q} occupy option indexes {@code optionStart[q]} to
+ * {@code optionStart[q + 1] - 1}, sorted by their order index.
+ * Snapshots are built by {@link com.example.lms.assessment.service.QuizSnapshotService}
+ * and must never be modified after construction.
+ */
+public final class QuizSnapshot {
+
+    private final long quizId;
+    private final String title;
+    private final Integer timeLimit;
+    private final double passingScore;
+    private final boolean published;
+    private final boolean randomizeQuestions;
+    private final int totalPossibleScore;
+
+    // Questions
+    private final long[] questionIds;
+    private final String[] questionTexts;
+    private final QuestionType[] questionTypes;
+    private final int[] questionPoints;
+    private final Integer[] questionOrder;
+    private final String[] questionFeedback;
+    private final int[] correctOptionCount;
+    private final int[] optionStart;
+
+    // Options, grouped by question
+    private final long[] optionIds;
+    private final String[] optionTexts;
+    private final boolean[] optionCorrect;
+    private final Integer[] optionOrder;
+    private final String[] optionFeedback;
+    private final int[] optionQuestion;
+    private final String[] optionAnswerKeys;
+
+    private final Map<Long, Integer> questionIndex;
+    private final Map<Long, Integer> optionIndex;
+
+    /**
+     * Compile a snapshot from the quiz, its ordered questions and the options of all its questions
+     */
+    public static QuizSnapshot compile(Quiz quiz, List<Question> questions, Map<Long, List<AnswerOption>> optionsByQuestionId) {
+        return new QuizSnapshot(quiz, questions, optionsByQuestionId);
+    }
+
+    private QuizSnapshot(Quiz quiz, List<Question> questions, Map<Long, List<AnswerOption>> optionsByQuestionId) {
+        this.quizId = quiz.getId();
+        this.title = quiz.getTitle();
+        this.timeLimit = quiz.getTimeLimit();
+        this.passingScore = quiz.getPassingScore() != null ? quiz.getPassingScore() : 0.0;
+        this.published = quiz.isPublished();
+        this.randomizeQuestions = quiz.isRandomizeQuestions();
+
+        int questionCount = questions.size();
+        int optionCount = optionsByQuestionId.values().stream().mapToInt(Collection::size).sum();
+
+        questionIds = new long[questionCount];
+        questionTexts = new String[questionCount];
+        questionTypes = new QuestionType[questionCount];
+        questionPoints = new int[questionCount];
+        questionOrder = new Integer[questionCount];
+        questionFeedback = new String[questionCount];
+        correctOptionCount = new int[questionCount];
+        optionStart = new int[questionCount + 1];
+
+        optionIds = new long[optionCount];
+        optionTexts = new String[optionCount];
+        optionCorrect = new boolean[optionCount];
+        optionOrder = new Integer[optionCount];
+        optionFeedback = new String[optionCount];
+        optionQuestion = new int[optionCount];
+        optionAnswerKeys = new String[optionCount];
+
+        questionIndex = new HashMap<>(questionCount * 2);
+        optionIndex = new HashMap<>(optionCount * 2);
+
+        int total = 0;
+        int o = 0;
+        for (int q = 0; q < questionCount; q++) {
+            Question question = questions.get(q);
+            questionIds[q] = question.getId();
+            questionTexts[q] = question.getText();
+            questionTypes[q] = question.getType();
+            questionPoints[q] = question.getPoints() != null ? question.getPoints() : 0;
+            questionOrder[q] = question.getOrderIndex();
+            questionFeedback[q] = question.getFeedback();
+            questionIndex.put(question.getId(), q);
+            total += questionPoints[q];
+
+            optionStart[q] = o;
+            for (AnswerOption option : optionsByQuestionId.getOrDefault(question.getId(), List.of())) {
+                optionIds[o] = option.getId();
+                optionTexts[o] = option.getText();
+                optionCorrect[o] = option.isCorrect();
+                optionOrder[o] = option.getOrderIndex();
+                optionFeedback[o] = option.getFeedback();
+                optionQuestion[o] = q;
+                optionAnswerKeys[o] = normalizeAnswer(option.getText());
+                optionIndex.put(option.getId(), o);
+                if (option.isCorrect()) {
+                    correctOptionCount[q]++;
+                }
+                o++;
+            }
+        }
+        optionStart[questionCount] = o;
+        this.totalPossibleScore = total;
+    }
+
+    private static String normalizeAnswer(String text) {
+        return text == null ? null : text.trim();
+    }
+
+    public long getQuizId() {
+        return quizId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Integer getTimeLimit() {
+        return timeLimit;
+    }
+
+    public double getPassingScore() {
+        return passingScore;
+    }
+
+    public boolean isPublished() {
+        return published;
+    }
+
+    public boolean isRandomizeQuestions() {
+        return randomizeQuestions;
+    }
+
+    public int getTotalPossibleScore() {
+        return totalPossibleScore;
+    }
+
+    public int getQuestionCount() {
+        return questionIds.length;
+    }
+
+    /**
+     * @return Index of the question in this quiz, or -1 if it does not belong to it
+     */
+    public int indexOfQuestion(Long questionId) {
+        Integer index = questionId != null ? questionIndex.get(questionId) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return Index of the option in this quiz, or -1 if it does not belong to it
+     */
+    public int indexOfOption(Long optionId) {
+        Integer index = optionId != null ? optionIndex.get(optionId) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Check that an option belongs to the given question
+     */
+    public boolean isOptionOfQuestion(int q, Long optionId) {
+        int o = indexOfOption(optionId);
+        return o >= 0 && optionQuestion[o] == q;
+    }
+
+    public long getQuestionId(int q) {
+        return questionIds[q];
+    }
+
+    public String getQuestionText(int q) {
+        return questionTexts[q];
+    }
+
+    public QuestionType getQuestionType(int q) {
+        return questionTypes[q];
+    }
+
+    public int getQuestionPoints(int q) {
+        return questionPoints[q];
+    }
+
+    public Integer getQuestionOrder(int q) {
+        return questionOrder[q];
+    }
+
+    public String getQuestionFeedback(int q) {
+        return questionFeedback[q];
+    }
+
+    public boolean isOptionBased(int q) {
+        QuestionType type = questionTypes[q];
+        return type == QuestionType.MULTIPLE_CHOICE || type == QuestionType.MULTIPLE_ANSWER || type == QuestionType.TRUE_FALSE;
+    }
+
+    public boolean isTextBased(int q) {
+        QuestionType type = questionTypes[q];
+        return type == QuestionType.ESSAY || type == QuestionType.SHORT_ANSWER;
+    }
+
+    public int getOptionStart(int q) {
+        return optionStart[q];
+    }
+
+    public int getOptionEnd(int q) {
+        return optionStart[q + 1];
+    }
+
+    public long getOptionId(int o) {
+        return optionIds[o];
+    }
+
+    public String getOptionText(int o) {
+        return optionTexts[o];
+    }
+
+    public boolean isOptionCorrect(int o) {
+        return optionCorrect[o];
+    }
+
+    public Integer getOptionOrder(int o) {
+        return optionOrder[o];
+    }
+
+    public String getOptionFeedback(int o) {
+        return optionFeedback[o];
+    }
+
+    public int getOptionQuestion(int o) {
+        return optionQuestion[o];
+    }
+
+    /**
+     * Grade an answer in memory, using the same rules as {@code StudentAnswer.autoGrade()}
+     *
+     * @param q Question index
+     * @param selectedOptions Option indexes selected by the student (may be empty)
+     * @param textAnswer Text answer for short answer and essay questions
+     * @return Grading result
+     */
+    public Grade grade(int q, int[] selectedOptions, String textAnswer) {
+        int points = questionPoints[q];
+
+        switch (questionTypes[q]) {
+            case MULTIPLE_CHOICE, TRUE_FALSE -> {
+                // Only correct if exactly the correct option is selected
+                boolean correct = selectedOptions.length == 1 && optionCorrect[selectedOptions[0]];
+                return new Grade(correct ? points : 0.0, correct, false);
+            }
+            case MULTIPLE_ANSWER -> {
+                int totalOptions = optionStart[q + 1] - optionStart[q];
+                int correctOptions = correctOptionCount[q];
+
+                int correctSelections = 0;
+                int incorrectSelections = 0;
+                for (int o : selectedOptions) {
+                    if (optionCorrect[o]) {
+                        correctSelections++;
+                    } else {
+                        incorrectSelections++;
+                    }
+                }
+
+                // Partial credit for correct selections, penalty for incorrect ones
+                double correctRatio = correctOptions > 0 ? (double) correctSelections / correctOptions : 0.0;
+                int incorrectOptions = totalOptions - correctOptions;
+                double incorrectPenalty = incorrectOptions > 0 ? (double) incorrectSelections / incorrectOptions : 0.0;
+
+                double partialScore = Math.max(0.0, correctRatio - incorrectPenalty);
+                boolean correct = correctSelections == correctOptions && incorrectSelections == 0;
+                return new Grade(partialScore * points, correct, false);
+            }
+            case SHORT_ANSWER -> {
+                // Exact, case-insensitive match against any correct option
+                if (textAnswer != null && !textAnswer.isEmpty()) {
+                    String answer = normalizeAnswer(textAnswer);
+                    for (int o = optionStart[q]; o < optionStart[q + 1]; o++) {
+                        if (optionCorrect[o] && answer.equalsIgnoreCase(optionAnswerKeys[o])) {
+                            return new Grade(points, true, false);
+                        }
+                    }
+                }
+                return new Grade(0.0, false, false);
+            }
+            default -> {
+                // Essay questions require manual grading
+                return new Grade(0.0, false, true);
+            }
+        }
+    }
+
+    /**
+     * Result of grading one answer
+     */
+    public static final class Grade {
+        private final double score;
+        private final boolean correct;
+        private final boolean manuallyGraded;
+
+        Grade(double score, boolean correct, boolean manuallyGraded) {
+            this.score = score;
+            this.correct = correct;
+            this.manuallyGraded = manuallyGraded;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public boolean isCorrect() {
+            return correct;
+        }
+
+        public boolean isManuallyGraded() {
+            return manuallyGraded;
+        }
+    }
+}
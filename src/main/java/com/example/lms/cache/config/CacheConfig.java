@@ -0,0 +1,49 @@
+package com.example.lms.cache.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Enables Spring caching backed by bounded Caffeine caches.
+ * Each cache records statistics so hit/miss/eviction counters can be
+ * inspected through the admin cache endpoint.
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+@Slf4j
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        // Caches created on demand use the global defaults
+        cacheManager.setCaffeine(builder(properties.getMaximumSize(), properties.getExpireAfterWrite()));
+
+        // Explicitly configured caches get their own bounds
+        properties.getCaches().forEach((name, spec) -> {
+            long maximumSize = spec.getMaximumSize() != null ? spec.getMaximumSize() : properties.getMaximumSize();
+            Duration ttl = spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite() : properties.getExpireAfterWrite();
+            cacheManager.registerCustomCache(name, builder(maximumSize, ttl).build());
+            log.debug("Registered cache '{}' (maximumSize={}, expireAfterWrite={})", name, maximumSize, ttl);
+        });
+
+        return cacheManager;
+    }
+
+    private Caffeine<Object, Object> builder(long maximumSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats();
+    }
+}
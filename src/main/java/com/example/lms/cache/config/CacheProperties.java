@@ -0,0 +1,39 @@
+package com.example.lms.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for the in-process cache manager.
+ * Every cache is bounded by entry count and time-to-live; caches that are
+ * not listed under {@code app.cache.caches} fall back to the defaults.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+    /**
+     * Default maximum number of entries per cache
+     */
+    private long maximumSize = 1000;
+
+    /**
+     * Default time-to-live of an entry after it was written
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * Per-cache overrides keyed by cache name
+     */
+    private Map<String, CacheSpec> caches = new HashMap<>();
+
+    @Data
+    public static class CacheSpec {
+        private Long maximumSize;
+        private Duration expireAfterWrite;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.lms.cache.controller;
+
+import com.example.lms.cache.dto.CacheStatisticsDTO;
+import com.example.lms.cache.service.CacheStatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Cache Management", description = "APIs for inspecting and clearing application caches")
+public class CacheAdminController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @GetMapping
+    @Operation(summary = "Get cache statistics", description = "Returns size, hit, miss and eviction counters for every cache")
+    public ResponseEntity<List<CacheStatisticsDTO>> getAllStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getAllStatistics());
+    }
+
+    @GetMapping("/{name}")
+    @Operation(summary = "Get statistics of a cache", description = "Returns the counters of a single cache")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache statistics retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Cache not found")
+    })
+    public ResponseEntity<CacheStatisticsDTO> getStatistics(
+            @Parameter(description = "Cache name", required = true)
+            @PathVariable String name) {
+        return ResponseEntity.ok(cacheStatisticsService.getStatistics(name));
+    }
+
+    @DeleteMapping("/{name}")
+    @Operation(summary = "Clear a cache", description = "Removes all entries from a cache")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Cache cleared successfully"),
+            @ApiResponse(responseCode = "404", description = "Cache not found")
+    })
+    public ResponseEntity<Void> clear(
+            @Parameter(description = "Cache name", required = true)
+            @PathVariable String name) {
+        cacheStatisticsService.clear(name);
+        return ResponseEntity.noContent().build();
+    }
+}
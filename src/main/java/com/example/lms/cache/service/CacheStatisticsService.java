@@ -0,0 +1,88 @@
+package com.example.lms.cache.service;
+
+import com.example.lms.cache.dto.CacheStatisticsDTO;
+import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes the counters of the application caches and allows clearing them
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheStatisticsService {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Get statistics for every cache known to the cache manager
+     *
+     * @return List of cache statistics, sorted by cache name
+     */
+    public List<CacheStatisticsDTO> getAllStatistics() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(this::getStatistics)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get statistics for a single cache
+     *
+     * @param name Cache name
+     * @return Cache statistics
+     * @throws ResourceNotFoundException if the cache does not exist
+     */
+    public CacheStatisticsDTO getStatistics(String name) {
+        Cache<Object, Object> nativeCache = getNativeCache(name);
+        CacheStats stats = nativeCache.stats();
+
+        Long maximumSize = nativeCache.policy().eviction()
+                .map(Policy.Eviction::getMaximum)
+                .orElse(null);
+
+        return CacheStatisticsDTO.builder()
+                .name(name)
+                .size(nativeCache.estimatedSize())
+                .maximumSize(maximumSize)
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .loadCount(stats.loadCount())
+                .build();
+    }
+
+    /**
+     * Remove all entries from a cache
+     *
+     * @param name Cache name
+     * @throws ResourceNotFoundException if the cache does not exist
+     */
+    public void clear(String name) {
+        getNativeCache(name).invalidateAll();
+        log.info("Cleared cache '{}'", name);
+    }
+
+    private Cache<Object, Object> getNativeCache(String name) {
+        // Look the name up first: the manager would otherwise create the cache on demand
+        if (!cacheManager.getCacheNames().contains(name)) {
+            throw new ResourceNotFoundException("Cache not found with name: " + name);
+        }
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (!(cache instanceof CaffeineCache)) {
+            throw new ResourceNotFoundException("Cache not found with name: " + name);
+        }
+        return ((CaffeineCache) cache).getNativeCache();
+    }
+}
@@ -184,6 +184,20 @@ public class GlobalExceptionHandler {
     }
  
 
+    /**
+     * Handles upload chunks sent at the wrong offset
+     * 
+     * @param ex The offset mismatch exception
+     * @return 409 Conflict with the offset the upload continues at
+     */
+    @ExceptionHandler(UploadOffsetMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleUploadOffsetMismatchException(UploadOffsetMismatchException ex) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("offset", ex.getExpectedOffset());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse); // 409 Conflict
+    }
+
     /**
      * Handles access denied exceptions from security checks
      * 
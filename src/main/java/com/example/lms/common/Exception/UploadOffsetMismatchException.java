@@ -0,0 +1,23 @@
+package com.example.lms.common.Exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when an upload chunk does not start where the previous chunk ended, or while
+ * another chunk of the upload is still being written
+ */
+@Getter
+public class UploadOffsetMismatchException extends RuntimeException {
+
+    private final long expectedOffset;
+
+    public UploadOffsetMismatchException(long expectedOffset, long offset) {
+        super("Chunk starts at offset " + offset + " but the upload continues at " + expectedOffset);
+        this.expectedOffset = expectedOffset;
+    }
+
+    public UploadOffsetMismatchException(long expectedOffset, String message) {
+        super(message);
+        this.expectedOffset = expectedOffset;
+    }
+}
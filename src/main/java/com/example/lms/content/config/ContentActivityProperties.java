@@ -0,0 +1,36 @@
+package com.example.lms.content.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the write-behind pipeline for content access and view records
+ * ({@code app.content.activity.*})
+ */
+@Data
+@ConfigurationProperties(prefix = "app.content.activity")
+public class ContentActivityProperties {
+
+    /**
+     * Access records held in memory before new ones are dropped
+     */
+    private int queueCapacity = 50000;
+
+    /**
+     * Distinct (user, content) views held in memory before new ones are dropped
+     */
+    private int maxPendingViews = 50000;
+
+    /**
+     * Rows per batched statement; a full batch is written without waiting for the interval
+     */
+    private int batchSize = 500;
+
+    /**
+     * Longest time a record waits before it is written. Repeated views of a content by
+     * the same user within this window are written as one update.
+     */
+    private Duration flushInterval = Duration.ofSeconds(2);
+}
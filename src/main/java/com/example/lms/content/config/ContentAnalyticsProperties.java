@@ -0,0 +1,40 @@
+package com.example.lms.content.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the content analytics rollups ({@code app.content.analytics.*})
+ */
+@Data
+@ConfigurationProperties(prefix = "app.content.analytics")
+public class ContentAnalyticsProperties {
+
+    /**
+     * Delay between aggregation runs in milliseconds
+     */
+    private long aggregateIntervalMs = 60000;
+
+    /**
+     * Access log rows rolled up per transaction
+     */
+    private int batchSize = 5000;
+
+    /**
+     * Time since a record was inserted, by the database clock, before it is rolled up,
+     * leaving time for writes that commit out of order
+     */
+    private Duration settleTime = Duration.ofMinutes(1);
+
+    /**
+     * How long hourly rollups are kept; older trends use the daily rollups
+     */
+    private Duration hourlyRetention = Duration.ofDays(90);
+
+    /**
+     * How long the per-day viewer lists behind unique viewer counts are kept
+     */
+    private Duration viewerRetention = Duration.ofDays(3);
+}
@@ -0,0 +1,10 @@
+package com.example.lms.content.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ContentUploadProperties.class, ContentActivityProperties.class,
+        ContentAnalyticsProperties.class, ContentTrendingProperties.class})
+public class ContentConfig {
+}
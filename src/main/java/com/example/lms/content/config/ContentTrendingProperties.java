@@ -0,0 +1,45 @@
+package com.example.lms.content.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the trending content tracker ({@code app.content.trending.*})
+ */
+@Data
+@ConfigurationProperties(prefix = "app.content.trending")
+public class ContentTrendingProperties {
+
+    /**
+     * Period trending counts cover
+     */
+    private Duration window = Duration.ofHours(1);
+
+    /**
+     * Number of slices the window moves by
+     */
+    private int slices = 12;
+
+    /**
+     * Contents counted per slice across all courses. Counts are exact while fewer distinct
+     * contents are opened in a slice.
+     */
+    private int capacity = 1000;
+
+    /**
+     * Contents counted per slice within one course
+     */
+    private int courseCapacity = 50;
+
+    /**
+     * Courses tracked at once; events of further courses only count globally
+     */
+    private int maxCourses = 1000;
+
+    /**
+     * Delay between runs dropping courses without recent opens in milliseconds
+     */
+    private long pruneIntervalMs = 300000;
+}
@@ -0,0 +1,42 @@
+package com.example.lms.content.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of resumable content uploads ({@code app.content.upload.*})
+ */
+@Data
+@ConfigurationProperties(prefix = "app.content.upload")
+public class ContentUploadProperties {
+
+    /**
+     * Largest file that can be uploaded in chunks
+     */
+    private DataSize maxFileSize = DataSize.ofGigabytes(4);
+
+    /**
+     * Largest chunk accepted by one request
+     */
+    private DataSize maxChunkSize = DataSize.ofMegabytes(32);
+
+    /**
+     * Time an upload session stays alive after its last chunk
+     */
+    private Duration sessionTimeout = Duration.ofHours(24);
+
+    /**
+     * Time a chunk may take to arrive before another request can claim its offset. A chunk
+     * still arriving after half of it is rejected, leaving the rest as margin for clock
+     * differences between nodes.
+     */
+    private Duration chunkClaimTimeout = Duration.ofMinutes(20);
+
+    /**
+     * Delay between runs removing expired sessions in milliseconds
+     */
+    private long cleanupIntervalMs = 600000;
+}
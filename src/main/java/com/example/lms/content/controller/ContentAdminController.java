@@ -0,0 +1,39 @@
+package com.example.lms.content.controller;
+
+import com.example.lms.content.dto.ContentActivityMetricsDTO;
+import com.example.lms.content.service.ContentActivityWriter;
+import com.example.lms.content.service.ContentSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/contents")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Content Administration", description = "APIs for maintaining content search and activity recording")
+public class ContentAdminController {
+
+    private final ContentSearchService contentSearchService;
+    private final ContentActivityWriter contentActivityWriter;
+
+    @PostMapping("/search-index/rebuild")
+    @Operation(summary = "Rebuild search index", description = "Rebuilds this node's content search index from the database")
+    public ResponseEntity<Map<String, Integer>> rebuildSearchIndex() {
+        return ResponseEntity.ok(Map.of("indexed", contentSearchService.rebuild()));
+    }
+
+    @GetMapping("/activity/metrics")
+    @Operation(summary = "Get activity writer metrics", description = "Returns queued, written, coalesced and dropped access and view records of this node")
+    public ResponseEntity<ContentActivityMetricsDTO> getActivityMetrics() {
+        return ResponseEntity.ok(contentActivityWriter.getMetrics());
+    }
+}
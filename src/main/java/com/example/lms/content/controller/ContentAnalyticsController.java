@@ -0,0 +1,76 @@
+package com.example.lms.content.controller;
+
+import com.example.lms.content.dto.ContentDailyAccessDTO;
+import com.example.lms.content.service.ContentAnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/contents/analytics")
+@RequiredArgsConstructor
+@Tag(name = "Content Analytics", description = "APIs for content usage and completion figures")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+public class ContentAnalyticsController {
+
+    private static final int MAX_LIMIT = 100;
+    private static final long MAX_DAYS = 366;
+
+    private final ContentAnalyticsService contentAnalyticsService;
+
+    @GetMapping("/most-accessed")
+    @Operation(summary = "Get most accessed contents", description = "Returns access counts of the most accessed contents")
+    public ResponseEntity<Map<Long, Long>> getMostAccessedContent(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return ResponseEntity.ok(contentAnalyticsService.getMostAccessedContent(limit));
+    }
+
+    @GetMapping("/{contentId}/trend")
+    @Operation(summary = "Get access trend", description = "Returns the accesses to a content per day between two times")
+    public ResponseEntity<Map<LocalDate, Long>> getContentAccessTrend(
+            @PathVariable Long contentId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        checkPeriod(start.toLocalDate(), end.toLocalDate());
+        return ResponseEntity.ok(contentAnalyticsService.getContentAccessTrend(contentId, start, end));
+    }
+
+    @GetMapping("/{contentId}/daily")
+    @Operation(summary = "Get daily figures", description = "Returns the accesses and unique viewers of a content per day")
+    public ResponseEntity<List<ContentDailyAccessDTO>> getDailyAccessStats(
+            @PathVariable Long contentId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        checkPeriod(from, to);
+        return ResponseEntity.ok(contentAnalyticsService.getDailyAccessStats(contentId, from, to));
+    }
+
+    @GetMapping("/completion-rates")
+    @Operation(summary = "Get completion rates", description = "Returns the percentage of learners who completed each content")
+    public ResponseEntity<Map<Long, Double>> getCompletionRates() {
+        return ResponseEntity.ok(contentAnalyticsService.getAverageContentCompletionRate());
+    }
+
+    private void checkPeriod(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("End of the period must not be before its start");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_DAYS) {
+            throw new IllegalArgumentException("Period must not exceed " + MAX_DAYS + " days");
+        }
+    }
+}
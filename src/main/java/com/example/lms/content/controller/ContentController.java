@@ -2,9 +2,9 @@ package com.example.lms.content.controller;
 
 import com.example.lms.common.Exception.ResourceNotFoundException;
 import com.example.lms.content.dto.ContentDTO;
+import com.example.lms.content.dto.ContentSearchHitDTO;
 import com.example.lms.content.service.ContentService;
 import com.example.lms.course.dto.CourseDTO;
-import com.example.lms.user.model.User;
 
 import lombok.RequiredArgsConstructor;
 import com.example.lms.content.model.Content;
@@ -44,6 +44,13 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.RequestParam;
 import com.example.lms.content.service.ContentFileStorageService;
+import com.example.lms.content.service.ContentFileStorageService.StoredFile;
+import com.example.lms.content.service.FileStreamingService;
+import com.example.lms.content.service.FileStreamingService.StreamResult;
+import com.example.lms.user.repository.UserRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import com.example.lms.progress.service.ContentProgressService;
 
 
@@ -58,6 +65,8 @@ public class ContentController {
     private final ContentService contentService;
     private final ContentFileStorageService fileStorageService;
     private final ContentProgressService contentProgressService;
+    private final FileStreamingService fileStreamingService;
+    private final UserRepository userRepository;
 
     @PostMapping
     @PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
@@ -191,16 +200,16 @@ public class ContentController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Search contents", description = "Searches contents by keyword")
+    @Operation(summary = "Search contents", description = "Searches titles, descriptions, article text and tags; results are ranked by relevance and matches are highlighted")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Search results retrieved")
     })
-    public ResponseEntity<Page<Content>> search(
+    public ResponseEntity<Page<ContentSearchHitDTO>> search(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Content> result = contentService.searchByKeyword(keyword, pageable);
+        Page<ContentSearchHitDTO> result = contentService.searchByKeyword(keyword, pageable);
         return ResponseEntity.ok(result);
     }
 
@@ -231,8 +240,10 @@ public class ContentController {
                 if (auth == null || !auth.isAuthenticated()) {
                     return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
                 }
-                User user = (User) auth.getPrincipal();
-                userId = user.getId();
+                userId = userRepository.findIdByEmail(auth.getName()).orElse(null);
+                if (userId == null) {
+                    return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+                }
             }
             
             // Log content access (existing functionality)
@@ -284,32 +295,53 @@ public class ContentController {
         return ResponseEntity.ok(response);
     }
 
-    // Download content file
+    // Count matching contents per tag, file type, type and publication status
+    @GetMapping("/facets")
+    @Operation(summary = "Get content facets", description = "Counts the contents matching a filter, in total and per tag, file type, content type and publication status")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Facet counts retrieved"),
+        @ApiResponse(responseCode = "503", description = "Content index is being built or refreshed")
+    })
+    public ResponseEntity<?> getContentFacets(
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(defaultValue = "false") boolean matchAllTags,
+            @RequestParam(required = false) String fileType,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Boolean isPublished) {
+        return contentService.getContentFacets(tags, matchAllTags, fileType, type, isPublished)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "10")
+                        .body(Map.of("error", "Content index is being built or refreshed")));
+    }
+
+    // Download content file, supporting range and conditional requests
     @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> downloadContent(@PathVariable Long id) {
-        try {
-            // Get ContentDTO first
-            ContentDTO contentDTO = contentService.getContentById(id);
-            
-            // Load the file resource using the file path from DTO
-            Resource resource = fileStorageService.loadFileAsResource(contentDTO.getFilePath());
-            
-            // Log access
+    @Operation(summary = "Download content file", description = "Streams the content file, honouring Range, If-Range, If-None-Match and If-Modified-Since")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Whole file"),
+        @ApiResponse(responseCode = "206", description = "Requested byte ranges"),
+        @ApiResponse(responseCode = "304", description = "Cached copy is current"),
+        @ApiResponse(responseCode = "404", description = "Content or file not found"),
+        @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
+    })
+    public void downloadContent(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ContentDTO contentDTO = contentService.getContentById(id);
+        if (contentDTO.getFilePath() == null) {
+            throw new ResourceNotFoundException("Content " + id + " has no file");
+        }
+        StoredFile file = fileStorageService.getStoredFile(contentDTO.getFilePath());
+
+        String downloadName = contentDTO.getFileName() != null ? contentDTO.getFileName() : file.fileName();
+        StreamResult result = fileStreamingService.stream(file, downloadName, contentDTO.getFileType(), request, response);
+
+        // Seeking within a file issues many range requests; only count the one that starts it
+        if (result.fromStart()) {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             if (auth != null && auth.isAuthenticated()) {
-                User user = (User) auth.getPrincipal();
-                contentService.logContentAccess(id, user.getId());
+                userRepository.findIdByEmail(auth.getName())
+                        .ifPresent(userId -> contentService.logContentAccess(id, userId));
             }
-            
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                .contentType(MediaType.parseMediaType(contentDTO.getFileType()))
-                .body(resource);
-        } catch (ResourceNotFoundException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Error downloading content {}: {}", id, e.getMessage(), e);
-            throw new RuntimeException("Could not download the file", e);
         }
     }
 
@@ -0,0 +1,114 @@
+package com.example.lms.content.controller;
+
+import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.example.lms.content.dto.ContentDTO;
+import com.example.lms.content.dto.UploadSessionDTO;
+import com.example.lms.content.dto.UploadSessionRequest;
+import com.example.lms.content.model.Content;
+import com.example.lms.content.service.ContentService;
+import com.example.lms.content.service.ContentUploadService;
+import com.example.lms.user.repository.UserRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Resumable upload protocol for large content files:
+ * create a session, PUT chunks at increasing offsets, query the offset after an
+ * interruption, then complete the upload to create the content.
+ */
+@RestController
+@RequestMapping("/api/contents/uploads")
+@RequiredArgsConstructor
+@Tag(name = "Content Uploads", description = "APIs for resumable chunked uploads of content files")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('INSTRUCTOR') or hasRole('ADMIN')")
+public class ContentUploadController {
+
+    private final ContentUploadService contentUploadService;
+    private final ContentService contentService;
+    private final UserRepository userRepository;
+
+    @PostMapping
+    @Operation(summary = "Start upload", description = "Creates a resumable upload session for a content file")
+    @ApiResponses({
+        @ApiResponse(responseCode = "201", description = "Upload session created"),
+        @ApiResponse(responseCode = "400", description = "Invalid input or file too large"),
+        @ApiResponse(responseCode = "404", description = "Course not found")
+    })
+    public ResponseEntity<UploadSessionDTO> createUpload(@Valid @RequestBody UploadSessionRequest request,
+                                                         Authentication authentication) {
+        UploadSessionDTO session = contentUploadService.createSession(getUserId(authentication), request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(session);
+    }
+
+    @GetMapping("/{uploadId}")
+    @Operation(summary = "Get upload", description = "Returns the offset an interrupted upload continues at")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Upload session"),
+        @ApiResponse(responseCode = "404", description = "Upload not found or expired")
+    })
+    public ResponseEntity<UploadSessionDTO> getUpload(@PathVariable String uploadId, Authentication authentication) {
+        return ResponseEntity.ok(contentUploadService.getSession(uploadId, getUserId(authentication)));
+    }
+
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Upload chunk", description = "Appends the request body at the given offset; X-Chunk-SHA256 carries the hex SHA-256 of the chunk")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Chunk stored, returns the new offset"),
+        @ApiResponse(responseCode = "400", description = "Chunk too large or checksum mismatch"),
+        @ApiResponse(responseCode = "404", description = "Upload not found or expired"),
+        @ApiResponse(responseCode = "409", description = "Offset does not match the upload")
+    })
+    public ResponseEntity<UploadSessionDTO> uploadChunk(@PathVariable String uploadId,
+                                                        @RequestParam long offset,
+                                                        @RequestHeader("X-Chunk-SHA256") String checksum,
+                                                        HttpServletRequest request,
+                                                        Authentication authentication) throws IOException {
+        UploadSessionDTO session = contentUploadService.appendChunk(uploadId, getUserId(authentication),
+                offset, checksum, request.getInputStream());
+        return ResponseEntity.ok(session);
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    @Operation(summary = "Complete upload", description = "Stores the uploaded file and creates its content")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Content created"),
+        @ApiResponse(responseCode = "400", description = "Upload incomplete"),
+        @ApiResponse(responseCode = "404", description = "Upload not found or expired"),
+        @ApiResponse(responseCode = "409", description = "Upload is already being completed")
+    })
+    public ResponseEntity<ContentDTO> completeUpload(@PathVariable String uploadId, Authentication authentication) {
+        Content content = contentUploadService.completeUpload(uploadId, getUserId(authentication));
+        return ResponseEntity.ok(contentService.convertToDTO(content));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @Operation(summary = "Cancel upload", description = "Abandons an upload and deletes the received bytes")
+    @ApiResponses({
+        @ApiResponse(responseCode = "204", description = "Upload cancelled"),
+        @ApiResponse(responseCode = "404", description = "Upload not found or expired")
+    })
+    public ResponseEntity<Void> cancelUpload(@PathVariable String uploadId, Authentication authentication) {
+        contentUploadService.cancelUpload(uploadId, getUserId(authentication));
+        return ResponseEntity.noContent().build();
+    }
+
+    private Long getUserId(Authentication authentication) {
+        return userRepository.findIdByEmail(authentication.getName())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + authentication.getName()));
+    }
+}
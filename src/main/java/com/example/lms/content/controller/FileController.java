@@ -9,14 +9,19 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import com.example.lms.content.service.ContentFileStorageService;
+import com.example.lms.content.service.ContentFileStorageService.StoredFile;
+import com.example.lms.content.service.FileStreamingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/files")
 @Tag(name = "File Management", description = "APIs for uploading and downloading files")
@@ -24,13 +29,15 @@ import org.springframework.web.multipart.MultipartFile;
 public class FileController {
 
     private final ContentFileStorageService fileStorageService;
+    private final FileStreamingService fileStreamingService;
     
     
     @Autowired
     private ContentService contentService;
     
-    public FileController(ContentFileStorageService fileStorageService) {
+    public FileController(ContentFileStorageService fileStorageService, FileStreamingService fileStreamingService) {
         this.fileStorageService = fileStorageService;
+        this.fileStreamingService = fileStreamingService;
     }
 
     @PostMapping("/upload")
@@ -48,20 +55,18 @@ public class FileController {
         }
     }
 
-    @GetMapping("/download/{fileName:.+}")
-    @Operation(summary = "Download file", description = "Downloads a file from the server")
+    @GetMapping("/download/{*fileName}")
+    @Operation(summary = "Download file", description = "Streams a file from the server, honouring Range and conditional request headers")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "File downloaded successfully"),
-        @ApiResponse(responseCode = "400", description = "File not found")
+        @ApiResponse(responseCode = "206", description = "Requested byte ranges"),
+        @ApiResponse(responseCode = "304", description = "Cached copy is current"),
+        @ApiResponse(responseCode = "404", description = "File not found"),
+        @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
     })
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName) {
-        try {
-            Resource resource = fileStorageService.loadFileAsResource(fileName);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
-        } catch (RuntimeException ex) {
-            return ResponseEntity.badRequest().body(null);
-        }
+    public void downloadFile(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Stored paths are sharded into directories, so the name spans the rest of the path
+        StoredFile file = fileStorageService.getStoredFile(StringUtils.trimLeadingCharacter(fileName, '/'));
+        fileStreamingService.stream(file, file.fileName(), null, request, response);
     }
 }
\ No newline at end of file
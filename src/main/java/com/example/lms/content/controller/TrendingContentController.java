@@ -0,0 +1,39 @@
+package com.example.lms.content.controller;
+
+import com.example.lms.content.dto.TrendingContentDTO;
+import com.example.lms.content.service.TrendingContentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/contents/trending")
+@RequiredArgsConstructor
+@Tag(name = "Trending Content", description = "APIs for the contents opened most right now")
+@SecurityRequirement(name = "bearerAuth")
+public class TrendingContentController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final TrendingContentService trendingContentService;
+
+    @GetMapping
+    @Operation(summary = "Get trending contents",
+               description = "Returns the contents opened most recently on this node, overall or within a course")
+    public ResponseEntity<List<TrendingContentDTO>> getTrending(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return ResponseEntity.ok(trendingContentService.getTrending(courseId, limit));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.lms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters of the content activity write-behind pipeline on the node serving the request,
+ * since it started
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentActivityMetricsDTO {
+
+    // Access records
+    private long accessesRecorded;
+    private long accessesWritten;
+    private long accessesDropped; // Queue full
+    private int accessesQueued;
+
+    // Views
+    private long viewsRecorded;
+    private long viewsCoalesced; // Merged into a view already waiting to be written
+    private long viewsWritten; // Rows inserted or updated
+    private long viewsDropped; // Too many distinct pending views
+    private int viewsPending;
+
+    // Writes
+    private long flushes;
+    private long failedRecords; // Lost because their batch could not be written
+    private long lastFlushMillis;
+}
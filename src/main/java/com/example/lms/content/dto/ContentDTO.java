@@ -21,6 +21,7 @@ public class ContentDTO {
     private String type;          // "document", "video", "quiz"
     private String content;       // For document text or quiz JSON
     private String filePath;      // For file references
+    private String fileName;      // Original name of the uploaded file
     private String videoUrl;      // For videos
     private Long moduleId;
     private Long courseId;
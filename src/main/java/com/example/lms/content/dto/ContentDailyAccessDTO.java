@@ -0,0 +1,18 @@
+package com.example.lms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentDailyAccessDTO {
+    private LocalDate date;
+    private long accesses;
+    private long uniqueViewers;
+}
@@ -0,0 +1,23 @@
+package com.example.lms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Number of contents matching a filter, in total and for each facet value
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentFacetsDTO {
+    private long total;
+    private Map<String, Long> tags;
+    private Map<String, Long> fileTypes;
+    private Map<String, Long> types;
+    private Map<Boolean, Long> published;
+}
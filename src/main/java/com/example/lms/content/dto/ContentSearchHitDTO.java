@@ -0,0 +1,23 @@
+package com.example.lms.content.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * A content search result with its relevance and highlighted matches
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ContentSearchHitDTO {
+    private ContentDTO content;
+    private Double score;                   // BM25 relevance, higher is better
+    private Map<String, String> highlights; // Field name to snippet with <mark> around matches
+}
@@ -0,0 +1,25 @@
+package com.example.lms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A content opened often in the trending window. The true number of opens lies between
+ * {@code minOpens} and {@code maxOpens}; the bounds are equal while traffic is low enough
+ * for every content to be counted exactly.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingContentDTO {
+    private Long contentId;
+    private String title;
+    private Long courseId;
+    private String fileType;
+    private long opens;
+    private long minOpens;
+    private long maxOpens;
+}
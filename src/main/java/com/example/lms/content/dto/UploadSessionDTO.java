@@ -0,0 +1,27 @@
+package com.example.lms.content.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a resumable content upload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadSessionDTO {
+    private String uploadId;
+    private String fileName;
+    private long totalSize;
+    private long offset;          // Offset the next chunk must start at
+    private long maxChunkSize;
+    private LocalDateTime expiresAt;
+    private Long contentId;       // Set once the upload is completed
+}
@@ -0,0 +1,34 @@
+package com.example.lms.content.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request to start a resumable content upload
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionRequest {
+
+    @NotNull
+    private Long courseId;
+
+    @NotBlank
+    private String title;
+
+    private String description;
+
+    @NotBlank
+    private String fileName;
+
+    private String fileType;
+
+    @NotNull
+    @Positive
+    private Long fileSize;
+}
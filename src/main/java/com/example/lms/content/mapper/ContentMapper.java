@@ -19,6 +19,8 @@ public class ContentMapper {
                 .type(content.getType() != null ? content.getType().name() : null)
                 .content(content.getContent())
                 .filePath(content.getFilePath())
+                .fileName(content.getFileName())
+                .fileType(content.getFileType())
                 .videoUrl(content.getVideoUrl())
                 .moduleId(content.getModule() != null ? content.getModule().getId() : null)
                 .courseId(content.getCourse() != null ? content.getCourse().getId() : null)
@@ -41,6 +41,9 @@ public class Content {
     @Column(nullable = false)
     private String filePath;  // path of stored file
 
+    @Column
+    private String fileName;  // original name of the uploaded file
+
     @Column
     private String fileType;  // File type (eg PDF, MP4)
 
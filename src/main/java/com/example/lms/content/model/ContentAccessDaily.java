@@ -0,0 +1,35 @@
+package com.example.lms.content.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Number of accesses to a content and of distinct users accessing it on one day,
+ * rolled up from the access log
+ */
+@Entity
+@Table(name = "content_access_daily",
+       uniqueConstraints = @UniqueConstraint(name = "uk_content_access_daily", columnNames = {"content_id", "access_date"}))
+@Data
+@NoArgsConstructor
+public class ContentAccessDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_id", nullable = false)
+    private Long contentId;
+
+    @Column(name = "access_date", nullable = false)
+    private LocalDate accessDate;
+
+    @Column(nullable = false)
+    private long accessCount;
+
+    @Column(nullable = false)
+    private long uniqueViewers;
+}
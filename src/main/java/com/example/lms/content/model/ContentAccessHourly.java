@@ -0,0 +1,32 @@
+package com.example.lms.content.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of accesses to a content within one hour, rolled up from the access log
+ */
+@Entity
+@Table(name = "content_access_hourly",
+       uniqueConstraints = @UniqueConstraint(name = "uk_content_access_hourly", columnNames = {"content_id", "bucket_start"}),
+       indexes = @Index(name = "idx_content_access_hourly_bucket", columnList = "bucket_start"))
+@Data
+@NoArgsConstructor
+public class ContentAccessHourly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_id", nullable = false)
+    private Long contentId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private long accessCount;
+}
@@ -21,4 +21,9 @@ public class ContentAccessLog {
 
     @CreationTimestamp
     private LocalDateTime accessedAt;
+
+    // Set by the database when the row is inserted; rollups settle on it rather than on the
+    // application's access time, which may be queued or come from a skewed clock
+    @Column(insertable = false, updatable = false, columnDefinition = "timestamp default clock_timestamp()")
+    private LocalDateTime recordedAt;
 }
\ No newline at end of file
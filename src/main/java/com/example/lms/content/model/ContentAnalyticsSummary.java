@@ -0,0 +1,40 @@
+package com.example.lms.content.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * All-time access totals and learner completion figures of a content
+ */
+@Entity
+@Table(name = "content_analytics_summary",
+       indexes = @Index(name = "idx_content_analytics_summary_accesses", columnList = "total_accesses"))
+@Data
+@NoArgsConstructor
+public class ContentAnalyticsSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_id", nullable = false, unique = true)
+    private Long contentId;
+
+    @Column(name = "total_accesses", nullable = false)
+    private long totalAccesses;
+
+    private LocalDateTime lastAccessedAt;
+
+    // Learners with a progress record for the content, and those of them who completed it
+    @Column(nullable = false)
+    private long learners;
+
+    @Column(nullable = false)
+    private long completedLearners;
+
+    @Column(nullable = false)
+    private double averageProgress;
+}
@@ -0,0 +1,33 @@
+package com.example.lms.content.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A user who accessed a content on a given day. Kept for recent days only, to tell
+ * whether an access adds a unique viewer to the daily rollup.
+ */
+@Entity
+@Table(name = "content_daily_viewers",
+       uniqueConstraints = @UniqueConstraint(name = "uk_content_daily_viewers", columnNames = {"content_id", "access_date", "user_id"}),
+       indexes = @Index(name = "idx_content_daily_viewers_date", columnList = "access_date"))
+@Data
+@NoArgsConstructor
+public class ContentDailyViewer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_id", nullable = false)
+    private Long contentId;
+
+    @Column(name = "access_date", nullable = false)
+    private LocalDate accessDate;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+}
@@ -0,0 +1,29 @@
+package com.example.lms.content.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far the analytics aggregator has read one of its sources. The row is locked while
+ * a node aggregates, so only one node works on a source at a time.
+ */
+@Entity
+@Table(name = "content_rollup_cursors")
+@Data
+@NoArgsConstructor
+public class ContentRollupCursor {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    // Last access log ID rolled up
+    @Column(nullable = false)
+    private long position;
+
+    // Progress changes up to this time are rolled up
+    private LocalDateTime watermark;
+}
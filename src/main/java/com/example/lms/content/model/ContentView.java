@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "content_views")
+@Table(name = "content_views",
+       uniqueConstraints = @UniqueConstraint(name = "uk_content_views_user_content", columnNames = {"user_id", "content_id"}))
 @Data
 @NoArgsConstructor
 public class ContentView {
@@ -0,0 +1,32 @@
+package com.example.lms.content.model;
+
+import com.example.lms.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * An uploaded file stored once under its SHA-256 hash, with the number of
+ * references to it held by content and other uploads
+ */
+@Entity
+@Table(name = "stored_blobs")
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredBlob extends BaseEntity {
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private long referenceCount;
+}
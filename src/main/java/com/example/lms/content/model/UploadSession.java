@@ -0,0 +1,67 @@
+package com.example.lms.content.model;
+
+import com.example.lms.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload of a content file. Chunks are appended to a partial file in order;
+ * {@code receivedSize} is the offset the next chunk must start at. A chunk being written
+ * holds a claim on the session until {@code chunkClaimedUntil}.
+ */
+@Entity
+@Table(name = "content_upload_sessions", indexes = @Index(name = "idx_upload_sessions_expires", columnList = "expires_at"))
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession extends BaseEntity {
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long courseId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column
+    private String fileType;
+
+    @Column(nullable = false)
+    private long totalSize;
+
+    @Column(nullable = false)
+    private long receivedSize;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set once the upload is completed and its content created
+    @Column
+    private Long contentId;
+
+    // Claim of the chunk currently being written, if any
+    @Column(length = 36)
+    private String chunkClaimId;
+
+    @Column
+    private LocalDateTime chunkClaimedUntil;
+}
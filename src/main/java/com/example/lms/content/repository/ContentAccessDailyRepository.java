@@ -0,0 +1,14 @@
+package com.example.lms.content.repository;
+
+import com.example.lms.content.model.ContentAccessDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ContentAccessDailyRepository extends JpaRepository<ContentAccessDaily, Long> {
+
+    List<ContentAccessDaily> findByContentIdAndAccessDateBetweenOrderByAccessDate(Long contentId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,15 @@
+package com.example.lms.content.repository;
+
+import com.example.lms.content.model.ContentAccessHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ContentAccessHourlyRepository extends JpaRepository<ContentAccessHourly, Long> {
+
+    List<ContentAccessHourly> findByContentIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            Long contentId, LocalDateTime from, LocalDateTime to);
+}
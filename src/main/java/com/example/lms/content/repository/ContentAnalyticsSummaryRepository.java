@@ -0,0 +1,21 @@
+package com.example.lms.content.repository;
+
+import com.example.lms.content.model.ContentAnalyticsSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ContentAnalyticsSummaryRepository extends JpaRepository<ContentAnalyticsSummary, Long> {
+
+    Optional<ContentAnalyticsSummary> findByContentId(Long contentId);
+
+    @Query("SELECT s FROM ContentAnalyticsSummary s WHERE s.totalAccesses > 0 ORDER BY s.totalAccesses DESC, s.contentId")
+    List<ContentAnalyticsSummary> findMostAccessed(Pageable pageable);
+
+    List<ContentAnalyticsSummary> findByLearnersGreaterThan(long learners);
+}
@@ -2,7 +2,10 @@ package com.example.lms.content.repository;
 
 import com.example.lms.content.model.Content;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -70,6 +73,21 @@ public interface ContentRepository extends JpaRepository<Content, Long> {
                                  @Param("isPublished") Boolean isPublished,
                                  Pageable pageable);
 
+    // IDs of non-deleted contents in batches, for rebuilding the search index
+    @Query("SELECT c.id FROM Content c WHERE c.deleted = false AND c.id > :afterId ORDER BY c.id")
+    List<Long> findActiveIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // IDs of contents changed since a time, deleted ones included, for refreshing the search index
+    @Query("SELECT c.id FROM Content c WHERE c.updatedAt > :since")
+    List<Long> findIdsUpdatedAfter(@Param("since") LocalDateTime since);
+
+    @Query("SELECT DISTINCT c FROM Content c LEFT JOIN FETCH c.tags LEFT JOIN FETCH c.course LEFT JOIN FETCH c.module " +
+           "WHERE c.id IN :ids")
+    List<Content> findAllWithTagsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.course.id FROM Content c WHERE c.id = :id")
+    Optional<Long> findCourseIdById(@Param("id") Long id);
+
     // Add methods to find deleted content when needed
     @Query("SELECT c FROM Content c WHERE c.deleted = true")
     List<Content> findDeleted();
@@ -78,7 +96,7 @@ public interface ContentRepository extends JpaRepository<Content, Long> {
     Page<Content> findDeleted(Pageable pageable);
 
     // Method to restore deleted content
-    @Query("UPDATE Content c SET c.deleted = false WHERE c.id = :id")
+    @Query("UPDATE Content c SET c.deleted = false, c.updatedAt = CURRENT_TIMESTAMP WHERE c.id = :id")
     @Modifying
     @Transactional
     void restoreContent(@Param("id") Long id);
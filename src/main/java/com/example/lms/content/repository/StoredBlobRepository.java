@@ -0,0 +1,31 @@
+package com.example.lms.content.repository;
+
+import com.example.lms.content.model.StoredBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, Long> {
+
+    /**
+     * Add a reference to a blob, creating its row on first use. The row stays locked until
+     * the transaction ends, so the blob cannot be released meanwhile.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stored_blobs (sha256, size, reference_count, created_at, updated_at) " +
+           "VALUES (:sha256, :size, 1, now(), now()) " +
+           "ON CONFLICT (sha256) DO UPDATE SET reference_count = stored_blobs.reference_count + 1, " +
+           "updated_at = now()", nativeQuery = true)
+    int addReference(@Param("sha256") String sha256, @Param("size") long size);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StoredBlob b WHERE b.sha256 = :sha256")
+    Optional<StoredBlob> findBySha256ForUpdate(@Param("sha256") String sha256);
+}
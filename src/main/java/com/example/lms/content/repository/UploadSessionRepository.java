@@ -0,0 +1,64 @@
+package com.example.lms.content.repository;
+
+import com.example.lms.content.model.UploadSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+
+    Optional<UploadSession> findByUploadId(String uploadId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UploadSession s WHERE s.uploadId = :uploadId")
+    Optional<UploadSession> findByUploadIdForUpdate(@Param("uploadId") String uploadId);
+
+    /**
+     * Lock expired sessions. Sessions with a chunk being written are skipped, so they are
+     * never removed mid-write.
+     */
+    @Query(value = "SELECT * FROM content_upload_sessions WHERE expires_at < :now " +
+           "AND (chunk_claimed_until IS NULL OR chunk_claimed_until < :now) " +
+           "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UploadSession> lockExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Claim an active, incomplete session for writing the chunk at the given offset, unless
+     * another chunk holds an unexpired claim
+     *
+     * @return 1 if claimed, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UploadSession s SET s.chunkClaimId = :claimId, s.chunkClaimedUntil = :claimedUntil " +
+           "WHERE s.uploadId = :uploadId AND s.userId = :userId AND s.contentId IS NULL " +
+           "AND s.receivedSize = :offset AND s.expiresAt > :now " +
+           "AND (s.chunkClaimedUntil IS NULL OR s.chunkClaimedUntil < :now)")
+    int claimChunk(@Param("uploadId") String uploadId, @Param("userId") Long userId, @Param("offset") long offset,
+                   @Param("claimId") String claimId, @Param("claimedUntil") LocalDateTime claimedUntil,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Record a written chunk and release its claim
+     *
+     * @return 1 if recorded, 0 if the claim was lost
+     */
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.receivedSize = :receivedSize, s.expiresAt = :expiresAt, " +
+           "s.chunkClaimId = NULL, s.chunkClaimedUntil = NULL WHERE s.uploadId = :uploadId AND s.chunkClaimId = :claimId")
+    int recordChunk(@Param("uploadId") String uploadId, @Param("claimId") String claimId,
+                    @Param("receivedSize") long receivedSize, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.chunkClaimId = NULL, s.chunkClaimedUntil = NULL " +
+           "WHERE s.uploadId = :uploadId AND s.chunkClaimId = :claimId")
+    int releaseChunkClaim(@Param("uploadId") String uploadId, @Param("claimId") String claimId);
+}
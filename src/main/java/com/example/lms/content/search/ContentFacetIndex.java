@@ -0,0 +1,225 @@
+package com.example.lms.content.search;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory bitmap index of content attributes: one {@link IdBitmap} of content IDs per
+ * tag, file type, content type and publication status. Filters are evaluated as bitmap
+ * intersections and unions, so matching, counting and paging by ID never touch the
+ * database. Reads run concurrently; updates take a write lock.
+ */
+public class ContentFacetIndex {
+
+    /**
+     * Facet values of a content item
+     */
+    public record Document(long id, Collection<String> tags, String fileType, String type, boolean published) {
+    }
+
+    /**
+     * Filter on facet values. Values within a facet are alternatives, except tags when
+     * {@code allTags} is set; facets are combined with AND. Null or empty means no filter.
+     */
+    public record Filter(Collection<String> tags, boolean allTags, Collection<String> fileTypes,
+                         Collection<String> types, Boolean published) {
+    }
+
+    public record IdPage(long total, List<Long> ids) {
+    }
+
+    /**
+     * Number of matching contents with each facet value
+     */
+    public record Facets(long total, Map<String, Long> tags, Map<String, Long> fileTypes,
+                         Map<String, Long> types, Map<Boolean, Long> published) {
+    }
+
+    private record Entry(Set<String> tags, String fileType, String type, boolean published) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IdBitmap all = new IdBitmap();
+    private final IdBitmap published = new IdBitmap();
+    private final IdBitmap unpublished = new IdBitmap();
+    private final Map<String, IdBitmap> byTag = new HashMap<>();
+    private final Map<String, IdBitmap> byFileType = new HashMap<>();
+    private final Map<String, IdBitmap> byType = new HashMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    /**
+     * Whether an ID can be indexed; bitmaps hold int IDs
+     */
+    public static boolean supports(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Add a document, replacing any earlier version of it
+     */
+    public void put(Document document) {
+        int id = (int) document.id();
+        Set<String> tags = document.tags() == null ? Set.of() : document.tags().stream()
+                .map(ContentFacetIndex::normalizeTag)
+                .collect(Collectors.toUnmodifiableSet());
+        Entry entry = new Entry(tags, document.fileType(), document.type(), document.published());
+
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+            all.add(id);
+            (entry.published() ? published : unpublished).add(id);
+            tags.forEach(tag -> byTag.computeIfAbsent(tag, key -> new IdBitmap()).add(id));
+            if (entry.fileType() != null) {
+                byFileType.computeIfAbsent(entry.fileType(), key -> new IdBitmap()).add(id);
+            }
+            if (entry.type() != null) {
+                byType.computeIfAbsent(entry.type(), key -> new IdBitmap()).add(id);
+            }
+            entries.put(id, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        if (!supports(id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeEntry((int) id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get a page of matching content IDs in ID order
+     *
+     * @param filter Filter
+     * @param offset Number of matches to skip
+     * @param limit Number of IDs to return
+     * @param descending Whether to start from the highest ID
+     * @return Number of matches and the IDs of the page
+     */
+    public IdPage page(Filter filter, long offset, int limit, boolean descending) {
+        lock.readLock().lock();
+        try {
+            IdBitmap matches = match(filter);
+            List<Long> ids = matches.page(offset, limit, descending).stream().map(Integer::longValue).toList();
+            return new IdPage(matches.cardinality(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the matching contents, in total and per facet value. Values without matches
+     * are left out.
+     */
+    public Facets facets(Filter filter) {
+        lock.readLock().lock();
+        try {
+            IdBitmap matches = match(filter);
+            Map<Boolean, Long> byPublished = new TreeMap<>();
+            putIfPositive(byPublished, true, matches.andCardinality(published));
+            putIfPositive(byPublished, false, matches.andCardinality(unpublished));
+            return new Facets(matches.cardinality(), count(matches, byTag), count(matches, byFileType),
+                    count(matches, byType), byPublished);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private IdBitmap match(Filter filter) {
+        IdBitmap result = all;
+        if (filter.tags() != null && !filter.tags().isEmpty()) {
+            IdBitmap tagged = null;
+            for (String tag : filter.tags()) {
+                IdBitmap bitmap = byTag.getOrDefault(normalizeTag(tag), new IdBitmap());
+                tagged = tagged == null ? bitmap : filter.allTags() ? tagged.and(bitmap) : tagged.or(bitmap);
+            }
+            result = result.and(tagged);
+        }
+        result = restrict(result, byFileType, filter.fileTypes());
+        result = restrict(result, byType, filter.types());
+        if (filter.published() != null) {
+            result = result.and(filter.published() ? published : unpublished);
+        }
+        // Never hand out a live bitmap
+        return result == all ? all.copy() : result;
+    }
+
+    private IdBitmap restrict(IdBitmap result, Map<String, IdBitmap> facet, Collection<String> values) {
+        if (values == null || values.isEmpty()) {
+            return result;
+        }
+        IdBitmap any = new IdBitmap();
+        for (String value : values) {
+            IdBitmap bitmap = facet.get(value);
+            if (bitmap != null) {
+                any = any.or(bitmap);
+            }
+        }
+        return result.and(any);
+    }
+
+    private Map<String, Long> count(IdBitmap matches, Map<String, IdBitmap> facet) {
+        Map<String, Long> counts = new TreeMap<>();
+        facet.forEach((value, bitmap) -> putIfPositive(counts, value, matches.andCardinality(bitmap)));
+        return counts;
+    }
+
+    private <K> void putIfPositive(Map<K, Long> counts, K key, long count) {
+        if (count > 0) {
+            counts.put(key, count);
+        }
+    }
+
+    private void removeEntry(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        all.remove(id);
+        (entry.published() ? published : unpublished).remove(id);
+        entry.tags().forEach(tag -> removeFrom(byTag, tag, id));
+        if (entry.fileType() != null) {
+            removeFrom(byFileType, entry.fileType(), id);
+        }
+        if (entry.type() != null) {
+            removeFrom(byType, entry.type(), id);
+        }
+    }
+
+    private void removeFrom(Map<String, IdBitmap> facet, String value, int id) {
+        IdBitmap bitmap = facet.get(value);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                facet.remove(value);
+            }
+        }
+    }
+
+    private static String normalizeTag(String tag) {
+        return tag.toLowerCase().trim();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.lms.content.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory inverted index over content text, ranked with BM25.
+ *
+ * Fields are folded into one weighted term frequency per document (title counts more than
+ * tags, tags more than the description, the description more than the body), which is the
+ * usual simplification of BM25F. Terms are kept sorted, so a query term also matches the
+ * terms it is a prefix of, at a discount. Reads run concurrently; updates take a write lock.
+ */
+public class ContentSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float TAG_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.5f;
+    private static final float BODY_WEIGHT = 1.0f;
+
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_DISCOUNT = 0.7;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    /**
+     * Text and filter attributes of a content item
+     */
+    public record Document(long id, String title, String description, String body, Collection<String> tags,
+                           String fileType, boolean published) {
+    }
+
+    /**
+     * Attributes searches can be filtered on
+     */
+    public record Attributes(String fileType, boolean published, Set<String> tags) {
+    }
+
+    public record Hit(long id, double score) {
+    }
+
+    public record Results(long total, List<Hit> hits) {
+    }
+
+    private record Entry(float length, Set<String> terms, Attributes attributes) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private double totalLength;
+
+    /**
+     * Add a document, replacing any earlier version of it
+     */
+    public void put(Document document) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, document.title(), TITLE_WEIGHT);
+        addField(frequencies, document.description(), DESCRIPTION_WEIGHT);
+        addField(frequencies, document.body(), BODY_WEIGHT);
+        Set<String> tags = new LinkedHashSet<>();
+        if (document.tags() != null) {
+            for (String tag : document.tags()) {
+                addField(frequencies, tag, TAG_WEIGHT);
+                tags.add(tag.toLowerCase().trim());
+            }
+        }
+        float length = (float) frequencies.values().stream().mapToDouble(Float::doubleValue).sum();
+        Entry entry = new Entry(length, Set.copyOf(frequencies.keySet()),
+                new Attributes(document.fileType(), document.published(), Set.copyOf(tags)));
+
+        lock.writeLock().lock();
+        try {
+            removeEntry(document.id());
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), frequency));
+            entries.put(document.id(), entry);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rank the documents matching any of the query terms
+     *
+     * @param queryTerms Normalized query terms
+     * @param filter Filter on document attributes
+     * @param offset Number of top hits to skip
+     * @param limit Number of hits to return
+     * @return Total number of matching documents and the requested hits, best first
+     */
+    public Results search(List<String> queryTerms, Predicate<Attributes> filter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int documentCount = entries.size();
+            if (documentCount == 0 || queryTerms.isEmpty()) {
+                return new Results(0, List.of());
+            }
+            double averageLength = Math.max(totalLength / documentCount, 1.0);
+
+            // A document scores for each query term once, through its best matching index term
+            Map<Long, Double> scores = new HashMap<>();
+            for (String queryTerm : new LinkedHashSet<>(queryTerms)) {
+                Map<Long, Double> termScores = new HashMap<>();
+                Map<Long, Float> exact = postings.get(queryTerm);
+                if (exact != null) {
+                    score(exact, 1.0, documentCount, averageLength, termScores);
+                }
+                if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+                    int expansions = 0;
+                    for (Map<Long, Float> expanded : postings
+                            .subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).values()) {
+                        if (++expansions > MAX_PREFIX_EXPANSIONS) break;
+                        score(expanded, PREFIX_DISCOUNT, documentCount, averageLength, termScores);
+                    }
+                }
+                termScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+
+            // Keep only the hits up to the requested page
+            int wanted = offset + limit;
+            Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).thenComparing(Hit::id, Comparator.reverseOrder());
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(1, Math.min(wanted, scores.size())), ranking);
+            long total = 0;
+            for (Map.Entry<Long, Double> scored : scores.entrySet()) {
+                if (!filter.test(entries.get(scored.getKey()).attributes())) {
+                    continue;
+                }
+                total++;
+                if (wanted <= 0) {
+                    continue;
+                }
+                Hit hit = new Hit(scored.getKey(), scored.getValue());
+                if (top.size() < wanted) {
+                    top.add(hit);
+                } else if (ranking.compare(hit, top.peek()) > 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(ranking.reversed());
+            return new Results(total, offset >= hits.size() ? List.of() : hits.subList(offset, hits.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void score(Map<Long, Float> termPostings, double factor, int documentCount, double averageLength,
+                       Map<Long, Double> termScores) {
+        int documentFrequency = termPostings.size();
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        termPostings.forEach((id, frequency) -> {
+            double norm = K1 * (1 - B + B * entries.get(id).length() / averageLength);
+            double score = factor * idf * frequency * (K1 + 1) / (frequency + norm);
+            termScores.merge(id, score, Math::max);
+        });
+    }
+
+    private void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String term : SearchTokenizer.terms(text)) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+    }
+
+    private void removeEntry(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String term : entry.terms()) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(id);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= entry.length();
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.lms.content.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Compressed set of non-negative int IDs, laid out like a Roaring bitmap.
+ *
+ * IDs are grouped by their upper 16 bits. Each group holds its lower 16 bits either as a
+ * sorted array, while it has at most {@value #ARRAY_LIMIT} members, or as a 65536-bit
+ * bitmap, so sparse values such as rare tags take a few bytes per member and dense values
+ * such as "published" one bit per ID. Not thread-safe.
+ */
+public final class IdBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    private final NavigableMap<Integer, Container> containers = new TreeMap<>();
+
+    public void add(int id) {
+        checkId(id);
+        containers.computeIfAbsent(id >>> 16, key -> new Container()).add((char) id);
+    }
+
+    public void remove(int id) {
+        checkId(id);
+        Container container = containers.get(id >>> 16);
+        if (container != null) {
+            container.remove((char) id);
+            if (container.cardinality == 0) {
+                containers.remove(id >>> 16);
+            }
+        }
+    }
+
+    public boolean contains(int id) {
+        Container container = containers.get(id >>> 16);
+        return container != null && container.contains((char) id);
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (Container container : containers.values()) {
+            cardinality += container.cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return containers.isEmpty();
+    }
+
+    /**
+     * IDs in both bitmaps, as a new bitmap
+     */
+    public IdBitmap and(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        for (Map.Entry<Integer, Container> entry : containers.entrySet()) {
+            Container theirs = other.containers.get(entry.getKey());
+            if (theirs != null) {
+                Container both = entry.getValue().and(theirs);
+                if (both.cardinality > 0) {
+                    result.containers.put(entry.getKey(), both);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of IDs in both bitmaps, without building the intersection
+     */
+    public long andCardinality(IdBitmap other) {
+        long cardinality = 0;
+        for (Map.Entry<Integer, Container> entry : containers.entrySet()) {
+            Container theirs = other.containers.get(entry.getKey());
+            if (theirs != null) {
+                cardinality += entry.getValue().andCardinality(theirs);
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * IDs in either bitmap, as a new bitmap
+     */
+    public IdBitmap or(IdBitmap other) {
+        IdBitmap result = copy();
+        for (Map.Entry<Integer, Container> entry : other.containers.entrySet()) {
+            Container ours = result.containers.get(entry.getKey());
+            result.containers.put(entry.getKey(), ours == null ? entry.getValue().copy() : ours.or(entry.getValue()));
+        }
+        return result;
+    }
+
+    public IdBitmap copy() {
+        IdBitmap copy = new IdBitmap();
+        containers.forEach((key, container) -> copy.containers.put(key, container.copy()));
+        return copy;
+    }
+
+    /**
+     * Get a page of IDs in ascending or descending order
+     *
+     * @param offset Number of IDs to skip
+     * @param limit Number of IDs to return
+     * @param descending Whether to start from the highest ID
+     * @return IDs of the page
+     */
+    public List<Integer> page(long offset, int limit, boolean descending) {
+        List<Integer> ids = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        long skip = offset;
+        Iterator<Map.Entry<Integer, Container>> groups = (descending ? containers.descendingMap() : containers)
+                .entrySet().iterator();
+        while (groups.hasNext() && ids.size() < limit) {
+            Map.Entry<Integer, Container> group = groups.next();
+            Container container = group.getValue();
+            // Whole groups before the page are skipped by their count alone
+            if (skip >= container.cardinality) {
+                skip -= container.cardinality;
+                continue;
+            }
+            int high = group.getKey() << 16;
+            for (char low : container.values(descending)) {
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                ids.add(high | low);
+                if (ids.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void checkId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("IDs must not be negative: " + id);
+        }
+    }
+
+    // Lower 16 bits of the IDs of one group, as a sorted array or a bitmap
+    private static final class Container {
+        private char[] array = new char[4];
+        private long[] words;
+        private int cardinality;
+
+        boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, value) >= 0;
+        }
+
+        void add(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) == 0) {
+                    words[value >>> 6] |= bit;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, value);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toBitmap();
+                add(value);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, array.length * 2));
+            }
+            System.arraycopy(array, index, array, index + 1, cardinality - index);
+            array[index] = value;
+            cardinality++;
+        }
+
+        void remove(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) != 0) {
+                    words[value >>> 6] &= ~bit;
+                    cardinality--;
+                    if (cardinality <= ARRAY_LIMIT / 2) {
+                        toArray();
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(array, index + 1, array, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+
+        Container and(Container other) {
+            Container result = new Container();
+            if (words != null && other.words != null) {
+                result.words = new long[WORDS];
+                for (int i = 0; i < WORDS; i++) {
+                    result.words[i] = words[i] & other.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+                if (result.cardinality <= ARRAY_LIMIT) {
+                    result.toArray();
+                }
+                return result;
+            }
+            // At least one side is an array, so the result fits in one
+            Container small = words == null ? this : other;
+            Container large = small == this ? other : this;
+            result.array = new char[Math.max(1, small.cardinality)];
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.array[i])) {
+                    result.array[result.cardinality++] = small.array[i];
+                }
+            }
+            return result;
+        }
+
+        long andCardinality(Container other) {
+            if (words != null && other.words != null) {
+                long cardinality = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    cardinality += Long.bitCount(words[i] & other.words[i]);
+                }
+                return cardinality;
+            }
+            Container small = words == null ? this : other;
+            Container large = small == this ? other : this;
+            long cardinality = 0;
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.array[i])) {
+                    cardinality++;
+                }
+            }
+            return cardinality;
+        }
+
+        Container or(Container other) {
+            Container result = copy();
+            if (other.words != null) {
+                result.toBitmap();
+                result.cardinality = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    result.words[i] |= other.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+                return result;
+            }
+            for (int i = 0; i < other.cardinality; i++) {
+                result.add(other.array[i]);
+            }
+            return result;
+        }
+
+        Container copy() {
+            Container copy = new Container();
+            copy.cardinality = cardinality;
+            if (words != null) {
+                copy.words = words.clone();
+            } else {
+                copy.array = Arrays.copyOf(array, Math.max(1, cardinality));
+            }
+            return copy;
+        }
+
+        Iterable<Character> values(boolean descending) {
+            return () -> new Iterator<>() {
+                private int next = descending ? (words != null ? 65535 : cardinality - 1) : 0;
+
+                {
+                    advance();
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return words != null ? next >= 0 && next <= 65535 : next >= 0 && next < cardinality;
+                }
+
+                @Override
+                public Character next() {
+                    char value = words != null ? (char) next : array[next];
+                    next += descending ? -1 : 1;
+                    advance();
+                    return value;
+                }
+
+                // Move to the next set bit of a bitmap container
+                private void advance() {
+                    if (words == null) {
+                        return;
+                    }
+                    while (next >= 0 && next <= 65535 && (words[next >>> 6] & (1L << next)) == 0) {
+                        next += descending ? -1 : 1;
+                    }
+                }
+            };
+        }
+
+        private void toBitmap() {
+            if (words != null) {
+                return;
+            }
+            words = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[array[i] >>> 6] |= 1L << array[i];
+            }
+            array = null;
+        }
+
+        private void toArray() {
+            char[] values = new char[Math.max(1, cardinality)];
+            int index = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[index++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            array = values;
+            words = null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.lms.content.search;
+
+import com.example.lms.content.search.SearchTokenizer.Token;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Marks query matches in text with {@code <mark>} tags. The text around the marks is
+ * HTML-escaped, so the result can be rendered as HTML.
+ */
+public final class SearchHighlighter {
+
+    private static final String OPEN = "<mark>";
+    private static final String CLOSE = "</mark>";
+    private static final String ELLIPSIS = "…";
+
+    private SearchHighlighter() {
+    }
+
+    /**
+     * Highlight the matches of a text, cut to a snippet around the first match
+     *
+     * @param text Text to highlight
+     * @param queryTerms Normalized query terms; words starting with a term match too
+     * @param maxLength Approximate length of the snippet before markup
+     * @return Highlighted snippet, or null if nothing matches
+     */
+    public static String highlight(String text, Collection<String> queryTerms, int maxLength) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        List<Token> matches = SearchTokenizer.tokenize(text).stream()
+                .filter(token -> matches(token.term(), queryTerms))
+                .toList();
+        if (matches.isEmpty()) {
+            return null;
+        }
+
+        // Center the snippet on the first match, leaving a little context before it
+        int start = 0;
+        int end = text.length();
+        if (end > maxLength) {
+            start = Math.max(0, matches.get(0).start() - maxLength / 4);
+            end = Math.min(text.length(), start + maxLength);
+            start = Math.max(0, Math.min(start, end - maxLength));
+            start = Math.min(wordBoundaryAfter(text, start), matches.get(0).start());
+            end = wordBoundaryBefore(text, end, matches.get(0).end());
+        }
+
+        StringBuilder snippet = new StringBuilder(end - start + 32);
+        if (start > 0) snippet.append(ELLIPSIS);
+        int position = start;
+        for (Token match : matches) {
+            if (match.start() < start) continue;
+            if (match.end() > end) break;
+            snippet.append(HtmlUtils.htmlEscape(text.substring(position, match.start())))
+                    .append(OPEN)
+                    .append(HtmlUtils.htmlEscape(text.substring(match.start(), match.end())))
+                    .append(CLOSE);
+            position = match.end();
+        }
+        snippet.append(HtmlUtils.htmlEscape(text.substring(position, end)));
+        if (end < text.length()) snippet.append(ELLIPSIS);
+        return snippet.toString();
+    }
+
+    private static boolean matches(String term, Collection<String> queryTerms) {
+        for (String queryTerm : queryTerms) {
+            if (term.equals(queryTerm) || (queryTerm.length() >= ContentSearchIndex.MIN_PREFIX_LENGTH && term.startsWith(queryTerm))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int wordBoundaryAfter(String text, int index) {
+        if (index == 0) return 0;
+        int space = text.indexOf(' ', index);
+        return space < 0 || space - index > 20 ? index : space + 1;
+    }
+
+    private static int wordBoundaryBefore(String text, int index, int minimum) {
+        if (index >= text.length()) return text.length();
+        int space = text.lastIndexOf(' ', index);
+        return space < minimum || index - space > 20 ? index : space;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.lms.content.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into search terms: runs of letters and digits, lower-cased and stripped of
+ * accents, without common English stop words. Each token keeps its position in the
+ * original text so matches can be highlighted.
+ */
+public final class SearchTokenizer {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into",
+            "is", "it", "no", "not", "of", "on", "or", "such", "that", "the", "their", "then",
+            "there", "these", "they", "this", "to", "was", "will", "with");
+
+    /**
+     * A term and where it was found
+     *
+     * @param term Normalized term
+     * @param start Start of the word in the original text
+     * @param end End of the word in the original text, exclusive
+     */
+    public record Token(String term, int start, int end) {
+    }
+
+    private SearchTokenizer() {
+    }
+
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            String term = normalize(matcher.group());
+            if (!term.isEmpty() && !STOP_WORDS.contains(term)) {
+                tokens.add(new Token(term, matcher.start(), matcher.end()));
+            }
+        }
+        return tokens;
+    }
+
+    public static List<String> terms(String text) {
+        return tokenize(text).stream().map(Token::term).toList();
+    }
+
+    private static String normalize(String word) {
+        String term = word.toLowerCase(Locale.ROOT);
+        if (!isAscii(term)) {
+            term = MARKS.matcher(Normalizer.normalize(term, Normalizer.Form.NFD)).replaceAll("");
+        }
+        return term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term;
+    }
+
+    private static boolean isAscii(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (term.charAt(i) > 127) return false;
+        }
+        return true;
+    }
+}
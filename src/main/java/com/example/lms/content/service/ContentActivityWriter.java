@@ -0,0 +1,353 @@
+package com.example.lms.content.service;
+
+import com.example.lms.content.config.ContentActivityProperties;
+import com.example.lms.content.dto.ContentActivityMetricsDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind pipeline for content access records and content views.
+ *
+ * Callers only enqueue: access records go to a bounded lock-free queue, and views are
+ * merged per (user, content) in a map, so repeated views within the flush interval become
+ * a single update. A writer thread flushes both with batched statements whenever a batch
+ * fills up or the interval passes, and once more on shutdown. Records arriving while the
+ * queue or the map is full are dropped and counted; these rows feed analytics only, and
+ * losing some under overload is preferred over slowing down content pages.
+ *
+ * View upserts rely on the unique (user, content) constraint of {@code content_views}. Schema
+ * updates cannot add it while duplicate rows exist, so they are merged and the constraint is
+ * added at startup; startup fails if that is not possible.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class ContentActivityWriter {
+
+    private static final String INSERT_ACCESS_SQL =
+            "INSERT INTO content_access_log (user_id, content_id, accessed_at) VALUES (?, ?, ?)";
+    // Skips views of users or contents deleted meanwhile instead of failing the batch
+    private static final String UPSERT_VIEW_SQL =
+            "INSERT INTO content_views (user_id, content_id, view_date, view_count) " +
+            "SELECT ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM users WHERE id = ?) " +
+            "AND EXISTS (SELECT 1 FROM content WHERE id = ?) " +
+            "ON CONFLICT (user_id, content_id) DO UPDATE SET " +
+            "view_count = COALESCE(content_views.view_count, 0) + EXCLUDED.view_count, " +
+            "view_date = GREATEST(COALESCE(content_views.view_date, EXCLUDED.view_date), EXCLUDED.view_date)";
+
+    private static final String VIEW_CONSTRAINT = "uk_content_views_user_content";
+    private static final String VIEW_CONSTRAINT_EXISTS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ?)";
+    // Keep the oldest row of each (user, content) pair with the summed count and latest date
+    private static final String MERGE_DUPLICATE_VIEWS_SQL =
+            "UPDATE content_views v SET view_count = d.view_count, view_date = d.view_date FROM (" +
+            "SELECT MIN(id) AS id, SUM(COALESCE(view_count, 0)) AS view_count, MAX(view_date) AS view_date " +
+            "FROM content_views GROUP BY user_id, content_id HAVING COUNT(*) > 1) d WHERE v.id = d.id";
+    private static final String DELETE_DUPLICATE_VIEWS_SQL =
+            "DELETE FROM content_views v USING content_views k " +
+            "WHERE v.user_id = k.user_id AND v.content_id = k.content_id AND v.id > k.id";
+
+    private record AccessRecord(Long userId, Long contentId, LocalDateTime accessedAt) {
+    }
+
+    private record ViewKey(Long userId, Long contentId) {
+    }
+
+    private record PendingView(int count, LocalDateTime lastViewedAt) {
+        PendingView merge(PendingView other) {
+            return new PendingView(count + other.count,
+                    lastViewedAt.isAfter(other.lastViewedAt) ? lastViewedAt : other.lastViewedAt);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentActivityProperties properties;
+    private final ScheduledExecutorService flusher;
+
+    private final Queue<AccessRecord> accesses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger accessesQueued = new AtomicInteger();
+    private final Map<ViewKey, PendingView> pendingViews = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final AtomicLong accessesRecorded = new AtomicLong();
+    private final AtomicLong accessesWritten = new AtomicLong();
+    private final AtomicLong accessesDropped = new AtomicLong();
+    private final AtomicLong viewsRecorded = new AtomicLong();
+    private final AtomicLong viewsCoalesced = new AtomicLong();
+    private final AtomicLong viewsWritten = new AtomicLong();
+    private final AtomicLong viewsDropped = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedRecords = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    public ContentActivityWriter(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ContentActivityProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "content-activity-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getFlushInterval().toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Merge duplicate view rows and add the unique constraint the view upserts need, if an
+     * older schema lacks it
+     *
+     * @throws IllegalStateException if the constraint cannot be added
+     */
+    @PostConstruct
+    public void ensureViewConstraint() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (viewConstraintExists()) {
+                    return;
+                }
+                // Blocks writers, and other nodes starting up, until the constraint is in place
+                jdbcTemplate.execute("LOCK TABLE content_views IN SHARE ROW EXCLUSIVE MODE");
+                if (viewConstraintExists()) {
+                    return;
+                }
+                int merged = jdbcTemplate.update(MERGE_DUPLICATE_VIEWS_SQL);
+                int deleted = jdbcTemplate.update(DELETE_DUPLICATE_VIEWS_SQL);
+                jdbcTemplate.execute("ALTER TABLE content_views ADD CONSTRAINT " + VIEW_CONSTRAINT +
+                        " UNIQUE (user_id, content_id)");
+                log.warn("Added constraint {}, merging {} duplicate content views into {} rows",
+                        VIEW_CONSTRAINT, deleted + merged, merged);
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not add constraint " + VIEW_CONSTRAINT +
+                    " to content_views; content views cannot be written without it", e);
+        }
+    }
+
+    /**
+     * Write everything still pending before the application stops
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Content activity flush did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        log.info("Content activity writer stopped: {} accesses and {} views written, {} accesses and {} views dropped",
+                accessesWritten.get(), viewsWritten.get(), accessesDropped.get(), viewsDropped.get());
+    }
+
+    /**
+     * Queue an access record
+     *
+     * @param contentId Accessed content
+     * @param userId Accessing user
+     * @return Whether the record was accepted
+     */
+    public boolean recordAccess(Long contentId, Long userId) {
+        accessesRecorded.incrementAndGet();
+        int queued = accessesQueued.incrementAndGet();
+        if (queued > properties.getQueueCapacity()) {
+            accessesQueued.decrementAndGet();
+            accessesDropped.incrementAndGet();
+            return false;
+        }
+        accesses.add(new AccessRecord(userId, contentId, LocalDateTime.now()));
+        if (queued >= properties.getBatchSize()) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    /**
+     * Count a view of a content, merged with other pending views of the same user and content
+     *
+     * @param userId Viewing user
+     * @param contentId Viewed content
+     * @return Whether the view was accepted
+     */
+    public boolean recordView(Long userId, Long contentId) {
+        viewsRecorded.incrementAndGet();
+        ViewKey key = new ViewKey(userId, contentId);
+        PendingView view = new PendingView(1, LocalDateTime.now());
+
+        // Checking the size first may let a few concurrent views past the limit, which is harmless
+        if (pendingViews.size() >= properties.getMaxPendingViews() && !pendingViews.containsKey(key)) {
+            viewsDropped.incrementAndGet();
+            return false;
+        }
+        if (pendingViews.merge(key, view, PendingView::merge) != view) {
+            viewsCoalesced.incrementAndGet();
+        }
+        if (pendingViews.size() >= properties.getBatchSize()) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    public ContentActivityMetricsDTO getMetrics() {
+        return ContentActivityMetricsDTO.builder()
+                .accessesRecorded(accessesRecorded.get())
+                .accessesWritten(accessesWritten.get())
+                .accessesDropped(accessesDropped.get())
+                .accessesQueued(accessesQueued.get())
+                .viewsRecorded(viewsRecorded.get())
+                .viewsCoalesced(viewsCoalesced.get())
+                .viewsWritten(viewsWritten.get())
+                .viewsDropped(viewsDropped.get())
+                .viewsPending(pendingViews.size())
+                .flushes(flushes.get())
+                .failedRecords(failedRecords.get())
+                .lastFlushMillis(lastFlushMillis)
+                .build();
+    }
+
+    private boolean viewConstraintExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(VIEW_CONSTRAINT_EXISTS_SQL, Boolean.class, VIEW_CONSTRAINT));
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the final flush picks the records up
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    // Runs on the writer thread, or on the stopping thread once the writer has ended
+    private void flushQuietly() {
+        flushRequested.set(false);
+        long started = System.currentTimeMillis();
+        try {
+            int written = flushAccesses() + flushViews();
+            if (written > 0) {
+                flushes.incrementAndGet();
+                lastFlushMillis = System.currentTimeMillis() - started;
+            }
+        } catch (Exception e) {
+            log.error("Error flushing content activity", e);
+        }
+    }
+
+    private int flushAccesses() {
+        int total = 0;
+        List<AccessRecord> batch = new ArrayList<>(properties.getBatchSize());
+        AccessRecord record;
+        while ((record = accesses.poll()) != null) {
+            accessesQueued.decrementAndGet();
+            batch.add(record);
+            if (batch.size() == properties.getBatchSize()) {
+                total += writeAccesses(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            total += writeAccesses(batch);
+        }
+        return total;
+    }
+
+    private int writeAccesses(List<AccessRecord> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_ACCESS_SQL, batch, batch.size(), (ps, record) -> {
+                ps.setObject(1, record.userId());
+                ps.setObject(2, record.contentId());
+                ps.setTimestamp(3, Timestamp.valueOf(record.accessedAt()));
+            });
+            accessesWritten.addAndGet(batch.size());
+            return batch.size();
+        } catch (Exception e) {
+            failedRecords.addAndGet(batch.size());
+            log.error("Could not write {} content access records", batch.size(), e);
+            return 0;
+        }
+    }
+
+    private int flushViews() {
+        int total = 0;
+        List<Map.Entry<ViewKey, PendingView>> batch = new ArrayList<>(properties.getBatchSize());
+        for (ViewKey key : pendingViews.keySet()) {
+            // Views recorded from here on start a new pending entry
+            PendingView view = pendingViews.remove(key);
+            if (view == null) {
+                continue;
+            }
+            batch.add(Map.entry(key, view));
+            if (batch.size() == properties.getBatchSize()) {
+                total += writeViews(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            total += writeViews(batch);
+        }
+        return total;
+    }
+
+    // Insert or add to the view rows in one statement per view; the unique (user, content)
+    // constraint makes concurrent writers merge instead of creating duplicate rows
+    private int writeViews(List<Map.Entry<ViewKey, PendingView>> batch) {
+        try {
+            Integer written = transactionTemplate.execute(status -> {
+                int[][] upserted = jdbcTemplate.batchUpdate(UPSERT_VIEW_SQL, batch, batch.size(), (ps, entry) -> {
+                    long userId = entry.getKey().userId();
+                    long contentId = entry.getKey().contentId();
+                    ps.setLong(1, userId);
+                    ps.setLong(2, contentId);
+                    ps.setTimestamp(3, Timestamp.valueOf(entry.getValue().lastViewedAt()));
+                    ps.setInt(4, entry.getValue().count());
+                    ps.setLong(5, userId);
+                    ps.setLong(6, contentId);
+                });
+                int rows = 0;
+                for (int count : upserted[0]) {
+                    // A driver reporting no count still wrote the row
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                }
+                return rows;
+            });
+            int rows = written == null ? 0 : written;
+            viewsWritten.addAndGet(rows);
+            return rows;
+        } catch (Exception e) {
+            failedRecords.addAndGet(batch.size());
+            log.error("Could not write {} content views", batch.size(), e);
+            return 0;
+        }
+    }
+}
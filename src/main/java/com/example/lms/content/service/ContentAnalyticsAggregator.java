@@ -0,0 +1,300 @@
+package com.example.lms.content.service;
+
+import com.example.lms.content.config.ContentAnalyticsProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Maintains the content analytics rollups.
+ *
+ * Access log rows are read in ID order from a stored cursor and added to hourly and daily
+ * access counts, per-day unique viewer counts and all-time totals. Progress records changed
+ * since the last run are re-aggregated per content for the completion figures. Every batch
+ * is applied in the same transaction that advances its cursor, and the cursor row is locked
+ * with {@code SKIP LOCKED}, so each record is counted once even with several nodes.
+ */
+@Service
+@Slf4j
+public class ContentAnalyticsAggregator {
+
+    private static final String ACCESS_CURSOR = "content_access_log";
+    private static final String PROGRESS_CURSOR = "content_progress";
+
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
+    private static final String INIT_CURSOR_SQL =
+            "INSERT INTO content_rollup_cursors (name, position) VALUES (?, 0) ON CONFLICT (name) DO NOTHING";
+    private static final String LOCK_CURSOR_SQL =
+            "SELECT position, watermark FROM content_rollup_cursors WHERE name = ? FOR UPDATE SKIP LOCKED";
+    // Rows are settled by the database's insert time, so queued or skewed access times do not matter
+    private static final String SELECT_ACCESSES_SQL =
+            "SELECT id, user_id, content_id, accessed_at, " +
+            "(recorded_at IS NULL OR recorded_at < clock_timestamp() - ? * INTERVAL '1 millisecond') AS settled " +
+            "FROM content_access_log WHERE id > ? ORDER BY id LIMIT ?";
+    // Multi-row insert; followed by one "(?, ?, ?)" per viewer and INSERT_VIEWERS_RETURNING
+    private static final String INSERT_VIEWERS_SQL =
+            "INSERT INTO content_daily_viewers (content_id, access_date, user_id) VALUES ";
+    private static final String INSERT_VIEWERS_RETURNING =
+            " ON CONFLICT (content_id, access_date, user_id) DO NOTHING RETURNING content_id, access_date";
+    private static final String UPSERT_HOURLY_SQL =
+            "INSERT INTO content_access_hourly (content_id, bucket_start, access_count) VALUES (?, ?, ?) " +
+            "ON CONFLICT (content_id, bucket_start) " +
+            "DO UPDATE SET access_count = content_access_hourly.access_count + EXCLUDED.access_count";
+    private static final String UPSERT_DAILY_SQL =
+            "INSERT INTO content_access_daily (content_id, access_date, access_count, unique_viewers) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (content_id, access_date) DO UPDATE SET " +
+            "access_count = content_access_daily.access_count + EXCLUDED.access_count, " +
+            "unique_viewers = content_access_daily.unique_viewers + EXCLUDED.unique_viewers";
+    private static final String UPSERT_TOTALS_SQL =
+            "INSERT INTO content_analytics_summary AS s (content_id, total_accesses, last_accessed_at, learners, " +
+            "completed_learners, average_progress) VALUES (?, ?, ?, 0, 0, 0) " +
+            "ON CONFLICT (content_id) DO UPDATE SET total_accesses = s.total_accesses + EXCLUDED.total_accesses, " +
+            "last_accessed_at = GREATEST(s.last_accessed_at, EXCLUDED.last_accessed_at)";
+    private static final String UPSERT_COMPLETION_SQL =
+            "INSERT INTO content_analytics_summary (content_id, total_accesses, learners, completed_learners, " +
+            "average_progress) VALUES (?, 0, ?, ?, ?) " +
+            "ON CONFLICT (content_id) DO UPDATE SET learners = EXCLUDED.learners, " +
+            "completed_learners = EXCLUDED.completed_learners, average_progress = EXCLUDED.average_progress";
+
+    private record Access(long id, Long userId, Long contentId, LocalDateTime accessedAt, boolean settled) {
+    }
+
+    private record HourKey(long contentId, LocalDateTime bucketStart) {
+    }
+
+    private record DayKey(long contentId, LocalDate accessDate) {
+    }
+
+    private record Viewer(long contentId, LocalDate accessDate, long userId) {
+    }
+
+    private record Cursor(long position, LocalDateTime watermark) {
+    }
+
+    private record Completion(long learners, long completedLearners, double averageProgress) {
+    }
+
+    // Rows are upserted in content order, so the access and progress roll-ups, which may run
+    // on different nodes at the same time, cannot deadlock on the summary table
+    private static final Comparator<HourKey> HOUR_ORDER =
+            Comparator.comparingLong(HourKey::contentId).thenComparing(HourKey::bucketStart);
+    private static final Comparator<DayKey> DAY_ORDER =
+            Comparator.comparingLong(DayKey::contentId).thenComparing(DayKey::accessDate);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentAnalyticsProperties properties;
+
+    public ContentAnalyticsAggregator(JdbcTemplate jdbcTemplate,
+                                      NamedParameterJdbcTemplate namedJdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      ContentAnalyticsProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * Roll up new access log rows and progress changes
+     */
+    @Scheduled(fixedDelayString = "${app.content.analytics.aggregate-interval-ms:60000}")
+    public void aggregate() {
+        try {
+            jdbcTemplate.update(INIT_CURSOR_SQL, ACCESS_CURSOR);
+            jdbcTemplate.update(INIT_CURSOR_SQL, PROGRESS_CURSOR);
+
+            long started = System.currentTimeMillis();
+            int accesses = 0;
+            Integer rolledUp;
+            do {
+                rolledUp = transactionTemplate.execute(status -> rollUpAccesses());
+                accesses += rolledUp == null ? 0 : rolledUp;
+            } while (rolledUp != null && rolledUp == properties.getBatchSize());
+            // Caught up, so no unprocessed access is older than the purged data
+            if (rolledUp != null) {
+                transactionTemplate.executeWithoutResult(status -> purge());
+            }
+
+            Integer contents = transactionTemplate.execute(status -> rollUpProgress());
+            if (accesses > 0 || (contents != null && contents > 0)) {
+                log.info("Rolled up {} content accesses and progress of {} contents in {} ms",
+                        accesses, contents, System.currentTimeMillis() - started);
+            }
+        } catch (Exception e) {
+            log.error("Error aggregating content analytics", e);
+        }
+    }
+
+    // Returns null when another node holds the cursor
+    private Integer rollUpAccesses() {
+        Cursor cursor = lockCursor(ACCESS_CURSOR);
+        if (cursor == null) {
+            return null;
+        }
+
+        List<Access> rows = jdbcTemplate.query(SELECT_ACCESSES_SQL, (rs, rowNum) -> {
+            Timestamp accessedAt = rs.getTimestamp("accessed_at");
+            return new Access(rs.getLong("id"), rs.getObject("user_id", Long.class),
+                    rs.getObject("content_id", Long.class),
+                    accessedAt == null ? null : accessedAt.toLocalDateTime(), rs.getBoolean("settled"));
+        }, properties.getSettleTime().toMillis(), cursor.position(), properties.getBatchSize());
+
+        // Stop at the first row inserted too recently to be sure no earlier ID is still uncommitted
+        Map<HourKey, Long> hourly = new TreeMap<>(HOUR_ORDER);
+        Map<DayKey, Long> daily = new TreeMap<>(DAY_ORDER);
+        Map<Long, Long> totals = new TreeMap<>();
+        Map<Long, LocalDateTime> lastAccess = new HashMap<>();
+        Set<Viewer> viewers = new LinkedHashSet<>();
+        long position = cursor.position();
+        int processed = 0;
+        for (Access access : rows) {
+            if (!access.settled()) {
+                break;
+            }
+            position = access.id();
+            processed++;
+            if (access.contentId() == null || access.accessedAt() == null) {
+                continue;
+            }
+            long contentId = access.contentId();
+            LocalDate accessDate = access.accessedAt().toLocalDate();
+            hourly.merge(new HourKey(contentId, access.accessedAt().truncatedTo(ChronoUnit.HOURS)), 1L, Long::sum);
+            daily.merge(new DayKey(contentId, accessDate), 1L, Long::sum);
+            totals.merge(contentId, 1L, Long::sum);
+            lastAccess.merge(contentId, access.accessedAt(), (a, b) -> a.isAfter(b) ? a : b);
+            if (access.userId() != null) {
+                viewers.add(new Viewer(contentId, accessDate, access.userId()));
+            }
+        }
+        if (processed == 0) {
+            return 0;
+        }
+
+        Map<DayKey, Long> newViewers = insertViewers(viewers);
+        jdbcTemplate.batchUpdate(UPSERT_HOURLY_SQL, new ArrayList<>(hourly.entrySet()), QUERY_CHUNK_SIZE, (ps, entry) -> {
+            ps.setLong(1, entry.getKey().contentId());
+            ps.setTimestamp(2, Timestamp.valueOf(entry.getKey().bucketStart()));
+            ps.setLong(3, entry.getValue());
+        });
+        jdbcTemplate.batchUpdate(UPSERT_DAILY_SQL, new ArrayList<>(daily.entrySet()), QUERY_CHUNK_SIZE, (ps, entry) -> {
+            ps.setLong(1, entry.getKey().contentId());
+            ps.setDate(2, Date.valueOf(entry.getKey().accessDate()));
+            ps.setLong(3, entry.getValue());
+            ps.setLong(4, newViewers.getOrDefault(entry.getKey(), 0L));
+        });
+        jdbcTemplate.batchUpdate(UPSERT_TOTALS_SQL, new ArrayList<>(totals.entrySet()), QUERY_CHUNK_SIZE, (ps, entry) -> {
+            ps.setLong(1, entry.getKey());
+            ps.setLong(2, entry.getValue());
+            ps.setTimestamp(3, Timestamp.valueOf(lastAccess.get(entry.getKey())));
+        });
+
+        jdbcTemplate.update("UPDATE content_rollup_cursors SET position = ? WHERE name = ?", position, ACCESS_CURSOR);
+        return processed;
+    }
+
+    // Record the day's viewers, counting those not seen before that day. The rows actually
+    // inserted are read back with RETURNING; batch update counts are not reliable once the
+    // driver rewrites batched inserts.
+    private Map<DayKey, Long> insertViewers(Set<Viewer> viewers) {
+        Map<DayKey, Long> newViewers = new HashMap<>();
+        List<Viewer> ordered = new ArrayList<>(viewers);
+        for (int from = 0; from < ordered.size(); from += QUERY_CHUNK_SIZE) {
+            List<Viewer> chunk = ordered.subList(from, Math.min(from + QUERY_CHUNK_SIZE, ordered.size()));
+            Object[] args = new Object[chunk.size() * 3];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i * 3] = chunk.get(i).contentId();
+                args[i * 3 + 1] = Date.valueOf(chunk.get(i).accessDate());
+                args[i * 3 + 2] = chunk.get(i).userId();
+            }
+            String sql = INSERT_VIEWERS_SQL + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?)"))
+                    + INSERT_VIEWERS_RETURNING;
+            jdbcTemplate.query(sql, rs -> {
+                newViewers.merge(new DayKey(rs.getLong("content_id"), rs.getDate("access_date").toLocalDate()),
+                        1L, Long::sum);
+            }, args);
+        }
+        return newViewers;
+    }
+
+    // Returns null when another node holds the cursor
+    private Integer rollUpProgress() {
+        Cursor cursor = lockCursor(PROGRESS_CURSOR);
+        if (cursor == null) {
+            return null;
+        }
+
+        LocalDateTime upTo = LocalDateTime.now().minus(properties.getSettleTime());
+        List<Long> contentIds = cursor.watermark() == null
+                ? jdbcTemplate.queryForList("SELECT DISTINCT content_id FROM content_progress ORDER BY content_id", Long.class)
+                : jdbcTemplate.queryForList("SELECT DISTINCT content_id FROM content_progress " +
+                        "WHERE last_updated > ? AND last_updated <= ? ORDER BY content_id", Long.class,
+                        Timestamp.valueOf(cursor.watermark()), Timestamp.valueOf(upTo));
+
+        for (int from = 0; from < contentIds.size(); from += QUERY_CHUNK_SIZE) {
+            List<Long> chunk = contentIds.subList(from, Math.min(from + QUERY_CHUNK_SIZE, contentIds.size()));
+            Map<Long, Completion> completions = new HashMap<>();
+            namedJdbcTemplate.query("SELECT content_id, COUNT(*) AS learners, " +
+                    "COUNT(*) FILTER (WHERE completed = true) AS completed_learners, " +
+                    "COALESCE(AVG(progress), 0) AS average_progress " +
+                    "FROM content_progress WHERE content_id IN (:ids) GROUP BY content_id",
+                    Map.of("ids", chunk), rs -> {
+                        completions.put(rs.getLong("content_id"), new Completion(rs.getLong("learners"),
+                                rs.getLong("completed_learners"), rs.getDouble("average_progress")));
+                    });
+
+            jdbcTemplate.batchUpdate(UPSERT_COMPLETION_SQL, chunk, chunk.size(), (ps, contentId) -> {
+                // Contents whose progress records were all removed
+                Completion completion = completions.getOrDefault(contentId, new Completion(0, 0, 0));
+                ps.setLong(1, contentId);
+                ps.setLong(2, completion.learners());
+                ps.setLong(3, completion.completedLearners());
+                ps.setDouble(4, completion.averageProgress());
+            });
+        }
+
+        jdbcTemplate.update("UPDATE content_rollup_cursors SET watermark = ? WHERE name = ?",
+                Timestamp.valueOf(upTo), PROGRESS_CURSOR);
+        return contentIds.size();
+    }
+
+    private void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int viewers = jdbcTemplate.update("DELETE FROM content_daily_viewers WHERE access_date < ?",
+                Date.valueOf(now.minus(properties.getViewerRetention()).toLocalDate()));
+        int hours = jdbcTemplate.update("DELETE FROM content_access_hourly WHERE bucket_start < ?",
+                Timestamp.valueOf(now.minus(properties.getHourlyRetention()).truncatedTo(ChronoUnit.HOURS)));
+        if (viewers > 0 || hours > 0) {
+            log.debug("Purged {} daily viewer rows and {} hourly rollups", viewers, hours);
+        }
+    }
+
+    private Cursor lockCursor(String name) {
+        List<Cursor> cursors = jdbcTemplate.query(LOCK_CURSOR_SQL, (rs, rowNum) -> {
+            Timestamp watermark = rs.getTimestamp("watermark");
+            return new Cursor(rs.getLong("position"), watermark == null ? null : watermark.toLocalDateTime());
+        }, name);
+        return cursors.isEmpty() ? null : cursors.get(0);
+    }
+}
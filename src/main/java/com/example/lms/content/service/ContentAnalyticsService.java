@@ -1,47 +1,140 @@
 package com.example.lms.content.service;
 
-import com.example.lms.content.model.ContentAccessLog;
-import com.example.lms.content.repository.ContentAccessLogRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.example.lms.content.config.ContentAnalyticsProperties;
+import com.example.lms.content.dto.ContentDailyAccessDTO;
+import com.example.lms.content.model.ContentAccessDaily;
+import com.example.lms.content.model.ContentAccessHourly;
+import com.example.lms.content.model.ContentAnalyticsSummary;
+import com.example.lms.content.repository.ContentAccessDailyRepository;
+import com.example.lms.content.repository.ContentAccessHourlyRepository;
+import com.example.lms.content.repository.ContentAnalyticsSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Content usage figures, read from the rollups kept by {@link ContentAnalyticsAggregator}.
+ * Figures lag the access log by up to the aggregation interval plus the settle time.
+ */
 @Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class ContentAnalyticsService {
 
-    @Autowired
-    private ContentAccessLogRepository accessLogRepository;
-    
+    private final ContentAccessHourlyRepository hourlyRepository;
+    private final ContentAccessDailyRepository dailyRepository;
+    private final ContentAnalyticsSummaryRepository summaryRepository;
+    private final ContentAnalyticsProperties properties;
+
+    /**
+     * Get the most accessed contents of all time
+     *
+     * @param limit Number of contents
+     * @return Access count by content ID, most accessed first
+     */
     public Map<Long, Long> getMostAccessedContent(int limit) {
-        // This would be implemented with a custom query in the repository
-        // For now, let's simulate the implementation
-        
-        Map<Long, Long> contentAccessCount = new HashMap<>();
-        // Add implementation to count content accesses
-        
+        Map<Long, Long> contentAccessCount = new LinkedHashMap<>();
+        for (ContentAnalyticsSummary summary : summaryRepository.findMostAccessed(PageRequest.of(0, limit))) {
+            contentAccessCount.put(summary.getContentId(), summary.getTotalAccesses());
+        }
         return contentAccessCount;
     }
-    
+
+    /**
+     * Get the number of accesses to a content per day. Whole days come from the daily
+     * rollups; partial days at either end are summed from the hourly rollups, at hour
+     * resolution, while those are kept.
+     *
+     * @param contentId Content ID
+     * @param startDate Start of the period, inclusive
+     * @param endDate End of the period, exclusive
+     * @return Access count by day, including days without accesses, in date order
+     */
     public Map<LocalDate, Long> getContentAccessTrend(Long contentId, LocalDateTime startDate, LocalDateTime endDate) {
-        // Implement to track access trends over time
-        
-        Map<LocalDate, Long> accessTrend = new HashMap<>();
-        // Add implementation
-        
+        Map<LocalDate, Long> accessTrend = new TreeMap<>();
+        if (!startDate.isBefore(endDate)) {
+            return accessTrend;
+        }
+
+        LocalDate firstDay = startDate.toLocalDate();
+        LocalDate lastDay = endDate.minusNanos(1).toLocalDate();
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            accessTrend.put(day, 0L);
+        }
+        for (ContentAccessDaily daily : dailyRepository.findByContentIdAndAccessDateBetweenOrderByAccessDate(
+                contentId, firstDay, lastDay)) {
+            accessTrend.put(daily.getAccessDate(), daily.getAccessCount());
+        }
+
+        // Replace the counts of days only partly inside the period
+        LocalDateTime hourlyKeptFrom = LocalDateTime.now().minus(properties.getHourlyRetention());
+        if (!startDate.toLocalTime().equals(LocalTime.MIDNIGHT) && startDate.isAfter(hourlyKeptFrom)) {
+            LocalDateTime dayEnd = firstDay.plusDays(1).atStartOfDay();
+            accessTrend.put(firstDay, countHourly(contentId, startDate, endDate.isBefore(dayEnd) ? endDate : dayEnd));
+        }
+        if (!endDate.toLocalTime().equals(LocalTime.MIDNIGHT) && !lastDay.equals(firstDay)
+                && endDate.isAfter(hourlyKeptFrom)) {
+            accessTrend.put(lastDay, countHourly(contentId, lastDay.atStartOfDay(), endDate));
+        }
         return accessTrend;
     }
-    
+
+    /**
+     * Get the accesses and unique viewers of a content per day
+     *
+     * @param contentId Content ID
+     * @param from First day
+     * @param to Last day, inclusive
+     * @return Figures of each day in the range, including days without accesses
+     */
+    public List<ContentDailyAccessDTO> getDailyAccessStats(Long contentId, LocalDate from, LocalDate to) {
+        Map<LocalDate, ContentAccessDaily> byDay = dailyRepository
+                .findByContentIdAndAccessDateBetweenOrderByAccessDate(contentId, from, to).stream()
+                .collect(Collectors.toMap(ContentAccessDaily::getAccessDate, Function.identity()));
+
+        return from.datesUntil(to.plusDays(1))
+                .map(day -> {
+                    ContentAccessDaily daily = byDay.get(day);
+                    return ContentDailyAccessDTO.builder()
+                            .date(day)
+                            .accesses(daily == null ? 0 : daily.getAccessCount())
+                            .uniqueViewers(daily == null ? 0 : daily.getUniqueViewers())
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Get the share of learners who completed each content they have progress on
+     *
+     * @return Completion rate in percent by content ID
+     */
     public Map<Long, Double> getAverageContentCompletionRate() {
-        // Implementation to calculate completion rates
-        
-        Map<Long, Double> completionRates = new HashMap<>();
-        // Add implementation
-        
+        Map<Long, Double> completionRates = new TreeMap<>();
+        for (ContentAnalyticsSummary summary : summaryRepository.findByLearnersGreaterThan(0)) {
+            completionRates.put(summary.getContentId(),
+                    summary.getCompletedLearners() * 100.0 / summary.getLearners());
+        }
         return completionRates;
     }
-}
\ No newline at end of file
+
+    private long countHourly(Long contentId, LocalDateTime from, LocalDateTime to) {
+        return hourlyRepository.findByContentIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                        contentId, from.truncatedTo(ChronoUnit.HOURS), to)
+                .stream()
+                .mapToLong(ContentAccessHourly::getAccessCount)
+                .sum();
+    }
+}
@@ -2,71 +2,195 @@ package com.example.lms.content.service;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.util.StringUtils;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.util.DigestUtils;
 import java.net.MalformedURLException;
 import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.example.lms.content.model.StoredBlob;
+import com.example.lms.content.repository.StoredBlobRepository;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Content-addressable storage for uploaded files.
+ *
+ * Each upload is hashed with SHA-256 while it is written to a temporary file, then stored
+ * once under {@code ab/cd/abcd...}. Identical uploads share the stored blob, whose references
+ * are counted in {@link StoredBlob}; the blob is removed when its last reference is released.
+ * Files stored before blobs existed keep their flat {@code UUID_name} paths and are deleted
+ * directly.
+ */
 @Service
 @Slf4j
 public class ContentFileStorageService {
 
+    private static final Pattern BLOB_KEY = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}");
+    // Flat file names of uploads stored before blobs existed
+    private static final Pattern LEGACY_NAME = Pattern.compile("[^/\\\\.][^/\\\\]*");
+    private static final String TEMP_DIR = ".tmp";
+    private static final String PARTIAL_DIR = ".partial";
+
+    private final StoredBlobRepository storedBlobRepository;
+    private final TransactionTemplate newTransaction;
+
     @Value("${file.upload-dir:./uploads}")
     private String uploadDir;
+
+    public ContentFileStorageService(StoredBlobRepository storedBlobRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.storedBlobRepository = storedBlobRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * A stored file with the metadata used to validate cached copies of it
+     *
+     * @param path Location of the file
+     * @param fileName Stored file name
+     * @param size Size in bytes
+     * @param lastModified Last modification time in epoch milliseconds
+     * @param eTag Strong entity tag, quoted
+     */
+    public record StoredFile(Path path, String fileName, long size, long lastModified, String eTag) {
+    }
     
     /**
      * Store a file and return the path
      * 
+     * The reference is committed immediately. If the caller's transaction rolls back,
+     * the reference is released again.
+     * 
      * @param file MultipartFile from request
-     * @return Path where the file was stored
+     * @return Path where the file was stored, relative to the upload directory
      * @throws RuntimeException if file can't be stored
      */
     public String storeFile(MultipartFile file) {
+        Path tempFile = null;
         try {
-            // Create upload directory if it doesn't exist
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            Path tempDir = getRoot().resolve(TEMP_DIR);
+            Files.createDirectories(tempDir);
+            tempFile = Files.createTempFile(tempDir, "upload-", null);
+
+            // Hash the upload while writing it, so it is read only once
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream input = file.getInputStream();
+                 OutputStream output = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+                input.transferTo(output);
             }
-            
-            // Clean up file name and add UUID to prevent duplicates
-            String fileName = StringUtils.cleanPath(file.getOriginalFilename());
-            String uniqueFileName = UUID.randomUUID().toString() + "_" + fileName;
-            
-            // Save the file
-            Path targetLocation = uploadPath.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            
-            log.info("Stored file {} to path {}", fileName, targetLocation);
-            return uniqueFileName;
-            
-        } catch (IOException ex) {
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            long size = Files.size(tempFile);
+            String key = blobKey(sha256);
+
+            commitBlob(tempFile, sha256, size, false);
+            afterRollback(() -> releaseQuietly(key));
+
+            log.info("Stored file {} as blob {}", StringUtils.cleanPath(String.valueOf(file.getOriginalFilename())), key);
+            return key;
+
+        } catch (IOException | UncheckedIOException | NoSuchAlgorithmException ex) {
             log.error("Could not store file", ex);
             throw new RuntimeException("Could not store file. Please try again.", ex);
+        } finally {
+            deleteTempFile(tempFile);
         }
     }
     
     /**
-     * Delete a file
+     * Get the file that receives the chunks of a resumable upload
+     *
+     * @param uploadId Upload session ID
+     * @return Location of the partial upload
+     */
+    public Path getPartialUploadPath(String uploadId) {
+        return resolve(PARTIAL_DIR + "/" + uploadId);
+    }
+
+    /**
+     * Store a completed resumable upload as a blob. The partial file is linked into place
+     * rather than moved, so it is still there if the caller's transaction rolls back.
+     *
+     * @param uploadId Upload session ID
+     * @return Path where the file was stored, relative to the upload directory
+     * @throws RuntimeException if the file can't be stored
+     */
+    public String storeCompletedUpload(String uploadId) {
+        Path partialFile = getPartialUploadPath(uploadId);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream input = new DigestInputStream(Files.newInputStream(partialFile), digest)) {
+                input.transferTo(OutputStream.nullOutputStream());
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            String key = blobKey(sha256);
+
+            commitBlob(partialFile, sha256, Files.size(partialFile), true);
+            afterRollback(() -> releaseQuietly(key));
+
+            log.info("Stored upload {} as blob {}", uploadId, key);
+            return key;
+
+        } catch (IOException | UncheckedIOException | NoSuchAlgorithmException ex) {
+            log.error("Could not store upload {}", uploadId, ex);
+            throw new RuntimeException("Could not store file. Please try again.", ex);
+        }
+    }
+
+    /**
+     * Delete the partial file of a resumable upload
+     *
+     * @param uploadId Upload session ID
+     */
+    public void deletePartialUpload(String uploadId) {
+        try {
+            Files.deleteIfExists(getPartialUploadPath(uploadId));
+        } catch (IOException e) {
+            log.warn("Could not delete partial upload {}: {}", uploadId, e.getMessage());
+        }
+    }
+    
+    /**
+     * Release a reference to a stored file, deleting the file when it was the last one.
+     * Inside a transaction the release happens once the transaction commits.
      * 
-     * @param filename Name of file to delete
+     * @param filename Path of file to release, relative to the upload directory
      * @throws IOException if file can't be deleted
      */
     public void deleteFile(String filename) throws IOException {
-        Path filePath = Paths.get(uploadDir).resolve(filename);
-        Files.deleteIfExists(filePath);
-        log.info("Deleted file {}", filename);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseQuietly(filename);
+                }
+            });
+            return;
+        }
+        release(filename);
     }
     
     /**
@@ -90,4 +214,165 @@ public class ContentFileStorageService {
             throw new ResourceNotFoundException("File not found: " + fileName);
         }
     }
+
+    /**
+     * Look up a stored file for streaming. Only blob keys and legacy file names are served;
+     * partial uploads, staging files and anything else under the upload directory are not.
+     *
+     * @param fileName Name of the stored file
+     * @return Stored file with its metadata
+     * @throws ResourceNotFoundException if the file does not exist or is not a stored file
+     */
+    public StoredFile getStoredFile(String fileName) {
+        if (fileName == null || !(isBlobKey(fileName) || LEGACY_NAME.matcher(fileName).matches())) {
+            throw new ResourceNotFoundException("File not found: " + fileName);
+        }
+        Path filePath = resolve(fileName);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                throw new ResourceNotFoundException("File not found: " + fileName);
+            }
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            // A blob's hash identifies its bytes; legacy names are unique per upload, so
+            // name, size and time do
+            String eTag = "\"" + (isBlobKey(fileName)
+                    ? filePath.getFileName().toString()
+                    : DigestUtils.md5DigestAsHex((filePath.getFileName() + ":" + size + ":" + lastModified).getBytes()))
+                    + "\"";
+            return new StoredFile(filePath, filePath.getFileName().toString(), size, lastModified, eTag);
+        } catch (IOException ex) {
+            throw new ResourceNotFoundException("File not found: " + fileName);
+        }
+    }
+
+    // Add a reference to a blob, putting the source file in place if the blob is new
+    private void commitBlob(Path source, String sha256, long size, boolean link) {
+        String key = blobKey(sha256);
+        newTransaction.executeWithoutResult(status -> {
+            storedBlobRepository.addReference(sha256, size);
+            // The blob row is locked here, so a concurrent release cannot delete the file
+            // between this check and the commit
+            Path target = getRoot().resolve(key);
+            if (Files.exists(target)) {
+                return;
+            }
+            try {
+                Files.createDirectories(target.getParent());
+                if (link) {
+                    linkOrCopy(source, target);
+                } else {
+                    Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            log.debug("Could not link {} to {}, copying instead: {}", source, target, e.getMessage());
+            Path tempDir = getRoot().resolve(TEMP_DIR);
+            Files.createDirectories(tempDir);
+            Path copy = Files.createTempFile(tempDir, "upload-", null);
+            try {
+                Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(copy, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(copy);
+            }
+        }
+    }
+
+    private void release(String fileName) throws IOException {
+        Path filePath = resolve(fileName);
+        if (!isBlobKey(fileName)) {
+            Files.deleteIfExists(filePath);
+            log.info("Deleted file {}", fileName);
+            return;
+        }
+
+        String sha256 = filePath.getFileName().toString();
+        Boolean deleted = newTransaction.execute(status ->
+                storedBlobRepository.findBySha256ForUpdate(sha256).map(blob -> {
+                    if (blob.getReferenceCount() > 1) {
+                        blob.setReferenceCount(blob.getReferenceCount() - 1);
+                        return false;
+                    }
+                    storedBlobRepository.delete(blob);
+                    storedBlobRepository.flush();
+                    // Deleted while the row is still locked, so a concurrent store either
+                    // waits and writes the file again or added its reference before this
+                    try {
+                        Files.deleteIfExists(filePath);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                }).orElse(false));
+
+        if (Boolean.TRUE.equals(deleted)) {
+            log.info("Deleted blob {} after its last reference was released", fileName);
+        } else {
+            log.debug("Released reference to blob {}", fileName);
+        }
+    }
+
+    private void releaseQuietly(String fileName) {
+        try {
+            release(fileName);
+        } catch (Exception e) {
+            log.error("Could not release stored file {}", fileName, e);
+        }
+    }
+
+    private void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private void deleteTempFile(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary upload {}: {}", tempFile, e.getMessage());
+        }
+    }
+
+    private Path resolve(String fileName) {
+        Path root = getRoot();
+        Path filePath = root.resolve(fileName).normalize();
+        if (!filePath.startsWith(root)) {
+            throw new ResourceNotFoundException("File not found: " + fileName);
+        }
+        return filePath;
+    }
+
+    private Path getRoot() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    private static String blobKey(String sha256) {
+        return sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    private static boolean isBlobKey(String fileName) {
+        return BLOB_KEY.matcher(fileName).matches();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,393 @@
+package com.example.lms.content.service;
+
+import com.example.lms.content.dto.ContentDTO;
+import com.example.lms.content.dto.ContentSearchHitDTO;
+import com.example.lms.content.mapper.ContentMapper;
+import com.example.lms.content.model.Content;
+import com.example.lms.content.model.ContentType;
+import com.example.lms.content.model.Tag;
+import com.example.lms.content.repository.ContentRepository;
+import com.example.lms.content.search.ContentFacetIndex;
+import com.example.lms.content.search.ContentFacetIndex.Facets;
+import com.example.lms.content.search.ContentFacetIndex.Filter;
+import com.example.lms.content.search.ContentFacetIndex.IdPage;
+import com.example.lms.content.search.ContentSearchIndex;
+import com.example.lms.content.search.ContentSearchIndex.Attributes;
+import com.example.lms.content.search.ContentSearchIndex.Document;
+import com.example.lms.content.search.ContentSearchIndex.Results;
+import com.example.lms.content.search.SearchHighlighter;
+import com.example.lms.content.search.SearchTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search and faceted filtering over contents, backed by an in-process
+ * {@link ContentSearchIndex} and {@link ContentFacetIndex}.
+ *
+ * The indexes are built from the database at startup and kept current by
+ * {@link #contentChanged}, which reloads changed contents once their transaction commits.
+ * Each node keeps its own indexes: changes made on another node are picked up by a periodic
+ * refresh of the contents updated since the last one, and a less frequent full rebuild
+ * catches what leaves no update time behind, such as hard deletes. An index that has not
+ * been refreshed within the allowed staleness is not {@linkplain #isCurrent() current}.
+ */
+@Service
+@Slf4j
+public class ContentSearchService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final int SNIPPET_LENGTH = 200;
+
+    private final ContentRepository contentRepository;
+    private final TransactionTemplate readTransaction;
+
+    // Overlap of consecutive refreshes, covering transactions that commit after their update time
+    @Value("${app.content.search.refresh-lookback:PT2M}")
+    private Duration refreshLookback;
+
+    @Value("${app.content.search.max-staleness:PT2M}")
+    private Duration maxStaleness;
+
+    private volatile ContentSearchIndex index = new ContentSearchIndex();
+    private volatile ContentFacetIndex facetIndex = new ContentFacetIndex();
+    private volatile boolean ready;
+    // Contents changed while a rebuild runs, applied again once the rebuilt index is in place
+    private volatile Set<Long> changedDuringRebuild;
+    // Update time from which the next refresh loads changed contents
+    private volatile LocalDateTime refreshedUpTo;
+    // When the indexes were last brought in line with the database, in epoch milliseconds
+    private volatile long syncedAt;
+
+    public ContentSearchService(ContentRepository contentRepository, PlatformTransactionManager transactionManager) {
+        this.contentRepository = contentRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Whether the index has been built and can answer searches
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether the index is built and has been refreshed from the database recently enough to
+     * include changes made on other nodes
+     */
+    public boolean isCurrent() {
+        return ready && System.currentTimeMillis() - syncedAt <= maxStaleness.toMillis();
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error building the content search index", e);
+        }
+    }
+
+    /**
+     * Load the contents changed since the last refresh, including changes made on other nodes
+     */
+    @Scheduled(fixedDelayString = "${app.content.search.refresh-interval-ms:30000}",
+               initialDelayString = "${app.content.search.refresh-interval-ms:30000}")
+    public void scheduledRefresh() {
+        try {
+            refreshChanged();
+        } catch (Exception e) {
+            log.error("Error refreshing the content search index", e);
+        }
+    }
+
+    /**
+     * Rebuild the index periodically to drop contents removed without an update time
+     */
+    @Scheduled(fixedDelayString = "${app.content.search.rebuild-interval-ms:3600000}",
+               initialDelayString = "${app.content.search.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error rebuilding the content search index", e);
+        }
+    }
+
+    /**
+     * Reload the contents updated since the last refresh or rebuild
+     *
+     * @return Number of reloaded contents
+     */
+    public synchronized int refreshChanged() {
+        if (!ready) {
+            return 0;
+        }
+        long started = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = refreshedUpTo.minus(refreshLookback);
+        List<Long> ids = readTransaction.execute(status -> contentRepository.findIdsUpdatedAfter(since));
+        refresh(Set.copyOf(ids));
+        refreshedUpTo = startedAt;
+        syncedAt = started;
+        log.debug("Refreshed {} changed contents in the content search index", ids.size());
+        return ids.size();
+    }
+
+    /**
+     * Rebuild the index from the database. Searches keep using the current index until the
+     * new one is complete.
+     *
+     * @return Number of indexed contents
+     */
+    public synchronized int rebuild() {
+        long started = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRebuild = changed;
+        try {
+            ContentSearchIndex rebuilt = new ContentSearchIndex();
+            ContentFacetIndex rebuiltFacets = new ContentFacetIndex();
+            long afterId = 0;
+            List<Long> ids;
+            do {
+                long from = afterId;
+                ids = readTransaction.execute(status -> {
+                    List<Long> batch = contentRepository.findActiveIdsAfter(from, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                    if (!batch.isEmpty()) {
+                        contentRepository.findAllWithTagsByIdIn(batch).forEach(content -> {
+                            rebuilt.put(toDocument(content));
+                            putFacets(rebuiltFacets, content);
+                        });
+                    }
+                    return batch;
+                });
+                if (!ids.isEmpty()) {
+                    afterId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == REBUILD_BATCH_SIZE);
+
+            index = rebuilt;
+            facetIndex = rebuiltFacets;
+            refreshedUpTo = startedAt;
+            ready = true;
+        } finally {
+            changedDuringRebuild = null;
+        }
+        refresh(changed);
+        syncedAt = started;
+
+        log.info("Built content search and facet indexes with {} contents in {} ms", index.size(),
+                System.currentTimeMillis() - started);
+        return index.size();
+    }
+
+    /**
+     * Update the index for a created, changed, deleted or restored content once the
+     * current transaction commits
+     *
+     * @param contentId Content ID
+     */
+    public void contentChanged(Long contentId) {
+        if (contentId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshQuietly(Set.of(contentId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshQuietly(Set.of(contentId));
+            }
+        });
+    }
+
+    /**
+     * Search contents, best matches first
+     *
+     * @param query Search text; the words are combined with OR and may be word prefixes
+     * @param fileType Only contents of this file type, or null
+     * @param tags Only contents with any of these tags, or null
+     * @param isPublished Only contents with this publication status, or null
+     * @param pageable Page to return; its sort is ignored in favour of relevance
+     * @return Page of results with highlighted matches
+     */
+    public Page<ContentSearchHitDTO> search(String query, String fileType, Collection<String> tags,
+                                            Boolean isPublished, Pageable pageable) {
+        List<String> terms = SearchTokenizer.terms(query);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Results results = index.search(terms, filter(fileType, tags, isPublished),
+                (int) pageable.getOffset(), pageable.getPageSize());
+        if (results.hits().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, results.total());
+        }
+
+        List<Long> ids = results.hits().stream().map(ContentSearchIndex.Hit::id).toList();
+        Map<Long, Content> contents = readTransaction.execute(status ->
+                contentRepository.findAllWithTagsByIdIn(ids).stream()
+                        .collect(Collectors.toMap(Content::getId, Function.identity())));
+
+        List<ContentSearchHitDTO> hits = results.hits().stream()
+                .filter(hit -> contents.containsKey(hit.id()))
+                .map(hit -> toHit(contents.get(hit.id()), hit.score(), terms))
+                .toList();
+        return new PageImpl<>(hits, pageable, results.total());
+    }
+
+    /**
+     * Get a page of the IDs of contents matching a filter, in ID (creation) order
+     *
+     * @param filter Facet filter
+     * @param offset Number of matches to skip
+     * @param limit Number of IDs to return
+     * @param newestFirst Whether to start from the newest content
+     * @return Number of matches and the IDs of the page
+     */
+    public IdPage filterIds(Filter filter, long offset, int limit, boolean newestFirst) {
+        return facetIndex.page(filter, offset, limit, newestFirst);
+    }
+
+    /**
+     * Count the contents matching a filter, in total and per tag, file type, content type
+     * and publication status
+     */
+    public Facets facets(Filter filter) {
+        return facetIndex.facets(filter);
+    }
+
+    /**
+     * Load contents with their tags, in the order of the given IDs. Contents deleted
+     * meanwhile are left out.
+     */
+    public List<Content> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Content> contents = readTransaction.execute(status ->
+                contentRepository.findAllWithTagsByIdIn(ids).stream()
+                        .collect(Collectors.toMap(Content::getId, Function.identity())));
+        return ids.stream().map(contents::get).filter(content -> content != null && !content.isDeleted()).toList();
+    }
+
+    private ContentSearchHitDTO toHit(Content content, double score, List<String> terms) {
+        Map<String, String> highlights = new LinkedHashMap<>();
+        putIfMatched(highlights, "title", SearchHighlighter.highlight(content.getTitle(), terms, Integer.MAX_VALUE));
+        putIfMatched(highlights, "description", SearchHighlighter.highlight(content.getDescription(), terms, SNIPPET_LENGTH));
+        putIfMatched(highlights, "content", SearchHighlighter.highlight(body(content), terms, SNIPPET_LENGTH));
+        if (content.getTags() != null) {
+            putIfMatched(highlights, "tags", SearchHighlighter.highlight(
+                    content.getTags().stream().map(Tag::getName).collect(Collectors.joining(", ")), terms, SNIPPET_LENGTH));
+        }
+
+        ContentDTO dto = ContentMapper.toDTO(content);
+        return ContentSearchHitDTO.builder()
+                .content(dto)
+                .score(score)
+                .highlights(highlights)
+                .build();
+    }
+
+    private void putIfMatched(Map<String, String> highlights, String field, String snippet) {
+        if (snippet != null) {
+            highlights.put(field, snippet);
+        }
+    }
+
+    private Predicate<Attributes> filter(String fileType, Collection<String> tags, Boolean isPublished) {
+        Set<String> wantedTags = tags == null || tags.isEmpty() ? null
+                : tags.stream().map(tag -> tag.toLowerCase().trim()).collect(Collectors.toSet());
+        return attributes -> (fileType == null || fileType.equals(attributes.fileType()))
+                && (isPublished == null || isPublished == attributes.published())
+                && (wantedTags == null || attributes.tags().stream().anyMatch(wantedTags::contains));
+    }
+
+    private void refreshQuietly(Set<Long> contentIds) {
+        try {
+            refresh(contentIds);
+        } catch (Exception e) {
+            log.error("Error updating the content search index for contents {}", contentIds, e);
+        }
+    }
+
+    private void refresh(Set<Long> contentIds) {
+        if (contentIds.isEmpty()) {
+            return;
+        }
+        Set<Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.addAll(contentIds);
+        }
+
+        Map<Long, Content> contents = readTransaction.execute(status ->
+                contentRepository.findAllWithTagsByIdIn(contentIds).stream()
+                        .collect(Collectors.toMap(Content::getId, Function.identity())));
+        ContentSearchIndex current = index;
+        ContentFacetIndex currentFacets = facetIndex;
+        for (Long id : contentIds) {
+            Content content = contents.get(id);
+            if (content == null || content.isDeleted()) {
+                current.remove(id);
+                currentFacets.remove(id);
+            } else {
+                current.put(toDocument(content));
+                putFacets(currentFacets, content);
+            }
+        }
+    }
+
+    private Document toDocument(Content content) {
+        List<String> tags = content.getTags() == null ? List.of()
+                : content.getTags().stream().map(Tag::getName).filter(name -> name != null).toList();
+        return new Document(content.getId(), content.getTitle(), content.getDescription(), body(content), tags,
+                content.getFileType(), content.isPublished());
+    }
+
+    private void putFacets(ContentFacetIndex facets, Content content) {
+        if (!ContentFacetIndex.supports(content.getId())) {
+            log.warn("Content {} has an ID too large for the facet index", content.getId());
+            return;
+        }
+        List<String> tags = content.getTags() == null ? List.of()
+                : content.getTags().stream().map(Tag::getName).filter(name -> name != null).toList();
+        facets.put(new ContentFacetIndex.Document(content.getId(), tags, content.getFileType(),
+                content.getType() != null ? content.getType().name() : null, content.isPublished()));
+    }
+
+    // Inline article text; quiz content holds JSON and is not searchable text
+    private String body(Content content) {
+        return content.getType() == ContentType.QUIZ ? null : content.getContent();
+    }
+}
@@ -2,18 +2,21 @@ package com.example.lms.content.service;
 
 import com.example.lms.common.Exception.ResourceNotFoundException;
 import com.example.lms.content.dto.ContentDTO;
+import com.example.lms.content.dto.ContentFacetsDTO;
+import com.example.lms.content.dto.ContentSearchHitDTO;
 import com.example.lms.content.mapper.ContentMapper;
 import com.example.lms.content.model.Content;
-import com.example.lms.content.model.ContentAccessLog;
 import com.example.lms.content.model.ContentType;
 import com.example.lms.content.model.ContentVersion;
 import com.example.lms.content.model.Module;
 import com.example.lms.content.model.Tag;
-import com.example.lms.content.repository.ContentAccessLogRepository;
 import com.example.lms.content.repository.ContentRepository;
 import com.example.lms.content.repository.ContentVersionRepository;
 import com.example.lms.content.repository.ModuleRepository;
 import com.example.lms.content.repository.TagRepository;
+import com.example.lms.content.search.ContentFacetIndex;
+import com.example.lms.content.search.ContentFacetIndex.Facets;
+import com.example.lms.content.search.ContentFacetIndex.IdPage;
 import com.example.lms.course.dto.CourseDTO;
 import com.example.lms.course.model.Course;
 import com.example.lms.course.repository.CourseRepository;
@@ -26,12 +29,14 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.core.io.Resource;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -42,10 +47,7 @@ import java.util.HashMap;
 import java.util.Map;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import com.example.lms.user.model.User;
 import com.example.lms.user.repository.UserRepository;
-import com.example.lms.content.model.ContentView;
-import com.example.lms.content.repository.ContentViewRepository;
 
 @Service
 @Slf4j
@@ -66,9 +68,6 @@ public class ContentService {
     @Autowired
     private ContentVersionRepository contentVersionRepository;
 
-    @Autowired
-    private ContentAccessLogRepository contentAccessLogRepository;
-
     @Autowired
     private ModuleRepository moduleRepository;
 
@@ -80,12 +79,20 @@ public class ContentService {
     private UserRepository userRepository;
 
     @Autowired
-    private ContentViewRepository contentViewRepository;
+    private ContentActivityWriter contentActivityWriter;
+
+    @Autowired
+    private TrendingContentService trendingContentService;
+
+    private static final int FILTER_LOAD_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private ContentSearchService contentSearchService;
     
     // Create new content
     public Content createContent(Long courseId, MultipartFile file, String title, String description) {
         // Check if the course exists
-        Course course = courseRepository.findById(courseId)
+        courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
 
         // Upload the file and get its path
@@ -95,17 +102,31 @@ public class ContentService {
         String fileType = metadataExtractor.extractFileType(file);
         long fileSize = metadataExtractor.extractFileSize(file);
 
+        return createContent(courseId, filePath, file.getOriginalFilename(), fileType, fileSize, title, description);
+    }
+
+    // Create new content for a file that is already stored
+    @Transactional
+    public Content createContent(Long courseId, String filePath, String fileName, String fileType, long fileSize,
+                                 String title, String description) {
+        // Check if the course exists
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+
         // Create the content object
         Content content = new Content();
         content.setTitle(title);
         content.setDescription(description);
         content.setFilePath(filePath);
+        content.setFileName(fileName);
         content.setFileType(fileType);
         content.setFileSize(fileSize);
         content.setCourse(course);
 
         // Save content to database
-        return contentRepository.save(content);
+        Content saved = contentRepository.save(content);
+        contentSearchService.contentChanged(saved.getId());
+        return saved;
     }
 
     // Enhanced create content method
@@ -128,6 +149,7 @@ public class ContentService {
         content.setTitle(title);
         content.setDescription(description);
         content.setFilePath(filePath);
+        content.setFileName(file.getOriginalFilename());
         content.setFileType(fileType);
         content.setFileSize(fileSize);
         content.setCourse(course);
@@ -135,7 +157,9 @@ public class ContentService {
         content.setDuration(duration);
         
         // Save content to database
-        return contentRepository.save(content);
+        Content saved = contentRepository.save(content);
+        contentSearchService.contentChanged(saved.getId());
+        return saved;
     }
 
     // Get content by ID
@@ -194,6 +218,7 @@ public class ContentService {
             // Update the content
             if (title != null) content.setTitle(title);
             if (description != null) content.setDescription(description);
+            contentSearchService.contentChanged(id);
             return contentRepository.save(content);
         });
     }
@@ -210,6 +235,7 @@ public class ContentService {
             // Instead of removing from database, mark as deleted
             content.setDeleted(true);
             contentRepository.save(content);
+            contentSearchService.contentChanged(id);
             return true;
         }).orElse(false);
     }
@@ -227,6 +253,7 @@ public class ContentService {
             }
             // Delete content from database
             contentRepository.delete(content);
+            contentSearchService.contentChanged(id);
             return true;
         }).orElse(false);
     }
@@ -274,13 +301,13 @@ public class ContentService {
         return content.substring(0, previewLength) + "...";
     }
 
-// Log content access
+// Log content access; written in batches by the activity writer
     public void logContentAccess(Long contentId, Long userId) {
-        ContentAccessLog log = new ContentAccessLog();
-        log.setContentId(contentId);
-        log.setUserId(userId);
-        log.setAccessedAt(LocalDateTime.now());
-        contentAccessLogRepository.save(log);
+        if (contentId == null || userId == null) {
+            return;
+        }
+        contentActivityWriter.recordAccess(contentId, userId);
+        trendingContentService.record(contentId);
     }
 
    @Transactional
@@ -306,31 +333,19 @@ public Content assignContentToModule(Long contentId, Long moduleId) {
 }
 
     
-@Transactional(readOnly = true)
-public Page<Content> searchByKeyword(String keyword, Pageable pageable) {
-    if (keyword == null || keyword.trim().isEmpty()) {
-        return contentRepository.findAll(pageable);
-    }
-    
-    String searchTerm = "%" + keyword.toLowerCase() + "%";
-    return contentRepository.findByTitleContainingOrDescriptionContaining(searchTerm, searchTerm, pageable);
-}
-
-    public List<Content> searchByKeywordWithRelevance(String keyword) {
-        List<Content> contents = contentRepository.searchByKeyword(keyword);
-        contents.sort((c1, c2) -> {
-            int score1 = calculateRelevanceScore(c1, keyword);
-            int score2 = calculateRelevanceScore(c2, keyword);
-            return Integer.compare(score2, score1); // Sort by relevance (descending)
-        });
-        return contents;
-    }
-    
-    private int calculateRelevanceScore(Content content, String keyword) {
-        int score = 0;
-        if (content.getTitle().contains(keyword)) score += 10;
-        if (content.getDescription().contains(keyword)) score += 5;
-        return score;
+    // Search contents by relevance, with highlighted matches
+    public Page<ContentSearchHitDTO> searchByKeyword(String keyword, Pageable pageable) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return contentRepository.findAll(pageable)
+                    .map(content -> ContentSearchHitDTO.builder().content(convertToDTO(content)).build());
+        }
+        if (!contentSearchService.isCurrent()) {
+            // The index is still being built or has fallen behind; fall back to a plain scan
+            String searchTerm = "%" + keyword.toLowerCase() + "%";
+            return contentRepository.findBySearchCriteria(searchTerm, null, null, null, pageable)
+                    .map(content -> ContentSearchHitDTO.builder().content(convertToDTO(content)).build());
+        }
+        return contentSearchService.search(keyword, null, null, null, pageable);
     }
 
     @Transactional
@@ -356,6 +371,7 @@ public Page<Content> searchByKeyword(String keyword, Pageable pageable) {
                 
         if (!tagExists) {
             content.getTags().add(tagToUse);
+            contentSearchService.contentChanged(contentId);
             return contentRepository.save(content);
         }
         
@@ -363,11 +379,23 @@ public Page<Content> searchByKeyword(String keyword, Pageable pageable) {
     }
     
     public List<Content> filterContents(String tags, String fileType) {
-        if (tags != null && fileType != null) {
-            List<String> tagsList = Arrays.asList(tags.split(","));
+        List<String> tagsList = tags == null ? null : normalizeTags(Arrays.asList(tags.split(",")));
+
+        // The node-local facet index answers only while it is known to be current
+        if (contentSearchService.isCurrent()) {
+            IdPage matches = contentSearchService.filterIds(
+                    facetFilter(tagsList, false, fileType, null, null), 0, Integer.MAX_VALUE, false);
+            List<Content> contents = new ArrayList<>(matches.ids().size());
+            for (int from = 0; from < matches.ids().size(); from += FILTER_LOAD_CHUNK_SIZE) {
+                contents.addAll(contentSearchService.loadInOrder(
+                        matches.ids().subList(from, Math.min(from + FILTER_LOAD_CHUNK_SIZE, matches.ids().size()))));
+            }
+            return contents;
+        }
+
+        if (tagsList != null && fileType != null) {
             return contentRepository.findByTagsAndFileType(tagsList, fileType);
-        } else if (tags != null) {
-            List<String> tagsList = Arrays.asList(tags.split(","));
+        } else if (tagsList != null) {
             return contentRepository.findByTags(tagsList);
         } else if (fileType != null) {
             return contentRepository.findByFileType(fileType);
@@ -382,6 +410,7 @@ public Page<Content> searchByKeyword(String keyword, Pageable pageable) {
         Content content = contentRepository.findById(contentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Content not found with id: " + contentId));
         content.setIsPublished(isPublished);
+        contentSearchService.contentChanged(contentId);
         return contentRepository.save(content);
     }
 
@@ -390,12 +419,37 @@ public Page<Content> searchByKeyword(String keyword, Pageable pageable) {
                                            List<String> tags, Boolean isPublished,
                                            Pageable pageable) {
         Page<Content> contentPage;
+        tags = normalizeTags(tags);
         
+        // Rank keyword searches by relevance, the preview showing where the keyword matched
+        if (keyword != null && !keyword.isBlank() && contentSearchService.isCurrent()) {
+            return contentSearchService.search(keyword, fileType, tags, isPublished, pageable).map(hit -> {
+                ContentDTO dto = hit.getContent();
+                Map<String, String> highlights = hit.getHighlights();
+                if (highlights != null) {
+                    dto.setPreview(highlights.getOrDefault("description",
+                            highlights.getOrDefault("content", highlights.get("title"))));
+                }
+                return dto;
+            });
+        }
+
+        // Filters in creation order are answered from the facet index, loading only the page
+        if ((keyword == null || keyword.isEmpty()) && contentSearchService.isCurrent() && isCreationOrder(pageable.getSort())) {
+            Sort.Order order = pageable.getSort().stream().findFirst().orElse(null);
+            IdPage matches = contentSearchService.filterIds(facetFilter(tags, false, fileType, null, isPublished),
+                    pageable.getOffset(), pageable.getPageSize(), order == null || order.isDescending());
+            List<ContentDTO> dtos = contentSearchService.loadInOrder(matches.ids()).stream()
+                    .map(this::convertToDTO)
+                    .toList();
+            return new PageImpl<>(dtos, pageable, matches.total());
+        }
+
         // Implement logic to filter by multiple criteria
         if (keyword != null && !keyword.isEmpty()) {
             String searchTerm = "%" + keyword.toLowerCase() + "%";
             contentPage = contentRepository.findBySearchCriteria(searchTerm, fileType, tags, isPublished, pageable);
-        } else if (fileType != null || (tags != null && !tags.isEmpty()) || isPublished != null) {
+        } else if (fileType != null || tags != null || isPublished != null) {
             contentPage = contentRepository.findByFilters(fileType, tags, isPublished, pageable);
         } else {
             contentPage = contentRepository.findAll(pageable);
@@ -404,6 +458,64 @@ public Page<Content> searchByKeyword(String keyword, Pageable pageable) {
         return contentPage.map(this::convertToDTO);
     }
 
+    /**
+     * Count contents matching a filter, in total and per tag, file type, content type and
+     * publication status
+     *
+     * @return Counts, or empty while the facet index is being built or has fallen behind
+     */
+    public Optional<ContentFacetsDTO> getContentFacets(List<String> tags, boolean matchAllTags, String fileType,
+                                                       String type, Boolean isPublished) {
+        if (!contentSearchService.isCurrent()) {
+            return Optional.empty();
+        }
+        Facets facets = contentSearchService.facets(facetFilter(normalizeTags(tags), matchAllTags, fileType, type, isPublished));
+        return Optional.of(ContentFacetsDTO.builder()
+                .total(facets.total())
+                .tags(facets.tags())
+                .fileTypes(facets.fileTypes())
+                .types(facets.types())
+                .published(facets.published())
+                .build());
+    }
+
+    /**
+     * Normalize requested tags the way tags are stored, so the facet index and the database
+     * queries match the same tags
+     *
+     * @return Distinct lowercase tags, or {@code null} if none are left
+     */
+    private static List<String> normalizeTags(List<String> tags) {
+        if (tags == null) {
+            return null;
+        }
+        List<String> normalized = tags.stream()
+                .filter(Objects::nonNull)
+                .map(tag -> tag.toLowerCase().trim())
+                .filter(tag -> !tag.isEmpty())
+                .distinct()
+                .toList();
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private ContentFacetIndex.Filter facetFilter(List<String> tags, boolean matchAllTags, String fileType,
+                                                 String type, Boolean isPublished) {
+        return new ContentFacetIndex.Filter(tags, matchAllTags,
+                fileType == null ? null : List.of(fileType),
+                type == null ? null : List.of(type.toUpperCase()),
+                isPublished);
+    }
+
+    // Content IDs grow with creation time, so ID order stands in for createdAt order
+    private boolean isCreationOrder(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1
+                && ("createdAt".equals(orders.get(0).getProperty()) || "id".equals(orders.get(0).getProperty()));
+    }
+
     @Transactional
 public Content updateContentDetails(Long id, String title, String description, Boolean isPublished, Integer duration) {
     return contentRepository.findById(id)
@@ -424,6 +536,7 @@ public Content updateContentDetails(Long id, String title, String description, B
             if (isPublished != null) content.setIsPublished(isPublished);
             if (duration != null) content.setDuration(duration);
             
+            contentSearchService.contentChanged(id);
             return contentRepository.save(content);
         })
         .orElseThrow(() -> new ResourceNotFoundException("Content not found with id: " + id));
@@ -434,6 +547,7 @@ public Content updateContentDetails(Long id, String title, String description, B
     public boolean restoreContent(Long id) {
         try {
             contentRepository.restoreContent(id);
+            contentSearchService.contentChanged(id);
             return true;
         } catch (Exception e) {
             return false;
@@ -518,6 +632,7 @@ public Content updateContentDetails(Long id, String title, String description, B
                     if (file != null && !file.isEmpty()) {
                         String filePath = fileStorageService.storeFile(file);
                         content.setFilePath(filePath);
+                        content.setFileName(file.getOriginalFilename());
                         log.info("Stored file at: {}", filePath);
                     } else {
                         content.setContent(contentDTO.getContent() != null ? 
@@ -541,6 +656,7 @@ public Content updateContentDetails(Long id, String title, String description, B
             
             log.info("About to save content with type: {}", content.getType());
             Content savedContent = contentRepository.save(content);
+            contentSearchService.contentChanged(savedContent.getId());
             log.info("Content saved successfully with ID: {}", savedContent.getId());
             
             return ContentMapper.toDTO(savedContent);
@@ -573,7 +689,7 @@ public Content updateContentDetails(Long id, String title, String description, B
         return contents;
     }
 
-    @Transactional
+// Count a view by the current user; repeated views are merged and written in batches
 public void markContentAsViewed(Long contentId) {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     
@@ -586,24 +702,13 @@ public void markContentAsViewed(Long contentId) {
     try {
         // Get current user
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
+        Long userId = userRepository.findIdByEmail(email)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
         
-        // Mark content as viewed
-        Content content = contentRepository.findById(contentId)
-            .orElseThrow(() -> new ResourceNotFoundException("Content not found with id: " + contentId));
-        
-        // Create or update content view record
-        ContentView view = contentViewRepository.findByUserIdAndContentId(user.getId(), contentId)
-            .orElse(new ContentView());
-            
-        view.setUser(user);
-        view.setContent(content);
-        view.setViewDate(LocalDateTime.now());
-        view.setViewCount(view.getViewCount() != null ? view.getViewCount() + 1 : 1);
-        
-        contentViewRepository.save(view);
-        log.info("Content {} marked as viewed by user {}", contentId, user.getId());
+        // Views of missing contents are skipped when the batch is written
+        contentActivityWriter.recordView(userId, contentId);
+        trendingContentService.record(contentId);
+        log.debug("Content {} marked as viewed by user {}", contentId, userId);
     } catch (Exception e) {
         log.error("Error marking content as viewed: {}", e.getMessage(), e);
     }
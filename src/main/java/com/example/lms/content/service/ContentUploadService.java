@@ -0,0 +1,394 @@
+package com.example.lms.content.service;
+
+import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.example.lms.common.Exception.UploadOffsetMismatchException;
+import com.example.lms.content.config.ContentUploadProperties;
+import com.example.lms.content.dto.UploadSessionDTO;
+import com.example.lms.content.dto.UploadSessionRequest;
+import com.example.lms.content.model.Content;
+import com.example.lms.content.model.UploadSession;
+import com.example.lms.content.repository.UploadSessionRepository;
+import com.example.lms.course.repository.CourseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Resumable, chunked uploads of content files.
+ *
+ * A session is created with the size and metadata of the file. Chunks are then sent in
+ * order, each with its offset and SHA-256 checksum, and appended straight to the partial
+ * file under the upload directory. A client that loses its connection asks for the current
+ * offset and continues from there. Completing the session stores the file as a blob and
+ * creates its {@link Content}; sessions without activity expire and are removed.
+ */
+@Service
+@Slf4j
+public class ContentUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CLEANUP_BATCH_SIZE = 100;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final CourseRepository courseRepository;
+    private final ContentFileStorageService fileStorageService;
+    private final ContentService contentService;
+    private final ContentUploadProperties properties;
+    private final TransactionTemplate newTransaction;
+
+    public ContentUploadService(UploadSessionRepository uploadSessionRepository,
+                                CourseRepository courseRepository,
+                                ContentFileStorageService fileStorageService,
+                                ContentService contentService,
+                                ContentUploadProperties properties,
+                                PlatformTransactionManager transactionManager) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.courseRepository = courseRepository;
+        this.fileStorageService = fileStorageService;
+        this.contentService = contentService;
+        this.properties = properties;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Start a resumable upload
+     *
+     * @param userId Uploading user
+     * @param request File and content metadata
+     * @return New upload session
+     * @throws ResourceNotFoundException if the course does not exist
+     * @throws IllegalArgumentException if the file is too large
+     */
+    @Transactional
+    public UploadSessionDTO createSession(Long userId, UploadSessionRequest request) {
+        if (request.getFileSize() > properties.getMaxFileSize().toBytes()) {
+            throw new IllegalArgumentException("File exceeds the maximum upload size of "
+                    + properties.getMaxFileSize().toBytes() + " bytes");
+        }
+        if (!courseRepository.existsById(request.getCourseId())) {
+            throw new ResourceNotFoundException("Course not found with id: " + request.getCourseId());
+        }
+
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .uploadId(UUID.randomUUID().toString())
+                .userId(userId)
+                .courseId(request.getCourseId())
+                .title(request.getTitle())
+                .description(request.getDescription())
+                .fileName(StringUtils.cleanPath(request.getFileName()))
+                .fileType(request.getFileType())
+                .totalSize(request.getFileSize())
+                .expiresAt(LocalDateTime.now().plus(properties.getSessionTimeout()))
+                .build());
+
+        log.info("Started upload {} of {} ({} bytes) for course {}",
+                session.getUploadId(), session.getFileName(), session.getTotalSize(), session.getCourseId());
+        return toDTO(session);
+    }
+
+    /**
+     * Get the state of an upload, including the offset to resume from
+     *
+     * @param uploadId Upload session ID
+     * @param userId Uploading user
+     * @return Upload session
+     * @throws ResourceNotFoundException if the session does not exist, expired or belongs to another user
+     */
+    @Transactional(readOnly = true)
+    public UploadSessionDTO getSession(String uploadId, Long userId) {
+        return toDTO(checkAccess(uploadSessionRepository.findByUploadId(uploadId), uploadId, userId));
+    }
+
+    /**
+     * Append a chunk to an upload. The chunk is written to disk and checked against its
+     * checksum before the new offset is recorded, so a failed chunk can simply be resent.
+     *
+     * Chunks of an upload are serialized by a claim taken in a short transaction. The body
+     * is then streamed without holding a row lock or a database connection, and the new
+     * offset is recorded in a second transaction.
+     *
+     * @param uploadId Upload session ID
+     * @param userId Uploading user
+     * @param offset Offset of the chunk in the file
+     * @param sha256 Hex SHA-256 checksum of the chunk
+     * @param body Chunk bytes
+     * @return Upload session with the new offset
+     * @throws UploadOffsetMismatchException if the chunk does not start at the current offset
+     *         or another chunk is being written
+     * @throws IllegalArgumentException if the chunk is too large, does not match its checksum
+     *         or took too long to arrive
+     */
+    public UploadSessionDTO appendChunk(String uploadId, Long userId, long offset, String sha256, InputStream body) {
+        String claimId = UUID.randomUUID().toString();
+        Duration claimTimeout = properties.getChunkClaimTimeout();
+        long deadline = System.nanoTime() + claimTimeout.dividedBy(2).toNanos();
+        UploadSession session = newTransaction.execute(status -> claimChunk(uploadId, userId, offset, claimId,
+                LocalDateTime.now().plus(claimTimeout)));
+
+        long limit = Math.min(properties.getMaxChunkSize().toBytes(), session.getTotalSize() - offset);
+        long written;
+        try {
+            written = write(fileStorageService.getPartialUploadPath(uploadId), offset, limit, sha256, body, deadline);
+        } catch (RuntimeException e) {
+            newTransaction.executeWithoutResult(status -> uploadSessionRepository.releaseChunkClaim(uploadId, claimId));
+            throw e;
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(properties.getSessionTimeout());
+        Integer recorded = newTransaction.execute(status ->
+                uploadSessionRepository.recordChunk(uploadId, claimId, offset + written, expiresAt));
+        if (recorded == null || recorded == 0) {
+            // The session was cancelled or removed while the chunk was written
+            throw new ResourceNotFoundException("Upload not found with id: " + uploadId);
+        }
+
+        session.setReceivedSize(offset + written);
+        session.setExpiresAt(expiresAt);
+        log.debug("Upload {} received {} bytes at offset {}", uploadId, written, offset);
+        return toDTO(session);
+    }
+
+    /**
+     * Complete an upload and create its content. Completing an upload again returns the
+     * content created the first time.
+     *
+     * The session is claimed for completion in a short transaction, the assembled file is
+     * hashed and stored without holding a row lock or a database connection, and the content
+     * is then created in a second transaction that also releases the claim.
+     *
+     * @param uploadId Upload session ID
+     * @param userId Uploading user
+     * @return Created content
+     * @throws IllegalArgumentException if not all bytes were received
+     * @throws UploadOffsetMismatchException if the upload is already being completed or written to
+     */
+    public Content completeUpload(String uploadId, Long userId) {
+        String claimId = UUID.randomUUID().toString();
+        UploadSession session = newTransaction.execute(status -> claimCompletion(uploadId, userId, claimId,
+                LocalDateTime.now().plus(properties.getChunkClaimTimeout())));
+        if (session.getContentId() != null) {
+            return contentService.getContentEntityById(session.getContentId());
+        }
+
+        String filePath;
+        try {
+            filePath = fileStorageService.storeCompletedUpload(uploadId);
+        } catch (RuntimeException e) {
+            newTransaction.executeWithoutResult(status -> uploadSessionRepository.releaseChunkClaim(uploadId, claimId));
+            throw e;
+        }
+
+        Content content;
+        try {
+            content = newTransaction.execute(status -> {
+                UploadSession claimed = uploadSessionRepository.findByUploadIdForUpdate(uploadId)
+                        .filter(current -> claimId.equals(current.getChunkClaimId()))
+                        // Cancelled or removed while the file was stored
+                        .orElseThrow(() -> new ResourceNotFoundException("Upload not found with id: " + uploadId));
+                Content created = contentService.createContent(claimed.getCourseId(), filePath, claimed.getFileName(),
+                        claimed.getFileType(), claimed.getTotalSize(), claimed.getTitle(), claimed.getDescription());
+                // Kept until it expires so a repeated completion finds the content
+                claimed.setContentId(created.getId());
+                claimed.setChunkClaimId(null);
+                claimed.setChunkClaimedUntil(null);
+                return created;
+            });
+        } catch (RuntimeException e) {
+            releaseStoredFile(filePath);
+            newTransaction.executeWithoutResult(status -> uploadSessionRepository.releaseChunkClaim(uploadId, claimId));
+            throw e;
+        }
+        fileStorageService.deletePartialUpload(uploadId);
+
+        log.info("Completed upload {} as content {}", uploadId, content.getId());
+        return content;
+    }
+
+    /**
+     * Abandon an upload and delete the bytes received so far
+     *
+     * @param uploadId Upload session ID
+     * @param userId Uploading user
+     */
+    @Transactional
+    public void cancelUpload(String uploadId, Long userId) {
+        UploadSession session = checkAccess(uploadSessionRepository.findByUploadIdForUpdate(uploadId), uploadId, userId);
+        uploadSessionRepository.delete(session);
+        afterCommit(() -> fileStorageService.deletePartialUpload(uploadId));
+    }
+
+    /**
+     * Remove expired sessions and their partial files
+     */
+    @Scheduled(fixedDelayString = "${app.content.upload.cleanup-interval-ms:600000}")
+    public void removeExpiredSessions() {
+        try {
+            List<String> removed;
+            do {
+                removed = newTransaction.execute(status -> {
+                    List<UploadSession> expired = uploadSessionRepository.lockExpired(LocalDateTime.now(), CLEANUP_BATCH_SIZE);
+                    uploadSessionRepository.deleteAll(expired);
+                    return expired.stream().map(UploadSession::getUploadId).toList();
+                });
+                removed.forEach(fileStorageService::deletePartialUpload);
+                if (!removed.isEmpty()) {
+                    log.info("Removed {} expired upload sessions", removed.size());
+                }
+            } while (removed.size() == CLEANUP_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Error removing expired upload sessions", e);
+        }
+    }
+
+    // Claim a fully received session for completion. A completed session is returned as it
+    // is, without a claim.
+    private UploadSession claimCompletion(String uploadId, Long userId, String claimId, LocalDateTime claimedUntil) {
+        UploadSession session = checkAccess(uploadSessionRepository.findByUploadId(uploadId), uploadId, userId);
+        if (session.getContentId() != null) {
+            return session;
+        }
+        if (session.getReceivedSize() != session.getTotalSize()) {
+            throw new IllegalArgumentException("Upload " + uploadId + " is incomplete: received "
+                    + session.getReceivedSize() + " of " + session.getTotalSize() + " bytes");
+        }
+        int claimed = uploadSessionRepository.claimChunk(uploadId, userId, session.getTotalSize(), claimId,
+                claimedUntil, LocalDateTime.now());
+        session = checkAccess(uploadSessionRepository.findByUploadId(uploadId), uploadId, userId);
+        if (claimed == 1 || session.getContentId() != null) {
+            return session;
+        }
+        throw new UploadOffsetMismatchException(session.getReceivedSize(),
+                "Upload " + uploadId + " is already being completed");
+    }
+
+    // Drop the blob reference taken for a completion that did not go through
+    private void releaseStoredFile(String filePath) {
+        try {
+            fileStorageService.deleteFile(filePath);
+        } catch (Exception e) {
+            log.error("Could not release stored upload {}", filePath, e);
+        }
+    }
+
+    // Claim the session for the chunk at the offset, or explain why it cannot be claimed
+    private UploadSession claimChunk(String uploadId, Long userId, long offset, String claimId,
+                                     LocalDateTime claimedUntil) {
+        int claimed = uploadSessionRepository.claimChunk(uploadId, userId, offset, claimId, claimedUntil,
+                LocalDateTime.now());
+        UploadSession session = checkAccess(uploadSessionRepository.findByUploadId(uploadId), uploadId, userId);
+        if (claimed == 1) {
+            return session;
+        }
+        if (session.getContentId() != null) {
+            throw new IllegalArgumentException("Upload " + uploadId + " is already completed");
+        }
+        if (offset != session.getReceivedSize()) {
+            throw new UploadOffsetMismatchException(session.getReceivedSize(), offset);
+        }
+        throw new UploadOffsetMismatchException(session.getReceivedSize(),
+                "Another chunk of upload " + uploadId + " is being written at offset " + offset);
+    }
+
+    // Write the chunk at the offset, discarding anything a failed earlier attempt left behind.
+    // Past the deadline the claim may be taken over, so the file is no longer touched.
+    private long write(Path partialFile, long offset, long limit, String sha256, InputStream body, long deadline) {
+        try {
+            Files.createDirectories(partialFile.getParent());
+            try (FileChannel channel = FileChannel.open(partialFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.truncate(offset);
+                channel.position(offset);
+
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long written = 0;
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    if (System.nanoTime() - deadline > 0) {
+                        throw new IllegalArgumentException("Chunk at offset " + offset + " took too long to arrive");
+                    }
+                    written += read;
+                    if (written > limit) {
+                        channel.truncate(offset);
+                        throw new IllegalArgumentException("Chunk exceeds the " + limit + " bytes allowed at offset " + offset);
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                }
+
+                if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(sha256.trim())) {
+                    if (System.nanoTime() - deadline <= 0) {
+                        channel.truncate(offset);
+                    }
+                    throw new IllegalArgumentException("Chunk at offset " + offset + " does not match its checksum");
+                }
+                // Durable before the offset is acknowledged
+                channel.force(false);
+                return written;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write chunk at offset " + offset, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private UploadSession checkAccess(Optional<UploadSession> found, String uploadId, Long userId) {
+        return found
+                .filter(session -> session.getUserId().equals(userId))
+                .filter(session -> session.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found with id: " + uploadId));
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session) {
+        return UploadSessionDTO.builder()
+                .uploadId(session.getUploadId())
+                .fileName(session.getFileName())
+                .totalSize(session.getTotalSize())
+                .offset(session.getReceivedSize())
+                .maxChunkSize(properties.getMaxChunkSize().toBytes())
+                .expiresAt(session.getExpiresAt())
+                .contentId(session.getContentId())
+                .build();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.lms.content.service;
+
+import com.example.lms.content.service.ContentFileStorageService.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes stored files to HTTP responses.
+ *
+ * Supports conditional requests against the file's strong ETag and last-modified time,
+ * and single or multiple byte ranges (RFC 9110). Bytes are moved with
+ * {@link FileChannel#transferTo}, so the file is never buffered in full.
+ */
+@Service
+@Slf4j
+public class FileStreamingService {
+
+    private static final String CACHE_CONTROL = "private, no-cache";
+    private static final String CRLF = "\r\n";
+
+    /**
+     * Outcome of a streamed request
+     *
+     * @param status HTTP status written
+     * @param fromStart Whether the body sent starts at the first byte of the file
+     */
+    public record StreamResult(int status, boolean fromStart) {
+    }
+
+    private record Region(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * Stream a stored file, answering conditional and range requests
+     *
+     * @param file Stored file
+     * @param downloadName File name offered to the client
+     * @param declaredType Content type recorded for the file, may be null
+     * @param request Current request
+     * @param response Response to write to
+     * @return Outcome of the request
+     */
+    public StreamResult stream(StoredFile file, String downloadName, String declaredType,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Sets 304 or 412 itself when a precondition decides the response
+        if (new ServletWebRequest(request, response).checkNotModified(file.eTag(), file.lastModified())) {
+            return new StreamResult(response.getStatus(), false);
+        }
+
+        response.setHeader(HttpHeaders.ETAG, file.eTag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.lastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(downloadName, StandardCharsets.UTF_8)
+                .build()
+                .toString());
+
+        String contentType = resolveContentType(declaredType, downloadName);
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+        long length = file.size();
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(request, file)) {
+            return sendWhole(file, contentType, head, response);
+        }
+
+        List<Region> regions = parseRegions(rangeHeader, length);
+        if (regions == null) {
+            return sendWhole(file, contentType, head, response);
+        }
+        if (regions.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setContentLength(0);
+            return new StreamResult(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, false);
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        boolean fromStart = !head && regions.get(0).start() == 0;
+
+        if (regions.size() == 1) {
+            Region region = regions.get(0);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(region, length));
+            response.setContentLengthLong(region.length());
+            if (!head) {
+                write(file, regions, response, null, null);
+            }
+            return new StreamResult(HttpServletResponse.SC_PARTIAL_CONTENT, fromStart);
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(regions.size());
+        long contentLength = 0;
+        for (Region region : regions) {
+            byte[] partHeader = (CRLF + "--" + boundary + CRLF
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(region, length) + CRLF
+                    + CRLF).getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + region.length();
+        }
+        byte[] closing = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (!head) {
+            write(file, regions, response, partHeaders, closing);
+        }
+        return new StreamResult(HttpServletResponse.SC_PARTIAL_CONTENT, fromStart);
+    }
+
+    /**
+     * Resolve the content type of a file from its recorded type or, failing that, its name
+     *
+     * @param declaredType Content type recorded for the file, may be null
+     * @param fileName File name
+     * @return Content type
+     */
+    public String resolveContentType(String declaredType, String fileName) {
+        if (StringUtils.hasText(declaredType)) {
+            try {
+                return MediaType.parseMediaType(declaredType).toString();
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring invalid content type '{}' of file {}", declaredType, fileName);
+            }
+        }
+        return MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+    }
+
+    private StreamResult sendWhole(StoredFile file, String contentType, boolean head,
+                                   HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType);
+        response.setContentLengthLong(file.size());
+        if (!head) {
+            write(file, List.of(new Region(0, file.size() - 1)), response, null, null);
+        }
+        return new StreamResult(HttpServletResponse.SC_OK, !head);
+    }
+
+    // Ranges only apply if the validator in If-Range still matches; weak ETags never do
+    private boolean ifRangeMatches(HttpServletRequest request, StoredFile file) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(file.eTag());
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == file.lastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Returns null when the whole file should be sent instead, and an empty list when
+    // no range is satisfiable
+    private List<Region> parseRegions(String rangeHeader, long length) {
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring invalid Range header '{}': {}", rangeHeader, e.getMessage());
+            return null;
+        }
+
+        List<Region> regions = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (HttpRange range : ranges) {
+            if (length == 0) {
+                continue;
+            }
+            long start;
+            try {
+                start = range.getRangeStart(length);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            long end = range.getRangeEnd(length);
+            if (end < start) {
+                continue;
+            }
+            Region region = new Region(start, end);
+            regions.add(region);
+            total += region.length();
+        }
+
+        // Overlapping ranges asking for more than the file itself are served as a whole
+        if (total > length) {
+            return null;
+        }
+        return regions;
+    }
+
+    private String contentRange(Region region, long length) {
+        return "bytes " + region.start() + "-" + region.end() + "/" + length;
+    }
+
+    private void write(StoredFile file, List<Region> regions, HttpServletResponse response,
+                       List<byte[]> partHeaders, byte[] closing) throws IOException {
+        OutputStream output = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(output);
+            for (int i = 0; i < regions.size(); i++) {
+                if (partHeaders != null) {
+                    output.write(partHeaders.get(i));
+                }
+                transfer(channel, regions.get(i), target);
+            }
+            if (closing != null) {
+                output.write(closing);
+            }
+            output.flush();
+        } catch (IOException e) {
+            // Usually the client going away, e.g. a video player seeking elsewhere
+            log.debug("Streaming of {} stopped: {}", file.fileName(), e.getMessage());
+        }
+    }
+
+    private void transfer(FileChannel channel, Region region, WritableByteChannel target) throws IOException {
+        long position = region.start();
+        long remaining = region.length();
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                throw new EOFException("File ended at byte " + position);
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+}
@@ -39,6 +39,9 @@ public class ModuleService {
     // Add this line to wire in the ContentFileStorageService
     @Autowired
     private ContentFileStorageService contentFileStorageService;
+
+    @Autowired
+    private ContentSearchService contentSearchService;
     
     /**
      * Get all modules
@@ -165,6 +168,7 @@ public class ModuleService {
             
             // Delete the content item
             contentRepository.delete(content);
+            contentSearchService.contentChanged(content.getId());
         }
         
         // Then delete the module itself
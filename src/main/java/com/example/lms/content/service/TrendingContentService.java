@@ -0,0 +1,144 @@
+package com.example.lms.content.service;
+
+import com.example.lms.content.config.ContentTrendingProperties;
+import com.example.lms.content.dto.TrendingContentDTO;
+import com.example.lms.content.model.Content;
+import com.example.lms.content.repository.ContentRepository;
+import com.example.lms.content.trending.SlidingTopK;
+import com.example.lms.content.trending.SlidingTopK.Estimate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks the contents opened most in a recent time window, across all courses and per course.
+ *
+ * Fed from content accesses and views in memory, without reading the access log. Counts
+ * use {@link SlidingTopK}, so memory is bounded whatever the traffic, and each count comes
+ * with guaranteed bounds on the true number. Counts cover the requests served by this node.
+ */
+@Service
+@Slf4j
+public class TrendingContentService {
+
+    public static final String COURSE_CACHE_NAME = "contentCourses";
+
+    private final ContentRepository contentRepository;
+    private final CacheManager cacheManager;
+    private final ContentTrendingProperties properties;
+
+    private final SlidingTopK global;
+    private final Map<Long, SlidingTopK> byCourse = new ConcurrentHashMap<>();
+    private final AtomicLong untrackedCourseEvents = new AtomicLong();
+
+    public TrendingContentService(ContentRepository contentRepository,
+                                  CacheManager cacheManager,
+                                  ContentTrendingProperties properties) {
+        this.contentRepository = contentRepository;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.global = new SlidingTopK(properties.getWindow(), properties.getSlices(), properties.getCapacity());
+    }
+
+    /**
+     * Count an opening of a content
+     *
+     * @param contentId Content ID
+     */
+    public void record(Long contentId) {
+        if (contentId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        global.add(contentId, now);
+
+        Long courseId = getCourseId(contentId);
+        if (courseId == null) {
+            return;
+        }
+        SlidingTopK course = byCourse.get(courseId);
+        if (course == null) {
+            if (byCourse.size() >= properties.getMaxCourses()) {
+                untrackedCourseEvents.incrementAndGet();
+                return;
+            }
+            course = byCourse.computeIfAbsent(courseId, id ->
+                    new SlidingTopK(properties.getWindow(), properties.getSlices(), properties.getCourseCapacity()));
+        }
+        course.add(contentId, now);
+    }
+
+    /**
+     * Get the contents opened most in the window
+     *
+     * @param courseId Only contents of this course, or null for all courses
+     * @param limit Number of contents
+     * @return Contents by number of opens, highest first; deleted contents are left out
+     */
+    public List<TrendingContentDTO> getTrending(Long courseId, int limit) {
+        long now = System.currentTimeMillis();
+        SlidingTopK counts = courseId == null ? global : byCourse.get(courseId);
+        if (counts == null) {
+            return List.of();
+        }
+        // Ask for a few more in case some were deleted meanwhile
+        List<Estimate> estimates = counts.top(limit + 5, now);
+        if (estimates.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Content> contents = contentRepository.findAllById(estimates.stream().map(Estimate::item).toList())
+                .stream()
+                .collect(Collectors.toMap(Content::getId, Function.identity()));
+        return estimates.stream()
+                .filter(estimate -> contents.containsKey(estimate.item()) && !contents.get(estimate.item()).isDeleted())
+                .limit(limit)
+                .map(estimate -> {
+                    Content content = contents.get(estimate.item());
+                    return TrendingContentDTO.builder()
+                            .contentId(content.getId())
+                            .title(content.getTitle())
+                            .courseId(content.getCourse() != null ? content.getCourse().getId() : null)
+                            .fileType(content.getFileType())
+                            .opens(estimate.count())
+                            .minOpens(estimate.lowerBound())
+                            .maxOpens(estimate.upperBound())
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Stop tracking courses without opens in the window, making room for others
+     */
+    @Scheduled(fixedDelayString = "${app.content.trending.prune-interval-ms:300000}")
+    public void pruneIdleCourses() {
+        long now = System.currentTimeMillis();
+        int before = byCourse.size();
+        byCourse.entrySet().removeIf(entry -> entry.getValue().total(now) == 0);
+        long untracked = untrackedCourseEvents.getAndSet(0);
+        if (before != byCourse.size() || untracked > 0) {
+            log.debug("Trending tracker dropped {} idle courses; {} events of untracked courses counted globally only",
+                    before - byCourse.size(), untracked);
+        }
+    }
+
+    private Long getCourseId(Long contentId) {
+        Cache cache = cacheManager.getCache(COURSE_CACHE_NAME);
+        try {
+            return cache.get(contentId, () -> contentRepository.findCourseIdById(contentId).orElse(null));
+        } catch (Cache.ValueRetrievalException e) {
+            log.warn("Could not resolve the course of content {}: {}", contentId, e.getMessage());
+            return null;
+        }
+    }
+}
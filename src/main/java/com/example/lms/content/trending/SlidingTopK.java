@@ -0,0 +1,119 @@
+package com.example.lms.content.trending;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Most frequent items of a sliding time window.
+ *
+ * The window is split into slices, each with its own {@link SpaceSaving} summary. Events
+ * are added to the current slice, and a slice is cleared when the window moves past it,
+ * so memory stays at most {@code slices * capacity} counters. Queries merge the live slices;
+ * the window therefore advances one slice at a time. All methods are synchronized.
+ */
+public class SlidingTopK {
+
+    /**
+     * Item with its count in the window
+     *
+     * @param item Item ID
+     * @param count Estimated count
+     * @param lowerBound Guaranteed minimum of the true count
+     * @param upperBound Guaranteed maximum of the true count
+     */
+    public record Estimate(long item, long count, long lowerBound, long upperBound) {
+    }
+
+    private static final Comparator<Estimate> RANKING = Comparator.comparingLong(Estimate::count).reversed()
+            .thenComparing(Comparator.comparingLong(Estimate::lowerBound).reversed())
+            .thenComparingLong(Estimate::item);
+
+    private final long sliceMillis;
+    private final SpaceSaving[] slices;
+    // Absolute slice number each slot currently holds
+    private final long[] sliceNumbers;
+
+    public SlidingTopK(Duration window, int sliceCount, int capacity) {
+        if (sliceCount < 1) {
+            throw new IllegalArgumentException("Slice count must be positive");
+        }
+        this.sliceMillis = Math.max(1, window.toMillis() / sliceCount);
+        this.slices = new SpaceSaving[sliceCount];
+        this.sliceNumbers = new long[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new SpaceSaving(capacity);
+            sliceNumbers[i] = -1;
+        }
+    }
+
+    public synchronized void add(long item, long nowMillis) {
+        long sliceNumber = nowMillis / sliceMillis;
+        int slot = (int) (sliceNumber % slices.length);
+        if (sliceNumbers[slot] != sliceNumber) {
+            slices[slot].clear();
+            sliceNumbers[slot] = sliceNumber;
+        }
+        slices[slot].add(item);
+    }
+
+    /**
+     * Get the most frequent items of the window
+     *
+     * @param limit Number of items
+     * @param nowMillis Current time
+     * @return Items by estimated count, highest first
+     */
+    public synchronized List<Estimate> top(int limit, long nowMillis) {
+        List<SpaceSaving> live = liveSlices(nowMillis);
+        Set<Long> items = new HashSet<>();
+        for (SpaceSaving slice : live) {
+            for (SpaceSaving.Entry entry : slice.entries()) {
+                items.add(entry.item());
+            }
+        }
+
+        List<Estimate> estimates = new ArrayList<>(items.size());
+        for (long item : items) {
+            long count = 0;
+            long lowerBound = 0;
+            long upperBound = 0;
+            for (SpaceSaving slice : live) {
+                SpaceSaving.Entry entry = slice.get(item);
+                if (entry != null) {
+                    count += entry.count();
+                    lowerBound += entry.count() - entry.error();
+                    upperBound += entry.count();
+                } else {
+                    // Not counted in this slice: seen at most as often as its least counted item
+                    upperBound += slice.minCount();
+                }
+            }
+            estimates.add(new Estimate(item, count, lowerBound, upperBound));
+        }
+
+        estimates.sort(RANKING);
+        return estimates.size() > limit ? new ArrayList<>(estimates.subList(0, limit)) : estimates;
+    }
+
+    /**
+     * Number of events in the window
+     */
+    public synchronized long total(long nowMillis) {
+        return liveSlices(nowMillis).stream().mapToLong(SpaceSaving::total).sum();
+    }
+
+    private List<SpaceSaving> liveSlices(long nowMillis) {
+        long current = nowMillis / sliceMillis;
+        List<SpaceSaving> live = new ArrayList<>(slices.length);
+        for (int i = 0; i < slices.length; i++) {
+            if (sliceNumbers[i] > current - slices.length && sliceNumbers[i] <= current && !slices[i].isEmpty()) {
+                live.add(slices[i]);
+            }
+        }
+        return live;
+    }
+}
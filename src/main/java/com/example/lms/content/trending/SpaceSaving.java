@@ -0,0 +1,111 @@
+package com.example.lms.content.trending;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitters summary (Metwally et al.) over a stream of item IDs.
+ *
+ * At most {@code capacity} items are counted. When a new item arrives and the summary is
+ * full, it takes over the counter of the least counted item and inherits its count as
+ * error. A counted item's true count therefore lies between {@code count - error} and
+ * {@code count}, and any item whose true count exceeds {@code total / capacity} is
+ * guaranteed to be counted. Not thread-safe.
+ */
+public final class SpaceSaving {
+
+    /**
+     * Counted item
+     *
+     * @param item Item ID
+     * @param count Estimated count, never below the true count
+     * @param error Most the estimate may exceed the true count by
+     */
+    public record Entry(long item, long count, long error) {
+    }
+
+    private static final class Counter {
+        private final long item;
+        private long count;
+        private long error;
+
+        private Counter(long item) {
+            this.item = item;
+        }
+    }
+
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.<Counter>comparingLong(counter -> counter.count).thenComparingLong(counter -> counter.item);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(long item) {
+        total++;
+        Counter counter = counters.get(item);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(item);
+            } else {
+                // Replace the least counted item
+                Counter evicted = byCount.pollFirst();
+                counters.remove(evicted.item);
+                counter = new Counter(item);
+                counter.count = evicted.count;
+                counter.error = evicted.count;
+            }
+            counters.put(item, counter);
+        } else {
+            byCount.remove(counter);
+        }
+        counter.count++;
+        byCount.add(counter);
+    }
+
+    /**
+     * Upper bound of the true count of any item that is not counted
+     */
+    public long minCount() {
+        return counters.size() < capacity || byCount.isEmpty() ? 0 : byCount.first().count;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public Entry get(long item) {
+        Counter counter = counters.get(item);
+        return counter == null ? null : new Entry(counter.item, counter.count, counter.error);
+    }
+
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        for (Counter counter : byCount.descendingSet()) {
+            entries.add(new Entry(counter.item, counter.count, counter.error));
+        }
+        return entries;
+    }
+
+    public void clear() {
+        counters.clear();
+        byCount.clear();
+        total = 0;
+    }
+}
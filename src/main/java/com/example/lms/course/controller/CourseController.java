@@ -404,6 +404,30 @@ description = "Courses retrieved successfully",
         return ResponseEntity.ok(statistics);
     }
     
+    /**
+     * Get statistics of all courses taught by an instructor
+     * 
+     * @param instructorId Instructor ID
+     * @return Statistics of each course
+     */
+    @GetMapping("/instructor/{instructorId}/statistics")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR')")
+    @Operation(
+        summary = "Get course statistics by instructor", 
+        description = "Retrieves statistical information about all courses taught by an instructor, for instructor dashboards. Requires ADMIN or INSTRUCTOR role.",
+        tags = {"Course Management", "Analytics"}
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
+        @ApiResponse(responseCode = "403", description = "Forbidden, insufficient permissions"),
+        @ApiResponse(responseCode = "404", description = "Instructor not found")
+    })
+    public ResponseEntity<List<CourseStatisticsDTO>> getCourseStatisticsByInstructor(
+            @Parameter(description = "Instructor ID", required = true)
+            @PathVariable Long instructorId) {
+        return ResponseEntity.ok(courseService.getCourseStatisticsByInstructor(instructorId));
+    }
+    
     /**
      * Get all courses with user progress
      */
@@ -411,9 +435,10 @@ description = "Courses retrieved successfully",
     @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR') or #userId == authentication.principal.id")
     @Operation(summary = "Get all courses with user progress", description = "Get all courses with progress for a specific user")
     public ResponseEntity<CollectionModel<EntityModel<CourseDTO>>> getCoursesForUser(
-            @PathVariable Long userId) {
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "false") boolean enrolledOnly) {
         
-        List<EntityModel<CourseDTO>> courses = courseService.getCoursesWithProgress(userId).stream()
+        List<EntityModel<CourseDTO>> courses = courseService.getCoursesWithProgress(userId, enrolledOnly).stream()
                 .map(courseDTO -> {
                     EntityModel<CourseDTO> resource = EntityModel.of(courseDTO);
                     addLinks(resource, courseDTO.getId());
@@ -423,12 +448,63 @@ description = "Courses retrieved successfully",
                 
         CollectionModel<EntityModel<CourseDTO>> resources = CollectionModel.of(
             courses,
-            linkTo(methodOn(CourseController.class).getCoursesForUser(userId)).withSelfRel()
+            linkTo(methodOn(CourseController.class).getCoursesForUser(userId, enrolledOnly)).withSelfRel()
         );
         
         return ResponseEntity.ok(resources);
     }
     
+    /**
+     * Get a page of courses with user progress
+     */
+    @GetMapping("/user/{userId}/paged")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR') or #userId == authentication.principal.id")
+    @Operation(summary = "Get a page of courses with user progress", description = "Get a page of courses with progress for a specific user, optionally only the courses the user is enrolled in")
+    public ResponseEntity<Page<CourseDTO>> getCoursePageForUser(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "false") boolean enrolledOnly,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(courseService.getCoursesWithProgress(userId, enrolledOnly, page, size));
+    }
+    
+    /**
+     * Get the courses a student is eligible to enroll in
+     */
+    @GetMapping("/eligible/{studentId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR') or #studentId == authentication.principal.id")
+    @Operation(summary = "Get eligible courses", description = "Get the published courses a student has not completed and has completed all direct and transitive prerequisites of")
+    public ResponseEntity<CollectionModel<EntityModel<CourseDTO>>> getEligibleCourses(
+            @PathVariable Long studentId) {
+        
+        List<EntityModel<CourseDTO>> courses = courseService.getEligibleCourses(studentId).stream()
+                .map(courseDTO -> {
+                    EntityModel<CourseDTO> resource = EntityModel.of(courseDTO);
+                    addLinks(resource, courseDTO.getId());
+                    return resource;
+                })
+                .collect(Collectors.toList());
+                
+        CollectionModel<EntityModel<CourseDTO>> resources = CollectionModel.of(
+            courses,
+            linkTo(methodOn(CourseController.class).getEligibleCourses(studentId)).withSelfRel()
+        );
+        
+        return ResponseEntity.ok(resources);
+    }
+    
+    /**
+     * Check a student's eligibility for several courses
+     */
+    @GetMapping("/eligibility/{studentId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR') or #studentId == authentication.principal.id")
+    @Operation(summary = "Check course eligibility", description = "Check for each course whether a student has completed all its direct and transitive prerequisites")
+    public ResponseEntity<Map<Long, Boolean>> getEligibility(
+            @PathVariable Long studentId,
+            @RequestParam List<Long> courseIds) {
+        return ResponseEntity.ok(courseService.getEligibility(studentId, courseIds));
+    }
+    
     /**
      * Get course by ID with user progress
      */
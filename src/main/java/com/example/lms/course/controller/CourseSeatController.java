@@ -0,0 +1,55 @@
+package com.example.lms.course.controller;
+
+import com.example.lms.course.dto.CourseSeatAvailabilityDTO;
+import com.example.lms.course.dto.CourseSeatReservationDTO;
+import com.example.lms.course.service.CourseSeatService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST API controller for course seats: availability, seat reservations and the waitlist
+ */
+@RestController
+@RequestMapping("/api/courses/{courseId}/seats")
+@Tag(name = "Course Seats", description = "APIs for course seat reservations and waitlists")
+@SecurityRequirement(name = "bearerAuth")
+public class CourseSeatController {
+
+    private final CourseSeatService courseSeatService;
+
+    public CourseSeatController(CourseSeatService courseSeatService) {
+        this.courseSeatService = courseSeatService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get seat availability", description = "Get the seats taken and left in a course and the length of its waitlist")
+    public ResponseEntity<CourseSeatAvailabilityDTO> getAvailability(@PathVariable Long courseId) {
+        return ResponseEntity.ok(courseSeatService.getAvailability(courseId));
+    }
+
+    @PostMapping("/reservations/{studentId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR') or #studentId == authentication.principal.id")
+    @Operation(summary = "Reserve a seat", description = "Hold a seat for a student until the hold expires, or put them on the waitlist if the course is full. Enrolling while the seat is held uses it.")
+    public ResponseEntity<CourseSeatReservationDTO> reserve(@PathVariable Long courseId, @PathVariable Long studentId) {
+        return ResponseEntity.ok(courseSeatService.reserve(courseId, studentId));
+    }
+
+    @GetMapping("/reservations/{studentId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR') or #studentId == authentication.principal.id")
+    @Operation(summary = "Get a seat reservation", description = "Get a student's seat reservation, with their place on the waitlist while waiting")
+    public ResponseEntity<CourseSeatReservationDTO> getReservation(@PathVariable Long courseId, @PathVariable Long studentId) {
+        return ResponseEntity.ok(courseSeatService.getReservation(courseId, studentId));
+    }
+
+    @DeleteMapping("/reservations/{studentId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR') or #studentId == authentication.principal.id")
+    @Operation(summary = "Cancel a seat reservation", description = "Give up a held seat or waitlist place")
+    public ResponseEntity<Void> cancelReservation(@PathVariable Long courseId, @PathVariable Long studentId) {
+        courseSeatService.cancelReservation(courseId, studentId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.lms.course.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Collection sizes of a course, counted in the database for course listings
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseListCountsDTO {
+    private Long courseId;
+    private Long contentCount;
+    private Long quizCount;
+    private Long studentCount;
+}
@@ -0,0 +1,16 @@
+package com.example.lms.course.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A course and one of its prerequisite courses
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoursePrerequisiteLinkDTO {
+    private Long courseId;
+    private Long prerequisiteId;
+}
@@ -0,0 +1,20 @@
+package com.example.lms.course.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseSeatAvailabilityDTO {
+    private Long courseId;
+    // Null when the course has no capacity limit
+    private Integer capacity;
+    private int seatsTaken;
+    // Null when the course has no capacity limit
+    private Integer seatsAvailable;
+    private int waitlistLength;
+}
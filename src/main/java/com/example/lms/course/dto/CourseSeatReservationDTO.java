@@ -0,0 +1,23 @@
+package com.example.lms.course.dto;
+
+import com.example.lms.course.model.SeatReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseSeatReservationDTO {
+    private Long courseId;
+    private Long studentId;
+    private SeatReservationStatus status;
+    // Set while the seat is held
+    private LocalDateTime expiresAt;
+    // 1-based place on the waitlist, set while waiting
+    private Integer waitlistPosition;
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Data Transfer Object for course statistics.
  * Contains metrics and information about course performance and usage.
@@ -20,7 +22,15 @@ public class CourseStatisticsDTO {
     private Integer totalContent;
     private Integer totalQuizzes;
     private Double averageCompletionPercentage;
+    private Double medianCompletionPercentage;
+    private Double completionPercentile25;
+    private Double completionPercentile75;
+    private Double completionPercentile90;
     private Integer completedCount;
     private Integer inProgressCount;
+    // Students whose progress changed within the active window
+    private Integer activeStudents;
+    // Number of students per 10% completion range, the last range including 100%
+    private List<Integer> completionHistogram;
     private Double averageQuizScore;
-}
\ No newline at end of file
+}
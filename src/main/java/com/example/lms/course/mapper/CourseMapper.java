@@ -2,6 +2,7 @@ package com.example.lms.course.mapper;
 
 import com.example.lms.Department.model.Department;
 import com.example.lms.course.dto.CourseDTO;
+import com.example.lms.course.dto.CourseListCountsDTO;
 import com.example.lms.course.model.Course;
 import com.example.lms.user.model.User;
 
@@ -91,6 +92,46 @@ public class CourseMapper {
      * @return CourseDTO populated with data from entity
      */
     public static CourseDTO toDTO(Course course) {
+        CourseDTO courseDTO = toBaseDTO(course);
+        
+        // Add enrollment count
+        courseDTO.setCurrentEnrollment(course.getCurrentEnrollment());
+
+        // Set the prerequisite course IDs
+        if (course.getPrerequisites() != null && !course.getPrerequisites().isEmpty()) {
+            Set<Long> prerequisiteIds = course.getPrerequisites().stream()
+                .map(Course::getId)
+                .collect(Collectors.toSet());
+            courseDTO.setPrerequisiteCourseIds(prerequisiteIds);
+        }
+        
+        // Set content and quiz counts
+        courseDTO.setContentCount(course.getContents() != null ? course.getContents().size() : 0);
+        courseDTO.setQuizCount(course.getQuizzes() != null ? course.getQuizzes().size() : 0);
+
+        return courseDTO;
+    }
+    
+    /**
+     * Convert Course entity to CourseDTO for course listings, taking collection sizes and
+     * prerequisites from listing queries instead of the entity's lazy collections
+     * 
+     * @param course Course entity with instructor and department loaded
+     * @param counts Content, quiz and student counts of the course, or null if none
+     * @param prerequisiteIds Prerequisite course IDs
+     * @return CourseDTO populated with data from entity and listing queries
+     */
+    public static CourseDTO toListDTO(Course course, CourseListCountsDTO counts, Set<Long> prerequisiteIds) {
+        CourseDTO courseDTO = toBaseDTO(course);
+        courseDTO.setCurrentEnrollment(counts != null ? counts.getStudentCount().intValue() : 0);
+        courseDTO.setPrerequisiteCourseIds(prerequisiteIds != null ? prerequisiteIds : new HashSet<>());
+        courseDTO.setContentCount(counts != null ? counts.getContentCount().intValue() : 0);
+        courseDTO.setQuizCount(counts != null ? counts.getQuizCount().intValue() : 0);
+        return courseDTO;
+    }
+    
+    // Fields that come from the course row and its instructor and department
+    private static CourseDTO toBaseDTO(Course course) {
         CourseDTO courseDTO = new CourseDTO();
         courseDTO.setId(course.getId());
         courseDTO.setTitle(course.getTitle());
@@ -112,17 +153,8 @@ public class CourseMapper {
             courseDTO.setDepartmentName(course.getDepartment().getName());
         }
 
-        // Add max capacity and enrollment count
+        // Add max capacity
         courseDTO.setMaxCapacity(course.getMaxCapacity());
-        courseDTO.setCurrentEnrollment(course.getCurrentEnrollment());
-
-        // Set the prerequisite course IDs
-        if (course.getPrerequisites() != null && !course.getPrerequisites().isEmpty()) {
-            Set<Long> prerequisiteIds = course.getPrerequisites().stream()
-                .map(Course::getId)
-                .collect(Collectors.toSet());
-            courseDTO.setPrerequisiteCourseIds(prerequisiteIds);
-        }
         
         // Add startDate and endDate
         courseDTO.setStartDate(course.getStartDate());
@@ -149,10 +181,6 @@ public class CourseMapper {
         if (course.getUpdatedAt() != null) {
             courseDTO.setUpdatedAt(course.getUpdatedAt());
         }
-        
-        // Set content and quiz counts
-        courseDTO.setContentCount(course.getContents() != null ? course.getContents().size() : 0);
-        courseDTO.setQuizCount(course.getQuizzes() != null ? course.getQuizzes().size() : 0);
 
         return courseDTO;
     }
@@ -0,0 +1,31 @@
+package com.example.lms.course.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Seats taken in a course: enrollments holding a seat plus held reservations. Seats are
+ * taken with a conditional update of this row, so the capacity is never exceeded however
+ * many enrollments run at once.
+ */
+@Entity
+@Table(name = "course_seat_counters")
+@Data
+@NoArgsConstructor
+public class CourseSeatCounter {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    // Copy of the course's max capacity; null means unlimited
+    private Integer capacity;
+
+    @Column(name = "seats_taken", nullable = false)
+    private int seatsTaken;
+
+    private LocalDateTime reconciledAt;
+}
@@ -0,0 +1,49 @@
+package com.example.lms.course.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A student's seat reservation or waitlist place in a course. Each student has at most one
+ * row per course, reused across reservation attempts.
+ */
+@Entity
+@Table(name = "course_seat_reservations",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"course_id", "student_id"}),
+       indexes = {
+           @Index(name = "idx_course_seat_reservations_waitlist", columnList = "course_id, status, queued_at"),
+           @Index(name = "idx_course_seat_reservations_expiry", columnList = "status, expires_at")
+       })
+@Data
+@NoArgsConstructor
+public class CourseSeatReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SeatReservationStatus status;
+
+    // End of the hold while HELD
+    private LocalDateTime expiresAt;
+
+    // Waitlist order while WAITING
+    private LocalDateTime queuedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
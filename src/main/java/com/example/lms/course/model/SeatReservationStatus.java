@@ -0,0 +1,12 @@
+package com.example.lms.course.model;
+
+/**
+ * State of a student's seat reservation in a course
+ */
+public enum SeatReservationStatus {
+    HELD,       // A seat is held for the student until the reservation expires
+    WAITING,    // On the waitlist, promoted to HELD when a seat frees up
+    CONFIRMED,  // Turned into an enrollment, which now holds the seat
+    EXPIRED,    // Not confirmed in time; the seat was released
+    CANCELLED   // Withdrawn by the student
+}
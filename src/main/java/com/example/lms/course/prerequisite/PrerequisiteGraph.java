@@ -0,0 +1,314 @@
+package com.example.lms.course.prerequisite;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Course prerequisite DAG with the transitive closure of every course.
+ *
+ * Each course keeps its direct prerequisites, the courses that directly require it and a
+ * {@link BitSet} of all its transitive prerequisites, indexed by course ID. Edges that would
+ * close a cycle are rejected, so a prerequisite check is one bitset comparison against the
+ * student's completed courses. Changing a course recomputes the closures of that course and
+ * of the courses depending on it. Reads run concurrently; updates take a write lock.
+ */
+public class PrerequisiteGraph {
+
+    /**
+     * A prerequisite edge
+     */
+    public record Edge(long courseId, long prerequisiteId) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Set<Long>> prerequisites = new HashMap<>();
+    private final Map<Long, Set<Long>> dependents = new HashMap<>();
+    private final Map<Long, BitSet> closures = new HashMap<>();
+    private final List<Edge> rejectedEdges = new ArrayList<>();
+
+    /**
+     * Build a graph. Edges that would close a cycle are left out and reported by
+     * {@link #getRejectedEdges()}.
+     *
+     * @param courseIds IDs of all courses
+     * @param edges Prerequisite edges
+     */
+    public PrerequisiteGraph(Collection<Long> courseIds, Collection<Edge> edges) {
+        courseIds.forEach(this::addNode);
+        for (Edge edge : edges) {
+            addNode(edge.courseId());
+            addNode(edge.prerequisiteId());
+            prerequisites.get(edge.courseId()).add(edge.prerequisiteId());
+        }
+
+        // Close every course in depth-first post-order, dropping edges back into the current path
+        Set<Long> done = new HashSet<>();
+        Set<Long> inPath = new HashSet<>();
+        for (Long courseId : prerequisites.keySet()) {
+            build(courseId, done, inPath);
+        }
+        prerequisites.forEach((courseId, direct) ->
+                direct.forEach(prerequisiteId -> dependents.get(prerequisiteId).add(courseId)));
+    }
+
+    /**
+     * Edges left out when the graph was built because they closed a cycle
+     */
+    public List<Edge> getRejectedEdges() {
+        return List.copyOf(rejectedEdges);
+    }
+
+    /**
+     * Whether setting these prerequisites on a course would create a cycle
+     */
+    public boolean wouldCreateCycle(long courseId, Collection<Long> prerequisiteIds) {
+        lock.readLock().lock();
+        try {
+            return findCycle(courseId, prerequisiteIds) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check prerequisites for a course without changing the graph
+     *
+     * @param courseId Course ID
+     * @param prerequisiteIds Direct prerequisite course IDs
+     * @throws IllegalArgumentException if a prerequisite is, or transitively requires, the course itself
+     */
+    public void checkPrerequisites(long courseId, Collection<Long> prerequisiteIds) {
+        lock.readLock().lock();
+        try {
+            rejectCycle(courseId, prerequisiteIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the direct prerequisites of a course, adding the course if it is new
+     *
+     * @param courseId Course ID
+     * @param prerequisiteIds Direct prerequisite course IDs
+     * @throws IllegalArgumentException if a prerequisite is, or transitively requires, the course itself
+     */
+    public void setPrerequisites(long courseId, Collection<Long> prerequisiteIds) {
+        lock.writeLock().lock();
+        try {
+            rejectCycle(courseId, prerequisiteIds);
+
+            addNode(courseId);
+            Set<Long> direct = prerequisites.get(courseId);
+            direct.forEach(prerequisiteId -> dependents.get(prerequisiteId).remove(courseId));
+            direct.clear();
+            for (Long prerequisiteId : prerequisiteIds) {
+                addNode(prerequisiteId);
+                direct.add(prerequisiteId);
+                dependents.get(prerequisiteId).add(courseId);
+            }
+
+            // The course and everything depending on it, directly or not
+            Set<Long> affected = new HashSet<>();
+            Deque<Long> queue = new ArrayDeque<>(List.of(courseId));
+            while (!queue.isEmpty()) {
+                Long next = queue.poll();
+                if (affected.add(next)) {
+                    queue.addAll(dependents.get(next));
+                }
+            }
+            affected.forEach(closures::remove);
+            for (Long affectedId : affected) {
+                close(affectedId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the direct and transitive prerequisites of a course
+     */
+    public Set<Long> getAllPrerequisites(long courseId) {
+        lock.readLock().lock();
+        try {
+            BitSet closure = closures.get(courseId);
+            Set<Long> ids = new HashSet<>();
+            if (closure != null) {
+                closure.stream().forEach(id -> ids.add((long) id));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the direct and transitive prerequisites of a course not among the completed courses
+     *
+     * @param courseId Course ID
+     * @param completed Completed course IDs
+     * @return Missing prerequisite IDs, lowest first
+     */
+    public List<Long> getMissingPrerequisites(long courseId, BitSet completed) {
+        lock.readLock().lock();
+        try {
+            BitSet closure = closures.get(courseId);
+            if (closure == null) {
+                return List.of();
+            }
+            BitSet missing = (BitSet) closure.clone();
+            missing.andNot(completed);
+            return missing.stream().mapToObj(id -> (long) id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check which courses have all their prerequisites among the completed courses
+     *
+     * @param courseIds Course IDs
+     * @param completed Completed course IDs
+     * @return Eligibility by course ID, in the order given; unknown courses are not eligible
+     */
+    public Map<Long, Boolean> getEligibility(Collection<Long> courseIds, BitSet completed) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Boolean> eligibility = new LinkedHashMap<>();
+            for (Long courseId : courseIds) {
+                BitSet closure = closures.get(courseId);
+                eligibility.put(courseId, closure != null && isSubset(closure, completed));
+            }
+            return eligibility;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the courses not yet completed whose prerequisites are all completed
+     *
+     * @param completed Completed course IDs
+     * @return Eligible course IDs, lowest first
+     */
+    public List<Long> getEligibleCourses(BitSet completed) {
+        lock.readLock().lock();
+        try {
+            List<Long> eligible = new ArrayList<>();
+            closures.forEach((courseId, closure) -> {
+                if (!completed.get(toIndex(courseId)) && isSubset(closure, completed)) {
+                    eligible.add(courseId);
+                }
+            });
+            eligible.sort(null);
+            return eligible;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return prerequisites.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index of a course ID in the bitsets
+     */
+    public static int toIndex(long courseId) {
+        return Math.toIntExact(courseId);
+    }
+
+    private void rejectCycle(long courseId, Collection<Long> prerequisiteIds) {
+        Long cycle = findCycle(courseId, prerequisiteIds);
+        if (cycle != null) {
+            throw new IllegalArgumentException("Prerequisite course " + cycle + " would create a cycle: it "
+                    + (cycle == courseId ? "is" : "requires") + " course " + courseId);
+        }
+    }
+
+    // First prerequisite that is the course itself or requires it, or null
+    private Long findCycle(long courseId, Collection<Long> prerequisiteIds) {
+        int index = toIndex(courseId);
+        for (Long prerequisiteId : prerequisiteIds) {
+            BitSet closure = closures.get(prerequisiteId);
+            if (prerequisiteId == courseId || (closure != null && closure.get(index))) {
+                return prerequisiteId;
+            }
+        }
+        return null;
+    }
+
+    private void addNode(long courseId) {
+        if (!prerequisites.containsKey(courseId)) {
+            prerequisites.put(courseId, new HashSet<>());
+            dependents.put(courseId, new HashSet<>());
+            closures.put(courseId, new BitSet());
+        }
+    }
+
+    // Closure of a course whose prerequisites' closures are present or computed on the way
+    private BitSet close(long courseId) {
+        BitSet closure = closures.get(courseId);
+        if (closure != null) {
+            return closure;
+        }
+        closure = new BitSet();
+        for (Long prerequisiteId : prerequisites.get(courseId)) {
+            closure.set(toIndex(prerequisiteId));
+            closure.or(close(prerequisiteId));
+        }
+        closures.put(courseId, closure);
+        return closure;
+    }
+
+    // Closure computation for the initial build, which may still contain cycles
+    private BitSet build(long courseId, Set<Long> done, Set<Long> inPath) {
+        if (done.contains(courseId)) {
+            return closures.get(courseId);
+        }
+        inPath.add(courseId);
+        BitSet closure = new BitSet();
+        Iterator<Long> direct = prerequisites.get(courseId).iterator();
+        while (direct.hasNext()) {
+            Long prerequisiteId = direct.next();
+            if (inPath.contains(prerequisiteId)) {
+                direct.remove();
+                rejectedEdges.add(new Edge(courseId, prerequisiteId));
+                continue;
+            }
+            closure.set(toIndex(prerequisiteId));
+            closure.or(build(prerequisiteId, done, inPath));
+        }
+        inPath.remove(courseId);
+        done.add(courseId);
+        closures.put(courseId, closure);
+        return closure;
+    }
+
+    private static boolean isSubset(BitSet set, BitSet of) {
+        if (set.isEmpty()) {
+            return true;
+        }
+        BitSet missing = (BitSet) set.clone();
+        missing.andNot(of);
+        return missing.isEmpty();
+    }
+}
@@ -1,16 +1,22 @@
 package com.example.lms.course.repository;
 
 import com.example.lms.Department.model.Department;
+import com.example.lms.course.dto.CourseListCountsDTO;
+import com.example.lms.course.dto.CoursePrerequisiteLinkDTO;
 import com.example.lms.course.model.Course;
 import com.example.lms.user.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -61,6 +67,15 @@ public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecif
      */
     List<Course> findByInstructorId(Long instructorId);
     
+    /**
+     * Find the IDs of the courses of an instructor
+     * 
+     * @param instructorId Instructor ID
+     * @return List of course IDs
+     */
+    @Query("SELECT c.id FROM Course c WHERE c.instructor.id = :instructorId ORDER BY c.id")
+    List<Long> findIdsByInstructorId(@Param("instructorId") Long instructorId);
+    
     /**
      * Find courses by student ID (courses where student is enrolled)
      * 
@@ -125,4 +140,152 @@ public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecif
      */
     @Query("SELECT CASE WHEN COUNT(q) > 0 THEN true ELSE false END FROM Course c JOIN c.quizzes q WHERE c.id = :courseId")
     boolean hasQuizzes(@Param("courseId") Long courseId);
+    
+    /**
+     * Find a page of courses matching a specification, with instructor and department
+     * fetched in the same statement
+     * 
+     * @param spec Specification
+     * @param pageable Pagination information
+     * @return Page of courses
+     */
+    @Override
+    @EntityGraph(attributePaths = {"instructor", "department"})
+    Page<Course> findAll(Specification<Course> spec, Pageable pageable);
+    
+    /**
+     * Find all courses for listing, with instructor and department fetched
+     * 
+     * @return List of courses
+     */
+    @EntityGraph(attributePaths = {"instructor", "department"})
+    @Query("SELECT c FROM Course c")
+    List<Course> findAllForListing();
+    
+    /**
+     * Find a page of courses for listing, with instructor and department fetched
+     * 
+     * @param pageable Pagination information
+     * @return Page of courses
+     */
+    @EntityGraph(attributePaths = {"instructor", "department"})
+    @Query("SELECT c FROM Course c")
+    Page<Course> findAllForListing(Pageable pageable);
+    
+    /**
+     * Find courses a student is enrolled in for listing, with instructor and department fetched
+     * 
+     * @param studentId Student ID
+     * @return List of courses
+     */
+    @EntityGraph(attributePaths = {"instructor", "department"})
+    @Query("SELECT c FROM Course c JOIN c.students s WHERE s.id = :studentId")
+    List<Course> findForListingByStudentId(@Param("studentId") Long studentId);
+    
+    /**
+     * Find a page of courses a student is enrolled in for listing, with instructor and
+     * department fetched
+     * 
+     * @param studentId Student ID
+     * @param pageable Pagination information
+     * @return Page of courses
+     */
+    @EntityGraph(attributePaths = {"instructor", "department"})
+    @Query(value = "SELECT c FROM Course c JOIN c.students s WHERE s.id = :studentId",
+           countQuery = "SELECT COUNT(c) FROM Course c JOIN c.students s WHERE s.id = :studentId")
+    Page<Course> findForListingByStudentId(@Param("studentId") Long studentId, Pageable pageable);
+    
+    /**
+     * Find courses of a department for listing, with instructor and department fetched
+     * 
+     * @param departmentId Department ID
+     * @return List of courses
+     */
+    @EntityGraph(attributePaths = {"instructor", "department"})
+    @Query("SELECT c FROM Course c WHERE c.department.id = :departmentId")
+    List<Course> findForListingByDepartmentId(@Param("departmentId") Long departmentId);
+    
+    /**
+     * Find courses of an instructor for listing, with instructor and department fetched
+     * 
+     * @param instructorId Instructor ID
+     * @return List of courses
+     */
+    @EntityGraph(attributePaths = {"instructor", "department"})
+    @Query("SELECT c FROM Course c WHERE c.instructor.id = :instructorId")
+    List<Course> findForListingByInstructorId(@Param("instructorId") Long instructorId);
+    
+    /**
+     * Count the contents, quizzes and students of several courses in one statement
+     * 
+     * @param courseIds Course IDs, bound as one parameter each, so callers pass them in chunks
+     * @return Counts of each course
+     */
+    @Query("SELECT new com.example.lms.course.dto.CourseListCountsDTO(c.id, " +
+           "(SELECT COUNT(ct) FROM Content ct WHERE ct.course.id = c.id), " +
+           "(SELECT COUNT(q) FROM Quiz q WHERE q.course.id = c.id), " +
+           "(SELECT COUNT(s) FROM Course c2 JOIN c2.students s WHERE c2.id = c.id)) " +
+           "FROM Course c WHERE c.id IN :courseIds")
+    List<CourseListCountsDTO> countCollectionsByCourseIds(@Param("courseIds") Collection<Long> courseIds);
+    
+    /**
+     * Find the prerequisite links of several courses
+     * 
+     * @param courseIds Course IDs, bound as one parameter each, so callers pass them in chunks
+     * @return Course and prerequisite ID pairs
+     */
+    @Query("SELECT new com.example.lms.course.dto.CoursePrerequisiteLinkDTO(c.id, p.id) " +
+           "FROM Course c JOIN c.prerequisites p WHERE c.id IN :courseIds")
+    List<CoursePrerequisiteLinkDTO> findPrerequisiteLinksByCourseIds(@Param("courseIds") Collection<Long> courseIds);
+    
+    /**
+     * Find all prerequisite links
+     * 
+     * @return Course and prerequisite ID pairs
+     */
+    @Query("SELECT new com.example.lms.course.dto.CoursePrerequisiteLinkDTO(c.id, p.id) " +
+           "FROM Course c JOIN c.prerequisites p")
+    List<CoursePrerequisiteLinkDTO> findAllPrerequisiteLinks();
+    
+    /**
+     * Find the IDs of all courses
+     * 
+     * @return List of course IDs
+     */
+    @Query("SELECT c.id FROM Course c")
+    List<Long> findAllIds();
+    
+    /**
+     * Find published, unarchived courses by ID for listing, with instructor and department fetched
+     * 
+     * @param courseIds Course IDs
+     * @return List of courses in ID order
+     */
+    @EntityGraph(attributePaths = {"instructor", "department"})
+    @Query("SELECT c FROM Course c WHERE c.id IN :courseIds AND c.published = true AND c.archived = false ORDER BY c.id")
+    List<Course> findOpenForListingByIdIn(@Param("courseIds") Collection<Long> courseIds);
+    
+    /**
+     * Add a student to a course without loading its students
+     * 
+     * @param courseId Course ID
+     * @param studentId Student ID
+     * @return 1 if the student was added, 0 if already in the course
+     */
+    @Modifying
+    @Query(value = "INSERT INTO course_students (course_id, student_id) VALUES (:courseId, :studentId) " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addStudent(@Param("courseId") Long courseId, @Param("studentId") Long studentId);
+    
+    /**
+     * Remove a student from a course without loading its students
+     * 
+     * @param courseId Course ID
+     * @param studentId Student ID
+     * @return 1 if the student was removed, 0 if not in the course
+     */
+    @Modifying
+    @Query(value = "DELETE FROM course_students WHERE course_id = :courseId AND student_id = :studentId",
+           nativeQuery = true)
+    int removeStudent(@Param("courseId") Long courseId, @Param("studentId") Long studentId);
 }
\ No newline at end of file
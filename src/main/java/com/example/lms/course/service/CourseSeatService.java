@@ -0,0 +1,440 @@
+package com.example.lms.course.service;
+
+import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.example.lms.course.dto.CourseSeatAvailabilityDTO;
+import com.example.lms.course.dto.CourseSeatReservationDTO;
+import com.example.lms.course.model.SeatReservationStatus;
+import com.example.lms.course.repository.CourseRepository;
+import com.example.lms.enrollment.model.Enrollment;
+import com.example.lms.enrollment.model.EnrollmentStatus;
+import com.example.lms.enrollment.repository.EnrollmentRepository;
+import com.example.lms.user.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Enforces course capacity with a per-course seat counter.
+ *
+ * A seat is taken by one conditional update of the course's counter row, which only
+ * succeeds while seats are left, so concurrent enrollments can never overbook a course and
+ * the check costs the same however many students are enrolled. The row lock taken by the
+ * update is held until the enrollment commits, which serializes enrollments of one course
+ * without blocking any other.
+ *
+ * Students can also reserve a seat ahead of enrolling. A reservation holds a seat until it
+ * expires; when the course is full the student is put on a waitlist instead, and waiting
+ * students are given a held seat in order as seats free up. Expired holds are released by a
+ * periodic sweep, and counters are periodically recomputed from the enrollments and holds to
+ * correct any drift.
+ */
+@Service
+@Slf4j
+public class CourseSeatService {
+
+    private static final int SWEEP_BATCH_SIZE = 500;
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private static final String SEAT_HOLDING_STATUSES = Arrays.stream(EnrollmentStatus.values())
+            .filter(EnrollmentStatus::holdsSeat)
+            .map(status -> "'" + status.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    private static final String SEATS_TAKEN_SQL =
+            "(SELECT COUNT(*) FROM enrollments e WHERE e.course_id = c.id AND e.status IN (" + SEAT_HOLDING_STATUSES + ")) + " +
+            "(SELECT COUNT(*) FROM course_seat_reservations r WHERE r.course_id = c.id AND r.status = 'HELD')";
+
+    private static final String CREATE_COUNTER_SQL =
+            "INSERT INTO course_seat_counters (course_id, capacity, seats_taken, reconciled_at) " +
+            "SELECT c.id, c.max_capacity, " + SEATS_TAKEN_SQL + ", NULL FROM courses c WHERE c.id = ? " +
+            "ON CONFLICT (course_id) DO NOTHING";
+
+    private static final String TAKE_SEAT_SQL =
+            "UPDATE course_seat_counters SET seats_taken = seats_taken + 1 " +
+            "WHERE course_id = ? AND (capacity IS NULL OR seats_taken < capacity)";
+
+    private static final String RELEASE_SEAT_SQL =
+            "UPDATE course_seat_counters SET seats_taken = GREATEST(seats_taken - 1, 0) WHERE course_id = ?";
+
+    private static final String CREATE_RESERVATION_SQL =
+            "INSERT INTO course_seat_reservations (course_id, student_id, status, created_at, updated_at) " +
+            "VALUES (?, ?, 'CANCELLED', ?, ?) ON CONFLICT (course_id, student_id) DO NOTHING";
+
+    private static final String LOCK_RESERVATION_SQL =
+            "SELECT status, expires_at FROM course_seat_reservations WHERE course_id = ? AND student_id = ? FOR UPDATE";
+
+    private static final String UPDATE_RESERVATION_SQL =
+            "UPDATE course_seat_reservations SET status = ?, expires_at = ?, queued_at = ?, updated_at = ? " +
+            "WHERE course_id = ? AND student_id = ?";
+
+    private static final String EXPIRE_HOLD_SQL =
+            "UPDATE course_seat_reservations SET status = 'EXPIRED', updated_at = ? " +
+            "WHERE course_id = ? AND student_id = ? AND status = 'HELD'";
+
+    private static final String LOCK_NEXT_WAITING_SQL =
+            "SELECT id FROM course_seat_reservations WHERE course_id = ? AND status = 'WAITING' " +
+            "ORDER BY queued_at, id LIMIT 1 FOR UPDATE SKIP LOCKED";
+
+    private static final String EXPIRE_HOLDS_SQL =
+            "UPDATE course_seat_reservations SET status = 'EXPIRED', updated_at = ? WHERE id IN (" +
+            "SELECT id FROM course_seat_reservations WHERE status = 'HELD' AND expires_at < ? " +
+            "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING course_id";
+
+    private static final String LOCK_STALE_COUNTERS_SQL =
+            "SELECT course_id FROM course_seat_counters WHERE reconciled_at IS NULL OR reconciled_at < ? " +
+            "ORDER BY reconciled_at NULLS FIRST LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String RECONCILE_COUNTERS_SQL =
+            "UPDATE course_seat_counters k SET capacity = c.max_capacity, seats_taken = " + SEATS_TAKEN_SQL +
+            ", reconciled_at = :now FROM courses c WHERE c.id = k.course_id AND k.course_id IN (:courseIds)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final TransactionTemplate newTransaction;
+
+    @Value("${app.course.seats.hold-timeout:PT10M}")
+    private Duration holdTimeout;
+
+    @Value("${app.course.seats.reconcile-after:PT1H}")
+    private Duration reconcileAfter;
+
+    public CourseSeatService(JdbcTemplate jdbcTemplate,
+                             NamedParameterJdbcTemplate namedJdbcTemplate,
+                             CourseRepository courseRepository,
+                             UserRepository userRepository,
+                             EnrollmentRepository enrollmentRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.courseRepository = courseRepository;
+        this.userRepository = userRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Take a seat for a new enrollment, using the student's held reservation if they have
+     * one that has not expired. Call this right before saving the enrollment, in the same
+     * transaction.
+     *
+     * @param courseId Course ID
+     * @param studentId Student ID
+     * @throws IllegalStateException if the course is full
+     */
+    public void claimSeat(Long courseId, Long studentId) {
+        SeatReservationStatus reservation = lockReservation(courseId, studentId);
+        if (reservation == SeatReservationStatus.HELD) {
+            // The held seat is already counted
+            updateReservation(courseId, studentId, SeatReservationStatus.CONFIRMED, null, null);
+            return;
+        }
+        if (!takeSeat(courseId)) {
+            throw new IllegalStateException("Course capacity reached, cannot enroll more students.");
+        }
+        if (reservation == SeatReservationStatus.WAITING) {
+            updateReservation(courseId, studentId, SeatReservationStatus.CONFIRMED, null, null);
+        }
+    }
+
+    /**
+     * Give back the seat of an enrollment that no longer holds one, and hand it to the next
+     * waiting student. Call this in the transaction that gives up the seat.
+     *
+     * @param courseId Course ID
+     */
+    public void releaseSeat(Long courseId) {
+        jdbcTemplate.update(RELEASE_SEAT_SQL, courseId);
+        promote(courseId);
+    }
+
+    /**
+     * Reserve a seat for a student, or put them on the waitlist if the course is full.
+     * Reserving again while a seat is held extends the hold.
+     *
+     * @param courseId Course ID
+     * @param studentId Student ID
+     * @return The reservation
+     * @throws ResourceNotFoundException if the course or student does not exist
+     * @throws IllegalStateException if the student is already enrolled
+     */
+    @Transactional
+    public CourseSeatReservationDTO reserve(Long courseId, Long studentId) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new ResourceNotFoundException("Course not found with id: " + courseId);
+        }
+        if (!userRepository.existsById(studentId)) {
+            throw new ResourceNotFoundException("Student not found with id: " + studentId);
+        }
+        if (enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId)
+                .map(Enrollment::getStatus)
+                .filter(EnrollmentStatus::holdsSeat)
+                .isPresent()) {
+            throw new IllegalStateException("Student is already enrolled in this course.");
+        }
+
+        // Create the row first so concurrent reservations of the same student queue on its lock
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(CREATE_RESERVATION_SQL, courseId, studentId, Timestamp.valueOf(now), Timestamp.valueOf(now));
+        SeatReservationStatus current = lockReservation(courseId, studentId);
+
+        if (current == SeatReservationStatus.HELD) {
+            updateReservation(courseId, studentId, SeatReservationStatus.HELD, now.plus(holdTimeout), null);
+        } else if (current != SeatReservationStatus.WAITING) {
+            if (takeSeat(courseId)) {
+                updateReservation(courseId, studentId, SeatReservationStatus.HELD, now.plus(holdTimeout), null);
+            } else {
+                updateReservation(courseId, studentId, SeatReservationStatus.WAITING, null, now);
+            }
+        }
+        return getReservation(courseId, studentId);
+    }
+
+    /**
+     * Cancel a student's held seat or waitlist place
+     *
+     * @param courseId Course ID
+     * @param studentId Student ID
+     * @throws ResourceNotFoundException if the student has no held seat or waitlist place
+     */
+    @Transactional
+    public void cancelReservation(Long courseId, Long studentId) {
+        SeatReservationStatus current = lockReservation(courseId, studentId);
+        if (current != SeatReservationStatus.HELD && current != SeatReservationStatus.WAITING) {
+            throw new ResourceNotFoundException("No seat reservation found for student id: " + studentId
+                    + " and course id: " + courseId);
+        }
+        updateReservation(courseId, studentId, SeatReservationStatus.CANCELLED, null, null);
+        if (current == SeatReservationStatus.HELD) {
+            releaseSeat(courseId);
+        }
+    }
+
+    /**
+     * Get a student's reservation, with their place on the waitlist while waiting
+     *
+     * @param courseId Course ID
+     * @param studentId Student ID
+     * @return The reservation
+     * @throws ResourceNotFoundException if the student never reserved a seat
+     */
+    @Transactional(readOnly = true)
+    public CourseSeatReservationDTO getReservation(Long courseId, Long studentId) {
+        List<CourseSeatReservationDTO> reservations = jdbcTemplate.query(
+                "SELECT r.status, r.expires_at, CASE WHEN r.status = 'WAITING' THEN (" +
+                "SELECT COUNT(*) + 1 FROM course_seat_reservations w WHERE w.course_id = r.course_id " +
+                "AND w.status = 'WAITING' AND (w.queued_at < r.queued_at OR (w.queued_at = r.queued_at AND w.id < r.id))" +
+                ") END AS position FROM course_seat_reservations r WHERE r.course_id = ? AND r.student_id = ?",
+                (rs, rowNum) -> {
+                    Timestamp expiresAt = rs.getTimestamp("expires_at");
+                    int position = rs.getInt("position");
+                    boolean waiting = !rs.wasNull();
+                    return CourseSeatReservationDTO.builder()
+                            .courseId(courseId)
+                            .studentId(studentId)
+                            .status(SeatReservationStatus.valueOf(rs.getString("status")))
+                            .expiresAt(expiresAt != null ? expiresAt.toLocalDateTime() : null)
+                            .waitlistPosition(waiting ? position : null)
+                            .build();
+                },
+                courseId, studentId);
+        if (reservations.isEmpty()) {
+            throw new ResourceNotFoundException("No seat reservation found for student id: " + studentId
+                    + " and course id: " + courseId);
+        }
+        return reservations.get(0);
+    }
+
+    /**
+     * Get the seats taken and left in a course and the length of its waitlist
+     *
+     * @param courseId Course ID
+     * @return Seat availability
+     * @throws ResourceNotFoundException if the course does not exist
+     */
+    @Transactional
+    public CourseSeatAvailabilityDTO getAvailability(Long courseId) {
+        createCounter(courseId);
+        List<CourseSeatAvailabilityDTO> availability = jdbcTemplate.query(
+                "SELECT k.capacity, k.seats_taken, (SELECT COUNT(*) FROM course_seat_reservations r " +
+                "WHERE r.course_id = k.course_id AND r.status = 'WAITING') AS waiting " +
+                "FROM course_seat_counters k WHERE k.course_id = ?",
+                (rs, rowNum) -> {
+                    int capacity = rs.getInt("capacity");
+                    boolean limited = !rs.wasNull();
+                    int seatsTaken = rs.getInt("seats_taken");
+                    return CourseSeatAvailabilityDTO.builder()
+                            .courseId(courseId)
+                            .capacity(limited ? capacity : null)
+                            .seatsTaken(seatsTaken)
+                            .seatsAvailable(limited ? Math.max(0, capacity - seatsTaken) : null)
+                            .waitlistLength(rs.getInt("waiting"))
+                            .build();
+                },
+                courseId);
+        if (availability.isEmpty()) {
+            throw new ResourceNotFoundException("Course not found with id: " + courseId);
+        }
+        return availability.get(0);
+    }
+
+    /**
+     * Apply a new capacity to the seat counter of a course and fill any seats it frees
+     *
+     * @param courseId Course ID
+     * @param capacity New capacity, or null for no limit
+     */
+    @Transactional
+    public void capacityChanged(Long courseId, Integer capacity) {
+        // Without a counter nobody can be waiting; it is created later with the new capacity
+        if (jdbcTemplate.update("UPDATE course_seat_counters SET capacity = ? WHERE course_id = ?", capacity, courseId) == 1) {
+            promote(courseId);
+        }
+    }
+
+    /**
+     * Release the seats of holds that expired and pass them on to waiting students
+     */
+    @Scheduled(fixedDelayString = "${app.course.seats.sweep-interval-ms:30000}")
+    public void expireHolds() {
+        try {
+            int expired;
+            do {
+                expired = newTransaction.execute(status -> expireBatch());
+            } while (expired == SWEEP_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Error expiring seat reservations", e);
+        }
+    }
+
+    /**
+     * Recompute seat counters that were not reconciled recently
+     */
+    @Scheduled(fixedDelayString = "${app.course.seats.reconcile-interval-ms:300000}")
+    public void reconcileStaleCounters() {
+        try {
+            int reconciled;
+            do {
+                reconciled = newTransaction.execute(status -> reconcileBatch());
+            } while (reconciled == RECONCILE_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Error reconciling course seat counters", e);
+        }
+    }
+
+    private int expireBatch() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> courseIds = jdbcTemplate.queryForList(EXPIRE_HOLDS_SQL, Long.class, now, now, SWEEP_BATCH_SIZE);
+        for (Long courseId : courseIds) {
+            jdbcTemplate.update(RELEASE_SEAT_SQL, courseId);
+        }
+        new LinkedHashSet<>(courseIds).forEach(this::promote);
+        if (!courseIds.isEmpty()) {
+            log.debug("Expired {} seat reservations", courseIds.size());
+        }
+        return courseIds.size();
+    }
+
+    private int reconcileBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        // Lock the counters first so enrollments committing meanwhile apply their change on top
+        List<Long> courseIds = jdbcTemplate.queryForList(LOCK_STALE_COUNTERS_SQL, Long.class,
+                Timestamp.valueOf(now.minus(reconcileAfter)), RECONCILE_BATCH_SIZE);
+        if (courseIds.isEmpty()) {
+            return 0;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("courseIds", courseIds)
+                .addValue("now", Timestamp.valueOf(now));
+        namedJdbcTemplate.update(RECONCILE_COUNTERS_SQL, params);
+        // Counters and reservations of deleted courses
+        namedJdbcTemplate.update("DELETE FROM course_seat_reservations WHERE course_id IN (:courseIds) " +
+                "AND NOT EXISTS (SELECT 1 FROM courses c WHERE c.id = course_id)", params);
+        namedJdbcTemplate.update("DELETE FROM course_seat_counters WHERE course_id IN (:courseIds) " +
+                "AND NOT EXISTS (SELECT 1 FROM courses c WHERE c.id = course_id)", params);
+
+        // A corrected count may leave seats for waiting students
+        courseIds.forEach(this::promote);
+        log.debug("Reconciled {} course seat counters", courseIds.size());
+        return courseIds.size();
+    }
+
+    // Hand free seats to waiting students in the order they joined the waitlist
+    private void promote(Long courseId) {
+        while (true) {
+            List<Long> waiting = jdbcTemplate.queryForList(LOCK_NEXT_WAITING_SQL, Long.class, courseId);
+            if (waiting.isEmpty() || !takeSeat(courseId)) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.update("UPDATE course_seat_reservations SET status = 'HELD', expires_at = ?, queued_at = NULL, " +
+                    "updated_at = ? WHERE id = ?",
+                    Timestamp.valueOf(now.plus(holdTimeout)), Timestamp.valueOf(now), waiting.get(0));
+            log.info("Promoted seat reservation {} of course {} from the waitlist", waiting.get(0), courseId);
+        }
+    }
+
+    // Take a seat if one is left, creating the course's counter on first use
+    private boolean takeSeat(Long courseId) {
+        if (jdbcTemplate.update(TAKE_SEAT_SQL, courseId) == 1) {
+            return true;
+        }
+        return createCounter(courseId) && jdbcTemplate.update(TAKE_SEAT_SQL, courseId) == 1;
+    }
+
+    // Create the counter from the current enrollments and holds; false if it already exists
+    // or the course does not. The counter is left unreconciled: seats taken by transactions
+    // still running while it is created are corrected by the next reconciliation.
+    private boolean createCounter(Long courseId) {
+        return jdbcTemplate.update(CREATE_COUNTER_SQL, courseId) == 1;
+    }
+
+    // Lock a student's reservation. A hold that expired but was not swept yet is expired here,
+    // as the sweep would, so it is never confirmed or extended.
+    private SeatReservationStatus lockReservation(Long courseId, Long studentId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SeatReservationStatus> status = jdbcTemplate.query(LOCK_RESERVATION_SQL, (rs, rowNum) -> {
+            SeatReservationStatus current = SeatReservationStatus.valueOf(rs.getString("status"));
+            Timestamp expiresAt = rs.getTimestamp("expires_at");
+            boolean expired = current == SeatReservationStatus.HELD && expiresAt != null
+                    && expiresAt.toLocalDateTime().isBefore(now);
+            return expired ? SeatReservationStatus.EXPIRED : current;
+        }, courseId, studentId);
+        if (status.isEmpty()) {
+            return null;
+        }
+        if (status.get(0) == SeatReservationStatus.EXPIRED
+                && jdbcTemplate.update(EXPIRE_HOLD_SQL, Timestamp.valueOf(now), courseId, studentId) == 1) {
+            releaseSeat(courseId);
+        }
+        return status.get(0);
+    }
+
+    private void updateReservation(Long courseId, Long studentId, SeatReservationStatus status,
+                                   LocalDateTime expiresAt, LocalDateTime queuedAt) {
+        jdbcTemplate.update(UPDATE_RESERVATION_SQL, status.name(),
+                expiresAt != null ? Timestamp.valueOf(expiresAt) : null,
+                queuedAt != null ? Timestamp.valueOf(queuedAt) : null,
+                Timestamp.valueOf(LocalDateTime.now()), courseId, studentId);
+    }
+}
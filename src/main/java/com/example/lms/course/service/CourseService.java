@@ -1,6 +1,7 @@
 package com.example.lms.course.service;
 
 import com.example.lms.course.dto.CourseDTO;
+import com.example.lms.course.dto.CourseListCountsDTO;
 import com.example.lms.course.dto.CourseStatisticsDTO;
 import com.example.lms.course.mapper.CourseMapper;
 import com.example.lms.course.model.Course;
@@ -20,9 +21,12 @@ import java.util.HashSet;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -33,10 +37,13 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.HashMap;
 
 @Service
 public class CourseService {
 
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
     @Autowired
     private CourseRepository courseRepository;
 
@@ -60,6 +67,18 @@ public class CourseService {
     
     @Autowired
     private QuizRepository quizRepository;
+    
+    @Autowired
+    private CourseStatisticsEngine statisticsEngine;
+    
+    @Autowired
+    private PrerequisiteService prerequisiteService;
+    
+    @Autowired
+    private CourseSeatService courseSeatService;
+    
+    @Autowired
+    private CacheManager cacheManager;
 
     /**
      * Get all courses
@@ -67,12 +86,9 @@ public class CourseService {
      * @return List of course DTOs
      */
     @Transactional(readOnly = true)
-    @Cacheable(value = "courses")
+    @Cacheable(value = "allCourses", key = "'all'")
     public List<CourseDTO> getAllCourses() {
-        List<Course> courses = courseRepository.findAll();
-        return courses.stream()
-                  .map(CourseMapper::toDTO)
-                  .collect(Collectors.toList());
+        return toListDTOs(courseRepository.findAllForListing());
     }
 
     /**
@@ -99,7 +115,6 @@ public class CourseService {
      * @throws IllegalArgumentException if validation fails
      */
     @Transactional
-    @CacheEvict(value = "courses", allEntries = true)
     public CourseDTO createCourse(CourseDTO courseDTO) {
         // Validate the fields of courseDTO
         validateCourseDTO(courseDTO);
@@ -141,6 +156,10 @@ public class CourseService {
         
         // Save the course entity to the repository
         Course savedCourse = courseRepository.save(course);
+        // Needs the new ID; the graph takes the prerequisites once the transaction commits
+        prerequisiteService.updatePrerequisites(savedCourse.getId(),
+                courseDTO.getPrerequisiteCourseIds() != null ? courseDTO.getPrerequisiteCourseIds() : Set.of());
+        evictCourseCaches(savedCourse.getId());
         
         // Log the activity
         logService.logActivity(instructor, "COURSE_CREATED", "Created course: " + course.getTitle());
@@ -159,7 +178,6 @@ public class CourseService {
      * @throws IllegalArgumentException if validation fails
      */
     @Transactional
-    @CacheEvict(value = "courses", key = "#id")
     public CourseDTO updateCourse(Long id, CourseDTO courseDTO) {
         // Validate the fields of courseDTO
         validateCourseDTO(courseDTO);
@@ -182,8 +200,9 @@ public class CourseService {
         course.setTitle(courseDTO.getTitle());
         course.setDescription(courseDTO.getDescription());
         course.setInstructor(instructor);
-        if (courseDTO.getMaxCapacity() != null) {
+        if (courseDTO.getMaxCapacity() != null && !courseDTO.getMaxCapacity().equals(course.getMaxCapacity())) {
             course.setMaxCapacity(courseDTO.getMaxCapacity());
+            courseSeatService.capacityChanged(id, courseDTO.getMaxCapacity());
         }
         
         // Update published status - handle both field naming conventions
@@ -216,6 +235,8 @@ public class CourseService {
         
         // Set prerequisites if provided
         if (courseDTO.getPrerequisiteCourseIds() != null && !courseDTO.getPrerequisiteCourseIds().isEmpty()) {
+            // Rejects prerequisites that would create a cycle
+            prerequisiteService.updatePrerequisites(id, courseDTO.getPrerequisiteCourseIds());
             course.getPrerequisites().clear();
             for (Long prerequisiteId : courseDTO.getPrerequisiteCourseIds()) {
                 Course prerequisiteCourse = courseRepository.findById(prerequisiteId)
@@ -226,6 +247,7 @@ public class CourseService {
 
         // Save the updated course entity
         Course updatedCourse = courseRepository.save(course);
+        evictCourseCaches(id);
         
         // Log the activity
         logService.logActivity(instructor, "COURSE_UPDATED", "Updated course: " + course.getTitle());
@@ -241,7 +263,6 @@ public class CourseService {
      * @throws ResourceNotFoundException if course not found
      */
     @Transactional
-    @CacheEvict(value = "courses", allEntries = true)
     public void deleteCourse(Long id) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + id));
@@ -257,6 +278,7 @@ public class CourseService {
 
         // Save the updated course
         courseRepository.save(course);
+        evictCourseCaches(id);
     }
 
     /**
@@ -268,10 +290,7 @@ public class CourseService {
         Department department = departmentRepository.findById(departmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Department not found with id: " + departmentId));
                 
-        List<Course> courses = courseRepository.findByDepartment(department);
-        return courses.stream()
-                .map(CourseMapper::toDTO)
-                .collect(Collectors.toList());
+        return toListDTOs(courseRepository.findForListingByDepartmentId(department.getId()));
     }
     
     /**
@@ -282,17 +301,13 @@ public class CourseService {
         User instructor = userRepository.findById(instructorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Instructor not found with id: " + instructorId));
                 
-        List<Course> courses = courseRepository.findByInstructor(instructor);
-        return courses.stream()
-                .map(CourseMapper::toDTO)
-                .collect(Collectors.toList());
+        return toListDTOs(courseRepository.findForListingByInstructorId(instructor.getId()));
     }
     
     /**
      * Add a student to a course
      */
     @Transactional
-    @CacheEvict(value = "courses", key = "#courseId")
     public CourseDTO addStudentToCourse(Long courseId, Long studentId) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
@@ -300,41 +315,27 @@ public class CourseService {
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + studentId));
                 
-        // Check capacity
-        if (course.getMaxCapacity() != null && course.getStudents().size() >= course.getMaxCapacity()) {
-            throw new IllegalStateException("Course has reached maximum capacity");
-        }
+        // Check direct and transitive prerequisites
+        prerequisiteService.checkPrerequisites(studentId, courseId);
         
-        // Check prerequisites
-        if (course.getPrerequisites() != null && !course.getPrerequisites().isEmpty()) {
-            for (Course prerequisite : course.getPrerequisites()) {
-                boolean hasCompleted = enrollmentService.hasCompletedCourse(studentId, prerequisite.getId());
-                if (!hasCompleted) {
-                    throw new IllegalStateException("Student must complete prerequisite course: " + prerequisite.getTitle());
-                }
-            }
-        }
-        
-        // Add student to course if not already enrolled
-        if (!course.getStudents().contains(student)) {
-            course.getStudents().add(student);
-            courseRepository.save(course);
-            
-            // Create enrollment record
+        // Add student to course if not already enrolled, without loading the course's students
+        if (courseRepository.addStudent(courseId, studentId) == 1) {
+            // Create enrollment record, which takes a seat or fails if the course is full
             enrollmentService.enrollStudent(studentId, courseId);
+            statisticsEngine.invalidate(courseId);
             
             // Log the activity
             logService.logActivity(student, "COURSE_ENROLLMENT", "Enrolled in course: " + course.getTitle());
         }
+        evictCourseCaches(courseId);
         
-        return CourseMapper.toDTO(course);
+        return toListDTOs(List.of(course)).get(0);
     }
     
     /**
      * Remove a student from a course
      */
     @Transactional
-    @CacheEvict(value = "courses", key = "#courseId")
     public CourseDTO removeStudentFromCourse(Long courseId, Long studentId) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
@@ -342,16 +343,17 @@ public class CourseService {
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + studentId));
                 
-        // Remove student from course if enrolled
-        if (course.getStudents().contains(student)) {
-            course.getStudents().remove(student);
-            courseRepository.save(course);
+        // Remove student from course if enrolled, giving back their seat
+        if (courseRepository.removeStudent(courseId, studentId) == 1) {
+            enrollmentService.cancelActiveEnrollment(studentId, courseId);
+            statisticsEngine.invalidate(courseId);
             
             // Log the activity
             logService.logActivity(student, "COURSE_UNENROLLMENT", "Unenrolled from course: " + course.getTitle());
         }
+        evictCourseCaches(courseId);
         
-        return CourseMapper.toDTO(course);
+        return toListDTOs(List.of(course)).get(0);
     }
     
     /**
@@ -359,27 +361,47 @@ public class CourseService {
      */
     @Transactional(readOnly = true)
     public CourseStatisticsDTO getCourseStatistics(Long courseId) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
-                
-        CourseStatisticsDTO stats = new CourseStatisticsDTO();
-        stats.setCourseId(courseId);
-        stats.setCourseName(course.getTitle());
-        stats.setTotalStudents(course.getStudents().size());
-        stats.setTotalContent(course.getContents().size());
-        stats.setTotalQuizzes(course.getQuizzes().size());
+        return statisticsEngine.getStatistics(courseId);
+    }
+    
+    /**
+     * Get statistics of all courses taught by an instructor
+     */
+    @Transactional(readOnly = true)
+    public List<CourseStatisticsDTO> getCourseStatisticsByInstructor(Long instructorId) {
+        if (!userRepository.existsById(instructorId)) {
+            throw new ResourceNotFoundException("Instructor not found with id: " + instructorId);
+        }
         
-        // Calculate average completion percentage
-        if (!course.getStudents().isEmpty()) {
-            double totalProgress = 0.0;
-            for (User student : course.getStudents()) {
-                Double progress = progressService.getProgressPercentage(student.getId(), courseId);
-                totalProgress += progress != null ? progress : 0.0;
-            }
-            stats.setAverageCompletionPercentage(totalProgress / course.getStudents().size());
+        List<Long> courseIds = courseRepository.findIdsByInstructorId(instructorId);
+        return new ArrayList<>(statisticsEngine.getStatistics(courseIds).values());
+    }
+    
+    /**
+     * Get the published courses a student can enroll in: not completed yet, with all direct
+     * and transitive prerequisites completed
+     */
+    @Transactional(readOnly = true)
+    public List<CourseDTO> getEligibleCourses(Long studentId) {
+        if (!userRepository.existsById(studentId)) {
+            throw new ResourceNotFoundException("Student not found with id: " + studentId);
         }
         
-        return stats;
+        List<Long> courseIds = prerequisiteService.getEligibleCourseIds(studentId);
+        if (courseIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return toListDTOs(courseRepository.findOpenForListingByIdIn(courseIds));
+    }
+    
+    /**
+     * Check whether a student has completed all direct and transitive prerequisites of each course
+     */
+    public Map<Long, Boolean> getEligibility(Long studentId, List<Long> courseIds) {
+        if (!userRepository.existsById(studentId)) {
+            throw new ResourceNotFoundException("Student not found with id: " + studentId);
+        }
+        return prerequisiteService.getEligibility(studentId, courseIds);
     }
     
     /**
@@ -405,23 +427,54 @@ public class CourseService {
 
     /**
      * Get all courses with progress for a specific user
+     * 
+     * @param userId User ID
+     * @param enrolledOnly Whether to return only the courses the user is enrolled in
+     * @return Course DTOs with the user's progress
      */
     @Transactional(readOnly = true) 
-    public List<CourseDTO> getCoursesWithProgress(Long userId) {
-        List<Course> courses = courseRepository.findAll();
-        return courses.stream()
-                .map(course -> {
-                    CourseDTO dto = CourseMapper.toDTO(course);
-                    
-                    // Get progress for this specific user and course
-                    Double progress = progressService.getProgressPercentage(userId, course.getId());
-                    if (progress != null) {
-                        dto.setProgress(progress.intValue());
-                    }
-                    
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    public List<CourseDTO> getCoursesWithProgress(Long userId, boolean enrolledOnly) {
+        List<Course> courses = enrolledOnly
+                ? courseRepository.findForListingByStudentId(userId)
+                : courseRepository.findAllForListing();
+        return withProgress(toListDTOs(courses), userId);
+    }
+    
+    /**
+     * Get a page of courses with progress for a specific user
+     * 
+     * @param userId User ID
+     * @param enrolledOnly Whether to return only the courses the user is enrolled in
+     * @param page Page number
+     * @param size Page size
+     * @return Page of course DTOs with the user's progress, in course ID order
+     */
+    @Transactional(readOnly = true)
+    public Page<CourseDTO> getCoursesWithProgress(Long userId, boolean enrolledOnly, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        Page<Course> coursePage = enrolledOnly
+                ? courseRepository.findForListingByStudentId(userId, pageable)
+                : courseRepository.findAllForListing(pageable);
+        return new PageImpl<>(withProgress(toListDTOs(coursePage.getContent()), userId),
+                pageable, coursePage.getTotalElements());
+    }
+    
+    /**
+     * Set the user's progress on course DTOs, from all of the user's progress records
+     * read at once
+     */
+    private List<CourseDTO> withProgress(List<CourseDTO> courses, Long userId) {
+        if (courses.isEmpty()) {
+            return courses;
+        }
+        Map<Long, Double> progressByCourse = progressService.getProgressByCourse(userId);
+        for (CourseDTO courseDTO : courses) {
+            Double progress = progressByCourse.get(courseDTO.getId());
+            if (progress != null) {
+                courseDTO.setProgress(progress.intValue());
+            }
+        }
+        return courses;
     }
     
     /**
@@ -514,7 +567,38 @@ public class CourseService {
         };
         
         Page<Course> coursePage = courseRepository.findAll(spec, pageable);
-        return coursePage.map(CourseMapper::toDTO);
+        return new PageImpl<>(toListDTOs(coursePage.getContent()), pageable, coursePage.getTotalElements());
+    }
+    
+    /**
+     * Convert courses to list DTOs. Collection counts and prerequisite IDs of all the
+     * courses are read with two queries, instead of loading each course's collections.
+     * 
+     * @param courses Courses with instructor and department loaded
+     * @return Course DTOs in the same order
+     */
+    private List<CourseDTO> toListDTOs(List<Course> courses) {
+        if (courses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> courseIds = courses.stream().map(Course::getId).collect(Collectors.toList());
+        
+        // Queried in chunks to keep each IN list bounded
+        Map<Long, CourseListCountsDTO> countsByCourse = new HashMap<>();
+        Map<Long, Set<Long>> prerequisitesByCourse = new HashMap<>();
+        for (int from = 0; from < courseIds.size(); from += QUERY_CHUNK_SIZE) {
+            List<Long> chunk = courseIds.subList(from, Math.min(from + QUERY_CHUNK_SIZE, courseIds.size()));
+            courseRepository.countCollectionsByCourseIds(chunk)
+                    .forEach(counts -> countsByCourse.put(counts.getCourseId(), counts));
+            courseRepository.findPrerequisiteLinksByCourseIds(chunk)
+                    .forEach(link -> prerequisitesByCourse.computeIfAbsent(link.getCourseId(), id -> new HashSet<>())
+                            .add(link.getPrerequisiteId()));
+        }
+        
+        return courses.stream()
+                .map(course -> CourseMapper.toListDTO(course, countsByCourse.get(course.getId()),
+                        prerequisitesByCourse.get(course.getId())))
+                .collect(Collectors.toList());
     }
     
     // Helper method to parse boolean values from filters
@@ -547,4 +631,26 @@ public class CourseService {
             throw new IllegalArgumentException("Maximum capacity must be a positive number");
         }
     }
+    
+    /**
+     * Drop the cached course and the cached listings once the current transaction commits,
+     * so a concurrent read cannot cache the state from before the change
+     */
+    private void evictCourseCaches(Long courseId) {
+        Runnable evict = () -> {
+            cacheManager.getCache("courses").evict(courseId);
+            cacheManager.getCache("allCourses").clear();
+            cacheManager.getCache("coursesByDepartment").clear();
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+package com.example.lms.course.service;
+
+import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.example.lms.course.dto.CourseListCountsDTO;
+import com.example.lms.course.dto.CourseStatisticsDTO;
+import com.example.lms.course.repository.CourseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes course completion statistics.
+ *
+ * The figures of any number of courses come from one aggregate query over the enrolled
+ * students and their progress rows; students without progress count as 0%. Results are
+ * cached per course and evicted after commit when progress or enrollment changes. The
+ * cache also expires, which bounds staleness from changes made on other nodes.
+ */
+@Service
+@Slf4j
+public class CourseStatisticsEngine {
+
+    public static final String CACHE_NAME = "courseStatistics";
+
+    /**
+     * Number of buckets of the completion histogram, each covering an equal range of percent
+     */
+    public static final int HISTOGRAM_BUCKETS = 10;
+
+    private static final int QUERY_CHUNK_SIZE = 1000;
+
+    // Bucket 1..10 of width_bucket; 100% falls into bucket 11 and is folded into the last one
+    private static final String HISTOGRAM_COLUMNS = IntStream.rangeClosed(1, HISTOGRAM_BUCKETS)
+            .mapToObj(bucket -> "COUNT(*) FILTER (WHERE LEAST(width_bucket(e.progress, 0, 100, " + HISTOGRAM_BUCKETS
+                    + "), " + HISTOGRAM_BUCKETS + ") = " + bucket + ") AS bucket_" + bucket)
+            .collect(Collectors.joining(", "));
+
+    private static final String STATISTICS_SQL =
+            "SELECT c.id, c.title, COUNT(e.progress) AS students, AVG(e.progress) AS average_progress, " +
+            "PERCENTILE_CONT(0.25) WITHIN GROUP (ORDER BY e.progress) AS p25, " +
+            "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY e.progress) AS median, " +
+            "PERCENTILE_CONT(0.75) WITHIN GROUP (ORDER BY e.progress) AS p75, " +
+            "PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY e.progress) AS p90, " +
+            "COUNT(*) FILTER (WHERE e.progress >= 100) AS completed, " +
+            "COUNT(*) FILTER (WHERE e.progress > 0 AND e.progress < 100) AS in_progress, " +
+            "COUNT(*) FILTER (WHERE e.last_updated >= :activeSince) AS active, " +
+            HISTOGRAM_COLUMNS + " " +
+            "FROM courses c " +
+            "LEFT JOIN (SELECT cs.course_id, COALESCE(p.progress, 0) AS progress, p.last_updated " +
+            "FROM course_students cs " +
+            "LEFT JOIN progress p ON p.student_id = cs.student_id AND p.course_id = cs.course_id " +
+            "WHERE cs.course_id IN (:courseIds)) e ON e.course_id = c.id " +
+            "WHERE c.id IN (:courseIds) " +
+            "GROUP BY c.id, c.title";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CourseRepository courseRepository;
+    private final CacheManager cacheManager;
+
+    @Value("${app.course.statistics.active-window:P14D}")
+    private Duration activeWindow;
+
+    public CourseStatisticsEngine(NamedParameterJdbcTemplate jdbcTemplate,
+                                  CourseRepository courseRepository,
+                                  CacheManager cacheManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.courseRepository = courseRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Get the statistics of a course
+     *
+     * @param courseId Course ID
+     * @return Course statistics
+     * @throws ResourceNotFoundException if the course does not exist
+     */
+    public CourseStatisticsDTO getStatistics(Long courseId) {
+        CourseStatisticsDTO statistics = getStatistics(List.of(courseId)).get(courseId);
+        if (statistics == null) {
+            throw new ResourceNotFoundException("Course not found with id: " + courseId);
+        }
+        return statistics;
+    }
+
+    /**
+     * Get the statistics of several courses, computing those not cached together
+     *
+     * @param courseIds Course IDs
+     * @return Statistics by course ID, in the order given; courses that do not exist are left out
+     */
+    public Map<Long, CourseStatisticsDTO> getStatistics(Collection<Long> courseIds) {
+        Cache cache = getCache();
+        Map<Long, CourseStatisticsDTO> cached = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long courseId : courseIds) {
+            CourseStatisticsDTO statistics = cache.get(courseId, CourseStatisticsDTO.class);
+            if (statistics != null) {
+                cached.put(courseId, statistics);
+            } else {
+                missing.add(courseId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<Long> ids = new ArrayList<>(missing);
+            for (int from = 0; from < ids.size(); from += QUERY_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + QUERY_CHUNK_SIZE, ids.size()));
+                compute(chunk).forEach((courseId, statistics) -> {
+                    cache.put(courseId, statistics);
+                    cached.put(courseId, statistics);
+                });
+            }
+            log.debug("Computed statistics of {} courses", missing.size());
+        }
+
+        Map<Long, CourseStatisticsDTO> result = new LinkedHashMap<>();
+        for (Long courseId : courseIds) {
+            CourseStatisticsDTO statistics = cached.get(courseId);
+            if (statistics != null) {
+                result.put(courseId, statistics);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop the cached statistics of a course once the current transaction commits
+     *
+     * @param courseId Course ID
+     */
+    public void invalidate(Long courseId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    getCache().evict(courseId);
+                }
+            });
+        } else {
+            getCache().evict(courseId);
+        }
+    }
+
+    private Map<Long, CourseStatisticsDTO> compute(List<Long> courseIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("courseIds", courseIds)
+                .addValue("activeSince", Timestamp.valueOf(LocalDateTime.now().minus(activeWindow)));
+
+        Map<Long, CourseStatisticsDTO> statistics = new HashMap<>();
+        jdbcTemplate.query(STATISTICS_SQL, params, rs -> {
+            CourseStatisticsDTO row = toStatistics(rs);
+            statistics.put(row.getCourseId(), row);
+        });
+
+        if (statistics.isEmpty()) {
+            return statistics;
+        }
+        for (CourseListCountsDTO counts : courseRepository.countCollectionsByCourseIds(statistics.keySet())) {
+            CourseStatisticsDTO row = statistics.get(counts.getCourseId());
+            row.setTotalContent(counts.getContentCount().intValue());
+            row.setTotalQuizzes(counts.getQuizCount().intValue());
+        }
+        return statistics;
+    }
+
+    private CourseStatisticsDTO toStatistics(ResultSet rs) throws SQLException {
+        int students = rs.getInt("students");
+        List<Integer> histogram = new ArrayList<>(HISTOGRAM_BUCKETS);
+        for (int bucket = 1; bucket <= HISTOGRAM_BUCKETS; bucket++) {
+            histogram.add(rs.getInt("bucket_" + bucket));
+        }
+
+        return CourseStatisticsDTO.builder()
+                .courseId(rs.getLong("id"))
+                .courseName(rs.getString("title"))
+                .totalStudents(students)
+                .averageCompletionPercentage(students > 0 ? rs.getDouble("average_progress") : null)
+                .medianCompletionPercentage(getNullableDouble(rs, "median"))
+                .completionPercentile25(getNullableDouble(rs, "p25"))
+                .completionPercentile75(getNullableDouble(rs, "p75"))
+                .completionPercentile90(getNullableDouble(rs, "p90"))
+                .completedCount(rs.getInt("completed"))
+                .inProgressCount(rs.getInt("in_progress"))
+                .activeStudents(rs.getInt("active"))
+                .completionHistogram(histogram)
+                .build();
+    }
+
+    private Double getNullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private Cache getCache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.lms.course.service;
+
+import com.example.lms.course.prerequisite.PrerequisiteGraph;
+import com.example.lms.course.repository.CourseRepository;
+import com.example.lms.enrollment.repository.EnrollmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prerequisite checks backed by an in-memory {@link PrerequisiteGraph}.
+ *
+ * The graph is built from the database on first use and kept current by
+ * {@link #updatePrerequisites}, which rejects cycles in the transaction that saves the course
+ * and changes the graph once that transaction commits. Each
+ * student's completed courses are cached as a bitset and evicted when an enrollment is
+ * completed or reopened. Each node keeps its own graph; edits made on another node reach it
+ * on the next periodic rebuild.
+ */
+@Service
+@Slf4j
+public class PrerequisiteService {
+
+    public static final String COMPLETED_CACHE_NAME = "completedCourses";
+
+    private final CourseRepository courseRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate readTransaction;
+
+    private volatile PrerequisiteGraph graph;
+
+    public PrerequisiteService(CourseRepository courseRepository,
+                               EnrollmentRepository enrollmentRepository,
+                               CacheManager cacheManager,
+                               PlatformTransactionManager transactionManager) {
+        this.courseRepository = courseRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.cacheManager = cacheManager;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error building the prerequisite graph", e);
+        }
+    }
+
+    /**
+     * Rebuild the graph periodically to pick up edits made on other nodes
+     */
+    @Scheduled(fixedDelayString = "${app.course.prerequisites.rebuild-interval-ms:300000}",
+               initialDelayString = "${app.course.prerequisites.rebuild-interval-ms:300000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error rebuilding the prerequisite graph", e);
+        }
+    }
+
+    /**
+     * Rebuild the graph from the database
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        PrerequisiteGraph rebuilt = readTransaction.execute(status -> {
+            List<PrerequisiteGraph.Edge> edges = courseRepository.findAllPrerequisiteLinks().stream()
+                    .map(link -> new PrerequisiteGraph.Edge(link.getCourseId(), link.getPrerequisiteId()))
+                    .toList();
+            return new PrerequisiteGraph(courseRepository.findAllIds(), edges);
+        });
+        for (PrerequisiteGraph.Edge edge : rebuilt.getRejectedEdges()) {
+            log.warn("Ignoring prerequisite {} of course {}, which closes a cycle", edge.prerequisiteId(), edge.courseId());
+        }
+        graph = rebuilt;
+        log.debug("Built prerequisite graph of {} courses in {} ms", rebuilt.size(),
+                System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Set the prerequisites of a course in the graph. Call this in the transaction that saves
+     * the course: the prerequisites are checked against the graph right away, and the graph
+     * is changed only after commit, so a rolled back edit is never visible. Two uncommitted
+     * edits that only form a cycle together are both accepted here; applying the second one
+     * after commit fails and the graph is rebuilt from the database.
+     *
+     * @param courseId Course ID
+     * @param prerequisiteIds Direct prerequisite course IDs
+     * @throws IllegalArgumentException if the prerequisites would create a cycle
+     */
+    public synchronized void updatePrerequisites(Long courseId, Set<Long> prerequisiteIds) {
+        graph().checkPrerequisites(courseId, prerequisiteIds);
+
+        Set<Long> applied = Set.copyOf(prerequisiteIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(courseId, applied);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(courseId, applied);
+            }
+        });
+    }
+
+    /**
+     * Check that a student has completed every direct and transitive prerequisite of a course,
+     * against their enrollments as currently stored
+     *
+     * @param studentId Student ID
+     * @param courseId Course ID
+     * @throws IllegalStateException if a prerequisite is not completed
+     */
+    public void checkPrerequisites(Long studentId, Long courseId) {
+        List<Long> missing = graph().getMissingPrerequisites(courseId, loadCompleted(studentId));
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Student must complete prerequisite course ID: " + missing.get(0));
+        }
+    }
+
+    /**
+     * Get the courses a student has not completed and has completed all prerequisites of
+     *
+     * @param studentId Student ID
+     * @return Course IDs, lowest first
+     */
+    public List<Long> getEligibleCourseIds(Long studentId) {
+        return graph().getEligibleCourses(getCompleted(studentId));
+    }
+
+    /**
+     * Check whether a student has completed all prerequisites of each of the given courses
+     *
+     * @param studentId Student ID
+     * @param courseIds Course IDs
+     * @return Eligibility by course ID; courses that do not exist are not eligible
+     */
+    public Map<Long, Boolean> getEligibility(Long studentId, Collection<Long> courseIds) {
+        return graph().getEligibility(courseIds, getCompleted(studentId));
+    }
+
+    /**
+     * Get the direct and transitive prerequisites of a course
+     */
+    public Set<Long> getAllPrerequisites(Long courseId) {
+        return graph().getAllPrerequisites(courseId);
+    }
+
+    /**
+     * Drop the cached completed courses of a student once the current transaction commits
+     *
+     * @param studentId Student ID
+     */
+    public void completionChanged(Long studentId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            getCache().evict(studentId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                getCache().evict(studentId);
+            }
+        });
+    }
+
+    private PrerequisiteGraph graph() {
+        PrerequisiteGraph current = graph;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (graph == null) {
+                rebuild();
+            }
+            return graph;
+        }
+    }
+
+    private synchronized void apply(Long courseId, Set<Long> prerequisiteIds) {
+        try {
+            // Another edit may have been applied since the check
+            graph().setPrerequisites(courseId, prerequisiteIds);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rebuilding the prerequisite graph after a conflicting edit of course {}", courseId, e);
+            graph = null;
+        }
+    }
+
+    private BitSet getCompleted(Long studentId) {
+        return getCache().get(studentId, () -> loadCompleted(studentId));
+    }
+
+    private BitSet loadCompleted(Long studentId) {
+        BitSet completed = new BitSet();
+        for (Long courseId : enrollmentRepository.findCompletedCourseIdsByStudentId(studentId)) {
+            completed.set(PrerequisiteGraph.toIndex(courseId));
+        }
+        return completed;
+    }
+
+    private Cache getCache() {
+        return cacheManager.getCache(COMPLETED_CACHE_NAME);
+    }
+}
@@ -7,5 +7,12 @@ public enum EnrollmentStatus {
     IN_PROGRESS, // Student is actively taking the course
     COMPLETED,   // Course requirements are finished
     CANCELLED,   // Enrollment was cancelled
-    EXPIRED      // Enrollment period has ended
+    EXPIRED;     // Enrollment period has ended
+
+    /**
+     * Whether an enrollment in this status takes up a seat of the course's capacity
+     */
+    public boolean holdsSeat() {
+        return this == PENDING || this == APPROVED || this == IN_PROGRESS || this == COMPLETED;
+    }
 }
\ No newline at end of file
@@ -29,6 +29,10 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     // Find completed enrollments for a student
     List<Enrollment> findByStudentIdAndStatus(Long studentId, EnrollmentStatus status);
     
+    // Find the IDs of the courses a student has completed
+    @Query("SELECT e.course.id FROM Enrollment e WHERE e.student.id = :studentId AND e.status = 'COMPLETED'")
+    List<Long> findCompletedCourseIdsByStudentId(@Param("studentId") Long studentId);
+    
     // Find enrollments that are about to expire
     @Query("SELECT e FROM Enrollment e WHERE e.status = 'APPROVED' AND e.lastAccessedDate < :cutoffDate")
     List<Enrollment> findInactiveEnrollments(@Param("cutoffDate") LocalDateTime cutoffDate);
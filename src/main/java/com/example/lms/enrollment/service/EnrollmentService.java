@@ -12,15 +12,20 @@ import com.example.lms.course.repository.CourseRepository;
 import com.example.lms.user.model.User;
 import com.example.lms.user.repository.UserRepository;
 import com.example.lms.course.service.CompletionVerificationService;
+import com.example.lms.course.service.PrerequisiteService;
+import com.example.lms.course.service.CourseSeatService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;  // Add this import
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,6 +39,9 @@ public class EnrollmentService {
     private final EnrollmentNotificationService enrollmentNotificationService;
     private final UserActivityLogService logService;
     private final CompletionVerificationService completionVerificationService;
+    private final PrerequisiteService prerequisiteService;
+    private final CourseSeatService courseSeatService;
+    private final CacheManager cacheManager;
 
     /**
      * Enroll a student in a course
@@ -54,25 +62,8 @@ public class EnrollmentService {
             throw new IllegalStateException("Cannot enroll in an inactive course");
         }
 
-        // Check capacity limits
-        if (course.getMaxCapacity() != null && 
-            course.getStudents().size() >= course.getMaxCapacity()) {
-            throw new IllegalStateException("Course capacity reached, cannot enroll more students.");
-        }
-
-        // Verify prerequisites are met
-        Set<Course> prerequisites = course.getPrerequisites();
-        if (prerequisites != null && !prerequisites.isEmpty()) {
-            List<Long> prerequisiteCourseIds = prerequisites.stream()
-                    .map(Course::getId)
-                    .collect(Collectors.toList());
-            
-            for (Long prereqId : prerequisiteCourseIds) {
-                if (!hasCompletedCourse(studentId, prereqId)) {
-                    throw new IllegalStateException("Student must complete prerequisite course ID: " + prereqId);
-                }
-            }
-        }
+        // Verify direct and transitive prerequisites are met
+        prerequisiteService.checkPrerequisites(studentId, courseId);
     
         // Check if the student is already enrolled in this course
         enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId)
@@ -90,7 +81,10 @@ public class EnrollmentService {
                 .lastAccessedDate(LocalDateTime.now())
                 .build();
         
+        // Take a seat last, as it locks the course's seat counter until commit
+        courseSeatService.claimSeat(courseId, studentId);
         Enrollment savedEnrollment = enrollmentRepository.save(enrollment);
+        evictCourseCaches(courseId);
     
         // Notify the student about successful enrollment
         enrollmentNotificationService.notifyEnrollment(studentId, courseId);
@@ -151,6 +145,7 @@ public class EnrollmentService {
 
         // Update progress
         enrollment.updateProgress(progress);
+        prerequisiteService.completionChanged(studentId);
         
         // Check if course is completed based on completion requirements
         if (progress >= 100 && completionVerificationService.verifyCompletion(studentId, courseId)) {
@@ -183,6 +178,7 @@ public class EnrollmentService {
         enrollment.setProgress(100.0); // Set to 100% when completed
         
         Enrollment updatedEnrollment = enrollmentRepository.save(enrollment);
+        prerequisiteService.completionChanged(studentId);
         
         // Notify completion
         enrollmentNotificationService.notifyCourseCompletion(studentId, courseId);
@@ -215,8 +211,13 @@ public class EnrollmentService {
         }
         
         // Set status to cancelled
+        boolean heldSeat = holdsSeat(enrollment);
         enrollment.setStatus(EnrollmentStatus.CANCELLED);
         enrollmentRepository.save(enrollment);
+        if (heldSeat) {
+            courseSeatService.releaseSeat(courseId);
+        }
+        evictCourseCaches(courseId);
         
         // Log the activity
         User student = enrollment.getStudent();
@@ -272,8 +273,19 @@ public class EnrollmentService {
             }
         }
         
+        // Take or give back a seat when the enrollment starts or stops holding one
+        boolean heldSeat = holdsSeat(enrollment);
+        if (!heldSeat && newStatus.holdsSeat()) {
+            courseSeatService.claimSeat(enrollment.getCourse().getId(), enrollment.getStudent().getId());
+        }
+        
         enrollment.setStatus(newStatus);
         enrollment = enrollmentRepository.save(enrollment);
+        prerequisiteService.completionChanged(enrollment.getStudent().getId());
+        if (heldSeat && !newStatus.holdsSeat()) {
+            courseSeatService.releaseSeat(enrollment.getCourse().getId());
+        }
+        evictCourseCaches(enrollment.getCourse().getId());
         
         // Notify about status change
         notifyStatusChange(enrollment);
@@ -313,8 +325,13 @@ public class EnrollmentService {
             throw new IllegalStateException("Cannot unenroll from a completed course");
         }
         
+        boolean heldSeat = holdsSeat(enrollment);
         enrollment.setStatus(EnrollmentStatus.CANCELLED);
         enrollmentRepository.save(enrollment);
+        if (heldSeat) {
+            courseSeatService.releaseSeat(enrollment.getCourse().getId());
+        }
+        evictCourseCaches(enrollment.getCourse().getId());
         
         // Log the activity
         User student = enrollment.getStudent();
@@ -322,6 +339,24 @@ public class EnrollmentService {
         logService.logActivity(student, "COURSE_UNENROLLMENT", "Unenrolled from course: " + course.getTitle());
     }
     
+    /**
+     * Cancel a student's enrollment in a course if it is still active, giving back its seat
+     * 
+     * @param studentId ID of the student
+     * @param courseId ID of the course
+     */
+    @Transactional
+    public void cancelActiveEnrollment(Long studentId, Long courseId) {
+        enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId)
+                .filter(enrollment -> holdsSeat(enrollment) && enrollment.getStatus() != EnrollmentStatus.COMPLETED)
+                .ifPresent(enrollment -> {
+                    enrollment.setStatus(EnrollmentStatus.CANCELLED);
+                    enrollmentRepository.save(enrollment);
+                    courseSeatService.releaseSeat(courseId);
+                    evictCourseCaches(courseId);
+                });
+    }
+    
     /**
      * Update progress by enrollment ID
      */
@@ -331,6 +366,7 @@ public class EnrollmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Enrollment not found with ID: " + enrollmentId));
         
         enrollment.updateProgress(progress);
+        prerequisiteService.completionChanged(enrollment.getStudent().getId());
         
         // If grade is provided, store it in custom field or attribute
         // Note: Your Enrollment entity doesn't have a grade field, you might need to add it
@@ -391,7 +427,12 @@ public class EnrollmentService {
         }
         
         // Delete the enrollment
+        boolean heldSeat = holdsSeat(enrollment);
         enrollmentRepository.delete(enrollment);
+        if (heldSeat) {
+            courseSeatService.releaseSeat(enrollment.getCourse().getId());
+        }
+        evictCourseCaches(enrollment.getCourse().getId());
         
         // Return true to indicate successful deletion
         return true;
@@ -416,7 +457,12 @@ public class EnrollmentService {
         String courseTitle = enrollment.getCourse().getTitle();
         
         // Delete the enrollment
+        boolean heldSeat = holdsSeat(enrollment);
         enrollmentRepository.delete(enrollment);
+        if (heldSeat) {
+            courseSeatService.releaseSeat(courseId);
+        }
+        evictCourseCaches(courseId);
         
         // Log the unenrollment action
         try {
@@ -433,4 +479,32 @@ public class EnrollmentService {
         
         return true;
     }
+    private boolean holdsSeat(Enrollment enrollment) {
+        return enrollment.getStatus() != null && enrollment.getStatus().holdsSeat();
+    }
+    /**
+     * Drop the cached course listings that show enrollment counts once the current
+     * transaction commits
+     */
+    private void evictCourseCaches(Long courseId) {
+        Runnable evict = () -> {
+            getCache("courses").evict(courseId);
+            getCache("allCourses").clear();
+            getCache("coursesByDepartment").clear();
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
+
+    private Cache getCache(String name) {
+        return cacheManager.getCache(name);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.lms.notification.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -12,6 +13,7 @@ import java.util.Properties;
 @Configuration
 @EnableScheduling
 @EnableAsync
+@EnableConfigurationProperties({NotificationOutboxProperties.class, NotificationPushProperties.class})
 public class NotificationConfig {
     
     /**
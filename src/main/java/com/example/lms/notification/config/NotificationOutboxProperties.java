@@ -0,0 +1,69 @@
+package com.example.lms.notification.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the notification outbox dispatcher ({@code app.notification.outbox.*})
+ */
+@Data
+@ConfigurationProperties(prefix = "app.notification.outbox")
+public class NotificationOutboxProperties {
+
+    /**
+     * Batch size claimed when the outbox is nearly empty
+     */
+    private int minBatchSize = 25;
+
+    /**
+     * Upper bound of the batch size; the batch doubles while claimed batches come back full
+     */
+    private int maxBatchSize = 1000;
+
+    /**
+     * Delay between in-app dispatcher runs in milliseconds
+     */
+    private long inAppIntervalMs = 5000;
+
+    /**
+     * Delay between email dispatcher runs in milliseconds
+     */
+    private long emailIntervalMs = 10000;
+
+    /**
+     * Longest time one dispatcher run keeps draining before yielding to the next run
+     */
+    private Duration maxDrainTime = Duration.ofSeconds(20);
+
+    /**
+     * Number of threads sending emails on each node
+     */
+    private int emailWorkers = 8;
+
+    /**
+     * Emails waiting for a worker on each node; no more rows are claimed while the queue is full
+     */
+    private int emailQueueCapacity = 500;
+
+    /**
+     * Attempts before an email is marked as failed
+     */
+    private int maxEmailAttempts = 5;
+
+    /**
+     * Delay before the first retry; doubles with each further attempt
+     */
+    private Duration retryBaseDelay = Duration.ofSeconds(30);
+
+    /**
+     * Longest delay between retries
+     */
+    private Duration retryMaxDelay = Duration.ofHours(1);
+
+    /**
+     * How long a claimed email stays reserved for the claiming node before others may retry it
+     */
+    private Duration claimLease = Duration.ofMinutes(5);
+}
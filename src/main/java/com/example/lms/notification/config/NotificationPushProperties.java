@@ -0,0 +1,61 @@
+package com.example.lms.notification.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the server-sent event push channel ({@code app.notification.push.*})
+ */
+@Data
+@ConfigurationProperties(prefix = "app.notification.push")
+public class NotificationPushProperties {
+
+    /**
+     * How long a stream stays open before the client has to reconnect
+     */
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Delay between heartbeats in milliseconds
+     */
+    private long heartbeatIntervalMs = 15000;
+
+    /**
+     * Delay between catch-up runs in milliseconds. A catch-up pushes notifications created by
+     * other nodes and the current unread count to the streams connected to this node.
+     */
+    private long syncIntervalMs = 30000;
+
+    /**
+     * How far back a catch-up looks for notifications, so rows committed late are not missed
+     */
+    private Duration syncLookback = Duration.ofMinutes(2);
+
+    /**
+     * Events buffered per stream; a stream whose buffer is full is closed and must reconnect
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * Notifications replayed to a reconnecting client
+     */
+    private int replayLimit = 100;
+
+    /**
+     * Threads writing events to the streams
+     */
+    private int sendWorkers = 4;
+
+    /**
+     * Longest a single event write may block before the stream is closed, so a stalled
+     * client cannot hold a writer thread
+     */
+    private Duration sendTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Delay between checks for stalled writes in milliseconds
+     */
+    private long stallCheckIntervalMs = 1000;
+}
@@ -0,0 +1,43 @@
+package com.example.lms.notification.controller;
+
+import com.example.lms.notification.dto.NotificationBulkResultDTO;
+import com.example.lms.notification.dto.NotificationOutboxMetricsDTO;
+import com.example.lms.notification.sender.NotificationSenderService;
+import com.example.lms.notification.service.NotificationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/notifications")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Notification Administration", description = "APIs for monitoring notification delivery and cleaning up notifications")
+public class NotificationAdminController {
+
+    private final NotificationSenderService notificationSenderService;
+    private final NotificationService notificationService;
+
+    @GetMapping("/outbox")
+    @Operation(summary = "Get outbox metrics", description = "Returns delivery throughput, retry counts, pending rows and queue lag")
+    public ResponseEntity<NotificationOutboxMetricsDTO> getOutboxMetrics() {
+        return ResponseEntity.ok(notificationSenderService.getMetrics());
+    }
+
+    @DeleteMapping("/read")
+    @Operation(summary = "Delete old read notifications", description = "Deletes the read notifications of all users created more than the given number of days ago")
+    public ResponseEntity<NotificationBulkResultDTO> deleteReadNotifications(
+            @Parameter(description = "Minimum age in days", required = true)
+            @RequestParam int olderThanDays) {
+        int deleted = notificationService.deleteAllReadNotifications(olderThanDays);
+        return ResponseEntity.ok(NotificationBulkResultDTO.builder().affected(deleted).build());
+    }
+}
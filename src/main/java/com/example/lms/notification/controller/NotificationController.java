@@ -1,21 +1,27 @@
 package com.example.lms.notification.controller;
 
+import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.example.lms.notification.dto.NotificationBulkResultDTO;
 import com.example.lms.notification.dto.NotificationDTO;
 import com.example.lms.notification.dto.NotificationPreferenceDTO;
 import com.example.lms.notification.mapper.NotificationMapper;
 import com.example.lms.notification.model.Notification;
 import com.example.lms.notification.model.NotificationPreference;
 import com.example.lms.notification.model.NotificationType;
+import com.example.lms.notification.push.NotificationPushService;
 import com.example.lms.notification.service.NotificationPreferenceService;
 import com.example.lms.notification.service.NotificationService;
+import com.example.lms.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -37,6 +43,27 @@ public class NotificationController {
     private final NotificationService notificationService;
     private final NotificationPreferenceService preferenceService;
     private final NotificationMapper notificationMapper;
+    private final NotificationPushService pushService;
+    private final UserRepository userRepository;
+    
+    /**
+     * Stream new notifications and unread count changes for current user
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Stream notifications", description = "Server-sent events with new notifications ('notification') " +
+            "and unread count updates ('unread-count'). Send the Last-Event-ID header on reconnect to receive missed notifications.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream opened"),
+            @ApiResponse(responseCode = "403", description = "Forbidden, requires authentication")
+    })
+    public SseEmitter streamNotifications(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "ID of the last received notification event")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Long userId = getUserIdFromEmail(userDetails);
+        return pushService.connect(userId, lastEventId);
+    }
     
     /**
      * Get unread notifications for current user
@@ -123,13 +150,81 @@ public class NotificationController {
     @Operation(summary = "Mark all notifications as read", description = "Mark all notifications as read for the current user")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "All notifications marked as read",
-                    content = @Content(schema = @Schema(implementation = Void.class))),
+                    content = @Content(schema = @Schema(implementation = NotificationBulkResultDTO.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden, requires authentication")
+    })
+    public ResponseEntity<NotificationBulkResultDTO> markAllAsRead(@AuthenticationPrincipal UserDetails userDetails) {
+        Long userId = getUserIdFromEmail(userDetails);
+        int changed = notificationService.markAllAsRead(userId);
+        return ResponseEntity.ok(NotificationBulkResultDTO.builder().affected(changed).build());
+    }
+    
+    /**
+     * Mark all notifications of a type as read for current user
+     */
+    @PatchMapping("/read-all/type/{type}")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Mark notifications of a type as read", description = "Mark all notifications of a type as read for the current user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications marked as read",
+                    content = @Content(schema = @Schema(implementation = NotificationBulkResultDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid notification type"),
+            @ApiResponse(responseCode = "403", description = "Forbidden, requires authentication")
+    })
+    public ResponseEntity<NotificationBulkResultDTO> markAllAsReadByType(
+            @PathVariable String type,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        Long userId = getUserIdFromEmail(userDetails);
+        NotificationType notificationType;
+        
+        try {
+            notificationType = NotificationType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        int changed = notificationService.markAllAsReadByType(userId, notificationType);
+        return ResponseEntity.ok(NotificationBulkResultDTO.builder().affected(changed).build());
+    }
+    
+    /**
+     * Mark all notifications about an entity as read for current user
+     */
+    @PatchMapping("/read-all/related")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Mark notifications about an entity as read", description = "Mark all notifications related to an entity (e.g. a course or assignment) as read for the current user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications marked as read",
+                    content = @Content(schema = @Schema(implementation = NotificationBulkResultDTO.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden, requires authentication")
+    })
+    public ResponseEntity<NotificationBulkResultDTO> markAllAsReadByRelatedEntity(
+            @RequestParam String relatedEntityType,
+            @RequestParam Long relatedEntityId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        Long userId = getUserIdFromEmail(userDetails);
+        int changed = notificationService.markAllAsReadByRelatedEntity(userId, relatedEntityType, relatedEntityId);
+        return ResponseEntity.ok(NotificationBulkResultDTO.builder().affected(changed).build());
+    }
+    
+    /**
+     * Delete old read notifications of current user
+     */
+    @DeleteMapping("/read")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Delete old read notifications", description = "Delete the read notifications of the current user created more than the given number of days ago")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Read notifications deleted",
+                    content = @Content(schema = @Schema(implementation = NotificationBulkResultDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid number of days"),
             @ApiResponse(responseCode = "403", description = "Forbidden, requires authentication")
     })
-    public ResponseEntity<Void> markAllAsRead(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<NotificationBulkResultDTO> deleteReadNotifications(
+            @RequestParam(defaultValue = "30") int olderThanDays,
+            @AuthenticationPrincipal UserDetails userDetails) {
         Long userId = getUserIdFromEmail(userDetails);
-        notificationService.markAllAsRead(userId);
-        return ResponseEntity.ok().build();
+        int deleted = notificationService.deleteReadNotifications(userId, olderThanDays);
+        return ResponseEntity.ok(NotificationBulkResultDTO.builder().affected(deleted).build());
     }
     
     /**
@@ -238,9 +333,7 @@ public class NotificationController {
     
     // Helper method to extract user ID from UserDetails
     private Long getUserIdFromEmail(UserDetails userDetails) {
-        // You need to implement this based on your user model and repository
-        // For example:
-        // return userRepository.findByEmail(userDetails.getUsername()).getId();
-        return 1L; // Placeholder - replace with actual implementation
+        return userRepository.findIdByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + userDetails.getUsername()));
     }
 }
\ No newline at end of file
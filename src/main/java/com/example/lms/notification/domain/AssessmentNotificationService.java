@@ -8,6 +8,7 @@ import com.example.lms.assessment.repository.QuizRepository;
 import com.example.lms.common.Exception.ResourceNotFoundException;
 import com.example.lms.course.model.Course;
 import com.example.lms.course.repository.CourseRepository;
+import com.example.lms.notification.dto.NotificationFanOutResult;
 import com.example.lms.notification.model.NotificationType;
 import com.example.lms.notification.service.NotificationService;
 import com.example.lms.user.model.User;
@@ -81,7 +82,7 @@ public class AssessmentNotificationService {
             data.put("hoursRemaining", hoursRemaining);
             data.put("dueDate", assignment.getDueDate().toString());
             
-            notificationService.createNotificationsForUsers(
+            NotificationFanOutResult result = notificationService.createNotificationsForUsers(
                     type,
                     students,
                     title,
@@ -91,8 +92,9 @@ public class AssessmentNotificationService {
                     data
             );
             
-            log.info("Sent assignment deadline notifications ({} hours) to {} students for assignment ID: {}", 
-                    hoursRemaining, students.size(), assignmentId);
+            log.info("Sent assignment deadline notifications ({} hours) to {} of {} students for assignment ID: {} (in-app: {}, email: {})", 
+                    hoursRemaining, result.getCreated(), students.size(), assignmentId,
+                    result.getInAppCount(), result.getEmailCount());
         } catch (Exception e) {
             log.error("Error sending assignment deadline notifications for assignment ID: " + assignmentId, e);
         }
@@ -134,7 +136,7 @@ public class AssessmentNotificationService {
             data.put("endDate", quiz.getEndDate() != null ? quiz.getEndDate().toString() : "No end date");
             data.put("timeLimit", quiz.getTimeLimit() != null ? quiz.getTimeLimit() + " minutes" : "No time limit");
             
-            notificationService.createNotificationsForUsers(
+            NotificationFanOutResult result = notificationService.createNotificationsForUsers(
                     NotificationType.QUIZ_AVAILABLE,
                     students,
                     title,
@@ -144,8 +146,8 @@ public class AssessmentNotificationService {
                     data
             );
             
-            log.info("Sent quiz availability notifications to {} students for quiz ID: {}", 
-                    students.size(), quizId);
+            log.info("Sent quiz availability notifications to {} of {} students for quiz ID: {} (in-app: {}, email: {})", 
+                    result.getCreated(), students.size(), quizId, result.getInAppCount(), result.getEmailCount());
         } catch (Exception e) {
             log.error("Error sending quiz availability notifications for quiz ID: " + quizId, e);
         }
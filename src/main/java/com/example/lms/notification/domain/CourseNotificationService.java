@@ -2,6 +2,7 @@ package com.example.lms.notification.domain;
 
 import com.example.lms.course.model.Course;
 import com.example.lms.course.repository.CourseRepository;
+import com.example.lms.notification.dto.NotificationFanOutResult;
 import com.example.lms.notification.model.NotificationType;
 import com.example.lms.notification.service.NotificationService;
 import com.example.lms.user.model.User;
@@ -59,7 +60,7 @@ public class CourseNotificationService {
             data.put("contentTitle", contentTitle);
             data.put("instructorName", course.getInstructor().getFullName());
             
-            notificationService.createNotificationsForUsers(
+            NotificationFanOutResult result = notificationService.createNotificationsForUsers(
                     NotificationType.COURSE_CONTENT_UPLOAD,
                     students,
                     title,
@@ -69,8 +70,8 @@ public class CourseNotificationService {
                     data
             );
             
-            log.info("Sent course content upload notifications to {} students for course ID: {}", 
-                    students.size(), courseId);
+            log.info("Sent course content upload notifications to {} of {} students for course ID: {} (in-app: {}, email: {})", 
+                    result.getCreated(), students.size(), courseId, result.getInAppCount(), result.getEmailCount());
         } catch (Exception e) {
             log.error("Error sending course content upload notifications for course ID: " + courseId, e);
         }
@@ -102,7 +103,7 @@ public class CourseNotificationService {
             data.put("announcementContent", announcementContent);
             data.put("instructorName", course.getInstructor().getFullName());
             
-            notificationService.createNotificationsForUsers(
+            NotificationFanOutResult result = notificationService.createNotificationsForUsers(
                     NotificationType.COURSE_ANNOUNCEMENT,
                     students,
                     title,
@@ -112,8 +113,8 @@ public class CourseNotificationService {
                     data
             );
             
-            log.info("Sent course announcement notifications to {} students for course ID: {}", 
-                    students.size(), courseId);
+            log.info("Sent course announcement notifications to {} of {} students for course ID: {} (in-app: {}, email: {})", 
+                    result.getCreated(), students.size(), courseId, result.getInAppCount(), result.getEmailCount());
         } catch (Exception e) {
             log.error("Error sending course announcement notifications for course ID: " + courseId, e);
         }
@@ -0,0 +1,24 @@
+package com.example.lms.notification.dto;
+
+import com.example.lms.notification.model.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of creating one notification for many recipients
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationFanOutResult {
+    private NotificationType type;
+    private int recipients;
+    private int created;
+    private int inAppCount; // Created notifications with in-app delivery enabled
+    private int emailCount; // Created notifications queued for email
+    private int skippedDisabled; // Recipients with every channel disabled
+    private int skippedDuplicate; // Recipients with a similar notification in the last hour
+}
@@ -0,0 +1,38 @@
+package com.example.lms.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Throughput and lag of the notification outbox. Counters and rates are those of the
+ * node serving the request since it started; pending counts and lag cover all nodes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutboxMetricsDTO {
+    private long uptimeSeconds;
+
+    // In-app delivery
+    private long inAppDelivered;
+    private double inAppPerSecond;
+    private int inAppBatchSize;
+    private long pendingInApp;
+    private long inAppLagSeconds; // Age of the oldest undelivered notification
+
+    // Email delivery
+    private long emailsClaimed;
+    private long emailsSent;
+    private long emailsSkipped; // Email disabled by the user's preference
+    private long emailsRetried;
+    private long emailsFailed;
+    private double emailsPerSecond;
+    private int emailBatchSize;
+    private int emailsInFlight;
+    private long pendingEmails;
+    private long failedEmails; // Rows that reached the maximum number of attempts
+    private long emailLagSeconds; // Age of the oldest pending email
+}
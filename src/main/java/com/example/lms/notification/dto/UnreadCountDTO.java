@@ -0,0 +1,20 @@
+package com.example.lms.notification.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Unread count pushed to a notification stream: either the current count or a change to apply
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UnreadCountDTO {
+    private Long unreadCount;
+    private Integer delta;
+}
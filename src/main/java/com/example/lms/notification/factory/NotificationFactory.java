@@ -1,21 +1,30 @@
 package com.example.lms.notification.factory;
 
+import com.example.lms.notification.dto.NotificationFanOutResult;
 import com.example.lms.notification.model.Notification;
 import com.example.lms.notification.model.NotificationPreference;
 import com.example.lms.notification.model.NotificationType;
+import com.example.lms.notification.push.NotificationPushService;
+import com.example.lms.notification.repository.NotificationPreferenceRepository;
 import com.example.lms.notification.repository.NotificationRepository;
 import com.example.lms.notification.service.NotificationPreferenceService;
 import com.example.lms.notification.service.NotificationTemplateService;
+import com.example.lms.notification.service.UnreadNotificationCounterService;
 import com.example.lms.user.model.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -25,6 +34,16 @@ public class NotificationFactory {
    private final NotificationRepository notificationRepository;
    private final NotificationTemplateService templateService;
    private final NotificationPreferenceService preferenceService;
+   private final NotificationPreferenceRepository preferenceRepository;
+   private final NotificationPushService pushService;
+   private final UnreadNotificationCounterService unreadCounterService;
+   private final JdbcTemplate jdbcTemplate;
+   
+   private static final int QUERY_CHUNK_SIZE = 1000;
+   private static final int INSERT_BATCH_SIZE = 500;
+   private static final String INSERT_SQL = "INSERT INTO notifications (type, title, content, user_id, read, sent, " +
+           "email_sent, priority, related_entity_id, related_entity_type, email_attempts, email_failed, created_at, updated_at) " +
+           "VALUES (?, ?, ?, ?, false, false, ?, ?, ?, ?, 0, false, ?, ?)";
    
    @Transactional
    public Notification createNotification(NotificationType type, User user, String title, String content,
@@ -80,28 +99,107 @@ public class NotificationFactory {
                .build();
        
        Notification savedNotification = notificationRepository.save(notification);
+       unreadCounterService.adjust(user.getId(), 1);
+       pushService.notificationCreated(savedNotification);
        log.debug("Created notification ID: {} for user: {}, type: {}", 
                savedNotification.getId(), user.getId(), type);
        
        return savedNotification;
    }
    
+   /**
+    * Create the same notification for many users with a fixed number of statements:
+    * one preference query and one duplicate check per chunk of recipients, one template
+    * render and batched inserts. Missing preferences count as the default (all channels enabled).
+    */
    @Transactional
-   public List<Notification> createNotificationsForUsers(NotificationType type, List<User> users,
+   public NotificationFanOutResult createNotificationsForUsers(NotificationType type, List<User> users,
                                                        String title, String content,
                                                        Long relatedEntityId, String relatedEntityType,
                                                        Map<String, Object> data) {
-       List<Notification> notifications = new ArrayList<>();
+       List<Long> userIds = users.stream()
+               .map(User::getId)
+               .distinct()
+               .collect(Collectors.toList());
+       
+       NotificationFanOutResult result = NotificationFanOutResult.builder()
+               .type(type)
+               .recipients(userIds.size())
+               .build();
+       if (userIds.isEmpty()) {
+           return result;
+       }
        
-       for (User user : users) {
-           Notification notification = createNotification(
-                   type, user, title, content, relatedEntityId, relatedEntityType, data);
-           if (notification != null) {
-               notifications.add(notification);
+       // Load channel preferences and recent similar notifications for all recipients
+       Map<Long, Object[]> channels = new HashMap<>();
+       Set<Long> duplicates = new HashSet<>();
+       LocalDateTime since = LocalDateTime.now().minusHours(1);
+       for (int from = 0; from < userIds.size(); from += QUERY_CHUNK_SIZE) {
+           List<Long> chunk = userIds.subList(from, Math.min(from + QUERY_CHUNK_SIZE, userIds.size()));
+           for (Object[] row : preferenceRepository.findChannelsByTypeAndUserIds(type, chunk)) {
+               channels.put((Long) row[0], row);
+           }
+           // Similar notifications can only match when there is a related entity
+           if (relatedEntityId != null && relatedEntityType != null) {
+               duplicates.addAll(notificationRepository.findUserIdsWithSimilarNotificationsSince(
+                       type, relatedEntityId, relatedEntityType, since, chunk));
            }
        }
        
-       return notifications;
+       // Render the templates once for all recipients
+       String processedTitle = title;
+       String processedContent = content;
+       if (data != null && !data.isEmpty()) {
+           String templateContent = templateService.processTemplate(type, data, "inApp");
+           if (templateContent != null) {
+               processedContent = templateContent;
+           }
+           String templateTitle = templateService.processSubject(type, data);
+           if (templateTitle != null) {
+               processedTitle = templateTitle;
+           }
+       }
+       
+       int priority = getPriorityForType(type);
+       LocalDateTime now = LocalDateTime.now();
+       List<Object[]> rows = new ArrayList<>();
+       List<Long> recipientIds = new ArrayList<>();
+       
+       for (Long userId : userIds) {
+           Object[] channel = channels.get(userId);
+           boolean emailEnabled = channel == null || (Boolean) channel[1];
+           boolean inAppEnabled = channel == null || (Boolean) channel[2];
+           
+           if (!emailEnabled && !inAppEnabled) {
+               result.setSkippedDisabled(result.getSkippedDisabled() + 1);
+               continue;
+           }
+           if (duplicates.contains(userId)) {
+               result.setSkippedDuplicate(result.getSkippedDuplicate() + 1);
+               continue;
+           }
+           
+           rows.add(new Object[] {
+                   type.name(), processedTitle, processedContent, userId,
+                   !emailEnabled, // Mark email as sent if email not enabled
+                   priority, relatedEntityId, relatedEntityType, now, now
+           });
+           recipientIds.add(userId);
+           result.setCreated(result.getCreated() + 1);
+           if (inAppEnabled) result.setInAppCount(result.getInAppCount() + 1);
+           if (emailEnabled) result.setEmailCount(result.getEmailCount() + 1);
+       }
+       
+       // Insert in JDBC batches; notification IDs are generated by the database
+       for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+           jdbcTemplate.batchUpdate(INSERT_SQL, rows.subList(from, Math.min(from + INSERT_BATCH_SIZE, rows.size())));
+       }
+       
+       unreadCounterService.increment(recipientIds);
+       pushService.notificationsCreated(recipientIds);
+       
+       log.debug("Fan-out of {} notifications: {}", type, result);
+       return result;
    }
    
    /**
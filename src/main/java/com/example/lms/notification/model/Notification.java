@@ -3,6 +3,7 @@ package com.example.lms.notification.model;
 import com.example.lms.common.BaseEntity;
 import com.example.lms.user.model.User;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,7 +14,7 @@ import lombok.EqualsAndHashCode;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = @Index(name = "idx_notifications_outbox", columnList = "sent, email_sent, email_failed"))
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
@@ -61,4 +62,24 @@ public class Notification extends BaseEntity {
     
     @Column(name = "related_entity_type")
     private String relatedEntityType; // Type of related entity
+    
+    // Email outbox state
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int emailAttempts = 0;
+    
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    @Builder.Default
+    private boolean emailFailed = false; // Gave up after the maximum number of attempts
+    
+    @Column
+    private LocalDateTime nextEmailAttemptAt; // Earliest time of the next attempt after a failure
+    
+    @Column
+    private LocalDateTime emailClaimedUntil; // Lease held by the node that is sending the email
+    
+    @Column(length = 500)
+    private String emailLastError;
 }
\ No newline at end of file
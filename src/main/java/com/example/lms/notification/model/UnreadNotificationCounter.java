@@ -0,0 +1,34 @@
+package com.example.lms.notification.model;
+
+import com.example.lms.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of unread notifications of a user, maintained as notifications are created,
+ * read and deleted, and periodically reconciled against the notifications table
+ */
+@Entity
+@Table(name = "notification_unread_counters")
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UnreadNotificationCounter extends BaseEntity {
+
+    @Column(name = "user_id", nullable = false, unique = true)
+    private Long userId;
+
+    @Column(nullable = false)
+    private long unreadCount;
+
+    @Column
+    private LocalDateTime reconciledAt;
+}
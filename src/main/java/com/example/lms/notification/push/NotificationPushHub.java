@@ -0,0 +1,312 @@
+package com.example.lms.notification.push;
+
+import com.example.lms.notification.config.NotificationPushProperties;
+import com.example.lms.notification.dto.UnreadCountDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process registry of the notification streams open on this node.
+ *
+ * Each stream has a bounded event buffer drained by a small writer pool, so publishing never
+ * blocks on a slow client. A stream whose buffer overflows, or whose client stalls a write for
+ * longer than the send timeout, is closed; the client reconnects with {@code Last-Event-ID}
+ * and receives what it missed from the database. Writers also hand their thread back after
+ * a few events, so busy streams take turns.
+ */
+@Component
+@Slf4j
+public class NotificationPushHub {
+
+    public static final String NOTIFICATION_EVENT = "notification";
+    public static final String UNREAD_COUNT_EVENT = "unread-count";
+
+    // Notification IDs remembered per stream to avoid pushing a notification twice
+    private static final int DELIVERED_MEMORY = 500;
+    // Events written per turn before the writer thread is handed to other streams
+    private static final int DRAIN_BATCH_SIZE = 16;
+
+    private final NotificationPushProperties properties;
+    private final ThreadPoolTaskExecutor sendExecutor;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public NotificationPushHub(NotificationPushProperties properties) {
+        this.properties = properties;
+
+        this.sendExecutor = new ThreadPoolTaskExecutor();
+        this.sendExecutor.setCorePoolSize(properties.getSendWorkers());
+        this.sendExecutor.setMaxPoolSize(properties.getSendWorkers());
+        this.sendExecutor.setThreadNamePrefix("notification-push-");
+        this.sendExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(streams -> streams.forEach(Subscriber::close));
+        sendExecutor.shutdown();
+    }
+
+    /**
+     * Open a stream for a user
+     *
+     * @param userId User ID
+     * @param baselineId Notifications up to this ID are not pushed; the client already has them
+     * @return Subscriber holding the emitter
+     */
+    public Subscriber subscribe(Long userId, long baselineId) {
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(properties.getEmitterTimeout().toMillis()),
+                properties.getQueueCapacity(), baselineId);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+        log.debug("Opened notification stream for user {}", userId);
+        return subscriber;
+    }
+
+    /**
+     * Push a notification to the streams of a user that have not received it yet.
+     * Streams receiving an unread notification are also sent an unread count delta of one.
+     *
+     * @param userId User ID
+     * @param notificationId Notification ID, used as the event ID
+     * @param payload Event data
+     * @param unread Whether the notification is unread
+     */
+    public void publishNotification(Long userId, long notificationId, Object payload, boolean unread) {
+        for (Subscriber subscriber : streamsOf(userId)) {
+            subscriber.sendNotification(notificationId, payload, unread);
+        }
+    }
+
+    /**
+     * Push an event without ID to all streams of a user
+     *
+     * @param userId User ID
+     * @param name Event name
+     * @param payload Event data
+     */
+    public void publish(Long userId, String name, Object payload) {
+        for (Subscriber subscriber : streamsOf(userId)) {
+            subscriber.send(name, payload);
+        }
+    }
+
+    /**
+     * @return IDs of the users with at least one open stream on this node
+     */
+    public List<Long> getConnectedUserIds() {
+        return new ArrayList<>(subscribers.keySet());
+    }
+
+    /**
+     * @return Whether the user has an open stream on this node
+     */
+    public boolean isConnected(Long userId) {
+        return subscribers.containsKey(userId);
+    }
+
+    /**
+     * Keep idle streams and the proxies in front of them from timing out
+     */
+    @Scheduled(fixedDelayString = "${app.notification.push.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        subscribers.values().forEach(streams -> streams.forEach(Subscriber::heartbeat));
+    }
+
+    /**
+     * Close streams whose current write has blocked for longer than the send timeout,
+     * interrupting the writer so its thread is freed for other streams
+     */
+    @Scheduled(fixedDelayString = "${app.notification.push.stall-check-interval-ms:1000}")
+    public void closeStalledStreams() {
+        long timeoutNanos = properties.getSendTimeout().toNanos();
+        long now = System.nanoTime();
+        subscribers.values().forEach(streams -> streams.forEach(subscriber -> {
+            long started = subscriber.writeStartedNanos;
+            if (started != 0 && now - started > timeoutNanos) {
+                log.debug("Closing notification stream of user {}: write blocked for over {}",
+                        subscriber.userId, properties.getSendTimeout());
+                subscriber.abort();
+            }
+        }));
+    }
+
+    private Collection<Subscriber> streamsOf(Long userId) {
+        Set<Subscriber> streams = subscribers.get(userId);
+        return streams != null ? streams : List.of();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, streams) -> {
+            streams.remove(subscriber);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    /**
+     * One open stream
+     */
+    public final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final long baselineId;
+        private final Set<Long> delivered = new LinkedHashSet<>();
+        // Start of the write in progress, 0 when idle, and the thread doing it
+        private volatile long writeStartedNanos;
+        private volatile Thread writer;
+
+        private Subscriber(Long userId, SseEmitter emitter, int capacity, long baselineId) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.baselineId = baselineId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        /**
+         * Queue a notification unless this stream already received it
+         */
+        public void sendNotification(long notificationId, Object payload, boolean unread) {
+            if (notificationId <= baselineId) {
+                return;
+            }
+            synchronized (delivered) {
+                if (!markDelivered(notificationId)) {
+                    return;
+                }
+            }
+            enqueue(SseEmitter.event()
+                    .id(Long.toString(notificationId))
+                    .name(NOTIFICATION_EVENT)
+                    .data(payload, MediaType.APPLICATION_JSON));
+            if (unread) {
+                send(UNREAD_COUNT_EVENT, UnreadCountDTO.builder().delta(1).build());
+            }
+        }
+
+        /**
+         * Queue an event without ID
+         */
+        public void send(String name, Object payload) {
+            enqueue(SseEmitter.event().name(name).data(payload, MediaType.APPLICATION_JSON));
+        }
+
+        private void heartbeat() {
+            enqueue(SseEmitter.event().comment("heartbeat"));
+        }
+
+        private boolean markDelivered(long notificationId) {
+            if (!delivered.add(notificationId)) {
+                return false;
+            }
+            if (delivered.size() > DELIVERED_MEMORY) {
+                delivered.remove(delivered.iterator().next());
+            }
+            return true;
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // Slow consumer: drop the stream rather than buffer without bound
+                log.debug("Closing notification stream of user {}: event buffer is full", userId);
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sendExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                draining.set(false);
+                close();
+            }
+        }
+
+        // Events of one stream are written by one thread at a time, in order
+        private void drain() {
+            writer = Thread.currentThread();
+            try {
+                SseEmitter.SseEventBuilder event;
+                int written = 0;
+                while (!closed.get() && written < DRAIN_BATCH_SIZE && (event = queue.poll()) != null) {
+                    writeStartedNanos = System.nanoTime();
+                    emitter.send(event);
+                    writeStartedNanos = 0;
+                    written++;
+                }
+            } catch (Exception e) {
+                log.debug("Notification stream of user {} failed: {}", userId, e.getMessage());
+                close();
+            } finally {
+                writeStartedNanos = 0;
+                writer = null;
+                // An abort may have interrupted this thread; do not pass that on to the next task
+                Thread.interrupted();
+                draining.set(false);
+            }
+            if (!closed.get()) {
+                scheduleDrain();
+            }
+        }
+
+        // Close a stream stuck in a write and interrupt the blocked writer
+        private void abort() {
+            close();
+            Thread blocked = writer;
+            if (blocked != null && writeStartedNanos != 0) {
+                blocked.interrupt();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                queue.clear();
+                remove(this);
+                try {
+                    emitter.complete();
+                } catch (Exception e) {
+                    log.trace("Error completing notification stream", e);
+                }
+            }
+        }
+    }
+}
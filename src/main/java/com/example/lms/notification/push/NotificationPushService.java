@@ -0,0 +1,167 @@
+package com.example.lms.notification.push;
+
+import com.example.lms.notification.config.NotificationPushProperties;
+import com.example.lms.notification.dto.UnreadCountDTO;
+import com.example.lms.notification.mapper.NotificationMapper;
+import com.example.lms.notification.model.Notification;
+import com.example.lms.notification.push.NotificationPushHub.Subscriber;
+import com.example.lms.notification.repository.NotificationRepository;
+import com.example.lms.notification.service.UnreadNotificationCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes notifications and unread counts to the streams open on this node.
+ *
+ * Changes made on this node are pushed when their transaction commits. Notifications created
+ * on other nodes reach the streams through a periodic catch-up, which also sends the current
+ * unread count so deltas never drift for long.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPushService {
+
+    private static final int SYNC_CHUNK_SIZE = 1000;
+
+    private final NotificationPushHub hub;
+    private final NotificationRepository notificationRepository;
+    private final NotificationMapper notificationMapper;
+    private final UnreadNotificationCounterService unreadCounterService;
+    private final NotificationPushProperties properties;
+
+    /**
+     * Open a stream for a user. A reconnecting client passes the ID of the last event it received
+     * and is sent the notifications created since; a new client only receives later notifications.
+     * Either way the stream starts with the current unread count.
+     *
+     * @param userId User ID
+     * @param lastEventId Value of the {@code Last-Event-ID} header, may be {@code null}
+     * @return Emitter of the stream
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter connect(Long userId, Long lastEventId) {
+        long baselineId = lastEventId != null
+                ? lastEventId
+                : notificationRepository.findMaxIdByUserId(userId).orElse(0L);
+        Subscriber subscriber = hub.subscribe(userId, baselineId);
+
+        if (lastEventId != null) {
+            List<Notification> missed = notificationRepository.findByUserIdAfter(
+                    userId, lastEventId, PageRequest.of(0, properties.getReplayLimit()));
+            // The unread count below already includes replayed notifications
+            missed.forEach(notification ->
+                    subscriber.sendNotification(notification.getId(), notificationMapper.toDTO(notification), false));
+        }
+        subscriber.send(NotificationPushHub.UNREAD_COUNT_EVENT,
+                UnreadCountDTO.builder().unreadCount(unreadCounterService.getUnreadCount(userId)).build());
+
+        return subscriber.getEmitter();
+    }
+
+    /**
+     * Push a notification once the current transaction commits
+     *
+     * @param notification Saved notification
+     */
+    public void notificationCreated(Notification notification) {
+        Long userId = notification.getUser().getId();
+        Object payload = notificationMapper.toDTO(notification);
+        afterCommit(() -> hub.publishNotification(userId, notification.getId(), payload, !notification.isRead()));
+    }
+
+    /**
+     * Push the notifications recently created for some users once the current transaction commits
+     *
+     * @param userIds IDs of the recipients
+     */
+    public void notificationsCreated(Collection<Long> userIds) {
+        List<Long> recipients = List.copyOf(userIds);
+        afterCommit(() -> catchUp(recipients, false));
+    }
+
+    /**
+     * Push a change of the unread count of a user once the current transaction commits
+     *
+     * @param userId User ID
+     * @param delta Change of the unread count
+     */
+    public void unreadCountChanged(Long userId, int delta) {
+        if (delta != 0) {
+            afterCommit(() -> hub.publish(userId, NotificationPushHub.UNREAD_COUNT_EVENT,
+                    UnreadCountDTO.builder().delta(delta).build()));
+        }
+    }
+
+    /**
+     * Catch up all streams on this node with notifications created on any node
+     */
+    @Scheduled(fixedDelayString = "${app.notification.push.sync-interval-ms:30000}")
+    public void syncConnectedUsers() {
+        try {
+            catchUp(hub.getConnectedUserIds(), true);
+        } catch (Exception e) {
+            log.error("Error synchronizing notification streams", e);
+        }
+    }
+
+    private void catchUp(List<Long> userIds, boolean withUnreadCounts) {
+        // Only users with a stream on this node
+        List<Long> connected = userIds.stream()
+                .filter(hub::isConnected)
+                .distinct()
+                .collect(Collectors.toList());
+        LocalDateTime since = LocalDateTime.now().minus(properties.getSyncLookback());
+
+        for (int from = 0; from < connected.size(); from += SYNC_CHUNK_SIZE) {
+            List<Long> chunk = connected.subList(from, Math.min(from + SYNC_CHUNK_SIZE, connected.size()));
+
+            for (Notification notification : notificationRepository.findByUserIdsCreatedSince(chunk, since)) {
+                hub.publishNotification(notification.getUser().getId(), notification.getId(),
+                        notificationMapper.toDTO(notification), !notification.isRead());
+            }
+
+            if (withUnreadCounts) {
+                Map<Long, Long> counts = new HashMap<>();
+                for (Object[] row : notificationRepository.countUnreadByUserIds(chunk)) {
+                    counts.put((Long) row[0], (Long) row[1]);
+                }
+                for (Long userId : chunk) {
+                    hub.publish(userId, NotificationPushHub.UNREAD_COUNT_EVENT,
+                            UnreadCountDTO.builder().unreadCount(counts.getOrDefault(userId, 0L)).build());
+                }
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    log.warn("Error pushing notification update: {}", e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -5,8 +5,11 @@ import com.example.lms.notification.model.NotificationPreference;
 import com.example.lms.notification.model.NotificationType;
 import com.example.lms.user.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,5 +21,13 @@ public interface NotificationPreferenceRepository extends JpaRepository<Notifica
     Optional<NotificationPreference> findByUserAndType(User user, NotificationType type);
     
     boolean existsByUserAndType(User user, NotificationType type);
+    
+    /**
+     * @return Rows of (user id, email enabled, in-app enabled) for the users that have a preference for the type
+     */
+    @Query("SELECT p.user.id, p.emailEnabled, p.inAppEnabled FROM NotificationPreference p " +
+           "WHERE p.type = :type AND p.user.id IN :userIds")
+    List<Object[]> findChannelsByTypeAndUserIds(@Param("type") NotificationType type,
+                                                @Param("userIds") Collection<Long> userIds);
 }
 
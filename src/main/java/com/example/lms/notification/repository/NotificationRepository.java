@@ -1,6 +1,8 @@
 package com.example.lms.notification.repository;
 
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,6 +13,7 @@ import com.example.lms.notification.model.Notification;
 import com.example.lms.notification.model.NotificationType;
 import com.example.lms.user.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -47,4 +50,110 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
         @Param("relatedEntityType") String relatedEntityType
     );
 
+    @Query("SELECT DISTINCT n.user.id FROM Notification n WHERE n.type = :type " +
+           "AND n.relatedEntityId = :relatedEntityId AND n.relatedEntityType = :relatedEntityType " +
+           "AND n.createdAt > :since AND n.user.id IN :userIds")
+    List<Long> findUserIdsWithSimilarNotificationsSince(
+        @Param("type") NotificationType type,
+        @Param("relatedEntityId") Long relatedEntityId,
+        @Param("relatedEntityType") String relatedEntityType,
+        @Param("since") LocalDateTime since,
+        @Param("userIds") Collection<Long> userIds
+    );
+
+    // Outbox: rows locked by another node are skipped, so several nodes can claim concurrently
+
+    @Query(value = "SELECT id FROM notifications WHERE sent = false " +
+           "ORDER BY priority DESC, created_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockUnsentIds(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.sent = true, n.sentAt = :now WHERE n.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT id FROM notifications WHERE sent = true AND email_sent = false AND email_failed = false " +
+           "AND (next_email_attempt_at IS NULL OR next_email_attempt_at <= :now) " +
+           "AND (email_claimed_until IS NULL OR email_claimed_until < :now) " +
+           "ORDER BY priority DESC, created_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimableEmailIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.emailClaimedUntil = :until WHERE n.id IN :ids")
+    int claimEmails(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user WHERE n.id IN :ids")
+    List<Notification> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.emailSent = true, n.emailSentAt = :now, n.emailClaimedUntil = null, " +
+           "n.emailLastError = null WHERE n.id = :id")
+    int markEmailSent(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.emailSent = true, n.emailClaimedUntil = null WHERE n.id IN :ids")
+    int markEmailSkipped(@Param("ids") Collection<Long> ids);
+
+    long countBySentFalse();
+
+    @Query("SELECT MIN(n.createdAt) FROM Notification n WHERE n.sent = false")
+    Optional<LocalDateTime> findOldestUnsentCreatedAt();
+
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.sent = true AND n.emailSent = false AND n.emailFailed = false")
+    long countPendingEmails();
+
+    @Query("SELECT MIN(n.createdAt) FROM Notification n WHERE n.sent = true AND n.emailSent = false AND n.emailFailed = false")
+    Optional<LocalDateTime> findOldestPendingEmailCreatedAt();
+
+    long countByEmailFailedTrue();
+
+    // Push: replay and catch-up of connected users
+
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.user.id = :userId")
+    Optional<Long> findMaxIdByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.id > :afterId ORDER BY n.id ASC")
+    List<Notification> findByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user WHERE n.user.id IN :userIds AND n.createdAt >= :since " +
+           "ORDER BY n.id ASC")
+    List<Notification> findByUserIdsCreatedSince(@Param("userIds") Collection<Long> userIds,
+                                                 @Param("since") LocalDateTime since);
+
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.read = false")
+    long countUnreadByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.user.id IN :userIds AND n.read = false GROUP BY n.user.id")
+    List<Object[]> countUnreadByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Bulk state changes
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.read = true, n.readAt = :now WHERE n.id = :id AND n.read = false")
+    int markRead(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.read = true, n.readAt = :now WHERE n.user.id = :userId AND n.read = false")
+    int markAllReadByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.read = true, n.readAt = :now " +
+           "WHERE n.user.id = :userId AND n.type = :type AND n.read = false")
+    int markAllReadByUserIdAndType(@Param("userId") Long userId, @Param("type") NotificationType type,
+                                   @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.read = true, n.readAt = :now WHERE n.user.id = :userId " +
+           "AND n.relatedEntityType = :relatedEntityType AND n.relatedEntityId = :relatedEntityId AND n.read = false")
+    int markAllReadByUserIdAndRelatedEntity(@Param("userId") Long userId,
+                                            @Param("relatedEntityType") String relatedEntityType,
+                                            @Param("relatedEntityId") Long relatedEntityId,
+                                            @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.user.id = :userId AND n.read = true AND n.createdAt < :before")
+    int deleteReadByUserIdCreatedBefore(@Param("userId") Long userId, @Param("before") LocalDateTime before);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.read = true AND n.createdAt < :before")
+    int deleteReadCreatedBefore(@Param("before") LocalDateTime before);
 }
@@ -0,0 +1,43 @@
+package com.example.lms.notification.repository;
+
+import com.example.lms.notification.model.UnreadNotificationCounter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UnreadNotificationCounterRepository extends JpaRepository<UnreadNotificationCounter, Long> {
+
+    Optional<UnreadNotificationCounter> findByUserId(Long userId);
+
+    /**
+     * Add to the counters of the given users; users without a counter are skipped
+     */
+    @Modifying
+    @Query("UPDATE UnreadNotificationCounter c SET c.unreadCount = " +
+           "CASE WHEN c.unreadCount + :delta < 0 THEN 0 ELSE c.unreadCount + :delta END " +
+           "WHERE c.userId IN :userIds")
+    int adjust(@Param("userIds") Collection<Long> userIds, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE UnreadNotificationCounter c SET c.unreadCount = :unreadCount, c.reconciledAt = :now " +
+           "WHERE c.userId = :userId")
+    int reconcile(@Param("userId") Long userId, @Param("unreadCount") long unreadCount, @Param("now") LocalDateTime now);
+
+    /**
+     * Lock counters not reconciled since the given time. Counters locked by a writer are skipped,
+     * so reconciliation never waits on notification traffic.
+     */
+    @Query(value = "SELECT user_id FROM notification_unread_counters " +
+           "WHERE reconciled_at IS NULL OR reconciled_at < :before " +
+           "ORDER BY reconciled_at NULLS FIRST LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockStaleUserIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
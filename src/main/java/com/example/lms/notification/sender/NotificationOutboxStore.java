@@ -0,0 +1,183 @@
+package com.example.lms.notification.sender;
+
+import com.example.lms.notification.model.Notification;
+import com.example.lms.notification.model.NotificationType;
+import com.example.lms.notification.repository.NotificationPreferenceRepository;
+import com.example.lms.notification.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Short transactions that claim and update outbox rows for the {@link NotificationSenderService}.
+ * Rows are locked with {@code FOR UPDATE SKIP LOCKED}, so nodes draining the outbox at the
+ * same time never claim the same row. Emails are sent outside these transactions.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxStore {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationPreferenceRepository preferenceRepository;
+
+    /**
+     * An email claimed by this node
+     */
+    public record EmailJob(Long notificationId, NotificationType type, String recipient, String userName,
+                           String title, String content, int attempt) {
+    }
+
+    /**
+     * Result of a claim: the number of claimed rows and the emails to send
+     */
+    public record EmailClaim(int claimed, List<EmailJob> jobs) {
+    }
+
+    /**
+     * Deliver a batch of unsent in-app notifications
+     *
+     * @param limit Maximum number of notifications
+     * @return Number of delivered notifications
+     */
+    @Transactional
+    public int deliverInApp(int limit) {
+        List<Long> ids = notificationRepository.lockUnsentIds(limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return notificationRepository.markSent(ids, LocalDateTime.now());
+    }
+
+    /**
+     * Claim a batch of emails that are due. Claimed rows are leased to this node; if the node
+     * dies before reporting a result, the rows become claimable again when the lease expires.
+     * Emails of users who disabled email for the notification type are marked as sent without
+     * being returned.
+     *
+     * @param limit Maximum number of emails
+     * @param lease How long the claimed rows stay reserved
+     * @return Claimed rows and the emails to send
+     */
+    @Transactional
+    public EmailClaim claimEmails(int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = notificationRepository.lockClaimableEmailIds(now, limit);
+        if (ids.isEmpty()) {
+            return new EmailClaim(0, List.of());
+        }
+        notificationRepository.claimEmails(ids, now.plus(lease));
+
+        List<Notification> notifications = notificationRepository.findAllWithUserByIdIn(ids);
+        Set<Long> emailDisabled = findEmailDisabled(notifications);
+
+        List<EmailJob> jobs = new ArrayList<>(notifications.size());
+        List<Long> skipped = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (emailDisabled.contains(notification.getId())) {
+                skipped.add(notification.getId());
+                continue;
+            }
+            jobs.add(new EmailJob(
+                    notification.getId(),
+                    notification.getType(),
+                    notification.getUser().getEmail(),
+                    notification.getUser().getFullName(),
+                    notification.getTitle(),
+                    notification.getContent(),
+                    notification.getEmailAttempts() + 1));
+        }
+        if (!skipped.isEmpty()) {
+            notificationRepository.markEmailSkipped(skipped);
+        }
+        return new EmailClaim(ids.size(), jobs);
+    }
+
+    /**
+     * Record a successfully sent email
+     *
+     * @param notificationId Notification ID
+     */
+    @Transactional
+    public void markEmailSent(Long notificationId) {
+        notificationRepository.markEmailSent(notificationId, LocalDateTime.now());
+    }
+
+    /**
+     * Record a failed attempt. The email is retried with exponential backoff until the
+     * maximum number of attempts is reached, after which it is marked as failed.
+     *
+     * @param notificationId Notification ID
+     * @param error Cause of the failure
+     * @param maxAttempts Maximum number of attempts
+     * @param baseDelay Delay before the first retry
+     * @param maxDelay Longest delay between retries
+     * @return {@code true} if the email will be retried
+     */
+    @Transactional
+    public boolean markEmailFailed(Long notificationId, Throwable error, int maxAttempts,
+                                   Duration baseDelay, Duration maxDelay) {
+        Notification notification = notificationRepository.findById(notificationId).orElse(null);
+        if (notification == null) {
+            return false;
+        }
+
+        int attempts = notification.getEmailAttempts() + 1;
+        notification.setEmailAttempts(attempts);
+        notification.setEmailClaimedUntil(null);
+        notification.setEmailLastError(truncate(String.valueOf(error.getMessage())));
+
+        boolean retry = attempts < maxAttempts;
+        if (retry) {
+            notification.setNextEmailAttemptAt(LocalDateTime.now().plus(backoff(attempts, baseDelay, maxDelay)));
+        } else {
+            notification.setEmailFailed(true);
+            notification.setNextEmailAttemptAt(null);
+        }
+        notificationRepository.save(notification);
+        return retry;
+    }
+
+    // Notifications whose user has email disabled for the type; a missing preference means enabled
+    private Set<Long> findEmailDisabled(List<Notification> notifications) {
+        Map<NotificationType, List<Notification>> byType = notifications.stream()
+                .collect(Collectors.groupingBy(Notification::getType));
+
+        Set<Long> disabled = new HashSet<>();
+        for (Map.Entry<NotificationType, List<Notification>> entry : byType.entrySet()) {
+            Map<Long, List<Long>> notificationIdsByUser = new HashMap<>();
+            for (Notification notification : entry.getValue()) {
+                notificationIdsByUser.computeIfAbsent(notification.getUser().getId(), id -> new ArrayList<>())
+                        .add(notification.getId());
+            }
+            for (Object[] row : preferenceRepository.findChannelsByTypeAndUserIds(entry.getKey(), notificationIdsByUser.keySet())) {
+                if (!(Boolean) row[1]) {
+                    disabled.addAll(notificationIdsByUser.get((Long) row[0]));
+                }
+            }
+        }
+        return disabled;
+    }
+
+    private Duration backoff(int attempts, Duration baseDelay, Duration maxDelay) {
+        Duration delay = baseDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
+    }
+
+    private String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -1,110 +1,239 @@
 package com.example.lms.notification.sender;
 
-import com.example.lms.notification.model.Notification;
-import com.example.lms.notification.model.NotificationPreference;
+import com.example.lms.notification.config.NotificationOutboxProperties;
+import com.example.lms.notification.dto.NotificationOutboxMetricsDTO;
 import com.example.lms.notification.repository.NotificationRepository;
+import com.example.lms.notification.sender.NotificationOutboxStore.EmailClaim;
+import com.example.lms.notification.sender.NotificationOutboxStore.EmailJob;
 import com.example.lms.notification.service.EmailService;
-import com.example.lms.notification.service.NotificationPreferenceService;
 import com.example.lms.notification.service.NotificationTemplateService;
-import com.example.lms.user.model.User;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Outbox dispatcher for notifications.
+ *
+ * Every node runs the dispatcher. Rows are claimed with {@code SKIP LOCKED}, so nodes drain
+ * the outbox concurrently without claiming the same row twice. Each run keeps claiming while
+ * batches come back full, doubling the batch size up to the configured maximum, and falls
+ * back to the minimum once the backlog is drained. Emails are sent by a bounded worker pool
+ * outside any transaction; failures are retried with exponential backoff.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class NotificationSenderService {
-    
+
+    private final NotificationOutboxStore outboxStore;
     private final NotificationRepository notificationRepository;
     private final NotificationTemplateService templateService;
-    private final NotificationPreferenceService preferenceService;
     private final EmailService emailService;
-    
+    private final NotificationOutboxProperties properties;
+    private final ThreadPoolTaskExecutor emailExecutor;
+
+    private final AtomicInteger inAppBatchSize;
+    private final AtomicInteger emailBatchSize;
+    private final AtomicInteger emailsInFlight = new AtomicInteger();
+
+    private final long startedAt = System.nanoTime();
+    private final AtomicLong inAppDelivered = new AtomicLong();
+    private final AtomicLong emailsClaimed = new AtomicLong();
+    private final AtomicLong emailsSent = new AtomicLong();
+    private final AtomicLong emailsSkipped = new AtomicLong();
+    private final AtomicLong emailsRetried = new AtomicLong();
+    private final AtomicLong emailsFailed = new AtomicLong();
+
+    public NotificationSenderService(NotificationOutboxStore outboxStore,
+                                     NotificationRepository notificationRepository,
+                                     NotificationTemplateService templateService,
+                                     EmailService emailService,
+                                     NotificationOutboxProperties properties) {
+        this.outboxStore = outboxStore;
+        this.notificationRepository = notificationRepository;
+        this.templateService = templateService;
+        this.emailService = emailService;
+        this.properties = properties;
+        this.inAppBatchSize = new AtomicInteger(properties.getMinBatchSize());
+        this.emailBatchSize = new AtomicInteger(properties.getMinBatchSize());
+
+        // Owned by the dispatcher rather than registered as a bean, so it does not replace
+        // the executor used by @Async methods
+        this.emailExecutor = new ThreadPoolTaskExecutor();
+        this.emailExecutor.setCorePoolSize(properties.getEmailWorkers());
+        this.emailExecutor.setMaxPoolSize(properties.getEmailWorkers());
+        this.emailExecutor.setQueueCapacity(properties.getEmailQueueCapacity());
+        this.emailExecutor.setThreadNamePrefix("notification-email-");
+        this.emailExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        this.emailExecutor.setAwaitTerminationSeconds(30);
+        this.emailExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        emailExecutor.shutdown();
+    }
 
-    private final int defaultBatchSize = 25;     
     /**
-     * Process unsent in-app notifications
-     * Runs every minute
+     * Deliver unsent in-app notifications
      */
-    @Scheduled(fixedRate = 60000)
-    @Transactional
+    @Scheduled(fixedDelayString = "${app.notification.outbox.in-app-interval-ms:5000}")
     public void processUnsentNotifications() {
-        Pageable pageable = PageRequest.of(0, defaultBatchSize);
-        List<Notification> unsent = notificationRepository.findBySentFalseOrderByPriorityDescCreatedAtAsc(pageable);
-        
-        for (Notification notification : unsent) {
-            try {
-                // Mark as sent (in-app delivery)
-                notification.setSent(true);
-                notification.setSentAt(LocalDateTime.now());
-                notificationRepository.save(notification);
-                
-                log.debug("Processed in-app notification ID: {}", notification.getId());
-            } catch (Exception e) {
-                log.error("Error processing notification ID: " + notification.getId(), e);
-            }
+        long deadline = System.nanoTime() + properties.getMaxDrainTime().toNanos();
+        try {
+            int batchSize;
+            int delivered;
+            do {
+                batchSize = inAppBatchSize.get();
+                delivered = outboxStore.deliverInApp(batchSize);
+                inAppDelivered.addAndGet(delivered);
+                inAppBatchSize.set(nextBatchSize(batchSize, delivered));
+            } while (delivered == batchSize && System.nanoTime() < deadline);
+        } catch (Exception e) {
+            log.error("Error delivering in-app notifications", e);
         }
     }
-    
+
     /**
-     * Process unsent email notifications
-     * Runs every 5 minutes
+     * Claim due emails and hand them to the email workers. No more emails are claimed than
+     * the workers can queue, so claimed rows do not sit in memory while their lease runs out.
      */
-    @Scheduled(fixedRate = 300000)
-    @Transactional
+    @Scheduled(fixedDelayString = "${app.notification.outbox.email-interval-ms:10000}")
     public void processUnsentEmailNotifications() {
-        Pageable pageable = PageRequest.of(0, defaultBatchSize);
-        List<Notification> unsentEmails = notificationRepository
-                .findByEmailSentFalseAndSentTrueOrderByPriorityDescCreatedAtAsc(pageable);
-        
-        for (Notification notification : unsentEmails) {
-            try {
-                User user = notification.getUser();
-                NotificationPreference preference = 
-                        preferenceService.getOrCreatePreference(user.getId(), notification.getType());
-                
-                // Only send email if user has enabled email notifications for this type
-                if (preference.isEmailEnabled()) {
-                    // Create email data
-                    Map<String, Object> emailData = new HashMap<>();
-                    emailData.put("userName", user.getFullName());
-                    emailData.put("notificationTitle", notification.getTitle());
-                    emailData.put("notificationContent", notification.getContent());
-                    emailData.put("notificationType", notification.getType().getDisplayName());
-                    
-                    // Process email content with template
-                    String emailSubject = templateService.processSubject(notification.getType(), emailData);
-                    String emailContent = templateService.processTemplate(
-                            notification.getType(), emailData, "email");
-                    
-                    // Send email
-                    emailService.sendHtmlEmail(user.getEmail(), emailSubject, emailContent);
-                    
-                    // Mark as email sent
-                    notification.setEmailSent(true);
-                    notification.setEmailSentAt(LocalDateTime.now());
-                    notificationRepository.save(notification);
-                    
-                    log.debug("Sent email notification ID: {} to user: {}", 
-                            notification.getId(), user.getId());
-                } else {
-                    // If email is disabled, mark as sent anyway
-                    notification.setEmailSent(true);
-                    notificationRepository.save(notification);
+        long deadline = System.nanoTime() + properties.getMaxDrainTime().toNanos();
+        int capacity = properties.getEmailWorkers() + properties.getEmailQueueCapacity();
+        try {
+            while (System.nanoTime() < deadline) {
+                int available = capacity - emailsInFlight.get();
+                if (available <= 0) {
+                    break;
+                }
+
+                int batchSize = emailBatchSize.get();
+                int limit = Math.min(batchSize, available);
+                EmailClaim claim = outboxStore.claimEmails(limit, properties.getClaimLease());
+                emailsClaimed.addAndGet(claim.claimed());
+                emailsSkipped.addAndGet(claim.claimed() - claim.jobs().size());
+                claim.jobs().forEach(this::submit);
+
+                if (claim.claimed() < limit) {
+                    emailBatchSize.set(properties.getMinBatchSize());
+                    break;
+                }
+                if (limit == batchSize) {
+                    emailBatchSize.set(nextBatchSize(batchSize, claim.claimed()));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error claiming email notifications", e);
+        }
+    }
+
+    /**
+     * Get the throughput and lag of the outbox
+     */
+    public NotificationOutboxMetricsDTO getMetrics() {
+        LocalDateTime now = LocalDateTime.now();
+        double uptimeSeconds = Math.max(1.0, (System.nanoTime() - startedAt) / 1_000_000_000.0);
+
+        return NotificationOutboxMetricsDTO.builder()
+                .uptimeSeconds((long) uptimeSeconds)
+                .inAppDelivered(inAppDelivered.get())
+                .inAppPerSecond(inAppDelivered.get() / uptimeSeconds)
+                .inAppBatchSize(inAppBatchSize.get())
+                .pendingInApp(notificationRepository.countBySentFalse())
+                .inAppLagSeconds(notificationRepository.findOldestUnsentCreatedAt()
+                        .map(oldest -> Duration.between(oldest, now).toSeconds())
+                        .orElse(0L))
+                .emailsClaimed(emailsClaimed.get())
+                .emailsSent(emailsSent.get())
+                .emailsSkipped(emailsSkipped.get())
+                .emailsRetried(emailsRetried.get())
+                .emailsFailed(emailsFailed.get())
+                .emailsPerSecond(emailsSent.get() / uptimeSeconds)
+                .emailBatchSize(emailBatchSize.get())
+                .emailsInFlight(emailsInFlight.get())
+                .pendingEmails(notificationRepository.countPendingEmails())
+                .failedEmails(notificationRepository.countByEmailFailedTrue())
+                .emailLagSeconds(notificationRepository.findOldestPendingEmailCreatedAt()
+                        .map(oldest -> Duration.between(oldest, now).toSeconds())
+                        .orElse(0L))
+                .build();
+    }
+
+    private void submit(EmailJob job) {
+        emailsInFlight.incrementAndGet();
+        try {
+            emailExecutor.execute(() -> {
+                try {
+                    send(job);
+                } finally {
+                    emailsInFlight.decrementAndGet();
                 }
-            } catch (Exception e) {
-                log.error("Error sending email notification ID: " + notification.getId(), e);
+            });
+        } catch (TaskRejectedException e) {
+            // Only happens on shutdown; the row is claimed again when its lease expires
+            emailsInFlight.decrementAndGet();
+            log.warn("Email notification ID: {} was not queued: {}", job.notificationId(), e.getMessage());
+        }
+    }
+
+    private void send(EmailJob job) {
+        try {
+            Map<String, Object> emailData = new HashMap<>();
+            emailData.put("userName", job.userName());
+            emailData.put("notificationTitle", job.title());
+            emailData.put("notificationContent", job.content());
+            emailData.put("notificationType", job.type().getDisplayName());
+
+            String emailSubject = templateService.processSubject(job.type(), emailData);
+            String emailContent = templateService.processTemplate(job.type(), emailData, "email");
+            if (emailSubject == null || emailContent == null) {
+                throw new IllegalStateException("No email template for notification type: " + job.type());
             }
+
+            emailService.deliverHtmlEmail(job.recipient(), emailSubject, emailContent);
+            outboxStore.markEmailSent(job.notificationId());
+            emailsSent.incrementAndGet();
+            log.debug("Sent email notification ID: {} (attempt {})", job.notificationId(), job.attempt());
+        } catch (Exception e) {
+            recordFailure(job, e);
+        }
+    }
+
+    private void recordFailure(EmailJob job, Exception error) {
+        try {
+            boolean retry = outboxStore.markEmailFailed(job.notificationId(), error,
+                    properties.getMaxEmailAttempts(), properties.getRetryBaseDelay(), properties.getRetryMaxDelay());
+            if (retry) {
+                emailsRetried.incrementAndGet();
+                log.warn("Email notification ID: {} failed on attempt {}, will retry: {}",
+                        job.notificationId(), job.attempt(), error.getMessage());
+            } else {
+                emailsFailed.incrementAndGet();
+                log.error("Email notification ID: " + job.notificationId() + " failed after "
+                        + job.attempt() + " attempts", error);
+            }
+        } catch (Exception e) {
+            // The row is claimed again when its lease expires
+            log.error("Error recording failure of email notification ID: " + job.notificationId(), e);
+        }
+    }
+
+    // Double the batch while batches come back full, otherwise return to the minimum
+    private int nextBatchSize(int batchSize, int claimed) {
+        if (claimed < batchSize) {
+            return properties.getMinBatchSize();
         }
+        return Math.min(batchSize * 2, properties.getMaxBatchSize());
     }
-}
\ No newline at end of file
+}
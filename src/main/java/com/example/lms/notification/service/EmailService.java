@@ -76,6 +76,28 @@ public class EmailService {
         }
     }
     
+    /**
+     * Send an HTML email on the calling thread. Unlike {@link #sendHtmlEmail}, failures are
+     * thrown to the caller so it can retry.
+     */
+    public void deliverHtmlEmail(String to, String subject, String htmlContent) throws MessagingException {
+        if (!emailEnabled) {
+            log.info("Email sending is disabled. Would send HTML email to: {}, subject: {}", to, subject);
+            return;
+        }
+        
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setFrom(fromEmail);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(htmlContent, true);
+        
+        mailSender.send(message);
+        log.debug("HTML email sent to: {}, subject: {}", to, subject);
+    }
+    
     /**
      * Send an HTML email with attachments
      */
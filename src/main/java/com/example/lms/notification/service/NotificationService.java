@@ -1,5 +1,6 @@
 package com.example.lms.notification.service;
 
+import com.example.lms.notification.dto.NotificationFanOutResult;
 import com.example.lms.notification.model.Notification;
 import com.example.lms.notification.model.NotificationType;
 import com.example.lms.user.model.User;
@@ -18,8 +19,10 @@ public interface NotificationService {
     
     /**
      * Create notifications for multiple users
+     *
+     * @return Number of notifications created and skipped, per channel
      */
-    List<Notification> createNotificationsForUsers(NotificationType type, List<User> users,
+    NotificationFanOutResult createNotificationsForUsers(NotificationType type, List<User> users,
                                                  String title, String content,
                                                  Long relatedEntityId, String relatedEntityType,
                                                  Map<String, Object> data);
@@ -31,8 +34,38 @@ public interface NotificationService {
     
     /**
      * Mark all notifications as read for a user
+     *
+     * @return Number of notifications marked as read
      */
-    void markAllAsRead(Long userId);
+    int markAllAsRead(Long userId);
+    
+    /**
+     * Mark all notifications of a type as read for a user
+     *
+     * @return Number of notifications marked as read
+     */
+    int markAllAsReadByType(Long userId, NotificationType type);
+    
+    /**
+     * Mark all notifications about an entity as read for a user
+     *
+     * @return Number of notifications marked as read
+     */
+    int markAllAsReadByRelatedEntity(Long userId, String relatedEntityType, Long relatedEntityId);
+    
+    /**
+     * Delete the read notifications of a user created more than the given number of days ago
+     *
+     * @return Number of deleted notifications
+     */
+    int deleteReadNotifications(Long userId, int olderThanDays);
+    
+    /**
+     * Delete the read notifications of all users created more than the given number of days ago
+     *
+     * @return Number of deleted notifications
+     */
+    int deleteAllReadNotifications(int olderThanDays);
     
     /**
      * Get unread notifications for a user
@@ -1,9 +1,9 @@
 package com.example.lms.notification.service;
 
-import com.example.lms.common.Exception.ResourceNotFoundException;
 import com.example.lms.notification.model.NotificationTemplate;
 import com.example.lms.notification.model.NotificationType;
 import com.example.lms.notification.repository.NotificationTemplateRepository;
+import com.example.lms.notification.template.CompiledTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -26,23 +26,34 @@ public class NotificationTemplateService {
     private final NotificationTemplateRepository templateRepository;
     private final TemplateEngine templateEngine;
     
-    // Template cache for better performance
-    private final Map<NotificationType, NotificationTemplate> templateCache = new ConcurrentHashMap<>();
+    private static final String EMAIL_TEMPLATE_PREFIX = "email/";
+    
+    // Template cache for better performance; types without a template are cached as well
+    private final Map<NotificationType, CachedTemplate> templateCache = new ConcurrentHashMap<>();
+    
+    /**
+     * A template with its subject and in-app text parsed once; parts the template lacks are {@code null}
+     */
+    private record CachedTemplate(NotificationTemplate template, CompiledTemplate subject,
+                                  CompiledTemplate inApp, String emailView) {
+        
+        static final CachedTemplate MISSING = new CachedTemplate(null, null, null, null);
+        
+        static CachedTemplate of(NotificationTemplate template) {
+            return new CachedTemplate(
+                    template,
+                    CompiledTemplate.compile(template.getSubject()),
+                    CompiledTemplate.compile(template.getInAppTemplate()),
+                    emailViewName(template.getEmailTemplateName()));
+        }
+    }
     
     /**
      * Get template by notification type with caching
      */
     @Transactional(readOnly = true)
     public NotificationTemplate getTemplateByType(NotificationType type) {
-        return templateCache.computeIfAbsent(type, t -> {
-            try {
-                return templateRepository.findByTypeAndActiveTrue(t)
-                    .orElseThrow(() -> new ResourceNotFoundException("Template not found for type: " + t));
-            } catch (ResourceNotFoundException e) {
-                log.warn("Template not found for type: {}. Using default handling.", type);
-                return null;
-            }
-        });
+        return getCachedTemplate(type).template();
     }
     
     /**
@@ -50,25 +61,22 @@ public class NotificationTemplateService {
      */
     public String processTemplate(NotificationType type, Map<String, Object> placeholders, String templateType) {
         try {
-            NotificationTemplate template = getTemplateByType(type);
+            CachedTemplate cached = getCachedTemplate(type);
             
-            if (template == null) {
+            if (cached.template() == null) {
                 return null;
             }
             
             if ("email".equalsIgnoreCase(templateType)) {
-                // Use Thymeleaf for email templates
-                Context context = new Context(Locale.getDefault());
-                
-                // Add all placeholders to the context
-                placeholders.forEach(context::setVariable);
-                
-                // Process the template with Thymeleaf
-                return templateEngine.process("email/" + template.getEmailTemplateName(), context);
+                if (cached.emailView() == null) {
+                    return null;
+                }
+                // Use Thymeleaf for email templates; the engine caches the parsed template
+                Context context = new Context(Locale.getDefault(), placeholders);
+                return templateEngine.process(cached.emailView(), context);
             } else {
                 // For in-app notifications, use the stored template string
-                String templateContent = template.getInAppTemplate();
-                return replacePlaceholders(templateContent, placeholders);
+                return cached.inApp() == null ? null : cached.inApp().render(placeholders);
             }
         } catch (Exception e) {
             log.error("Error processing template for type: " + type, e);
@@ -81,43 +89,43 @@ public class NotificationTemplateService {
      */
     public String processSubject(NotificationType type, Map<String, Object> placeholders) {
         try {
-            NotificationTemplate template = getTemplateByType(type);
+            CachedTemplate cached = getCachedTemplate(type);
             
-            if (template == null) {
+            if (cached.template() == null || cached.subject() == null) {
                 return null;
             }
             
-            return replacePlaceholders(template.getSubject(), placeholders);
+            return cached.subject().render(placeholders);
         } catch (Exception e) {
             log.error("Error processing subject for type: " + type, e);
             return null;
         }
     }
     
-    /**
-     * Replace placeholders in a template
-     */
-    private String replacePlaceholders(String template, Map<String, Object> placeholders) {
-        String processed = template;
-        
-        for (Map.Entry<String, Object> entry : placeholders.entrySet()) {
-            String placeholder = "{{" + entry.getKey() + "}}";
-            String value = entry.getValue() != null ? entry.getValue().toString() : "";
-            processed = processed.replace(placeholder, value);
-        }
-        
-        return processed;
-    }
-    
     /**
      * Refresh template cache (scheduled or manually triggered)
      */
     @Transactional
     public void refreshTemplateCache() {
         templateCache.clear();
+        templateEngine.clearTemplateCache();
         log.debug("Notification template cache cleared");
     }
     
+    private CachedTemplate getCachedTemplate(NotificationType type) {
+        return templateCache.computeIfAbsent(type, t -> templateRepository.findByTypeAndActiveTrue(t)
+                .map(CachedTemplate::of)
+                .orElseGet(() -> {
+                    log.warn("Template not found for type: {}. Using default handling.", t);
+                    return CachedTemplate.MISSING;
+                }));
+    }
+    
+    // A template without an email part only renders in-app
+    private static String emailViewName(String emailTemplateName) {
+        return emailTemplateName == null ? null : EMAIL_TEMPLATE_PREFIX + emailTemplateName;
+    }
+    
     /**
      * Initialize default templates
      */
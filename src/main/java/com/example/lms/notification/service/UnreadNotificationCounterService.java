@@ -0,0 +1,210 @@
+package com.example.lms.notification.service;
+
+import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.example.lms.notification.model.UnreadNotificationCounter;
+import com.example.lms.notification.repository.NotificationRepository;
+import com.example.lms.notification.repository.UnreadNotificationCounterRepository;
+import com.example.lms.user.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains the unread notification count of each user.
+ *
+ * Counts are kept in {@link UnreadNotificationCounter} rows, updated in the same transaction
+ * as the notification change, and served from an in-memory cache adjusted after commit.
+ * Cached counts expire quickly so changes made on other nodes show up, and counters are
+ * periodically reconciled against the notifications table to correct any drift.
+ */
+@Service
+@Slf4j
+public class UnreadNotificationCounterService {
+
+    public static final String CACHE_NAME = "unreadNotificationCounts";
+
+    private static final int QUERY_CHUNK_SIZE = 1000;
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final UnreadNotificationCounterRepository counterRepository;
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate newTransaction;
+
+    @Value("${app.notification.unread-counters.reconcile-after:PT1H}")
+    private Duration reconcileAfter;
+
+    public UnreadNotificationCounterService(UnreadNotificationCounterRepository counterRepository,
+                                            NotificationRepository notificationRepository,
+                                            UserRepository userRepository,
+                                            CacheManager cacheManager,
+                                            PlatformTransactionManager transactionManager) {
+        this.counterRepository = counterRepository;
+        this.notificationRepository = notificationRepository;
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Get the unread notification count of a user, creating the counter on first use
+     *
+     * @param userId User ID
+     * @return Unread count
+     * @throws ResourceNotFoundException if the user does not exist
+     */
+    public long getUnreadCount(Long userId) {
+        try {
+            return getCache().get(userId, () -> new AtomicLong(load(userId))).get();
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Count a new unread notification for each of the given users
+     *
+     * @param userIds User IDs
+     */
+    @Transactional
+    public void increment(Collection<Long> userIds) {
+        adjustAll(userIds, 1);
+    }
+
+    /**
+     * Change the unread count of a user
+     *
+     * @param userId User ID
+     * @param delta Change of the count
+     */
+    @Transactional
+    public void adjust(Long userId, long delta) {
+        adjustAll(List.of(userId), delta);
+    }
+
+    /**
+     * Recompute counters that were not reconciled recently
+     */
+    @Scheduled(fixedDelayString = "${app.notification.unread-counters.reconcile-interval-ms:300000}")
+    public void reconcileStaleCounters() {
+        try {
+            int reconciled;
+            do {
+                reconciled = newTransaction.execute(status -> reconcileBatch());
+            } while (reconciled == RECONCILE_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Error reconciling unread notification counters", e);
+        }
+    }
+
+    private int reconcileBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        // Lock the counters first so writers committing meanwhile apply their change on top
+        List<Long> userIds = counterRepository.lockStaleUserIds(now.minus(reconcileAfter), RECONCILE_BATCH_SIZE);
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : notificationRepository.countUnreadByUserIds(userIds)) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        for (Long userId : userIds) {
+            counterRepository.reconcile(userId, counts.getOrDefault(userId, 0L), now);
+        }
+
+        afterCommit(() -> userIds.forEach(getCache()::evict));
+        log.debug("Reconciled {} unread notification counters", userIds.size());
+        return userIds.size();
+    }
+
+    private void adjustAll(Collection<Long> userIds, long delta) {
+        if (userIds.isEmpty() || delta == 0) {
+            return;
+        }
+        List<Long> ids = List.copyOf(userIds);
+        for (int from = 0; from < ids.size(); from += QUERY_CHUNK_SIZE) {
+            counterRepository.adjust(ids.subList(from, Math.min(from + QUERY_CHUNK_SIZE, ids.size())), delta);
+        }
+
+        afterCommit(() -> {
+            Cache cache = getCache();
+            for (Long userId : ids) {
+                AtomicLong cached = cache.get(userId, AtomicLong.class);
+                if (cached != null) {
+                    cached.updateAndGet(count -> Math.max(0, count + delta));
+                }
+            }
+        });
+    }
+
+    private long load(Long userId) {
+        return counterRepository.findByUserId(userId)
+                .map(UnreadNotificationCounter::getUnreadCount)
+                .orElseGet(() -> create(userId));
+    }
+
+    // Create a missing counter from the true count in its own transaction, so a concurrent
+    // creation by another request only fails this attempt. The counter is left unreconciled:
+    // changes committed while it is created are not counted until the next reconciliation.
+    private long create(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        try {
+            return newTransaction.execute(status -> {
+                long unreadCount = notificationRepository.countUnreadByUserId(userId);
+                counterRepository.save(UnreadNotificationCounter.builder()
+                        .userId(userId)
+                        .unreadCount(unreadCount)
+                        .build());
+                return unreadCount;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Unread counter for user {} was created concurrently", userId);
+            return counterRepository.findByUserId(userId)
+                    .map(UnreadNotificationCounter::getUnreadCount)
+                    .orElse(0L);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Cache getCache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+}
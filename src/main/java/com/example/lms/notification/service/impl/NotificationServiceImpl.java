@@ -1,11 +1,14 @@
 package com.example.lms.notification.service.impl;
 
 import com.example.lms.common.Exception.ResourceNotFoundException;
+import com.example.lms.notification.dto.NotificationFanOutResult;
 import com.example.lms.notification.factory.NotificationFactory;
 import com.example.lms.notification.model.Notification;
 import com.example.lms.notification.model.NotificationType;
+import com.example.lms.notification.push.NotificationPushService;
 import com.example.lms.notification.repository.NotificationRepository;
 import com.example.lms.notification.service.NotificationService;
+import com.example.lms.notification.service.UnreadNotificationCounterService;
 import com.example.lms.user.model.User;
 import com.example.lms.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +32,8 @@ public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final NotificationFactory notificationFactory;
+    private final NotificationPushService pushService;
+    private final UnreadNotificationCounterService unreadCounterService;
 
     @Override
     @Transactional
@@ -40,7 +45,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     @Transactional
-    public List<Notification> createNotificationsForUsers(NotificationType type, List<User> users,
+    public NotificationFanOutResult createNotificationsForUsers(NotificationType type, List<User> users,
                                                         String title, String content,
                                                         Long relatedEntityId, String relatedEntityType,
                                                         Map<String, Object> data) {
@@ -51,30 +56,63 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     @Transactional
     public Notification markAsRead(Long notificationId) {
+        // Conditional update, so concurrent read requests count the notification only once
+        int changed = notificationRepository.markRead(notificationId, LocalDateTime.now());
+        
         Notification notification = notificationRepository.findById(notificationId).orElseThrow(() ->
                 new ResourceNotFoundException("Notification not found with id: " + notificationId)
         );
         
-        notification.setRead(true);
-        notification.setReadAt(LocalDateTime.now());
+        if (changed > 0) {
+            unreadCountChanged(notification.getUser().getId(), -changed);
+        }
         
-        return notificationRepository.save(notification);
+        return notification;
     }
 
     @Override
     @Transactional
-    public void markAllAsRead(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-        
-        List<Notification> unreadNotifications = notificationRepository.findByUserAndReadFalseOrderByCreatedAtDesc(user);
-        
-        for (Notification notification : unreadNotifications) {
-            notification.setRead(true);
-            notification.setReadAt(LocalDateTime.now());
-        }
-        
-        notificationRepository.saveAll(unreadNotifications);
+    public int markAllAsRead(Long userId) {
+        int changed = notificationRepository.markAllReadByUserId(userId, LocalDateTime.now());
+        unreadCountChanged(userId, -changed);
+        return changed;
+    }
+
+    @Override
+    @Transactional
+    public int markAllAsReadByType(Long userId, NotificationType type) {
+        int changed = notificationRepository.markAllReadByUserIdAndType(userId, type, LocalDateTime.now());
+        unreadCountChanged(userId, -changed);
+        return changed;
+    }
+
+    @Override
+    @Transactional
+    public int markAllAsReadByRelatedEntity(Long userId, String relatedEntityType, Long relatedEntityId) {
+        int changed = notificationRepository.markAllReadByUserIdAndRelatedEntity(
+                userId, relatedEntityType, relatedEntityId, LocalDateTime.now());
+        unreadCountChanged(userId, -changed);
+        return changed;
+    }
+
+    @Override
+    @Transactional
+    public int deleteReadNotifications(Long userId, int olderThanDays) {
+        validateRetention(olderThanDays);
+        // Only read notifications are deleted, so unread counts are unaffected
+        int deleted = notificationRepository.deleteReadByUserIdCreatedBefore(
+                userId, LocalDateTime.now().minusDays(olderThanDays));
+        log.debug("Deleted {} read notifications of user {}", deleted, userId);
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public int deleteAllReadNotifications(int olderThanDays) {
+        validateRetention(olderThanDays);
+        int deleted = notificationRepository.deleteReadCreatedBefore(LocalDateTime.now().minusDays(olderThanDays));
+        log.info("Deleted {} read notifications older than {} days", deleted, olderThanDays);
+        return deleted;
     }
 
     @Override
@@ -97,21 +135,36 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public long getUnreadNotificationCount(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-        
-        return notificationRepository.countByUserAndReadFalse(user);
+        // Served from the maintained counter; no transaction is needed on a cache hit
+        return unreadCounterService.getUnreadCount(userId);
     }
 
     @Override
     @Transactional
     public void deleteNotification(Long notificationId) {
-        if (!notificationRepository.existsById(notificationId)) {
-            throw new ResourceNotFoundException("Notification not found with id: " + notificationId);
+        Notification notification = notificationRepository.findById(notificationId).orElseThrow(() ->
+                new ResourceNotFoundException("Notification not found with id: " + notificationId)
+        );
+        
+        if (!notification.isRead()) {
+            unreadCountChanged(notification.getUser().getId(), -1);
         }
         
-        notificationRepository.deleteById(notificationId);
+        notificationRepository.delete(notification);
+    }
+
+    private void validateRetention(int olderThanDays) {
+        if (olderThanDays < 1) {
+            throw new IllegalArgumentException("olderThanDays must be at least 1");
+        }
+    }
+
+    // Keep the unread counter and the user's open streams in step with a committed change
+    private void unreadCountChanged(Long userId, int delta) {
+        if (delta != 0) {
+            unreadCounterService.adjust(userId, delta);
+            pushService.unreadCountChanged(userId, delta);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.example.lms.notification.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@code {{name}}} template parsed once into literal text and placeholder names.
+ *
+ * Segments alternate between literals and placeholders: {@code literals[i]} is followed by
+ * {@code names[i]}, and the last literal has no placeholder after it. Rendering copies the
+ * segments into one pre-sized buffer instead of scanning the whole template per placeholder.
+ * Placeholders without a value in the map are kept as written, as are unterminated {@code {{}.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    // Room reserved per placeholder when sizing the buffer
+    private static final int VALUE_SIZE_ESTIMATE = 16;
+
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse a template
+     *
+     * @param template Template text, may be {@code null}
+     * @return Compiled template, or {@code null} if the template is {@code null}
+     */
+    public static CompiledTemplate compile(String template) {
+        if (template == null) {
+            return null;
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < template.length()) {
+            int open = template.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : template.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                break;
+            }
+            // Use the opening braces nearest to the closing ones, as in "{{a {{b}}"
+            open = template.lastIndexOf(OPEN, close - OPEN.length());
+            literal.append(template, position, open);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            names.add(template.substring(open + OPEN.length(), close));
+            position = close + CLOSE.length();
+        }
+        literal.append(template, position, template.length());
+        literals.add(literal.toString());
+
+        return new CompiledTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    /**
+     * Render the template in a single pass
+     *
+     * @param values Placeholder values by name; {@code null} values render as empty text
+     * @return Rendered text
+     */
+    public String render(Map<String, ?> values) {
+        if (names.length == 0) {
+            return literals[0];
+        }
+
+        StringBuilder out = new StringBuilder(literalLength + names.length * VALUE_SIZE_ESTIMATE);
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]);
+            String name = names[i];
+            if (values.containsKey(name)) {
+                Object value = values.get(name);
+                if (value != null) {
+                    out.append(value);
+                }
+            } else {
+                out.append(OPEN).append(name).append(CLOSE);
+            }
+        }
+        out.append(literals[names.length]);
+        return out.toString();
+    }
+
+    /**
+     * @return Names of the placeholders in order of appearance, including repeats
+     */
+    public List<String> getPlaceholderNames() {
+        return List.of(names);
+    }
+}
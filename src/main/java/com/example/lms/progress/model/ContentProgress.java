@@ -9,7 +9,9 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "content_progress")
+@Table(name = "content_progress", indexes = {
+        @Index(name = "idx_content_progress_last_updated", columnList = "last_updated")
+})
 @Getter
 @Setter
 public class ContentProgress {
@@ -16,6 +16,9 @@ public interface ProgressRepository extends JpaRepository<Progress, Long> {
 
     List<Progress> findByStudentId(Long studentId);
 
+    @Query("SELECT p.course.id, p.progress FROM Progress p WHERE p.student.id = :studentId")
+    List<Object[]> findCourseProgressByStudentId(@Param("studentId") Long studentId);
+
     @Query("SELECT AVG(p.progress) FROM Progress p WHERE p.student.id = :studentId")
     Double calculateAverageProgressForStudent(@Param("studentId") Long studentId);
 
@@ -3,6 +3,7 @@ package com.example.lms.progress.service;
 import com.example.lms.common.Exception.ResourceNotFoundException;
 import com.example.lms.course.model.Course;
 import com.example.lms.course.repository.CourseRepository;
+import com.example.lms.course.service.CourseStatisticsEngine;
 import com.example.lms.progress.dto.DashboardDTO;
 import com.example.lms.progress.dto.ProgressDTO;
 import com.example.lms.progress.model.Progress;
@@ -13,11 +14,18 @@ import com.example.lms.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Optional;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +36,8 @@ public class ProgressService {
     private final UserRepository userRepository;
     private final CourseRepository courseRepository;
     private final ProgressAssembler progressAssembler;
+    private final CourseStatisticsEngine courseStatisticsEngine;
+    private final CacheManager cacheManager;
 
     @Transactional
     public ProgressDTO updateProgress(Long studentId, Long courseId, Double progress) {
@@ -47,6 +57,8 @@ public class ProgressService {
         existingProgress.setLastUpdated(LocalDateTime.now());
 
         Progress savedProgress = progressRepository.save(existingProgress);
+        evictProgressSnapshot(studentId);
+        courseStatisticsEngine.invalidate(courseId);
         return progressAssembler.toDTO(savedProgress);
     }
 
@@ -81,6 +93,26 @@ public class ProgressService {
                 .orElse(0.0);
     }
 
+    // Evicted once the change commits, so a concurrent read cannot cache the old progress again
+    private void evictProgressSnapshot(Long studentId) {
+        Runnable evict = () -> {
+            Cache cache = cacheManager.getCache("courseProgressSnapshots");
+            if (cache != null) {
+                cache.evict(studentId);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
+
     private void validateProgress(Double progress) {
         if (progress == null || progress < 0 || progress > 100) {
             throw new IllegalArgumentException("Progress must be between 0 and 100");
@@ -111,6 +143,23 @@ public class ProgressService {
         return progress.get().getProgress();
     }
     
+    /**
+     * Get the progress of a student in every course they have progress in, with one query.
+     * Courses without a progress record are left out.
+     * 
+     * @param studentId Student ID
+     * @return Progress percentage (0-100) by course ID
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(value = "courseProgressSnapshots", key = "#studentId")
+    public Map<Long, Double> getProgressByCourse(Long studentId) {
+        Map<Long, Double> progressByCourse = new HashMap<>();
+        for (Object[] row : progressRepository.findCourseProgressByStudentId(studentId)) {
+            progressByCourse.put((Long) row[0], (Double) row[1]);
+        }
+        return Map.copyOf(progressByCourse);
+    }
+    
     /**
      * Get student dashboard with progress metrics
      */
@@ -6,6 +6,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
@@ -18,10 +20,14 @@ import java.io.IOException;
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE + 10)
 @RequiredArgsConstructor
+@Slf4j
 public class DynamicPermissionFilter extends OncePerRequestFilter {
 
     private final SecurityEndpointService securityEndpointService;
 
+    @Value("${app.security.dynamic-permissions.enabled:true}")
+    private boolean dynamicPermissionsEnabled;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -48,9 +54,14 @@ public class DynamicPermissionFilter extends OncePerRequestFilter {
                     response.getWriter().write("Access denied: Admin role required");
                     return;
                 }
-            } 
-            //I removed the dynamic permission check here to avoid overriding @PreAuthorize
-            
+            } else if (dynamicPermissionsEnabled
+                    && !securityEndpointService.checkPermission(authentication, method, path)) {
+                // Rules are checked against the compiled endpoint matcher; @PreAuthorize still applies afterwards
+                log.debug("Access denied by endpoint permission rules: {} {}", method, path);
+                response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                response.getWriter().write("Access denied: Missing required permission");
+                return;
+            }
         }
         
         chain.doFilter(request, response);
@@ -62,22 +62,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
             
             if (StringUtils.hasText(jwt)) {
-                // Basic validation (signature, expiration)
-                if (tokenProvider.validateToken(jwt)) {
-                    log.debug("JWT is valid: {}", jwt);
-                    // Extract user info from token
-                  
-                    String tokenId = tokenProvider.getTokenIdFromToken(jwt);
-                
-                if (tokenId != null) {
+                // Signature, expiration and claims are verified once per token and then served from memory
+                VerifiedToken verifiedToken = tokenProvider.verifyToken(jwt);
+                if (verifiedToken != null) {
+                    String tokenId = verifiedToken.getTokenId();
                     log.debug("TokenId extracted from JWT: {}", tokenId);
-                    // Check if the token is still valid in the token store
+
+                    // Check the in-memory revocation index of the token store
                     boolean isValidToken = tokenStoreService.validateToken(tokenId);
-                    
+
                     if (isValidToken) {
                         log.debug("Token is valid in token store: {}", tokenId);
                         // Set authentication in security context
-                        Authentication auth = tokenProvider.getAuthentication(jwt);
+                        Authentication auth = verifiedToken.toAuthentication();
                         log.debug("Authorities set in SecurityContext: {}", auth.getAuthorities());
                         SecurityContextHolder.getContext().setAuthentication(auth);
                         log.debug("Set authentication in Security Context for path: {}", request.getRequestURI());
@@ -85,14 +82,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         log.debug("Token has been revoked or is invalid: {}", tokenId);
                     }
                 } else {
-                    log.debug("TokenId not found in JWT");
+                    log.debug("JWT validation failed");
                 }
             } else {
-                log.debug("JWT validation failed");
-            }
-        } else {
                 log.debug("No JWT found in request headers");
-        }
+            }
     } catch (Exception ex) {
         log.error("Could not set authentication in security context", ex);
     }
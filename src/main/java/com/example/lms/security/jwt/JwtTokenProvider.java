@@ -1,5 +1,8 @@
 package com.example.lms.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
@@ -26,6 +29,11 @@ import com.example.lms.user.repository.UserRepository;
 
 import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -46,8 +54,14 @@ public class JwtTokenProvider {
     @Value("${app.jwt.issuer:lms-application}")
     private String jwtIssuer;
 
+    @Value("${app.jwt.verified-cache.maximum-size:10000}")
+    private long verifiedCacheMaximumSize;
+
     private SecretKey jwtSecret;
 
+    // Verified tokens keyed by the SHA-256 digest of the compact JWT, each kept until it expires
+    private Cache<String, VerifiedToken> verifiedTokens;
+
     @Autowired
     private TokenStoreService tokenStoreService;
 
@@ -57,9 +71,32 @@ public class JwtTokenProvider {
     public void init() {
         // Initialize the JWT secret key from the configured secret string
         this.jwtSecret = Keys.hmacShaKeyFor(jwtSecretStr.getBytes());
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
         log.info("JWT Provider initialized with expiration: {} ms", jwtExpirationMs);
     }
 
+    private static long remainingNanos(VerifiedToken token) {
+        return Math.max(0, Duration.between(Instant.now(), token.getExpiresAt()).toNanos());
+    }
+
     /**
      * Generate a JWT token for an authenticated user with roles and permissions
      * 
@@ -133,8 +170,10 @@ public class JwtTokenProvider {
      * Extract user details from a token
      */
     public UserDetails getUserDetailsFromJWT(String token) {
-        Claims claims = parseToken(token);
+        return toUserDetails(parseToken(token));
+    }
 
+    private UserDetails toUserDetails(Claims claims) {
         String username = claims.getSubject();
 
         // Get roles and permissions from claims
@@ -200,6 +239,65 @@ public class JwtTokenProvider {
         return false;
     }
 
+    /**
+     * Verify a token and extract everything needed to authenticate a request.
+     * The signature is checked once per token; later calls with the same token
+     * are served from memory until the token expires. Revocation is not checked
+     * here, see {@link TokenStoreService#validateToken(String)}.
+     *
+     * @param token The JWT token
+     * @return The verified token, or null if the token is invalid
+     */
+    public VerifiedToken verifyToken(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokens.invalidate(digest);
+            return null;
+        }
+
+        try {
+            Claims claims = parseToken(token);
+
+            String tokenId = claims.get("tokenId", String.class);
+            if (tokenId == null) {
+                log.error("Token ID is missing in the token claims");
+                return null;
+            }
+
+            VerifiedToken verified = new VerifiedToken(tokenId, toUserDetails(claims),
+                    claims.getExpiration().toInstant());
+            verifiedTokens.put(digest, verified);
+            return verified;
+        } catch (SignatureException ex) {
+            log.error("Invalid JWT signature: {}", ex.getMessage());
+        } catch (MalformedJwtException ex) {
+            log.error("Malformed JWT token: {}", ex.getMessage());
+        } catch (ExpiredJwtException ex) {
+            log.error("Expired JWT token: {}", ex.getMessage());
+        } catch (UnsupportedJwtException ex) {
+            log.error("Unsupported JWT token: {}", ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            log.error("JWT claims string is empty: {}", ex.getMessage());
+        } catch (Exception ex) {
+            log.error("JWT validation error: {}", ex.getMessage());
+        }
+
+        return null;
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
     /**
      * Get authentication from token
      */
@@ -0,0 +1,30 @@
+package com.example.lms.security.jwt;
+
+import lombok.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Instant;
+
+/**
+ * Result of verifying a JWT once: the claims needed to authenticate
+ * the request, kept until the token expires.
+ */
+@Value
+public class VerifiedToken {
+    String tokenId;
+    UserDetails userDetails;
+    Instant expiresAt;
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+
+    /**
+     * Build a fresh authentication for the current request
+     */
+    public Authentication toAuthentication() {
+        return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.lms.security.matcher;
+
+import com.example.lms.security.model.SecurityEndpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable, pre-compiled lookup from (HTTP method, request path) to the permissions
+ * required by the most specific matching {@link SecurityEndpoint} pattern.
+ *
+ * Patterns use Ant-style syntax and are compiled into one path-segment trie per HTTP method.
+ * Each trie node has literal children plus wildcard children for partial segments
+ * ({@code foo*}, {@code {id:\d+}}), whole-segment wildcards ({@code *}, {@code {id}})
+ * and multi-segment wildcards ({@code **}). Instances are never modified after
+ * {@link #compile(List)}; callers swap in a new instance when the endpoints change.
+ */
+public final class EndpointPermissionMatcher {
+
+    private static final Pattern SEPARATOR = Pattern.compile("/");
+
+    private static final EndpointPermissionMatcher EMPTY = new EndpointPermissionMatcher(Collections.emptyMap());
+
+    private final Map<String, Node> roots;
+
+    private EndpointPermissionMatcher(Map<String, Node> roots) {
+        this.roots = roots;
+    }
+
+    public static EndpointPermissionMatcher empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compile the given endpoints. Endpoints whose permission is inactive are ignored.
+     *
+     * @param endpoints Security endpoints with their required permission loaded
+     * @return Compiled matcher
+     */
+    public static EndpointPermissionMatcher compile(List<SecurityEndpoint> endpoints) {
+        Map<String, Node> roots = new HashMap<>();
+        for (SecurityEndpoint endpoint : endpoints) {
+            if (endpoint.getRequiredPermission() == null || !endpoint.getRequiredPermission().isActive()) {
+                continue;
+            }
+            String method = endpoint.getHttpMethod().toUpperCase(Locale.ROOT);
+            Node node = roots.computeIfAbsent(method, m -> new Node());
+
+            Specificity specificity = new Specificity();
+            for (String segment : split(endpoint.getPathPattern())) {
+                node = node.child(segment, specificity);
+            }
+            node.addRule(new Rule(endpoint.getRequiredPermission().getName(), specificity));
+        }
+        return new EndpointPermissionMatcher(roots);
+    }
+
+    /**
+     * Find the permissions required for a request. When several patterns match, only the
+     * most specific ones count; a user needs any one of the returned permissions.
+     *
+     * @param httpMethod HTTP method of the request
+     * @param requestPath Request path
+     * @return Required permission names, or an empty set if no pattern matches
+     */
+    public Set<String> findRequiredPermissions(String httpMethod, String requestPath) {
+        Node root = roots.get(httpMethod.toUpperCase(Locale.ROOT));
+        if (root == null) {
+            return Collections.emptySet();
+        }
+
+        List<Rule> matches = new ArrayList<>();
+        root.collect(split(requestPath), 0, matches);
+        if (matches.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Specificity best = null;
+        Set<String> permissions = new LinkedHashSet<>();
+        for (Rule rule : matches) {
+            int comparison = best == null ? 1 : rule.specificity.compareTo(best);
+            if (comparison > 0) {
+                best = rule.specificity;
+                permissions.clear();
+                permissions.add(rule.permission);
+            } else if (comparison == 0) {
+                permissions.add(rule.permission);
+            }
+        }
+        return permissions;
+    }
+
+    public int size() {
+        return roots.values().stream().mapToInt(Node::ruleCount).sum();
+    }
+
+    private static String[] split(String path) {
+        return SEPARATOR.splitAsStream(path)
+                .filter(segment -> !segment.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final Map<String, PatternChild> partials = new HashMap<>();
+        private Node single;
+        private Node multi;
+        private final List<Rule> rules = new ArrayList<>(1);
+
+        Node child(String segment, Specificity specificity) {
+            if ("**".equals(segment)) {
+                specificity.multi++;
+                if (multi == null) {
+                    multi = new Node();
+                }
+                return multi;
+            }
+            if ("*".equals(segment) || isWholeVariable(segment)) {
+                specificity.single++;
+                if (single == null) {
+                    single = new Node();
+                }
+                return single;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                specificity.partial++;
+                specificity.literalChars += literalLength(segment);
+                return partials.computeIfAbsent(segment, s -> new PatternChild(toRegex(s))).node;
+            }
+            specificity.literal++;
+            specificity.literalChars += segment.length();
+            return literals.computeIfAbsent(segment, s -> new Node());
+        }
+
+        void addRule(Rule rule) {
+            rules.add(rule);
+        }
+
+        int ruleCount() {
+            int count = rules.size();
+            for (Node node : literals.values()) {
+                count += node.ruleCount();
+            }
+            for (PatternChild child : partials.values()) {
+                count += child.node.ruleCount();
+            }
+            if (single != null) {
+                count += single.ruleCount();
+            }
+            if (multi != null) {
+                count += multi.ruleCount();
+            }
+            return count;
+        }
+
+        void collect(String[] segments, int index, List<Rule> matches) {
+            if (index == segments.length) {
+                matches.addAll(rules);
+                // A trailing ** also matches zero remaining segments
+                if (multi != null) {
+                    multi.collect(segments, index, matches);
+                }
+                return;
+            }
+
+            String segment = segments[index];
+            Node literal = literals.get(segment);
+            if (literal != null) {
+                literal.collect(segments, index + 1, matches);
+            }
+            for (PatternChild child : partials.values()) {
+                if (child.pattern.matcher(segment).matches()) {
+                    child.node.collect(segments, index + 1, matches);
+                }
+            }
+            if (single != null) {
+                single.collect(segments, index + 1, matches);
+            }
+            if (multi != null) {
+                // ** consumes zero or more segments
+                for (int next = index; next <= segments.length; next++) {
+                    multi.collect(segments, next, matches);
+                }
+            }
+        }
+
+        private static boolean isWholeVariable(String segment) {
+            return segment.startsWith("{") && segment.endsWith("}")
+                    && segment.indexOf(':') < 0 && segment.indexOf('{', 1) < 0;
+        }
+
+        private static int literalLength(String segment) {
+            int length = 0;
+            int depth = 0;
+            for (char c : segment.toCharArray()) {
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                } else if (depth == 0 && c != '*' && c != '?') {
+                    length++;
+                }
+            }
+            return length;
+        }
+
+        private static Pattern toRegex(String segment) {
+            StringBuilder regex = new StringBuilder();
+            int i = 0;
+            while (i < segment.length()) {
+                char c = segment.charAt(i);
+                if (c == '*') {
+                    regex.append(".*");
+                    i++;
+                } else if (c == '?') {
+                    regex.append('.');
+                    i++;
+                } else if (c == '{') {
+                    int end = closingBrace(segment, i);
+                    if (end < 0) {
+                        regex.append(Pattern.quote(segment.substring(i)));
+                        break;
+                    }
+                    String variable = segment.substring(i + 1, end);
+                    int colon = variable.indexOf(':');
+                    regex.append('(').append(colon >= 0 ? variable.substring(colon + 1) : ".*").append(')');
+                    i = end + 1;
+                } else {
+                    int next = i;
+                    while (next < segment.length() && "*?{".indexOf(segment.charAt(next)) < 0) {
+                        next++;
+                    }
+                    regex.append(Pattern.quote(segment.substring(i, next)));
+                    i = next;
+                }
+            }
+            return Pattern.compile(regex.toString());
+        }
+
+        // Index of the brace closing the one at open, skipping braces nested in a regex such as
+        // {id:\d{1,5}}, or -1 if it is never closed
+        private static int closingBrace(String segment, int open) {
+            int depth = 0;
+            for (int i = open; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class PatternChild {
+        private final Pattern pattern;
+        private final Node node = new Node();
+
+        PatternChild(Pattern pattern) {
+            this.pattern = pattern;
+        }
+    }
+
+    private static final class Rule {
+        private final String permission;
+        private final Specificity specificity;
+
+        Rule(String permission, Specificity specificity) {
+            this.permission = permission;
+            this.specificity = specificity;
+        }
+    }
+
+    /**
+     * Ordering of patterns: more literal segments win, then partial wildcards, then
+     * whole-segment wildcards, then fewer multi-segment wildcards, then more literal characters.
+     */
+    private static final class Specificity implements Comparable<Specificity> {
+        private int literal;
+        private int partial;
+        private int single;
+        private int multi;
+        private int literalChars;
+
+        @Override
+        public int compareTo(Specificity other) {
+            if (literal != other.literal) {
+                return Integer.compare(literal, other.literal);
+            }
+            if (partial != other.partial) {
+                return Integer.compare(partial, other.partial);
+            }
+            if (single != other.single) {
+                return Integer.compare(single, other.single);
+            }
+            if (multi != other.multi) {
+                return Integer.compare(other.multi, multi);
+            }
+            return Integer.compare(literalChars, other.literalChars);
+        }
+    }
+}
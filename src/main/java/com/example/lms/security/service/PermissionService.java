@@ -15,6 +15,7 @@ import java.util.stream.Collectors;
 public class PermissionService {
     
     private final PermissionRepository permissionRepository;
+    private final SecurityEndpointService securityEndpointService;
     
     @Transactional(readOnly = true)
     public List<PermissionDTO> getAllPermissions() {
@@ -59,6 +60,8 @@ public class PermissionService {
         permission.setDescription(permissionDTO.getDescription());
         
         Permission updatedPermission = permissionRepository.save(permission);
+        // Endpoint rules reference permissions by name and active flag
+        securityEndpointService.rebuildMatcherAfterCommit();
         return mapToDto(updatedPermission);
     }
     
@@ -70,6 +73,8 @@ public class PermissionService {
         // Soft delete by setting active to false
         permission.setActive(false);
         permissionRepository.save(permission);
+        // Endpoint rules reference permissions by name and active flag
+        securityEndpointService.rebuildMatcherAfterCommit();
     }
     
     private PermissionDTO mapToDto(Permission permission) {
@@ -1,63 +1,109 @@
 package com.example.lms.security.service;
 
 import com.example.lms.security.dto.SecurityEndpointDTO;
+import com.example.lms.security.matcher.EndpointPermissionMatcher;
 import com.example.lms.security.model.Permission;
 import com.example.lms.security.model.SecurityEndpoint;
 import com.example.lms.security.repository.PermissionRepository;
 import com.example.lms.security.repository.SecurityEndpointRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.AntPathMatcher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class SecurityEndpointService {
     
     private final SecurityEndpointRepository securityEndpointRepository;
     private final PermissionRepository permissionRepository;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    // Compiled endpoint patterns; replaced as a whole whenever endpoints or permissions change
+    private volatile EndpointPermissionMatcher matcher;
     
-    @Transactional(readOnly = true)
+    /**
+     * Check whether the user may access a path. Only the most specific matching
+     * endpoint patterns count; paths matching no pattern are allowed. Served from
+     * the compiled in-memory matcher, so no database query is made per request.
+     */
     public boolean checkPermission(Authentication authentication, String httpMethod, String requestPath) {
-        // Get all endpoints for this HTTP method
-        List<SecurityEndpoint> endpoints = securityEndpointRepository.findByHttpMethod(httpMethod);
-        
-        // Default to true if no matching patterns (could also default to false)
-        boolean requiresPermission = false;
-        String requiredPermission = null;
-        
-        // Find the most specific matching endpoint
-        for (SecurityEndpoint endpoint : endpoints) {
-            // Skip inactive permissions
-            if (!endpoint.getRequiredPermission().isActive()) {
-                continue;
-            }
+        Set<String> requiredPermissions = getMatcher().findRequiredPermissions(httpMethod, requestPath);
 
-            if (pathMatcher.match(endpoint.getPathPattern(), requestPath)) {
-                requiresPermission = true;
-                requiredPermission = endpoint.getRequiredPermission().getName();
-                // Check if the user has the required permission
-                if (hasPermission(authentication, requiredPermission)) {
-                    return true;
+        // If no specific endpoint matches, allow access by default
+        if (requiredPermissions.isEmpty()) {
+            return true;
+        }
+
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(requiredPermissions::contains);
+    }
+
+    /**
+     * Recompile the endpoint matcher from the database and swap it in atomically
+     */
+    @Transactional(readOnly = true)
+    public void rebuildMatcher() {
+        EndpointPermissionMatcher compiled = EndpointPermissionMatcher.compile(securityEndpointRepository.findAll());
+        matcher = compiled;
+        log.debug("Compiled {} security endpoint patterns", compiled.size());
+    }
+
+    /**
+     * Rebuild the matcher periodically to pick up endpoint and permission changes made on
+     * other nodes
+     */
+    @Scheduled(fixedDelayString = "${app.security.dynamic-permissions.refresh-interval-ms:30000}",
+               initialDelayString = "${app.security.dynamic-permissions.refresh-interval-ms:30000}")
+    @Transactional(readOnly = true)
+    public void scheduledRebuild() {
+        try {
+            rebuildMatcher();
+        } catch (Exception e) {
+            log.error("Error rebuilding the security endpoint matcher", e);
+        }
+    }
+
+    /**
+     * Rebuild the matcher once the current transaction has committed, or immediately
+     * when no transaction is active
+     */
+    public void rebuildMatcherAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuildMatcher();
                 }
-            }
+            });
+        } else {
+            rebuildMatcher();
         }
-        
-        // If we found matching endpoints but user has none of the required permissions
-        if (requiresPermission) {
-            return false;
+    }
+
+    private EndpointPermissionMatcher getMatcher() {
+        EndpointPermissionMatcher current = matcher;
+        if (current == null) {
+            synchronized (this) {
+                if (matcher == null) {
+                    rebuildMatcher();
+                }
+                current = matcher;
+            }
         }
-        
-        // If no specific endpoint matches, allow access by default
-        return true;
+        return current;
     }
-    
+
     @Transactional(readOnly = true)
     public boolean hasAdminRole(Authentication authentication) {
         return authentication.getAuthorities().stream()
@@ -65,12 +111,6 @@ public class SecurityEndpointService {
                 .anyMatch(authority -> authority.equals("ROLE_ADMIN"));
     }
     
-    private boolean hasPermission(Authentication authentication, String permission) {
-        return authentication.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .anyMatch(authority -> authority.equals(permission));
-    }
-    
     @Transactional(readOnly = true)
     public List<SecurityEndpointDTO> getAllSecurityEndpoints() {
         return securityEndpointRepository.findAll().stream()
@@ -89,6 +129,7 @@ public class SecurityEndpointService {
         endpoint.setRequiredPermission(permission);
         
         SecurityEndpoint savedEndpoint = securityEndpointRepository.save(endpoint);
+        rebuildMatcherAfterCommit();
         return mapToDto(savedEndpoint);
     }
     
@@ -105,6 +146,7 @@ public class SecurityEndpointService {
         endpoint.setRequiredPermission(permission);
         
         SecurityEndpoint updatedEndpoint = securityEndpointRepository.save(endpoint);
+        rebuildMatcherAfterCommit();
         return mapToDto(updatedEndpoint);
     }
     
@@ -113,6 +155,7 @@ public class SecurityEndpointService {
         SecurityEndpoint endpoint = securityEndpointRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Security endpoint not found"));
         securityEndpointRepository.delete(endpoint);
+        rebuildMatcherAfterCommit();
     }
     
     private SecurityEndpointDTO mapToDto(SecurityEndpoint endpoint) {
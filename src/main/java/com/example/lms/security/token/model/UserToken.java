@@ -3,6 +3,7 @@ package com.example.lms.security.token.model;
 import com.example.lms.user.model.User;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -16,7 +17,7 @@ import com.example.lms.common.BaseEntity;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "user_tokens")
+@Table(name = "user_tokens", indexes = @Index(name = "idx_user_tokens_updated_at", columnList = "updated_at"))
 public class UserToken extends BaseEntity {
     
     @Column(nullable = false, unique = true)
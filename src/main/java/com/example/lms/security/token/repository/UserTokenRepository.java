@@ -3,8 +3,11 @@ package com.example.lms.security.token.repository;
 import com.example.lms.security.token.model.UserToken;
 import com.example.lms.user.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +16,18 @@ public interface UserTokenRepository extends JpaRepository<UserToken, Long> {
     List<UserToken> findByUser(User user);
     void deleteByExpiryDateBefore(Instant date);
     boolean existsByTokenIdAndRevokedFalse(String tokenId);
+
+    /**
+     * Token ids and expiry dates of revoked tokens that have not expired yet
+     */
+    @Query("SELECT t.tokenId, t.expiryDate FROM UserToken t WHERE t.revoked = true AND t.expiryDate > :now")
+    List<Object[]> findRevokedTokenIdsExpiringAfter(@Param("now") Instant now);
+
+    /**
+     * Token ids and expiry dates of revoked tokens updated after a point in time that have not
+     * expired yet
+     */
+    @Query("SELECT t.tokenId, t.expiryDate FROM UserToken t " +
+           "WHERE t.revoked = true AND t.updatedAt > :since AND t.expiryDate > :now")
+    List<Object[]> findRevokedTokenIdsUpdatedAfter(@Param("since") LocalDateTime since, @Param("now") Instant now);
 }
\ No newline at end of file
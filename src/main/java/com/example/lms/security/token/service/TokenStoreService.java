@@ -4,14 +4,21 @@ import com.example.lms.security.token.model.UserToken;
 import com.example.lms.security.token.repository.UserTokenRepository;
 import com.example.lms.user.model.User;
 import com.example.lms.user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
@@ -23,8 +30,20 @@ public class TokenStoreService {
     private final UserTokenRepository tokenRepository;
     private final UserRepository userRepository;
 
+    // Overlap of consecutive refreshes, covering transactions that commit after their update time
+    @Value("${app.jwt.revocation-refresh-lookback:PT2M}")
+    private Duration refreshLookback;
+
+    // Token ids known to be valid mapped to their expiry date, added as tokens are issued or
+    // first validated; expired entries are dropped on refresh
+    private final Map<String, Instant> validTokens = new ConcurrentHashMap<>();
+
+    // Revoked token ids mapped to their expiry date; expired entries are dropped on refresh
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+
+    // Update time up to which revocations were loaded; null until the first refresh
+    private LocalDateTime refreshedUpTo;
 
-    
     // Create a new token
     public UserToken createToken(User user, String userAgent, String ipAddress) {
         UserToken token = new UserToken();
@@ -34,42 +53,59 @@ public class TokenStoreService {
         token.setUserAgent(userAgent);
         token.setIpAddress(ipAddress);
         
-        return tokenRepository.save(token);
-    }
-    
-    // Validate a token
-    // Validate a token
-public boolean validateToken(String tokenId) {
-    if (tokenId == null || tokenId.isEmpty()) {
-        return false;
-    }
-    
-    Optional<UserToken> tokenOpt = tokenRepository.findByTokenId(tokenId);
-    if (tokenOpt.isEmpty()) {
-        return false;
+        UserToken saved = tokenRepository.save(token);
+        afterCommit(() -> validTokens.put(saved.getTokenId(), saved.getExpiryDate()));
+        return saved;
     }
     
-    UserToken token = tokenOpt.get();
-    
-    // Check if token is not revoked and not expired
-    boolean isValid = !token.isRevoked() && Instant.now().isBefore(token.getExpiryDate());
-    
-    if (!isValid) {
+    // Validate a token: it must be stored, unexpired and not revoked. Known tokens are checked
+    // in memory; unknown ids, such as tokens issued on another node or not validated on this
+    // one yet, fall back to user_tokens, so deleted and never-issued tokens are rejected.
+    public boolean validateToken(String tokenId) {
+        if (tokenId == null || tokenId.isEmpty()) {
+            return false;
+        }
+
+        Instant now = Instant.now();
+        Instant revokedUntil = revokedTokens.get(tokenId);
+        if (revokedUntil != null && now.isBefore(revokedUntil)) {
+            log.debug("Token {} was revoked", tokenId);
+            return false;
+        }
+
+        Instant expiryDate = validTokens.get(tokenId);
+        if (expiryDate != null) {
+            if (now.isBefore(expiryDate)) {
+                return true;
+            }
+            log.debug("Token {} expired at {}", tokenId, expiryDate);
+            return false;
+        }
+
+        Optional<UserToken> tokenOpt = tokenRepository.findByTokenId(tokenId);
+        if (tokenOpt.isEmpty()) {
+            log.debug("Token {} is unknown", tokenId);
+            return false;
+        }
+        UserToken token = tokenOpt.get();
         if (token.isRevoked()) {
             log.debug("Token {} was revoked", tokenId);
-        } else {
+            return false;
+        }
+        if (!now.isBefore(token.getExpiryDate())) {
             log.debug("Token {} expired at {}", tokenId, token.getExpiryDate());
+            return false;
         }
+        validTokens.put(tokenId, token.getExpiryDate());
+        return true;
     }
     
-    return isValid;
-}
-    
     // Revoke a specific token
     public void revokeToken(String tokenId) {
         tokenRepository.findByTokenId(tokenId).ifPresent(token -> {
             token.setRevoked(true);
             tokenRepository.save(token);
+            afterCommit(() -> markRevoked(token));
         });
     }
     
@@ -79,6 +115,28 @@ public boolean validateToken(String tokenId) {
         List<UserToken> tokens = tokenRepository.findByUser(user);
         tokens.forEach(token -> token.setRevoked(true));
         tokenRepository.saveAll(tokens);
+        afterCommit(() -> tokens.forEach(this::markRevoked));
+    }
+
+    // Pick up tokens revoked on other nodes. The first refresh loads every revocation that has
+    // not expired; later ones only read tokens updated since the previous refresh. Revocations
+    // are merged rather than swapped in, so a concurrent local revoke is never lost. Tokens are
+    // only deleted once expired, so valid tokens need no reload.
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-refresh-ms:30000}")
+    public synchronized void refreshRevokedTokens() {
+        Instant now = Instant.now();
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<Object[]> revoked = refreshedUpTo == null
+                ? tokenRepository.findRevokedTokenIdsExpiringAfter(now)
+                : tokenRepository.findRevokedTokenIdsUpdatedAfter(refreshedUpTo.minus(refreshLookback), now);
+        for (Object[] row : revoked) {
+            markRevoked((String) row[0], (Instant) row[1]);
+        }
+        refreshedUpTo = startedAt;
+        revokedTokens.values().removeIf(expiryDate -> !now.isBefore(expiryDate));
+        validTokens.values().removeIf(expiryDate -> !now.isBefore(expiryDate));
+        log.debug("Token index refreshed: {} newly revoked, {} valid, {} revoked tokens",
+                revoked.size(), validTokens.size(), revokedTokens.size());
     }
     
     // Clean up expired tokens
@@ -86,4 +144,27 @@ public boolean validateToken(String tokenId) {
     public void cleanupExpiredTokens() {
         tokenRepository.deleteByExpiryDateBefore(Instant.now());
     }
+
+    private void markRevoked(UserToken token) {
+        markRevoked(token.getTokenId(), token.getExpiryDate());
+    }
+
+    private void markRevoked(String tokenId, Instant expiryDate) {
+        revokedTokens.put(tokenId, expiryDate);
+        validTokens.remove(tokenId);
+    }
+
+    // Run once the current transaction commits, so a rolled-back change never reaches memory
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
\ No newline at end of file
@@ -23,6 +23,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Method to find a user by their email
     Optional<User> findByEmail(String email);
 
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
     // Custom method to check if an email is already registered
     boolean existsByEmail(String email);
 
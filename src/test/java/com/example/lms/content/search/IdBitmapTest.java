@@ -0,0 +1,144 @@
+package com.example.lms.content.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdBitmapTest {
+
+    @Test
+    void addsRemovesAndCountsIds() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(3);
+        bitmap.add(3);
+        bitmap.add(70_000);
+        bitmap.add(Integer.MAX_VALUE);
+
+        assertThat(bitmap.contains(3)).isTrue();
+        assertThat(bitmap.contains(4)).isFalse();
+        assertThat(bitmap.contains(70_000)).isTrue();
+        assertThat(bitmap.contains(Integer.MAX_VALUE)).isTrue();
+        assertThat(bitmap.cardinality()).isEqualTo(3);
+
+        bitmap.remove(70_000);
+        bitmap.remove(5);
+        assertThat(bitmap.contains(70_000)).isFalse();
+        assertThat(bitmap.cardinality()).isEqualTo(2);
+
+        bitmap.remove(3);
+        bitmap.remove(Integer.MAX_VALUE);
+        assertThat(bitmap.isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejectsNegativeIds() {
+        assertThatThrownBy(() -> new IdBitmap().add(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pagesInBothDirections() {
+        IdBitmap bitmap = bitmapOf(1, 5, 65_536, 65_540, 200_000);
+
+        assertThat(bitmap.page(0, 2, false)).containsExactly(1, 5);
+        assertThat(bitmap.page(2, 2, false)).containsExactly(65_536, 65_540);
+        assertThat(bitmap.page(4, 10, false)).containsExactly(200_000);
+        assertThat(bitmap.page(0, 3, true)).containsExactly(200_000, 65_540, 65_536);
+        assertThat(bitmap.page(3, 10, true)).containsExactly(5, 1);
+        assertThat(bitmap.page(5, 10, false)).isEmpty();
+        assertThat(bitmap.page(0, 0, false)).isEmpty();
+    }
+
+    @Test
+    void copyIsIndependent() {
+        IdBitmap bitmap = bitmapOf(1, 2);
+        IdBitmap copy = bitmap.copy();
+        copy.add(3);
+        bitmap.remove(1);
+
+        assertThat(bitmap.page(0, 10, false)).containsExactly(2);
+        assertThat(copy.page(0, 10, false)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void matchesASortedSetAcrossArrayAndBitmapContainers() {
+        Random random = new Random(42);
+        IdBitmap bitmap = new IdBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        // Dense enough for the first group to switch to a bitmap and back
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(6_000) + (random.nextInt(4) == 0 ? 65_536 * random.nextInt(3) : 0);
+            bitmap.add(id);
+            expected.add(id);
+        }
+        assertSame(bitmap, expected);
+
+        for (int i = 0; i < 15_000; i++) {
+            int id = random.nextInt(6_000);
+            bitmap.remove(id);
+            expected.remove(id);
+        }
+        assertSame(bitmap, expected);
+    }
+
+    @Test
+    void combinesBitmapsLikeSets() {
+        Random random = new Random(7);
+        for (int density : new int[]{100, 3_000, 10_000}) {
+            IdBitmap left = new IdBitmap();
+            IdBitmap right = new IdBitmap();
+            TreeSet<Integer> leftSet = new TreeSet<>();
+            TreeSet<Integer> rightSet = new TreeSet<>();
+            for (int i = 0; i < density; i++) {
+                int a = random.nextInt(140_000);
+                int b = random.nextInt(140_000);
+                left.add(a);
+                leftSet.add(a);
+                right.add(b);
+                rightSet.add(b);
+            }
+
+            TreeSet<Integer> both = new TreeSet<>(leftSet);
+            both.retainAll(rightSet);
+            TreeSet<Integer> either = new TreeSet<>(leftSet);
+            either.addAll(rightSet);
+
+            assertSame(left.and(right), both);
+            assertSame(right.and(left), both);
+            assertThat(left.andCardinality(right)).isEqualTo(both.size());
+            assertSame(left.or(right), either);
+            assertSame(right.or(left), either);
+            // Operands are left unchanged
+            assertSame(left, leftSet);
+            assertSame(right, rightSet);
+        }
+    }
+
+    private static IdBitmap bitmapOf(int... ids) {
+        IdBitmap bitmap = new IdBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    private static void assertSame(IdBitmap bitmap, TreeSet<Integer> expected) {
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        assertThat(bitmap.isEmpty()).isEqualTo(expected.isEmpty());
+        assertThat(bitmap.page(0, Integer.MAX_VALUE, false)).containsExactlyElementsOf(expected);
+        assertThat(bitmap.page(0, Integer.MAX_VALUE, true)).containsExactlyElementsOf(expected.descendingSet());
+
+        List<Integer> ordered = new ArrayList<>(expected);
+        int middle = ordered.size() / 2;
+        assertThat(bitmap.page(middle, 100, false))
+                .containsExactlyElementsOf(ordered.subList(middle, Math.min(middle + 100, ordered.size())));
+        for (int id : ordered) {
+            assertThat(bitmap.contains(id)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.lms.content.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SlidingTopKTest {
+
+    // One minute window of six ten-second slices
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+    private static final int SLICES = 6;
+
+    @Test
+    void ranksItemsAcrossSlices() {
+        SlidingTopK topK = new SlidingTopK(WINDOW, SLICES, 10);
+        topK.add(1, 0);
+        topK.add(2, 1_000);
+        topK.add(1, 15_000);
+        topK.add(1, 25_000);
+        topK.add(3, 25_000);
+        topK.add(3, 26_000);
+
+        assertThat(topK.top(10, 30_000)).containsExactly(
+                new SlidingTopK.Estimate(1, 3, 3, 3),
+                new SlidingTopK.Estimate(3, 2, 2, 2),
+                new SlidingTopK.Estimate(2, 1, 1, 1));
+        assertThat(topK.top(1, 30_000)).extracting(SlidingTopK.Estimate::item).containsExactly(1L);
+        assertThat(topK.total(30_000)).isEqualTo(6);
+    }
+
+    @Test
+    void breaksCountTiesByItem() {
+        SlidingTopK topK = new SlidingTopK(WINDOW, SLICES, 10);
+        topK.add(5, 0);
+        topK.add(4, 0);
+
+        assertThat(topK.top(10, 0)).extracting(SlidingTopK.Estimate::item).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void dropsSlicesOnceTheWindowMovesPast() {
+        SlidingTopK topK = new SlidingTopK(WINDOW, SLICES, 10);
+        topK.add(1, 0);
+        topK.add(2, 55_000);
+
+        assertThat(topK.top(10, 65_000)).extracting(SlidingTopK.Estimate::item).containsExactly(2L);
+        assertThat(topK.total(65_000)).isEqualTo(1);
+        assertThat(topK.top(10, 125_000)).isEmpty();
+        assertThat(topK.total(125_000)).isZero();
+    }
+
+    @Test
+    void reusesTheSlotOfAnExpiredSlice() {
+        SlidingTopK topK = new SlidingTopK(WINDOW, SLICES, 10);
+        topK.add(1, 0);
+        topK.add(2, 60_000);
+
+        assertThat(topK.top(10, 60_000)).containsExactly(new SlidingTopK.Estimate(2, 1, 1, 1));
+    }
+
+    @Test
+    void boundsItemsMissingFromAFullSlice() {
+        SlidingTopK topK = new SlidingTopK(WINDOW, SLICES, 1);
+        topK.add(1, 0);
+        topK.add(1, 0);
+        topK.add(2, 10_000);
+
+        // Each slice counts one item; an item missing from a slice may have been seen up to
+        // that slice's least count
+        assertThat(topK.top(10, 10_000)).containsExactly(
+                new SlidingTopK.Estimate(1, 2, 2, 3),
+                new SlidingTopK.Estimate(2, 1, 1, 3));
+    }
+
+    @Test
+    void rejectsNonPositiveSliceCount() {
+        assertThatThrownBy(() -> new SlidingTopK(WINDOW, 0, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.lms.content.trending;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyBelowCapacity() {
+        SpaceSaving summary = new SpaceSaving(3);
+        summary.add(1);
+        summary.add(1);
+        summary.add(2);
+
+        assertThat(summary.get(1)).isEqualTo(new SpaceSaving.Entry(1, 2, 0));
+        assertThat(summary.get(2)).isEqualTo(new SpaceSaving.Entry(2, 1, 0));
+        assertThat(summary.get(3)).isNull();
+        assertThat(summary.total()).isEqualTo(3);
+        assertThat(summary.minCount()).isZero();
+        assertThat(summary.entries()).extracting(SpaceSaving.Entry::item).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void newItemTakesOverLeastCountedCounter() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add(1);
+        summary.add(1);
+        summary.add(1);
+        summary.add(2);
+        summary.add(3);
+
+        assertThat(summary.get(2)).isNull();
+        assertThat(summary.get(3)).isEqualTo(new SpaceSaving.Entry(3, 2, 1));
+        assertThat(summary.minCount()).isEqualTo(2);
+        assertThat(summary.entries()).containsExactly(
+                new SpaceSaving.Entry(1, 3, 0),
+                new SpaceSaving.Entry(3, 2, 1));
+    }
+
+    @Test
+    void keepsHeavyHittersWithinTheirErrorBounds() {
+        SpaceSaving summary = new SpaceSaving(10);
+        long heavyCount = 0;
+        for (int i = 0; i < 1000; i++) {
+            summary.add(1000 + i);
+            if (i % 5 == 0) {
+                summary.add(7);
+                heavyCount++;
+            }
+        }
+
+        // 200 of 1200 events is above total / capacity, so the item must be counted
+        SpaceSaving.Entry heavy = summary.get(7);
+        assertThat(heavy).isNotNull();
+        assertThat(heavy.count()).isGreaterThanOrEqualTo(heavyCount);
+        assertThat(heavy.count() - heavy.error()).isLessThanOrEqualTo(heavyCount);
+        assertThat(summary.entries()).hasSize(10);
+        assertThat(summary.entries().get(0).item()).isEqualTo(7);
+    }
+
+    @Test
+    void clearResetsTheSummary() {
+        SpaceSaving summary = new SpaceSaving(1);
+        summary.add(1);
+        summary.add(2);
+        summary.clear();
+
+        assertThat(summary.isEmpty()).isTrue();
+        assertThat(summary.total()).isZero();
+        assertThat(summary.entries()).isEmpty();
+        assertThat(summary.minCount()).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new SpaceSaving(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.lms.course.prerequisite;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class PrerequisiteGraphTest {
+
+    // 3 requires 2, which requires 1; 4 has no prerequisites
+    private static PrerequisiteGraph chain() {
+        return new PrerequisiteGraph(List.of(1L, 2L, 3L, 4L), List.of(
+                new PrerequisiteGraph.Edge(2, 1),
+                new PrerequisiteGraph.Edge(3, 2)));
+    }
+
+    @Test
+    void computesTransitivePrerequisites() {
+        PrerequisiteGraph graph = chain();
+
+        assertThat(graph.getAllPrerequisites(3)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(graph.getAllPrerequisites(2)).containsExactly(1L);
+        assertThat(graph.getAllPrerequisites(1)).isEmpty();
+        assertThat(graph.getAllPrerequisites(99)).isEmpty();
+        assertThat(graph.getRejectedEdges()).isEmpty();
+        assertThat(graph.size()).isEqualTo(4);
+    }
+
+    @Test
+    void rejectsEdgesClosingACycleWhenBuilding() {
+        PrerequisiteGraph graph = new PrerequisiteGraph(List.of(1L, 2L, 3L), List.of(
+                new PrerequisiteGraph.Edge(1, 2),
+                new PrerequisiteGraph.Edge(2, 3),
+                new PrerequisiteGraph.Edge(3, 1)));
+
+        assertThat(graph.getRejectedEdges()).hasSize(1);
+        for (long courseId = 1; courseId <= 3; courseId++) {
+            assertThat(graph.getAllPrerequisites(courseId)).doesNotContain(courseId);
+        }
+    }
+
+    @Test
+    void detectsCyclesBeforeChangingPrerequisites() {
+        PrerequisiteGraph graph = chain();
+
+        assertThat(graph.wouldCreateCycle(1, List.of(3L))).isTrue();
+        assertThat(graph.wouldCreateCycle(1, List.of(1L))).isTrue();
+        assertThat(graph.wouldCreateCycle(3, List.of(1L, 4L))).isFalse();
+
+        assertThatThrownBy(() -> graph.setPrerequisites(1, List.of(4L, 3L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("course 1");
+        assertThatThrownBy(() -> graph.checkPrerequisites(1, List.of(2L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("course 1");
+        graph.checkPrerequisites(7, List.of(3L));
+        assertThat(graph.size()).isEqualTo(4);
+        assertThat(graph.getAllPrerequisites(1)).isEmpty();
+        assertThat(graph.getAllPrerequisites(3)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void updatesDependentsWhenPrerequisitesChange() {
+        PrerequisiteGraph graph = chain();
+
+        graph.setPrerequisites(2, List.of(5L));
+        assertThat(graph.getAllPrerequisites(2)).containsExactly(5L);
+        assertThat(graph.getAllPrerequisites(3)).containsExactlyInAnyOrder(2L, 5L);
+
+        graph.setPrerequisites(6, List.of(3L, 4L));
+        assertThat(graph.getAllPrerequisites(6)).containsExactlyInAnyOrder(2L, 3L, 4L, 5L);
+        assertThat(graph.size()).isEqualTo(6);
+
+        graph.setPrerequisites(5, List.of(1L));
+        assertThat(graph.getAllPrerequisites(6)).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void checksCompletedCourses() {
+        PrerequisiteGraph graph = chain();
+        BitSet completed = new BitSet();
+        completed.set(PrerequisiteGraph.toIndex(1));
+
+        assertThat(graph.getMissingPrerequisites(3, completed)).containsExactly(2L);
+        assertThat(graph.getMissingPrerequisites(2, completed)).isEmpty();
+        assertThat(graph.getMissingPrerequisites(99, completed)).isEmpty();
+
+        Map<Long, Boolean> eligibility = graph.getEligibility(List.of(3L, 2L, 99L), completed);
+        assertThat(eligibility).containsExactly(entry(3L, false), entry(2L, true), entry(99L, false));
+
+        assertThat(graph.getEligibleCourses(completed)).containsExactly(2L, 4L);
+    }
+}
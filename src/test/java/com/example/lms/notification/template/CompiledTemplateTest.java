@@ -0,0 +1,59 @@
+package com.example.lms.notification.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTemplateTest {
+
+    @Test
+    void rendersPlaceholdersInOrder() {
+        CompiledTemplate template = CompiledTemplate.compile("Hi {{name}}, {{course}} starts {{date}}. Bye {{name}}");
+
+        assertThat(template.getPlaceholderNames()).containsExactly("name", "course", "date", "name");
+        assertThat(template.render(Map.of("name", "Ann", "course", "Math", "date", "today")))
+                .isEqualTo("Hi Ann, Math starts today. Bye Ann");
+    }
+
+    @Test
+    void keepsPlaceholdersWithoutAValue() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", null);
+        CompiledTemplate template = CompiledTemplate.compile("{{name}}|{{other}}");
+
+        assertThat(template.render(values)).isEqualTo("|{{other}}");
+    }
+
+    @Test
+    void usesTheInnermostOpeningBraces() {
+        CompiledTemplate nested = CompiledTemplate.compile("{{a {{b}} c}}");
+        assertThat(nested.getPlaceholderNames()).containsExactly("b");
+        assertThat(nested.render(Map.of("b", "B"))).isEqualTo("{{a B c}}");
+
+        CompiledTemplate tripled = CompiledTemplate.compile("{{{x}}}");
+        assertThat(tripled.getPlaceholderNames()).containsExactly("x");
+        assertThat(tripled.render(Map.of("x", 1))).isEqualTo("{1}");
+    }
+
+    @Test
+    void keepsUnclosedBracesAsText() {
+        CompiledTemplate unclosed = CompiledTemplate.compile("Due {{date");
+        assertThat(unclosed.getPlaceholderNames()).isEmpty();
+        assertThat(unclosed.render(Map.of("date", "today"))).isEqualTo("Due {{date");
+
+        CompiledTemplate trailing = CompiledTemplate.compile("{{a}} and {{b");
+        assertThat(trailing.getPlaceholderNames()).containsExactly("a");
+        assertThat(trailing.render(Map.of("a", "A", "b", "B"))).isEqualTo("A and {{b");
+
+        assertThat(CompiledTemplate.compile("}} {{").render(Map.of())).isEqualTo("}} {{");
+    }
+
+    @Test
+    void compilesNullAsNull() {
+        assertThat(CompiledTemplate.compile(null)).isNull();
+        assertThat(CompiledTemplate.compile("").render(Map.of())).isEmpty();
+    }
+}
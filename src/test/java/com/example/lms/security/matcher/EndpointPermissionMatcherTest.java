@@ -0,0 +1,117 @@
+package com.example.lms.security.matcher;
+
+import com.example.lms.security.model.Permission;
+import com.example.lms.security.model.SecurityEndpoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EndpointPermissionMatcherTest {
+
+    @Test
+    void emptyMatcherRequiresNothing() {
+        assertThat(EndpointPermissionMatcher.empty().findRequiredPermissions("GET", "/api/courses")).isEmpty();
+        assertThat(EndpointPermissionMatcher.empty().size()).isZero();
+    }
+
+    @Test
+    void matchesLiteralPathsPerMethod() {
+        EndpointPermissionMatcher matcher = EndpointPermissionMatcher.compile(List.of(
+                endpoint("GET", "/api/courses", "COURSE_READ"),
+                endpoint("POST", "/api/courses", "COURSE_CREATE")));
+
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses")).containsExactly("COURSE_READ");
+        assertThat(matcher.findRequiredPermissions("post", "/api/courses/")).containsExactly("COURSE_CREATE");
+        assertThat(matcher.findRequiredPermissions("DELETE", "/api/courses")).isEmpty();
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/1")).isEmpty();
+        assertThat(matcher.size()).isEqualTo(2);
+    }
+
+    @Test
+    void mostSpecificPatternWins() {
+        EndpointPermissionMatcher matcher = EndpointPermissionMatcher.compile(List.of(
+                endpoint("GET", "/api/**", "API_READ"),
+                endpoint("GET", "/api/courses/**", "COURSE_READ"),
+                endpoint("GET", "/api/courses/{id}", "COURSE_VIEW"),
+                endpoint("GET", "/api/courses/{id:\\d+}", "COURSE_VIEW_BY_ID"),
+                endpoint("GET", "/api/courses/stats", "COURSE_STATS")));
+
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/stats")).containsExactly("COURSE_STATS");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/42")).containsExactly("COURSE_VIEW_BY_ID");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/intro")).containsExactly("COURSE_VIEW");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/42/modules")).containsExactly("COURSE_READ");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/users")).containsExactly("API_READ");
+    }
+
+    @Test
+    void multiSegmentWildcardMatchesZeroOrMoreSegments() {
+        EndpointPermissionMatcher matcher = EndpointPermissionMatcher.compile(List.of(
+                endpoint("GET", "/api/departments/**", "DEPARTMENT_READ"),
+                endpoint("GET", "/files/**/download", "FILE_DOWNLOAD")));
+
+        assertThat(matcher.findRequiredPermissions("GET", "/api/departments")).containsExactly("DEPARTMENT_READ");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/departments/1/courses")).containsExactly("DEPARTMENT_READ");
+        assertThat(matcher.findRequiredPermissions("GET", "/files/download")).containsExactly("FILE_DOWNLOAD");
+        assertThat(matcher.findRequiredPermissions("GET", "/files/a/b/download")).containsExactly("FILE_DOWNLOAD");
+        assertThat(matcher.findRequiredPermissions("GET", "/files/a/b")).isEmpty();
+    }
+
+    @Test
+    void partialSegmentWildcards() {
+        EndpointPermissionMatcher matcher = EndpointPermissionMatcher.compile(List.of(
+                endpoint("GET", "/api/reports/*.pdf", "REPORT_PDF"),
+                endpoint("GET", "/api/reports/v?", "REPORT_VERSION"),
+                endpoint("GET", "/api/reports/*", "REPORT_READ")));
+
+        assertThat(matcher.findRequiredPermissions("GET", "/api/reports/summary.pdf")).containsExactly("REPORT_PDF");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/reports/v2")).containsExactly("REPORT_VERSION");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/reports/v10")).containsExactly("REPORT_READ");
+    }
+
+    @Test
+    void variableRegexMayContainBraces() {
+        EndpointPermissionMatcher matcher = EndpointPermissionMatcher.compile(List.of(
+                endpoint("GET", "/api/courses/{id:\\d{1,5}}", "COURSE_VIEW_BY_ID"),
+                endpoint("GET", "/api/courses/v{major:\\d{1,2}}.{minor}", "COURSE_VERSION"),
+                endpoint("GET", "/api/courses/*", "COURSE_READ")));
+
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/42")).containsExactly("COURSE_VIEW_BY_ID");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/123456")).containsExactly("COURSE_READ");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/v12.3")).containsExactly("COURSE_VERSION");
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses/v123.3")).containsExactly("COURSE_READ");
+    }
+
+    @Test
+    void equallySpecificPatternsRequireAnyOfTheirPermissions() {
+        EndpointPermissionMatcher matcher = EndpointPermissionMatcher.compile(List.of(
+                endpoint("PUT", "/api/courses/{id}", "COURSE_UPDATE"),
+                endpoint("PUT", "/api/courses/*", "COURSE_ADMIN")));
+
+        assertThat(matcher.findRequiredPermissions("PUT", "/api/courses/7"))
+                .containsExactlyInAnyOrder("COURSE_UPDATE", "COURSE_ADMIN");
+    }
+
+    @Test
+    void ignoresInactivePermissions() {
+        SecurityEndpoint inactive = endpoint("GET", "/api/courses", "COURSE_READ");
+        inactive.getRequiredPermission().setActive(false);
+        EndpointPermissionMatcher matcher = EndpointPermissionMatcher.compile(List.of(
+                inactive,
+                endpoint("GET", "/api/**", "API_READ")));
+
+        assertThat(matcher.findRequiredPermissions("GET", "/api/courses")).containsExactly("API_READ");
+        assertThat(matcher.size()).isEqualTo(1);
+    }
+
+    private static SecurityEndpoint endpoint(String method, String pattern, String permissionName) {
+        Permission permission = new Permission();
+        permission.setName(permissionName);
+        SecurityEndpoint endpoint = new SecurityEndpoint();
+        endpoint.setHttpMethod(method);
+        endpoint.setPathPattern(pattern);
+        endpoint.setRequiredPermission(permission);
+        return endpoint;
+    }
+}